@@ -1,6 +1,9 @@
 # -*- coding: utf-8 -*-
 
 import os
+import struct
+import sys
+import traceback
 import click
 import pandas as pd
 
@@ -49,7 +52,8 @@ def scuc(data, output, solver):
 @click.option('--data', default=None, type=click.Path(), help='Path to model data')
 @click.option('--output', default='./output.dat', type=click.Path(), help='Path to output file')
 @click.option('--solver', default=SOLVER, help='Solver')
-def sced(uc, data, output, solver):
+@click.option('--format', 'fmt', default='text', type=click.Choice(['text', 'binary']), help='Format of the output file')
+def sced(uc, data, output, solver, fmt):
 
     click.echo("Running SCED using PSST")
 
@@ -62,6 +66,10 @@ def sced(uc, data, output, solver):
     model = build_model(c)
     model.solve(solver=solver)
 
+    if fmt == 'binary':
+        _write_binary_sced(model, output.strip("'"))
+        return
+
     with open(output.strip("'"), 'w') as f:
         f.write("LMP\n")
         for h, r in model.results.lmp.iterrows():
@@ -105,5 +113,114 @@ def sced(uc, data, output, solver):
         f.write("\nEND_HAS_SOLUTION\n")
 
 
+def _write_binary_sced(model, output):
+    """Write the SCED results in the binary layout read by
+    amesmarket.extern.psst.SCEDResultFile: little-endian header, GenCo
+    names, then double blocks for the LMPs, voltage angles and GenCo
+    results, and the hasSolution markers."""
+    instance = model._model
+    periods = list(instance.TimePeriods)
+    generators = list(instance.Generators.value)
+    lmp = model.results.lmp
+    num_buses = len(lmp.columns)
+    max_hour = 24  # FIXME: Hard-coded number of hours, as in the text format.
+
+    with open(output, 'wb') as f:
+        f.write(b'PSSTSCED')
+        f.write(struct.pack('<5i', 1, len(periods), num_buses, len(generators), max_hour))
+        for g in generators:
+            name = str(g).encode('utf-8')
+            f.write(struct.pack('<i', len(name)))
+            f.write(name)
+        f.write(b'\0' * (-f.tell() % 8))
+
+        values = []
+        for _, r in lmp.iterrows():
+            values.extend(0.0 if v is None else float(v) for v in r)
+        f.write(struct.pack('<%dd' % len(values), *values))
+
+        # Buses are named Bus1..BusK, column k is Bus(k+1).
+        angles = [[0.0] * num_buses for _ in periods]
+        for bus in instance.Buses:
+            for i, t in enumerate(periods):
+                angles[i][int(str(bus)[3:]) - 1] = _value(instance.Angle[bus, t].value)
+        for row in angles:
+            f.write(struct.pack('<%dd' % num_buses, *row))
+
+        for g in generators:
+            for var in (instance.PowerGenerated, instance.ProductionCost,
+                        instance.StartupCost, instance.ShutdownCost):
+                f.write(struct.pack('<%dd' % len(periods), *[_value(var[g, t].value) for t in periods]))
+
+        # FIXME: Hard-coded every hour has a solution.
+        f.write(struct.pack('<%di' % max_hour, *([1] * max_hour)))
+
+
+def _value(v):
+    return 0.0 if v is None else float(v)
+
+
+@cli.command()
+def worker():
+    """Serve scuc/sced requests from stdin until QUIT or end of input.
+
+    Keeps one interpreter (and the imported solver stack) alive for many
+    solves. The protocol is one tab-separated line per request:
+
+        PING                     -> PONG
+        RUN <cwd> <arg> <arg>... -> DONE <exit code>
+        QUIT
+
+    READY is written once at start up. Output of the commands themselves
+    goes to stderr so that stdout only carries the protocol. The protocol
+    gets its own copy of the stdout file descriptor and fd 1 is pointed at
+    stderr, so that solver subprocesses writing to fd 1 can not corrupt it.
+    """
+    sys.stdout.flush()
+    out = os.fdopen(os.dup(1), 'w')
+    os.dup2(2, 1)
+
+    def reply(line):
+        out.write(line + "\n")
+        out.flush()
+
+    reply("READY")
+    for line in iter(sys.stdin.readline, ''):
+        fields = line.rstrip("\r\n").split("\t")
+        if fields[0] == "PING":
+            reply("PONG")
+        elif fields[0] == "QUIT":
+            break
+        elif fields[0] == "RUN" and len(fields) > 2 and fields[2] != "worker":
+            reply("DONE %d" % _run(fields[1], fields[2:]))
+        else:
+            reply("ERR unknown request %s" % fields[0])
+
+
+def _run(cwd, args):
+    stdout = sys.stdout
+    previous_cwd = os.getcwd()
+    sys.stdout = sys.stderr
+    try:
+        os.chdir(cwd)
+        cli.main(args=args, prog_name='psst', standalone_mode=False)
+        return 0
+    except click.ClickException as e:
+        e.show()
+        return e.exit_code
+    except click.Abort:
+        return 1
+    except SystemExit as e:
+        if e.code is None:
+            return 0
+        return e.code if isinstance(e.code, int) else 1
+    except Exception:
+        traceback.print_exc()
+        return 1
+    finally:
+        sys.stdout = stdout
+        os.chdir(previous_cwd)
+
+
 if __name__ == "__main__":
     cli()
@@ -50,9 +50,11 @@ import java.io.IOException;
 import java.text.DateFormat;
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
+import java.util.List;
 import java.util.Date;
 import java.util.Map;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
 import java.util.logging.Level;
 
 import javax.swing.BorderFactory;
@@ -79,6 +81,7 @@ import AMESGUIFrame.datacontrols.WizardBuilderException;
 import Output.SplitChart;
 import Output.SplitTable;
 import amesmarket.AMESMarket;
+import amesmarket.AsyncStatusListener;
 import amesmarket.CaseFileData;
 import amesmarket.CaseFileData.GenData;
 import amesmarket.CaseFileData.SCUCInputData;
@@ -2591,55 +2594,55 @@ public class AMESFrame  extends JFrame implements SimulationStatusListener {
 			String [] nodeName=this.getNodeNameData( );
 			int iNodeNumber=nodeName.length;
 
-			ArrayList LMPWithTrueCost=this.getAMESMarket().getLMPWithTrueCost();
+			List LMPWithTrueCost=this.getAMESMarket().getLMPWithTrueCost();
 			int iLMPWithTrueCost=LMPWithTrueCost.size();
 
-			ArrayList genAgentProfitWithTrueCost=this.getAMESMarket().getGenAgentProfitAndNetGainWithTrueCost();
+			List genAgentProfitWithTrueCost=this.getAMESMarket().getGenAgentProfitAndNetGainWithTrueCost();
 			int igenAgentProfitWithTrueCost=genAgentProfitWithTrueCost.size();
 
-			ArrayList genAgentCommitmentWithTrueCost=this.getAMESMarket().getGenAgentCommitmentWithTrueCost();
+			List genAgentCommitmentWithTrueCost=this.getAMESMarket().getGenAgentCommitmentWithTrueCost();
 			int igenAgentCommitmentWithTrueCost=genAgentCommitmentWithTrueCost.size();
 
-			ArrayList lseAgentPriceSensitiveDemandWithTrueCost=this.getAMESMarket().getLSEAgentPriceSensitiveDemandWithTrueCost();
+			List lseAgentPriceSensitiveDemandWithTrueCost=this.getAMESMarket().getLSEAgentPriceSensitiveDemandWithTrueCost();
 			int ilseAgentPriceSensitiveDemandWithTrueCost=lseAgentPriceSensitiveDemandWithTrueCost.size();
 
-			ArrayList LSEAgentSurplusWithTrueCost=this.getAMESMarket().getLSEAgentSurplusWithTrueCost();
+			List LSEAgentSurplusWithTrueCost=this.getAMESMarket().getLSEAgentSurplusWithTrueCost();
 			int iLSEAgentSurplusWithTrueCost=LSEAgentSurplusWithTrueCost.size();
 
-			ArrayList hasSolutionByDay=this.getAMESMarket().getHasSolutionByDay();
+			List hasSolutionByDay=this.getAMESMarket().getHasSolutionByDay();
 			int ihasSolutionByDay=hasSolutionByDay.size();
 
-			ArrayList genAgentSupplyOfferByDay=this.getAMESMarket().getGenAgentSupplyOfferByDay();
+			List genAgentSupplyOfferByDay=this.getAMESMarket().getGenAgentSupplyOfferByDay();
 			int igenAgentSupplyOfferByDay=genAgentSupplyOfferByDay.size();
 
-			ArrayList genAgentCommitmentByDay=this.getAMESMarket().getGenAgentCommitmentByDay();
+			List genAgentCommitmentByDay=this.getAMESMarket().getGenAgentCommitmentByDay();
 			int igenAgentCommitmentByDay=genAgentCommitmentByDay.size();
 
-			ArrayList genAgentRealTimeCommitmentByDay=this.getAMESMarket().getGenAgentRealTimeCommitmentByDay();
+			List genAgentRealTimeCommitmentByDay=this.getAMESMarket().getGenAgentRealTimeCommitmentByDay();
 			int igenAgentRealTimeCommitmentByDay=genAgentRealTimeCommitmentByDay.size();
 
-			ArrayList realTimeBranchFlowByDay=this.getAMESMarket().getRealTimeBranchFlowByDay();
+			List realTimeBranchFlowByDay=this.getAMESMarket().getRealTimeBranchFlowByDay();
 			int irealTimeBranchFlowByDay=realTimeBranchFlowByDay.size();
 
-			ArrayList genAgentProfitAndNetGainByDay=this.getAMESMarket().getGenAgentProfitAndNetGainByDay();
+			List genAgentProfitAndNetGainByDay=this.getAMESMarket().getGenAgentProfitAndNetGainByDay();
 			int igenAgentProfitAndNetGainByDay=genAgentProfitAndNetGainByDay.size();
 
-			ArrayList getGenAgentActionPropensityAndProbilityByDay=this.getAMESMarket().getGenAgentActionPropensityAndProbilityByDay();
+			List getGenAgentActionPropensityAndProbilityByDay=this.getAMESMarket().getGenAgentActionPropensityAndProbilityByDay();
 			int igetGenAgentActionPropensityAndProbilityByDay=getGenAgentActionPropensityAndProbilityByDay.size();
 
-			ArrayList lseAgentSurplusByDay=this.getAMESMarket().getLSEAgentSurplusByDay();
+			List lseAgentSurplusByDay=this.getAMESMarket().getLSEAgentSurplusByDay();
 			int ilseAgentSurplusByDay=lseAgentSurplusByDay.size();
 
-			ArrayList priceSensitiveByDay=this.getAMESMarket().getLSEAgenPriceSensitiveDemandByDay();
+			List priceSensitiveByDay=this.getAMESMarket().getLSEAgenPriceSensitiveDemandByDay();
 			int ipriceSensitiveByDay=priceSensitiveByDay.size();
 
-			ArrayList branchFlowByDay=this.getAMESMarket().getBranchFlowByDay();
+			List branchFlowByDay=this.getAMESMarket().getBranchFlowByDay();
 			int ibranchFlowByDay=branchFlowByDay.size();
 
-			ArrayList LMPByDay=this.getAMESMarket().getLMPByDay();
+			List LMPByDay=this.getAMESMarket().getLMPByDay();
 			int iLMPByDay=LMPByDay.size();
 
-			ArrayList realTimeLMPByDay=this.getAMESMarket().getRealTimeLMPByDay();
+			List realTimeLMPByDay=this.getAMESMarket().getRealTimeLMPByDay();
 			int iRealTimeLMPByDay=realTimeLMPByDay.size();
 
 			ArrayList genAction=this.getAMESMarket().getGenActions();
@@ -4063,8 +4066,11 @@ public class AMESFrame  extends JFrame implements SimulationStatusListener {
 				);
 
 		this.amesMarket = new AMESMarket(delIntermediateFiles);
-		this.amesMarket.addStatusListener(this.simStatusFrame);
-		this.amesMarket.addStatusListener(this);
+		//update the frames on the event queue, not the simulation thread.
+		this.amesMarket.addStatusListener(
+				new AsyncStatusListener(this.simStatusFrame, EVENT_QUEUE));
+		this.amesMarket.addStatusListener(new AsyncStatusListener(this, EVENT_QUEUE),
+				StatusEvent.UPDATE_DAY, StatusEvent.UPDATE_HOUR);
 
 		double [][] bus=new double[1][2];
 		bus[0][0]=Support.parseDouble(this.nodeData[0][0].toString());
@@ -4757,6 +4763,16 @@ public class AMESFrame  extends JFrame implements SimulationStatusListener {
 
 	private static AMESFrame mainFrameWindow;             // The application window
 
+	/**
+	 * Runs the status listeners on the AWT event queue.
+	 */
+	private static final Executor EVENT_QUEUE = new Executor() {
+		@Override
+		public void execute(Runnable r) {
+			SwingUtilities.invokeLater(r);
+		}
+	};
+
 	private SimulationStatusFrame simStatusFrame = new SimulationStatusFrame();
 
 	private JMenuBar menuBar=new JMenuBar();     // Window menu bar
@@ -10,11 +10,12 @@ import java.text.DecimalFormat;
 import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.List;
-import java.util.Map;
 import java.util.Set;
 
 import amesmarket.AMESMarket;
 import amesmarket.GenAgent;
+import amesmarket.IntByDay;
+import amesmarket.results.ResultList;
 
 /**
  * A class to contain all of the 'write out the data' logic.
@@ -63,16 +64,16 @@ public class MarketResultsWriter {
         out.write(sb.toString());
 
         for( GenAgent ga : ames.getGenAgentList() ) {
-            Map<Integer, int[]> cds = ga.getCommitmentDecisions();
+            IntByDay cds = ga.getCommitmentDecisions();
             for(int d = 0; d <= ames.DAY_MAX; d++) {
                 sb = new StringBuilder(); //zero out the stringbuilder.
                 sb.append(ga.getID()); sb.append(COL_SEP);
-                int[] cd = cds.get(d);
-                if(cd != null) {
+                if(cds.has(d)) {
+                    int numHours = cds.length(d);
                     sb.append(d); sb.append(COL_SEP);
-                    for(int h = 0; h<cd.length; h++) {
-                        sb.append(cd[h]);
-                        if(h < cd.length - 1)
+                    for(int h = 0; h<numHours; h++) {
+                        sb.append(cds.get(d, h));
+                        if(h < numHours - 1)
                             sb.append("\t");
                     }
                     sb.append("\n");
@@ -91,7 +92,7 @@ public class MarketResultsWriter {
         if(amesMarket.getActualStartupCostsByDay().size() > 0){
             StringBuilder sb = new StringBuilder();
 
-            int d = 2; //start at 2,  rtm did run on day 1.
+            int d = 2 + amesMarket.getActualStartupCostsByDay().getEvicted(); //start at 2,  rtm did run on day 1.
             for (double[][] costs : amesMarket.getActualStartupCostsByDay()) {
                 //concat the strings as a hack to curry formatting the day and hour.
                 String prefix = String.format("%1$5d", d) + "\t%1$5d";
@@ -115,7 +116,7 @@ public class MarketResultsWriter {
         out.write(rtCostsLabel);
         if(amesMarket.getActualShutdownCostsByDay().size() > 0) {
             StringBuilder sb = new StringBuilder();
-            int d = 2;
+            int d = 2 + amesMarket.getActualShutdownCostsByDay().getEvicted();
             for (double[][] costs : amesMarket.getActualShutdownCostsByDay()) {
                 String prefix = String.format("%1$5d", d) + "\t%1$5d";
                 d++;
@@ -161,7 +162,7 @@ public class MarketResultsWriter {
         sb.append("\\\\TotalCosts are the sum of all startup, shutdown and production costs\n");
         sb.append("#GeneratorTotalCostsStart\n");
 
-        final ArrayList<double[][]> startup, production, shutdown;
+        final ResultList startup, production, shutdown;
         startup = amesMarket.getActualStartupCostsByDay();
         production = amesMarket.getActualProductionCostsByDay();
         shutdown = amesMarket.getActualShutdownCostsByDay();
@@ -173,15 +174,7 @@ public class MarketResultsWriter {
 
         for(int i = 0; i<agents.size(); i++ ) {
             GenAgent g =  agents.get(i);
-            Map<Integer, int[]> commitments =g.getCommitmentDecisions();
-            int hoursCommitted = 0;
-            for(int[] cs : commitments.values()) {
-                for(int h = 0; h < cs.length; h++) {
-                    if(cs[h] == 1){
-                        hoursCommitted++;
-                    }
-                }
-            }
+            int hoursCommitted = g.getCommitmentDecisions().count(1);
             dailyCostsByGenCo[i] += hoursCommitted * g.getNoLoadCost();
             System.out.println(g.getID() + " was committed for " + hoursCommitted + " total hours");
         }
@@ -192,26 +185,26 @@ public class MarketResultsWriter {
         }
 
         //TODO-X wrong place! A formatter has no business computing costs. But it is quick to put it here.
-        for(double[][] c : startup){
-            for(int h = 0; h<c.length; h++){
+        for(int day = 0; day<startup.size(); day++){
+            for(int h = 0; h<startup.getRows(day); h++){
                 for(int g = 0; g<dailyCostsByGenCo.length; g++){
-                    dailyCostsByGenCo[g] += c[h][g];
+                    dailyCostsByGenCo[g] += startup.get(day, h, g);
                 }
             }
         }
 
-        for(double[][] c : production){
-            for(int h = 0; h<c.length; h++){
+        for(int day = 0; day<production.size(); day++){
+            for(int h = 0; h<production.getRows(day); h++){
                 for(int g = 0; g<dailyCostsByGenCo.length; g++){
-                    dailyCostsByGenCo[g] += c[h][g];
+                    dailyCostsByGenCo[g] += production.get(day, h, g);
                 }
             }
         }
 
-        for(double[][] c : shutdown){
-            for(int h = 0; h<c.length; h++){
+        for(int day = 0; day<shutdown.size(); day++){
+            for(int h = 0; h<shutdown.getRows(day); h++){
                 for(int g = 0; g<dailyCostsByGenCo.length; g++){
-                    dailyCostsByGenCo[g] += c[h][g];
+                    dailyCostsByGenCo[g] += shutdown.get(day, h, g);
                 }
             }
         }
@@ -288,7 +281,7 @@ public class MarketResultsWriter {
         sb.append("#GeneratorTotalCostsByTypeStart\n");
         sb.append("Day\t GenCoName\t Startup\t Shutdown\t Production\t NoLoad\t Total\n");
 
-        final ArrayList<double[][]> startup, production, shutdown, fueltype;
+        final ResultList startup, production, shutdown;
         startup = amesMarket.getActualStartupCostsByDay();
         production = amesMarket.getActualProductionCostsByDay();
         shutdown = amesMarket.getActualShutdownCostsByDay();
@@ -317,12 +310,13 @@ public class MarketResultsWriter {
         
         for(int i = 0; i<agents.size(); i++ ) {
             GenAgent g =  agents.get(i);
-            Map<Integer, int[]> commitments =g.getCommitmentDecisions();
+            IntByDay commitments =g.getCommitmentDecisions();
             int hoursCommitted = 0;
             int numDay = 1; //start from day 1 for every generator
-            for(int[] cs : commitments.values()) {
-                for(int h = 0; h < cs.length; h++) {
-                    if(cs[h] == 1){
+            for(int d = 0; d <= commitments.getMaxDay(); d++) {
+                if(!commitments.has(d)) continue;
+                for(int h = 0; h < commitments.length(d); h++) {
+                    if(commitments.get(d, h) == 1){
                         hoursCommitted++;
                     }
                 }
@@ -343,33 +337,33 @@ public class MarketResultsWriter {
 
         //TODO-X wrong place! A formatter has no business computing costs. But it is quick to put it here.
         int numDay = 1;
-        for(double[][] c : startup){
-            for(int h = 0; h<c.length; h++){
+        for(int day = 0; day<startup.size(); day++){
+            for(int h = 0; h<startup.getRows(day); h++){
                 for(int g = 0; g<dailyCostsByGenCo.length; g++){
-                    dailyCostsByGenCo[g][numDay-1] += c[h][g];
-                    dailyStartupCostsByGenCo[g][numDay-1] += c[h][g];
+                    dailyCostsByGenCo[g][numDay-1] += startup.get(day, h, g);
+                    dailyStartupCostsByGenCo[g][numDay-1] += startup.get(day, h, g);
                 }
             }
             numDay=numDay+1;
         }
         
         numDay = 1;
-        for(double[][] c : production){
-            for(int h = 0; h<c.length; h++){
+        for(int day = 0; day<production.size(); day++){
+            for(int h = 0; h<production.getRows(day); h++){
                 for(int g = 0; g<dailyCostsByGenCo.length; g++){
-                    dailyCostsByGenCo[g][numDay-1] += c[h][g];
-                    dailyProductionCostsByGenCo[g][numDay-1] += c[h][g];
+                    dailyCostsByGenCo[g][numDay-1] += production.get(day, h, g);
+                    dailyProductionCostsByGenCo[g][numDay-1] += production.get(day, h, g);
                 }
             }
         numDay=numDay+1;
         }
 
         numDay = 1;
-        for(double[][] c : shutdown){
-            for(int h = 0; h<c.length; h++){
+        for(int day = 0; day<shutdown.size(); day++){
+            for(int h = 0; h<shutdown.getRows(day); h++){
                 for(int g = 0; g<dailyCostsByGenCo.length; g++){
-                    dailyCostsByGenCo[g][numDay-1] += c[h][g];
-                    dailyShutdownCostsByGenCo[g][numDay-1] += c[h][g];
+                    dailyCostsByGenCo[g][numDay-1] += shutdown.get(day, h, g);
+                    dailyShutdownCostsByGenCo[g][numDay-1] += shutdown.get(day, h, g);
                 }
             }
         numDay=numDay+1;
@@ -419,7 +413,7 @@ public class MarketResultsWriter {
         sb.append("#GeneratorTotalCostsByFuelTypeStart\n");
         sb.append("FuelType\t Startup\t Shutdown\t Production\t NoLoad\t Total\n");
 
-        final ArrayList<double[][]> startup, production, shutdown;
+        final ResultList startup, production, shutdown;
         
         startup = amesMarket.getActualStartupCostsByDay();
         production = amesMarket.getActualProductionCostsByDay();
@@ -470,15 +464,7 @@ public class MarketResultsWriter {
         
         for(int i = 0; i<agents.size(); i++ ) {
             GenAgent g =  agents.get(i);
-            Map<Integer, int[]> commitments =g.getCommitmentDecisions();
-            int hoursCommitted = 0;
-            for(int[] cs : commitments.values()) {
-                for(int h = 0; h < cs.length; h++) {
-                    if(cs[h] == 1){
-                        hoursCommitted++;
-                    }
-                }
-            }
+            int hoursCommitted = g.getCommitmentDecisions().count(1);
             dailyCostsByGenCo[i] += hoursCommitted * g.getNoLoadCost();
             dailyNoLoadCostsByGenCo[i] += hoursCommitted * g.getNoLoadCost();
             dailyNoLoadCostsByFuelType[uniqueFuelTypeNames.indexOf(g.getFuelType())] += hoursCommitted * g.getNoLoadCost();
@@ -492,35 +478,35 @@ public class MarketResultsWriter {
         }
 
         //TODO-X wrong place! A formatter has no business computing costs. But it is quick to put it here.
-        for(double[][] c : startup){
-            for(int h = 0; h<c.length; h++){
+        for(int day = 0; day<startup.size(); day++){
+            for(int h = 0; h<startup.getRows(day); h++){
                 for(int g = 0; g<dailyCostsByGenCo.length; g++){
-                    dailyCostsByGenCo[g] += c[h][g];
-                    dailyStartupCostsByGenCo[g] += c[h][g];
-                    dailyStartupCostsByFuelType[uniqueFuelTypeNames.indexOf(agents.get(g).getFuelType())] += c[h][g];
-                    dailyCostsByFuelType[uniqueFuelTypeNames.indexOf(agents.get(g).getFuelType())] += c[h][g];
+                    dailyCostsByGenCo[g] += startup.get(day, h, g);
+                    dailyStartupCostsByGenCo[g] += startup.get(day, h, g);
+                    dailyStartupCostsByFuelType[uniqueFuelTypeNames.indexOf(agents.get(g).getFuelType())] += startup.get(day, h, g);
+                    dailyCostsByFuelType[uniqueFuelTypeNames.indexOf(agents.get(g).getFuelType())] += startup.get(day, h, g);
                }
             }
         }
 
-        for(double[][] c : production){
-            for(int h = 0; h<c.length; h++){
+        for(int day = 0; day<production.size(); day++){
+            for(int h = 0; h<production.getRows(day); h++){
                 for(int g = 0; g<dailyCostsByGenCo.length; g++){
-                    dailyCostsByGenCo[g] += c[h][g];
-                    dailyProductionCostsByGenCo[g] += c[h][g];
-                    dailyProductionCostsByFuelType[uniqueFuelTypeNames.indexOf(agents.get(g).getFuelType())] += c[h][g];
-                    dailyCostsByFuelType[uniqueFuelTypeNames.indexOf(agents.get(g).getFuelType())] += c[h][g];
+                    dailyCostsByGenCo[g] += production.get(day, h, g);
+                    dailyProductionCostsByGenCo[g] += production.get(day, h, g);
+                    dailyProductionCostsByFuelType[uniqueFuelTypeNames.indexOf(agents.get(g).getFuelType())] += production.get(day, h, g);
+                    dailyCostsByFuelType[uniqueFuelTypeNames.indexOf(agents.get(g).getFuelType())] += production.get(day, h, g);
                 }
             }
         }
 
-        for(double[][] c : shutdown){
-            for(int h = 0; h<c.length; h++){
+        for(int day = 0; day<shutdown.size(); day++){
+            for(int h = 0; h<shutdown.getRows(day); h++){
                 for(int g = 0; g<dailyCostsByGenCo.length; g++){
-                    dailyCostsByGenCo[g] += c[h][g];
-                    dailyShutdownCostsByGenCo[g] += c[h][g];
-                    dailyShutdownCostsByFuelType[uniqueFuelTypeNames.indexOf(agents.get(g).getFuelType())] += c[h][g];
-                    dailyCostsByFuelType[uniqueFuelTypeNames.indexOf(agents.get(g).getFuelType())] += c[h][g];
+                    dailyCostsByGenCo[g] += shutdown.get(day, h, g);
+                    dailyShutdownCostsByGenCo[g] += shutdown.get(day, h, g);
+                    dailyShutdownCostsByFuelType[uniqueFuelTypeNames.indexOf(agents.get(g).getFuelType())] += shutdown.get(day, h, g);
+                    dailyCostsByFuelType[uniqueFuelTypeNames.indexOf(agents.get(g).getFuelType())] += shutdown.get(day, h, g);
                 }
             }
         }
@@ -39,6 +39,7 @@ import java.awt.Dimension;
 import java.awt.Font;
 import java.text.DecimalFormat;
 import java.util.ArrayList;
+import java.util.List;
 
 import javax.swing.JFrame;
 import javax.swing.JOptionPane;
@@ -360,7 +361,7 @@ public class SplitChart  extends JFrame    {
 		};
 		this.chartTitle="GenCo Commitments (Benchmark)";
 
-		ArrayList genAgentCommitmentWithTrueCost=this.amesFrame.getAMESMarket().getGenAgentCommitmentWithTrueCost();
+		List genAgentCommitmentWithTrueCost=this.amesFrame.getAMESMarket().getGenAgentCommitmentWithTrueCost();
 
 		boolean draw3DChart=false;
 		this.dataset=new XYSeriesCollection();
@@ -439,7 +440,7 @@ public class SplitChart  extends JFrame    {
 			this.chartTitle="GenCo Net Earnings (Benchmark)";
 		}
 
-		ArrayList genAgentProfitWithTrueCost=this.amesFrame.getAMESMarket().getGenAgentProfitAndNetGainWithTrueCost();
+		List genAgentProfitWithTrueCost=this.amesFrame.getAMESMarket().getGenAgentProfitAndNetGainWithTrueCost();
 
 		boolean draw3DChart=false;
 		this.dataset=new XYSeriesCollection();
@@ -625,10 +626,10 @@ public class SplitChart  extends JFrame    {
 		Object [][] lseHybridData=this.amesFrame.getLSEHybridDemandData();
 		int iLSENumber=lsePriceSensitiveData.length;
 
-		ArrayList LMPWithTrueCost=this.amesFrame.getAMESMarket().getLMPWithTrueCost();
+		List LMPWithTrueCost=this.amesFrame.getAMESMarket().getLMPWithTrueCost();
 		double [][] lmp=(double [][])LMPWithTrueCost.get(0);
 
-		ArrayList priceSensitiveWithTrueCost=this.amesFrame.getAMESMarket().getLSEAgentPriceSensitiveDemandWithTrueCost();
+		List priceSensitiveWithTrueCost=this.amesFrame.getAMESMarket().getLSEAgentPriceSensitiveDemandWithTrueCost();
 
 		this.chartTitle="LSE Price-Sensitive Demand Function \nand Cleared Point (Benchmark)";
 		String xLabel="Power (MWs)";
@@ -717,7 +718,7 @@ public class SplitChart  extends JFrame    {
 	public void drawLSESurplusWithTrueCostData(String outputTimeTypeSelect, int iStartTime, int iEndTime, int iDayHour, int [] selectIndex) {
 		this.chartTitle="LSE Net Earnings (Benchmark)";
 
-		ArrayList LSEAgentSurplusWithTrueCost=this.amesFrame.getAMESMarket().getLSEAgentSurplusWithTrueCost();
+		List LSEAgentSurplusWithTrueCost=this.amesFrame.getAMESMarket().getLSEAgentSurplusWithTrueCost();
 		Object [][] lseHybridData=this.amesFrame.getLSEHybridDemandData();
 		int iLSENumber=lseHybridData.length;
 
@@ -815,7 +816,7 @@ public class SplitChart  extends JFrame    {
 		};
 		this.chartTitle="Locational Marginal Prices (Benchmark)";
 
-		ArrayList LMPWithTrueCost=this.amesFrame.getAMESMarket().getLMPWithTrueCost();
+		List LMPWithTrueCost=this.amesFrame.getAMESMarket().getLMPWithTrueCost();
 
 		String [] nodeName=this.amesFrame.getNodeNameData( );
 		int iNodeNumber=nodeName.length;
@@ -890,7 +891,7 @@ public class SplitChart  extends JFrame    {
 
 
 	public void drawAggreagtedSupplyAndDemandWithTrueCostData(String outputTimeTypeSelect, int iStartTime, int iEndTime, int iDayHour, int [] selectIndex) {
-		ArrayList genAgentSupplyOfferByDay=this.amesFrame.getAMESMarket().getGenAgentSupplyOfferByDay();
+		List genAgentSupplyOfferByDay=this.amesFrame.getAMESMarket().getGenAgentSupplyOfferByDay();
 
 		Object [][] genData=this.amesFrame.getGeneratorData( );
 		int iGenNumber=genData.length;
@@ -1272,7 +1273,7 @@ public class SplitChart  extends JFrame    {
 	}
 
 	public void drawAggreagtedSupplyAndDemandData(String outputTimeTypeSelect, int iStartTime, int iEndTime, int iDayHour, int [] selectIndex) {
-		ArrayList genAgentSupplyOfferByDay=this.amesFrame.getAMESMarket().getGenAgentSupplyOfferByDay();
+		List genAgentSupplyOfferByDay=this.amesFrame.getAMESMarket().getGenAgentSupplyOfferByDay();
 		double [][] genOffer=(double [][])genAgentSupplyOfferByDay.get(iStartTime-2);
 
 		Object [][] genData=this.amesFrame.getGeneratorData( );
@@ -1671,7 +1672,7 @@ public class SplitChart  extends JFrame    {
 				"GenCo Name", "Day Index", "aR ($/MWh)", "bR ($/MW2h)", "CapRL (MW)", "CapRU (MW)",
 		};
 
-		ArrayList genAgentSupplyOfferByDay=this.amesFrame.getAMESMarket().getGenAgentSupplyOfferByDay();
+		List genAgentSupplyOfferByDay=this.amesFrame.getAMESMarket().getGenAgentSupplyOfferByDay();
 
 		Object [][] genData=this.amesFrame.getGeneratorData( );
 		int iGenNumber=genData.length;
@@ -1754,8 +1755,8 @@ public class SplitChart  extends JFrame    {
 		iStartTime=iStartTime-1;
 		iEndTime=iEndTime-1;
 
-		ArrayList genAgentCommitmentByDay=this.amesFrame.getAMESMarket().getGenAgentCommitmentByDay();
-		ArrayList hasSolutionByDay=this.amesFrame.getAMESMarket().getHasSolutionByDay();
+		List genAgentCommitmentByDay=this.amesFrame.getAMESMarket().getGenAgentCommitmentByDay();
+		List hasSolutionByDay=this.amesFrame.getAMESMarket().getHasSolutionByDay();
 
 		int[] hasSolutions;
 
@@ -2081,7 +2082,7 @@ public class SplitChart  extends JFrame    {
 			this.chartTitle="GenCo Daily Net Earnings";
 		}
 
-		ArrayList genAgentProfitAndNetGainByDay=this.amesFrame.getAMESMarket().getGenAgentProfitAndNetGainByDay();
+		List genAgentProfitAndNetGainByDay=this.amesFrame.getAMESMarket().getGenAgentProfitAndNetGainByDay();
 
 		boolean draw3DChart=false;
 		this.dataset=new XYSeriesCollection();
@@ -2264,7 +2265,7 @@ public class SplitChart  extends JFrame    {
 		};
 
 		this.chartTitle="LSE Daily Net Earnings";
-		ArrayList lseAgentSurplusByDay=this.amesFrame.getAMESMarket().getLSEAgentSurplusByDay();
+		List lseAgentSurplusByDay=this.amesFrame.getAMESMarket().getLSEAgentSurplusByDay();
 
 		boolean draw3DChart=false;
 		this.dataset=new XYSeriesCollection();
@@ -2428,9 +2429,9 @@ public class SplitChart  extends JFrame    {
 		Object [][] lseHybridData=this.amesFrame.getLSEHybridDemandData();
 		int iLSENumber=lsePriceSensitiveData.length;
 
-		ArrayList LMPByDay=this.amesFrame.getAMESMarket().getLMPByDay();
+		List LMPByDay=this.amesFrame.getAMESMarket().getLMPByDay();
 
-		ArrayList priceSensitiveByDay=this.amesFrame.getAMESMarket().getLSEAgenPriceSensitiveDemandByDay();
+		List priceSensitiveByDay=this.amesFrame.getAMESMarket().getLSEAgenPriceSensitiveDemandByDay();
 
 		this.chartTitle="LSE Price-Sensitive Demand Function and Cleared Point";
 		String xLabel="Power (MWs)";
@@ -2529,8 +2530,8 @@ public class SplitChart  extends JFrame    {
 		iStartTime=iStartTime-1;
 		iEndTime=iEndTime-1;
 
-		ArrayList branchFlowByDay=this.amesFrame.getAMESMarket().getBranchFlowByDay();
-		ArrayList hasSolutionByDay=this.amesFrame.getAMESMarket().getHasSolutionByDay();
+		List branchFlowByDay=this.amesFrame.getAMESMarket().getBranchFlowByDay();
+		List hasSolutionByDay=this.amesFrame.getAMESMarket().getHasSolutionByDay();
 
 		int[] hasSolutions;
 
@@ -2878,8 +2879,8 @@ public class SplitChart  extends JFrame    {
 		iStartTime=iStartTime-1;
 		iEndTime=iEndTime-1;
 
-		ArrayList LMPByDay=this.amesFrame.getAMESMarket().getLMPByDay();
-		ArrayList hasSolutionByDay=this.amesFrame.getAMESMarket().getHasSolutionByDay();
+		List LMPByDay=this.amesFrame.getAMESMarket().getLMPByDay();
+		List hasSolutionByDay=this.amesFrame.getAMESMarket().getHasSolutionByDay();
 
 		int[] hasSolutions;
 
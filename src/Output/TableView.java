@@ -32,6 +32,7 @@ import java.awt.Component;
 import java.awt.Dimension;
 import java.awt.GridLayout;
 import java.util.ArrayList;
+import java.util.List;
 
 import javax.swing.ImageIcon;
 import javax.swing.JFrame;
@@ -475,7 +476,7 @@ public class TableView extends JPanel {
 		};
 		int [] iColumnWidth= {90, 90, 120, 120, 120};
 
-		ArrayList genAgentProfitWithTrueCost=this.amesFrame.getAMESMarket().getGenAgentProfitAndNetGainWithTrueCost();
+		List genAgentProfitWithTrueCost=this.amesFrame.getAMESMarket().getGenAgentProfitAndNetGainWithTrueCost();
 
 		Object [][] genData=this.amesFrame.getGeneratorData( );
 		int iGenNumber=genData.length;
@@ -568,7 +569,7 @@ public class TableView extends JPanel {
 		};
 		int [] iColumnWidth= {90, 90, 90, 90, 90};
 
-		ArrayList genAgentCommitmentWithTrueCost=this.amesFrame.getAMESMarket().getGenAgentCommitmentWithTrueCost();
+		List genAgentCommitmentWithTrueCost=this.amesFrame.getAMESMarket().getGenAgentCommitmentWithTrueCost();
 
 		Object [][] genData=this.amesFrame.getGeneratorData( );
 		int iGenNumber=genData.length;
@@ -647,7 +648,7 @@ public class TableView extends JPanel {
 		};
 		int [] iColumnWidth= {90, 90, 90, 90, 90, 200};
 
-		ArrayList LSEAgentPriceSensitiveDemandWithTrueCost=this.amesFrame.getAMESMarket().getLSEAgentPriceSensitiveDemandWithTrueCost();
+		List LSEAgentPriceSensitiveDemandWithTrueCost=this.amesFrame.getAMESMarket().getLSEAgentPriceSensitiveDemandWithTrueCost();
 		Object [][][] lsePriceSensitiveData=this.amesFrame.getLSEPriceSensitiveDemandData();
 		Object [][] lseHybridData=this.amesFrame.getLSEHybridDemandData();
 		int iLSENumber=lseHybridData.length;
@@ -745,7 +746,7 @@ public class TableView extends JPanel {
 		};
 		int [] iColumnWidth= {90, 150, 150};
 
-		ArrayList LSEAgentSurplusWithTrueCost=this.amesFrame.getAMESMarket().getLSEAgentSurplusWithTrueCost();
+		List LSEAgentSurplusWithTrueCost=this.amesFrame.getAMESMarket().getLSEAgentSurplusWithTrueCost();
 		Object [][] lseHybridData=this.amesFrame.getLSEHybridDemandData();
 		int iLSENumber=lseHybridData.length;
 
@@ -828,7 +829,7 @@ public class TableView extends JPanel {
 		};
 		int [] iColumnWidth= {90, 90, 90};
 
-		ArrayList LMPWithTrueCost=this.amesFrame.getAMESMarket().getLMPWithTrueCost();
+		List LMPWithTrueCost=this.amesFrame.getAMESMarket().getLMPWithTrueCost();
 
 		String [] nodeName=this.amesFrame.getNodeNameData( );
 		int iNodeNumber=nodeName.length;
@@ -893,7 +894,7 @@ public class TableView extends JPanel {
 				"GenCo Name", "Day Index", "aR ($/MWh)", "bR ($/MW2h)", "CapRL (MW)", "CapRU (MW)",
 		};
 
-		ArrayList genAgentSupplyOfferByDay=this.amesFrame.getAMESMarket().getGenAgentSupplyOfferByDay();
+		List genAgentSupplyOfferByDay=this.amesFrame.getAMESMarket().getGenAgentSupplyOfferByDay();
 
 		Object [][] genData=this.amesFrame.getGeneratorData( );
 		int iGenNumber=genData.length;
@@ -1097,9 +1098,9 @@ public class TableView extends JPanel {
 		iStartTime=iStartTime-1;
 		iEndTime=iEndTime-1;
 
-		ArrayList genAgentCommitmentByDay=this.amesFrame.getAMESMarket().getGenAgentCommitmentByDay();
-		ArrayList genAgentSupplyOfferByDay=this.amesFrame.getAMESMarket().getGenAgentSupplyOfferByDay();
-		ArrayList hasSolutionByDay=this.amesFrame.getAMESMarket().getHasSolutionByDay();
+		List genAgentCommitmentByDay=this.amesFrame.getAMESMarket().getGenAgentCommitmentByDay();
+		List genAgentSupplyOfferByDay=this.amesFrame.getAMESMarket().getGenAgentSupplyOfferByDay();
+		List hasSolutionByDay=this.amesFrame.getAMESMarket().getHasSolutionByDay();
 
 		Object [][] genData=this.amesFrame.getGeneratorData( );
 		int iGenNumber=genData.length;
@@ -1471,7 +1472,7 @@ public class TableView extends JPanel {
 
 		int [] iColumnWidth= {90, 90, 90, 120, 120};
 
-		ArrayList genAgentProfitAndNetGainByDay=this.amesFrame.getAMESMarket().getGenAgentProfitAndNetGainByDay();
+		List genAgentProfitAndNetGainByDay=this.amesFrame.getAMESMarket().getGenAgentProfitAndNetGainByDay();
 
 		Object [][] genData=this.amesFrame.getGeneratorData( );
 		int iGenNumber=genData.length;
@@ -1598,7 +1599,7 @@ public class TableView extends JPanel {
 
 		int [] iColumnWidth= {70, 90, 120};
 
-		ArrayList lseAgentSurplusByDay=this.amesFrame.getAMESMarket().getLSEAgentSurplusByDay();
+		List lseAgentSurplusByDay=this.amesFrame.getAMESMarket().getLSEAgentSurplusByDay();
 
 		Object [][] lseHybridData=this.amesFrame.getLSEHybridDemandData();
 		int iLSENumber=lseHybridData.length;
@@ -1724,8 +1725,8 @@ public class TableView extends JPanel {
 		iStartTime=iStartTime-1;
 		iEndTime=iEndTime-1;
 
-		ArrayList priceSensitiveByDay=this.amesFrame.getAMESMarket().getLSEAgenPriceSensitiveDemandByDay();
-		ArrayList hasSolutionByDay=this.amesFrame.getAMESMarket().getHasSolutionByDay();
+		List priceSensitiveByDay=this.amesFrame.getAMESMarket().getLSEAgenPriceSensitiveDemandByDay();
+		List hasSolutionByDay=this.amesFrame.getAMESMarket().getHasSolutionByDay();
 
 		int[] hasSolutions;
 
@@ -2107,8 +2108,8 @@ public class TableView extends JPanel {
 		iStartTime=iStartTime-1;
 		iEndTime=iEndTime-1;
 
-		ArrayList branchFlowByDay=this.amesFrame.getAMESMarket().getBranchFlowByDay();
-		ArrayList hasSolutionByDay=this.amesFrame.getAMESMarket().getHasSolutionByDay();
+		List branchFlowByDay=this.amesFrame.getAMESMarket().getBranchFlowByDay();
+		List hasSolutionByDay=this.amesFrame.getAMESMarket().getHasSolutionByDay();
 
 		int[] hasSolutions;
 
@@ -2399,8 +2400,8 @@ public class TableView extends JPanel {
 		iStartTime=iStartTime-1;
 		iEndTime=iEndTime-1;
 
-		ArrayList LMPByDay=this.amesFrame.getAMESMarket().getLMPByDay();
-		ArrayList hasSolutionByDay=this.amesFrame.getAMESMarket().getHasSolutionByDay();
+		List LMPByDay=this.amesFrame.getAMESMarket().getLMPByDay();
+		List hasSolutionByDay=this.amesFrame.getAMESMarket().getHasSolutionByDay();
 
 		int[] hasSolutions;
 
@@ -2,6 +2,7 @@
 package amesmarket;
 
 import java.io.File;
+import java.io.IOException;
 import java.io.PrintStream;
 
 import amesmarket.filereaders.BadDataFileFormatException;
@@ -27,6 +28,10 @@ public class AMESMain {
                 + "[-h|--help]: print help and exit\n"
                 + "[--verify-loadcase <load_case_file>]:"
                 +    " Verify the load case control, scenario and expected load files\n"
+                + "[run <case_file> [<case_file> ...] [--seed n[,n...]|a-b] [--threads n]\n"
+                + "     [--max-day n] [--scuc psst|scucj] [--sced pyomo|dcopfj] [--out dir]]:"
+                +    " Run the cases without the GUI, once for each seed,\n"
+                + "     n runs at a time\n"
                 + "No arguments will load the main GUI.\n"
                 );
     }
@@ -64,6 +69,28 @@ public class AMESMain {
                         System.out.println(args[1] + " is OK");
                     }
                 }
+            } else if ("run".equals(args[0])) {
+                String[] runArgs = new String[args.length - 1];
+                System.arraycopy(args, 1, runArgs, 0, runArgs.length);
+                BatchRunner runner;
+                try {
+                    runner = BatchRunner.fromArgs(runArgs);
+                } catch (IllegalArgumentException e) {
+                    System.err.println(e.getMessage());
+                    showHelp();
+                    System.exit(2);
+                    return;
+                }
+                boolean ok = false;
+                try {
+                    ok = BatchRunner.allOk(runner.runAll());
+                } catch (IOException e) {
+                    System.err.println("Error running " + runArgs[0] + ": " + e.getMessage());
+                } catch (BadDataFileFormatException e) {
+                    System.err.println("Bad data file format " + e.getMessage());
+                }
+                //exit explicitly, the solvers may have left non-daemon threads.
+                System.exit(ok ? 0 : 1);
             } else { //error, unknown flag
                 showHelp();
             }
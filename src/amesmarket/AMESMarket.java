@@ -45,11 +45,16 @@ import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.util.*;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
+import amesmarket.extern.WorkDir;
 import amesmarket.filereaders.BadDataFileFormatException;
 import amesmarket.filereaders.IZoneIndexProvider.NamedIndexProvider;
+import amesmarket.results.IntResultList;
+import amesmarket.results.ResultList;
+import amesmarket.results.ResultStore;
 import amesmarket.probability.RouletteWheelSelector;
 import amesmarket.CaseFileData.SCUCInputData;
 import amesmarket.SimulationStatusListener.StatusEvent;
@@ -101,6 +106,12 @@ public class AMESMarket extends SimModelImpl {
      */
     private static final int STOP_CODE_ERROR = 0x1000000; //BIT 25
 
+    /**
+     * Guards RePast's static random generators, which every market in the
+     * JVM shares. The markets draw from their own java.util.Random.
+     */
+    private static final Object REPAST_RANDOM_LOCK = new Object();
+
 
     private int gridXSize = GRID_X_SIZE;
     private int gridYSize = GRID_Y_SIZE;
@@ -195,23 +206,32 @@ public class AMESMarket extends SimModelImpl {
     private double[] recencyOfGen;
     private int[] learningRandomSeedsOfGen;
 
-    private ArrayList<double[][]> genAgentSupplyOfferByDay;
-    private ArrayList<int[]> hasSolutionByDay;
-    private ArrayList<double[][]> lseAgentPriceSensitiveDemandByDay;
-    private ArrayList<double[][]> lseAgentSurplusByDay;
-    private ArrayList<double[][]> lseAgentSurplusWithTrueCost;
-    private ArrayList<double[][]> lseAgentPriceSensitiveDemandWithTrueCost;
-    private ArrayList<double[][]> genAgentProfitAndNetGainByDay;
-    private ArrayList<double[][]> genAgentActionPropensityAndProbilityByDay;
-    private ArrayList<double[][]> genAgentProfitAndNetGainWithTrueCost;
-    private ArrayList<double[][]> genAgentCommitmentWithTrueCost;
-    private ArrayList<double[][]> genAgentCommitmentByDay, genAgentRealTimeCommitmentByDay;
-
-    private ArrayList<double[][]> branchFlowByDay;
-    private ArrayList<double[][]> LMPByDay,realTimeLMPByDay,realTimeBranchFlowByDay;
-    private ArrayList<double[][]> LMPWithTrueCost;
-    private ArrayList<double[][]> productionCostsByDay, startupCostsByDay, shutdownCostsByDay;
+    /**
+     * Daily result histories. Each is a view of a table in the result
+     * store, so the days are kept off the heap, and streamed to the
+     * store's sinks as they are recorded.
+     */
+    private final ResultStore resultStore;
+    private ResultList genAgentSupplyOfferByDay;
+    private IntResultList hasSolutionByDay;
+    private ResultList lseAgentPriceSensitiveDemandByDay;
+    private ResultList lseAgentSurplusByDay;
+    private ResultList lseAgentSurplusWithTrueCost;
+    private ResultList lseAgentPriceSensitiveDemandWithTrueCost;
+    private ResultList genAgentProfitAndNetGainByDay;
+    private ResultList genAgentActionPropensityAndProbilityByDay;
+    private ResultList genAgentProfitAndNetGainWithTrueCost;
+    private ResultList genAgentCommitmentWithTrueCost;
+    private ResultList genAgentCommitmentByDay, genAgentRealTimeCommitmentByDay;
+
+    private ResultList branchFlowByDay;
+    private ResultList LMPByDay,realTimeLMPByDay,realTimeBranchFlowByDay;
+    private ResultList LMPWithTrueCost;
+    private ResultList productionCostsByDay, startupCostsByDay, shutdownCostsByDay;
 
+    /**
+     * Rows of the gen actions have different lengths, so they stay on the heap.
+     */
     private ArrayList<double[][]> lastDayGenActions;
 
     private Controller ModelController=null;
@@ -219,6 +239,25 @@ public class AMESMarket extends SimModelImpl {
 
     private final boolean deleteIntermediateFiles;
 
+    /**
+     * Scratch directory for the external solver files, created on first use.
+     */
+    private WorkDir workDir;
+
+    /**
+     * System property with the default SCUC engine, psst or scucj.
+     */
+    public static final String SCUC_PROPERTY = "SCUC";
+    /**
+     * System property with the default SCED engine, pyomo or dcopfj.
+     */
+    public static final String SCED_PROPERTY = "SCED";
+
+    /**
+     * SCUC and SCED engines of this market, used when the ISO is built.
+     */
+    private String scucEngine, scedEngine;
+
 // RePast required methods
 
     public String getName() {
@@ -300,7 +339,9 @@ public class AMESMarket extends SimModelImpl {
         try{ //TODO-XX: Is this how the error handling should be done?
             buildModel();
             buildSchedule();
-            Random.createUniform();  // Create random uniform\
+            synchronized(REPAST_RANDOM_LOCK) {
+                Random.createUniform();  // Create random uniform\
+            }
         }catch(AMESMarketException bdff){
             System.err.println("Error building the model. " +
                     "The simulation cannot run!\n" + bdff.getMessage());
@@ -319,7 +360,9 @@ public class AMESMarket extends SimModelImpl {
         printStructuralParameters();
 
 
-        setRngSeed(RANDOM_SEED);
+        synchronized(REPAST_RANDOM_LOCK) {
+            setRngSeed(RANDOM_SEED);
+        }
 
         hour  = 0;
         day   = 1;
@@ -328,7 +371,9 @@ public class AMESMarket extends SimModelImpl {
 
         transGrid = new TransGrid(nodeData, branchData, gridXSize,gridYSize, init);
 
-        java.util.Random randomSeed = new java.util.Random((int)this.getRngSeed());
+        //Seed from the field, not getRngSeed(). RePast keeps the seed in a
+        //static, which another market in the same JVM may have changed.
+        java.util.Random randomSeed = new java.util.Random(RANDOM_SEED);
         addGenAgents(randomSeed);
 
 
@@ -742,168 +787,195 @@ public class AMESMarket extends SimModelImpl {
 
             @Override
             public final void execute() {
+                runHour();
+            }
+        }
 
-                stopCode=0;
-
-                try {
-                    announceStatusEvent(new StatusEvent(StatusEvent.UPDATE_DAY, day, AMESMarket.this));
-                    announceStatusEvent(new StatusEvent(StatusEvent.UPDATE_HOUR, hour, AMESMarket.this));
-
-                    iso.wholesalePowerMarketOperation(hour, day);
-
-                    announceStatusEvent(new StatusEvent(StatusEvent.UPDATE_LMPS,
-                        iso.getHourlyLMP(hour), AMESMarket.this));
-                    announceStatusEvent(new StatusEvent(StatusEvent.UPDATE_BRANCH_FLOW,
-                            iso.getHourlyRTBranchFlow(hour, true), AMESMarket.this
-                            ));
-                    announceStatusEvent(new StatusEvent(StatusEvent.UPDATE_COMMITMENTS,
-                            iso.getHourlyRTCommitment(hour, true), AMESMarket.this
-                            ));
-                    announceStatusEvent(new StatusEvent(StatusEvent.UPDATE_HAS_SOLUTION,
-                            iso.getHourlyHasSolution(hour), AMESMarket.this
-                            ));
-                    announceStatusEvent(new StatusEvent(StatusEvent.UPDATE_COSTS,
-                            iso.getHourlyRTCosts(hour), AMESMarket.this
-                            ));
-
-                } catch (FileNotFoundException e) {
-                    System.err.println("File not found: " + e.getMessage());
-                    logException(e, "File Not Found");
-                    stopCode |= STOP_CODE_ERROR;
-                    stop();
-                } catch (IOException e) {
-                    System.err.println("An I/O exception during wholesale market operation\n" + e.getMessage());
-                    logException(e, "I/O Exceptions");
-                    stopCode |= STOP_CODE_ERROR;
-                    stop();
-                } catch (Exception e) {
-                    System.err.println("An exception occuring during market operation " +
-                                       "at hour " + hour + " on day " + day +
-                                       "\nError Message: " + e.getMessage() +
-                                       "\nStopping the market!!!!"
-                                      );
-                    logException(e, "Exception during market operation");
-                    stopCode |= STOP_CODE_ERROR;
-                    stop();
-                }
-
-                if(bMaximumDay) {
-                    if(bThreshold) { // Both dayMax has been reached and all GenCos are selecting a single action with probability
-                        if(isConverged == true) {// Only all GenCos are selecting a single action with probability
-                            stop();
-                            stopCode=stopCode|0x10; // second bit
-                        }
-                    }
-
-                    if((hour==23)&&(day==dayMax)) { // Only dayMax has been reached
-                        stop();
-                        stopCode=stopCode|0x1;   // first bit
-                    }
-                }
+        schedule.scheduleActionBeginning(0,new WPMarket());
+    }
 
-                if(bActionProbabilityCheck) {
-                    if(isGenActionProbabilityConverged) {
-                        stop();
-                        stopCode=stopCode|0x100;   // third bit
-                    }
-                }
+    /**
+     * Run the market for the current hour, check the stopping rules and
+     * advance the clock by an hour. Called by RePast on each tick of a GUI
+     * run, and directly by {@link #runHeadless()}.
+     */
+    private void runHour() {
 
-                if(bLearningCheck) {
-                    if(isGenLearningResultConverged) {
-                        stop();
-                        stopCode=stopCode|0x1000;   // fotrh bit;
-                    }
-                }
+        stopCode=0;
 
-                if(bDailyNetEarningThreshold) {
-                    if(isGenDailyNetEarningConverged) {
-                        stop();
-                        stopCode=stopCode|0x10000;   // fifth bit;
-                    }
-                }
+        try {
+            //only build the payloads someone listens for.
+            if(hasStatusListeners(StatusEvent.UPDATE_DAY)) {
+                announceStatusEvent(new StatusEvent(StatusEvent.UPDATE_DAY, day, this));
+            }
+            if(hasStatusListeners(StatusEvent.UPDATE_HOUR)) {
+                announceStatusEvent(new StatusEvent(StatusEvent.UPDATE_HOUR, hour, this));
+            }
 
-                //TODO-XXX REFACTOR: Add a listener interface to notify when the calculation is finished
-                // Can stop actively polling for calculation finished in the GUI that way.
-                if(stopCode>0) {
+            iso.wholesalePowerMarketOperation(hour, day);
 
-                    bCalculationEnd=true;
-                    iso.DayAheadMarketCheckLastDayAction();
+            if(hasStatusListeners(StatusEvent.UPDATE_LMPS)) {
+                double[] lmp = iso.getHourlyLMP(hour);
+                announceStatusEvent(new StatusEvent(StatusEvent.UPDATE_LMPS,
+                    lmp == null ? null : lmp.clone(), this));
+            }
+            if(hasStatusListeners(StatusEvent.UPDATE_BRANCH_FLOW)) {
+                announceStatusEvent(new StatusEvent(StatusEvent.UPDATE_BRANCH_FLOW,
+                        iso.getHourlyRTBranchFlow(hour, true), this
+                        ));
+            }
+            if(hasStatusListeners(StatusEvent.UPDATE_COMMITMENTS)) {
+                announceStatusEvent(new StatusEvent(StatusEvent.UPDATE_COMMITMENTS,
+                        iso.getHourlyRTCommitment(hour, true), this
+                        ));
+            }
+            if(hasStatusListeners(StatusEvent.UPDATE_HAS_SOLUTION)) {
+                announceStatusEvent(new StatusEvent(StatusEvent.UPDATE_HAS_SOLUTION,
+                        iso.getHourlyHasSolution(hour), this
+                        ));
+            }
+            if(hasStatusListeners(StatusEvent.UPDATE_COSTS)) {
+                announceStatusEvent(new StatusEvent(StatusEvent.UPDATE_COSTS,
+                        iso.getHourlyRTCosts(hour), this
+                        ));
+            }
 
-                    Date sysDate = new Date();
-                    System.out.println("Simulation End time: "+sysDate.toString()+"\n");
+        } catch (FileNotFoundException e) {
+            System.err.println("File not found: " + e.getMessage());
+            logException(e, "File Not Found");
+            stopCode |= STOP_CODE_ERROR;
+            stop();
+        } catch (IOException e) {
+            System.err.println("An I/O exception during wholesale market operation\n" + e.getMessage());
+            logException(e, "I/O Exceptions");
+            stopCode |= STOP_CODE_ERROR;
+            stop();
+        } catch (Exception e) {
+            System.err.println("An exception occuring during market operation " +
+                               "at hour " + hour + " on day " + day +
+                               "\nError Message: " + e.getMessage() +
+                               "\nStopping the market!!!!"
+                              );
+            logException(e, "Exception during market operation");
+            stopCode |= STOP_CODE_ERROR;
+            stop();
+        }
 
-                    if (hasStopCodeError()) {
-                        System.out.println("\n\nThe current simulation run concluded on day " + day +
-                                           " in response to error during the simulation\n\n");
-                    } else {
+        if(bMaximumDay) {
+            if(bThreshold) { // Both dayMax has been reached and all GenCos are selecting a single action with probability
+                if(isConverged == true) {// Only all GenCos are selecting a single action with probability
+                    stop();
+                    stopCode=stopCode|0x10; // second bit
+                }
+            }
 
-                        String stopStr="";
-                        int iStopNumber=0;
-                        int iFirstIndex=-1;
-                        int iLastIndex=0;
-                        int iTemp=stopCode;
-                        for(int i=0; i<5; i++) {
-                            if((stopCode&0x1)==0x1) {
-                                if(iFirstIndex==-1)
-                                    iFirstIndex=i;
+            if((hour==23)&&(day==dayMax)) { // Only dayMax has been reached
+                stop();
+                stopCode=stopCode|0x1;   // first bit
+            }
+        }
 
-                                iStopNumber++;
-                                iLastIndex=i;
-                            }
+        if(bActionProbabilityCheck) {
+            if(isGenActionProbabilityConverged) {
+                stop();
+                stopCode=stopCode|0x100;   // third bit
+            }
+        }
 
-                            stopCode/=2;
-                        }
+        if(bLearningCheck) {
+            if(isGenLearningResultConverged) {
+                stop();
+                stopCode=stopCode|0x1000;   // fotrh bit;
+            }
+        }
 
-                        stopCode=iTemp;
-                        for(int i=0; i<5; i++) {
-                            if((stopCode&0x1)==0x1) {
+        if(bDailyNetEarningThreshold) {
+            if(isGenDailyNetEarningConverged) {
+                stop();
+                stopCode=stopCode|0x10000;   // fifth bit;
+            }
+        }
 
-                                if(iFirstIndex==i)
-                                    stopStr+=(i+1);
-                                else if((iLastIndex==i)&&(iLastIndex!=iFirstIndex))
-                                    stopStr+=", and "+(i+1);
-                                else
-                                    stopStr+=", "+(i+1);
-                            }
+        //TODO-XXX REFACTOR: Add a listener interface to notify when the calculation is finished
+        // Can stop actively polling for calculation finished in the GUI that way.
+        if(stopCode>0) {
 
-                            stopCode/=2;
-                        }
+            bCalculationEnd=true;
+            iso.DayAheadMarketCheckLastDayAction();
+            resultStore.endDay(day);
+            resultStore.close();
+            closeWorkDir();
 
+            Date sysDate = new Date();
+            System.out.println("Simulation End time: "+sysDate.toString()+"\n");
 
-                        System.out.println("\n\nThe current simulation run concluded on day "+day+ " in response to the activation of the following \nstopping rule:("+stopStr+")\n\n");
+            if (hasStopCodeError()) {
+                System.out.println("\n\nThe current simulation run concluded on day " + day +
+                                   " in response to error during the simulation\n\n");
+            } else {
 
-                        System.out.println("Customizable table and chart output displays for the competitive (no learning) benchmark pre-run and the actual \nmarket simulation run can be accessed through the \"View\" screen on the menu bar.\n");
+                String stopStr="";
+                int iStopNumber=0;
+                int iFirstIndex=-1;
+                int iLastIndex=0;
+                int iTemp=stopCode;
+                for(int i=0; i<5; i++) {
+                    if((stopCode&0x1)==0x1) {
+                        if(iFirstIndex==-1)
+                            iFirstIndex=i;
+
+                        iStopNumber++;
+                        iLastIndex=i;
                     }
+
+                    stopCode/=2;
                 }
 
+                stopCode=iTemp;
+                for(int i=0; i<5; i++) {
+                    if((stopCode&0x1)==0x1) {
 
+                        if(iFirstIndex==i)
+                            stopStr+=(i+1);
+                        else if((iLastIndex==i)&&(iLastIndex!=iFirstIndex))
+                            stopStr+=", and "+(i+1);
+                        else
+                            stopStr+=", "+(i+1);
+                    }
 
-                // Updating world time by one hour for each "tick count" in RePast
-                hour++;
-                if(hour==24) {
-                    hour = 0;
-                    day++;
+                    stopCode/=2;
                 }
 
-            }
 
-            /**
-             * Log the exception as SEVERE.
-             * @param t
-             * @param msg
-             */
-            private final void logException(Throwable t, String msg) {
-                java.util.logging.Logger logger
-                = java.util.logging.Logger.getLogger("amesmarket");
-                logger.log(java.util.logging.Level.SEVERE, msg, t);
-
-                t.printStackTrace();
+                System.out.println("\n\nThe current simulation run concluded on day "+day+ " in response to the activation of the following \nstopping rule:("+stopStr+")\n\n");
+
+                System.out.println("Customizable table and chart output displays for the competitive (no learning) benchmark pre-run and the actual \nmarket simulation run can be accessed through the \"View\" screen on the menu bar.\n");
             }
         }
 
-        //isoRealTime=iso;
-        // System.out.println(hour);
-        schedule.scheduleActionBeginning(0,new WPMarket());
+
+
+        // Updating world time by one hour for each "tick count" in RePast
+        hour++;
+        if(hour==24) {
+            if(stopCode==0)
+                resultStore.endDay(day);
+            hour = 0;
+            day++;
+        }
+    }
+
+    /**
+     * Log the exception as SEVERE.
+     * @param t
+     * @param msg
+     */
+    private void logException(Throwable t, String msg) {
+        java.util.logging.Logger logger
+        = java.util.logging.Logger.getLogger("amesmarket");
+        logger.log(java.util.logging.Level.SEVERE, msg, t);
+
+        t.printStackTrace();
     }
 
     public void buildDisplay() {
@@ -1216,6 +1288,44 @@ public class AMESMarket extends SimModelImpl {
         ModelController.beginModel();
     }
 
+    /**
+     * Run the simulation to the end on the calling thread, without a
+     * RePast Controller or any GUI. The hours are run in a plain loop,
+     * not through the RePast schedule, and the status events are only
+     * built for the types a listener subscribed to.
+     *
+     * Use instead of {@link #AMESMarketSetupFromGUI} and {@link #Start()}:
+     * set the market up with {@link #InitLearningParameters(double[][])},
+     * {@link #InitSimulationParameters} and {@link #InitDataFromGUI}, then
+     * call this.
+     *
+     * @throws AMESMarketException if the model could not be built. The
+     *         stop code then has the error bit set.
+     */
+    public void runHeadless() throws AMESMarketException {
+        LOGGER.log(Level.FINE, "Run headless");
+        stopCode=-1;
+        bCalculationEnd=false;
+
+        setup();
+        try {
+            buildModel();
+        } catch(AMESMarketException e) {
+            stopCode=STOP_CODE_ERROR;
+            bCalculationEnd=true;
+            closeWorkDir();
+            throw e;
+        }
+        synchronized(REPAST_RANDOM_LOCK) {
+            Random.createUniform();
+        }
+
+        //No RePast schedule, just advance the clock an hour at a time.
+        while(!bCalculationEnd) {
+            runHour();
+        }
+    }
+
     public void ViewSettings() {
         ModelController.showSettings();
     }
@@ -1317,31 +1427,27 @@ public class AMESMarket extends SimModelImpl {
         return this.testcaseConfig.getSCUCType();
     }
 
-    public void addHasSolutionByDay(int[] hasSolution) {
-        int iRow=hasSolution.length;
-        int [] newObject=new int[iRow];
-        for(int i=0; i<iRow; i++)
-            newObject[i]=hasSolution[i];
+    /**
+     * @return the store the daily results are kept in, e.g. to add a
+     *         {@link amesmarket.results.ResultSink} before the run.
+     */
+    public ResultStore getResultStore() {
+        return resultStore;
+    }
 
-        hasSolutionByDay.add(newObject);
+    public void addHasSolutionByDay(int[] hasSolution) {
+        hasSolutionByDay.add(hasSolution);
     }
 
-    public ArrayList<int[]> getHasSolutionByDay() {
+    public IntResultList getHasSolutionByDay() {
         return hasSolutionByDay;
     }
 
     public void addGenAgentSupplyOfferByDay(double[][] supplyOffer) {
-        int iRow=supplyOffer.length;
-        int iCol=supplyOffer[0].length;
-        double [][] newObject=new double[iRow][iCol];
-        for(int i=0; i<iRow; i++)
-            for(int j=0; j<iCol; j++)
-                newObject[i][j]=supplyOffer[i][j];
-
-        genAgentSupplyOfferByDay.add(newObject);
+        genAgentSupplyOfferByDay.add(supplyOffer);
     }
 
-    public ArrayList<double[][]> getGenAgentSupplyOfferByDay() {
+    public ResultList getGenAgentSupplyOfferByDay() {
         return genAgentSupplyOfferByDay;
     }
 
@@ -1353,269 +1459,150 @@ public class AMESMarket extends SimModelImpl {
                 iCol=LSEPDemand[i].length;
         }
 
-        double [][] newObject=new double[iRow][iCol];
-        for(int i=0; i<iRow; i++)
-            for(int j=0; j<iCol; j++) {
-                newObject[i][j]=LSEPDemand[i][j];
-            }
-
-        lseAgentPriceSensitiveDemandByDay.add(newObject);
+        lseAgentPriceSensitiveDemandByDay.getTable().append(LSEPDemand, iCol);
     }
 
-    public ArrayList<double[][]> getLSEAgenPriceSensitiveDemandByDay() {
+    public ResultList getLSEAgenPriceSensitiveDemandByDay() {
         return lseAgentPriceSensitiveDemandByDay;
     }
 
 
     public void addLSEAgentSurplusByDay(double[][] object) {
-        int iRow=object.length;
-        int iCol=object[0].length;
-        double [][] newObject=new double[iRow][iCol];
-        for(int i=0; i<iRow; i++)
-            for(int j=0; j<iCol; j++)
-                newObject[i][j]=object[i][j];
-
-        lseAgentSurplusByDay.add(newObject);
+        lseAgentSurplusByDay.add(object);
     }
 
-    public ArrayList<double[][]> getLSEAgentSurplusByDay() {
+    public ResultList getLSEAgentSurplusByDay() {
         return lseAgentSurplusByDay;
     }
 
     public void addGenAgentProfitAndNetGainByDay(double[][] object) {
-        int iRow=object.length;
-        int iCol=object[0].length;
-        double [][] newObject=new double[iRow][iCol];
-        for(int i=0; i<iRow; i++)
-            for(int j=0; j<iCol; j++)
-                newObject[i][j]=object[i][j];
-
-        genAgentProfitAndNetGainByDay.add(newObject);
+        genAgentProfitAndNetGainByDay.add(object);
     }
 
-    public ArrayList<double[][]> getGenAgentProfitAndNetGainByDay() {
+    public ResultList getGenAgentProfitAndNetGainByDay() {
         return genAgentProfitAndNetGainByDay;
     }
 
     public void addGenAgentActionPropensityAndProbilityByDay(double[][] object) {
-        int iRow=object.length;
-        int iCol=object[0].length;
-        double [][] newObject=new double[iRow][iCol];
-        for(int i=0; i<iRow; i++)
-            for(int j=0; j<iCol; j++)
-                newObject[i][j]=object[i][j];
-
-        genAgentActionPropensityAndProbilityByDay.add(newObject);
+        genAgentActionPropensityAndProbilityByDay.add(object);
     }
 
-    public ArrayList<double[][]> getGenAgentActionPropensityAndProbilityByDay() {
+    public ResultList getGenAgentActionPropensityAndProbilityByDay() {
         return genAgentActionPropensityAndProbilityByDay;
     }
 
     public void addLSEAgentPriceSensitiveDemandWithTrueCost(double[][] object) {
-        int iRow=object.length;
-        int iCol=object[0].length;
-        double [][] newObject=new double[iRow][iCol];
-        for(int i=0; i<iRow; i++)
-            for(int j=0; j<iCol; j++)
-                newObject[i][j]=object[i][j];
-
-        lseAgentPriceSensitiveDemandWithTrueCost.add(newObject);
+        lseAgentPriceSensitiveDemandWithTrueCost.add(object);
     }
 
-    public ArrayList<double[][]> getLSEAgentPriceSensitiveDemandWithTrueCost() {
+    public ResultList getLSEAgentPriceSensitiveDemandWithTrueCost() {
         return lseAgentPriceSensitiveDemandWithTrueCost;
     }
 
     public void addGenAgentCommitmentWithTrueCost(double[][] object) {
-        int iRow=object.length;
-        int iCol=object[0].length;
-        double [][] newObject=new double[iRow][iCol];
-        for(int i=0; i<iRow; i++)
-            for(int j=0; j<iCol; j++)
-                newObject[i][j]=object[i][j];
-
-        genAgentCommitmentWithTrueCost.add(newObject);
+        genAgentCommitmentWithTrueCost.add(object);
     }
 
-    public ArrayList<double[][]> getGenAgentCommitmentWithTrueCost() {
+    public ResultList getGenAgentCommitmentWithTrueCost() {
         return genAgentCommitmentWithTrueCost;
     }
 
     public void addGenAgentProfitAndNetGainWithTrueCost(double[][] object) {
-        int iRow=object.length;
-        int iCol=object[0].length;
-        double [][] newObject=new double[iRow][iCol];
-        for(int i=0; i<iRow; i++)
-            for(int j=0; j<iCol; j++)
-                newObject[i][j]=object[i][j];
-
-        genAgentProfitAndNetGainWithTrueCost.add(newObject);
+        genAgentProfitAndNetGainWithTrueCost.add(object);
     }
 
-    public ArrayList<double[][]> getGenAgentProfitAndNetGainWithTrueCost() {
+    public ResultList getGenAgentProfitAndNetGainWithTrueCost() {
         return genAgentProfitAndNetGainWithTrueCost;
     }
 
     public void addLSEAgentSurplusWithTrueCost(double[][] object) {
-        int iRow=object.length;
-        int iCol=object[0].length;
-        double [][] newObject=new double[iRow][iCol];
-        for(int i=0; i<iRow; i++)
-            for(int j=0; j<iCol; j++)
-                newObject[i][j]=object[i][j];
-
-        lseAgentSurplusWithTrueCost.add(newObject);
+        lseAgentSurplusWithTrueCost.add(object);
     }
 
-    public ArrayList<double[][]> getLSEAgentSurplusWithTrueCost() {
+    public ResultList getLSEAgentSurplusWithTrueCost() {
         return lseAgentSurplusWithTrueCost;
     }
 
     public void addGenAgentCommitmentByDay(double[][] object) {
-        int iRow=object.length;
-        int iCol=object[0].length;
-        double [][] newObject=new double[iRow][iCol];
-        for(int i=0; i<iRow; i++)
-            for(int j=0; j<iCol; j++)
-                newObject[i][j]=object[i][j];
-
-        genAgentCommitmentByDay.add(newObject);
+        genAgentCommitmentByDay.add(object);
     }
 
-    public ArrayList<double[][]> getGenAgentCommitmentByDay() {
+    public ResultList getGenAgentCommitmentByDay() {
         return genAgentCommitmentByDay;
     }
 
     public void addGenAgentRealTimeCommitmentByDay(double[][] object) {
-        int iRow=object.length;
-        int iCol=object[0].length;
-        double [][] newObject=new double[iRow][iCol];
-        for(int i=0; i<iRow; i++)
-            for(int j=0; j<iCol; j++)
-                newObject[i][j]=object[i][j];
-
-        genAgentRealTimeCommitmentByDay.add(newObject);
+        genAgentRealTimeCommitmentByDay.add(object);
     }
 
-    public ArrayList<double[][]> getGenAgentRealTimeCommitmentByDay() {
+    public ResultList getGenAgentRealTimeCommitmentByDay() {
         return genAgentRealTimeCommitmentByDay;
     }
 
     public void addBranchFlowByDay(double[][] object) {
-        int iRow=object.length;
-        int iCol=object[0].length;
-        double [][] newObject=new double[iRow][iCol];
-        for(int i=0; i<iRow; i++)
-            for(int j=0; j<iCol; j++)
-                newObject[i][j]=object[i][j];
-
-        branchFlowByDay.add(newObject);
+        branchFlowByDay.add(object);
     }
 
-    public ArrayList<double[][]> getBranchFlowByDay() {
+    public ResultList getBranchFlowByDay() {
         return branchFlowByDay;
     }
 
     public void addLMPByDay(double[][] object) {
-        int iRow=object.length;
-        int iCol=object[0].length;
-        double [][] newObject=new double[iRow][iCol];
-        for(int i=0; i<iRow; i++)
-            for(int j=0; j<iCol; j++)
-                newObject[i][j]=object[i][j];
-
-        LMPByDay.add(newObject);
+        LMPByDay.add(object);
     }
 
-    public ArrayList<double[][]> getLMPByDay() {
+    public ResultList getLMPByDay() {
         return LMPByDay;
     }
 
     public void addActualProductionCostsByDay(double[][] costs) {
         if(costs == null) throw new IllegalArgumentException();
-        double[][] costCopy = new double[costs.length][];
-        for(int i = 0; i<costs.length; i++) {
-            costCopy[i] = Arrays.copyOf(costs[i], costs[i].length);
-        }
-
-        productionCostsByDay.add(costCopy);
+        productionCostsByDay.add(costs);
     }
 
-    public ArrayList<double[][]> getActualProductionCostsByDay(){
+    public ResultList getActualProductionCostsByDay(){
         return productionCostsByDay;
     }
 
     public void addActualStartupCostsByDay(double[][] costs) {
         if(costs == null) throw new IllegalArgumentException();
-        double[][] costCopy = new double[costs.length][];
-        for(int i = 0; i<costs.length; i++) {
-            costCopy[i] = Arrays.copyOf(costs[i], costs[i].length);
-        }
-
-        startupCostsByDay.add(costCopy);
+        startupCostsByDay.add(costs);
     }
 
-    public ArrayList<double[][]> getActualShutdownCostsByDay(){
+    public ResultList getActualShutdownCostsByDay(){
         return shutdownCostsByDay;
     }
 
     public void addActualShutdownCostsByDay(double[][] costs) {
         if(costs == null) throw new IllegalArgumentException();
-        double[][] costCopy = new double[costs.length][];
-        for(int i = 0; i<costs.length; i++) {
-            costCopy[i] = Arrays.copyOf(costs[i], costs[i].length);
-        }
-
-        shutdownCostsByDay.add(costCopy);
+        shutdownCostsByDay.add(costs);
     }
 
-    public ArrayList<double[][]> getActualStartupCostsByDay(){
+    public ResultList getActualStartupCostsByDay(){
         return startupCostsByDay;
     }
 
     public void addRealTimeLMPByDay(double[][] object) {
-        int iRow=object.length;
-        int iCol=object[0].length;
-        double [][] newObject=new double[iRow][iCol];
-        for(int i=0; i<iRow; i++)
-            for(int j=0; j<iCol; j++)
-                newObject[i][j]=object[i][j];
-
-        realTimeLMPByDay.add(newObject);
+        realTimeLMPByDay.add(object);
     }
 
-    public ArrayList<double[][]> getRealTimeLMPByDay() {
+    public ResultList getRealTimeLMPByDay() {
         return realTimeLMPByDay;
     }
 
     public void addRealTimeBranchFlowByDay(double[][] object) {
-        int iRow=object.length;
-        int iCol=object[0].length;
-        double [][] newObject=new double[iRow][iCol];
-        for(int i=0; i<iRow; i++)
-            for(int j=0; j<iCol; j++)
-                newObject[i][j]=object[i][j];
-
-        realTimeBranchFlowByDay.add(newObject);
+        realTimeBranchFlowByDay.add(object);
     }
 
-    public ArrayList<double[][]> getRealTimeBranchFlowByDay() {
+    public ResultList getRealTimeBranchFlowByDay() {
         return realTimeBranchFlowByDay;
     }
 
     public void addLMPWithTrueCost(double[][] object) {
-        int iRow=object.length;
-        int iCol=object[0].length;
-        double [][] newObject=new double[iRow][iCol];
-        for(int i=0; i<iRow; i++)
-            for(int j=0; j<iCol; j++)
-                newObject[i][j]=object[i][j];
-
-        LMPWithTrueCost.add(newObject);
+        LMPWithTrueCost.add(object);
     }
 
-    public ArrayList<double[][]> getLMPWithTrueCost() {
+    public ResultList getLMPWithTrueCost() {
         return LMPWithTrueCost;
     }
 
@@ -1644,10 +1631,69 @@ public class AMESMarket extends SimModelImpl {
         return deleteIntermediateFiles;
     }
 
+    /**
+     * Get the directory this simulation exchanges files with the external
+     * solvers in. Each market has its own, so simulations can run side by
+     * side. It is deleted when the simulation ends, unless it is kept with
+     * {@link WorkDir#KEEP_PROPERTY}.
+     * @return the working directory.
+     */
+    public synchronized WorkDir getWorkDir() {
+        if (workDir == null) {
+            try {
+                workDir = WorkDir.create();
+            } catch (IOException e) {
+                throw new IllegalStateException("Could not create a working directory", e);
+            }
+            LOGGER.log(workDir.isKept() ? Level.INFO : Level.FINE,
+                    "Working directory " + workDir.getDir());
+        }
+        return workDir;
+    }
+
+    /**
+     * Delete the working directory, unless it is kept.
+     */
+    private synchronized void closeWorkDir() {
+        if (workDir != null) {
+            workDir.close();
+        }
+    }
+
     public boolean IfCalculationEnd() {
         return bCalculationEnd;
     }
 
+    /**
+     * @param engine SCUC engine for this market, psst or scucj. Defaults to
+     *        the {@link #SCUC_PROPERTY} system property. Set before the run.
+     */
+    public void setSCUCEngine(String engine) {
+        scucEngine=engine;
+    }
+
+    /**
+     * @return the SCUC engine of this market.
+     */
+    public String getSCUCEngine() {
+        return scucEngine;
+    }
+
+    /**
+     * @param engine SCED engine for this market, pyomo or dcopfj. Defaults to
+     *        the {@link #SCED_PROPERTY} system property. Set before the run.
+     */
+    public void setSCEDEngine(String engine) {
+        scedEngine=engine;
+    }
+
+    /**
+     * @return the SCED engine of this market.
+     */
+    public String getSCEDEngine() {
+        return scedEngine;
+    }
+
     public int getStopCode() {
         return stopCode;
     }
@@ -1663,44 +1709,133 @@ public class AMESMarket extends SimModelImpl {
 
 
     /////////////////////STATUS LISTENER CODE/////////////////////////
-    private ArrayList<SimulationStatusListener> simStatListeners = new ArrayList<SimulationStatusListener>();
+    /**
+     * Listeners for each event type, by type. Entry 0 holds the listeners
+     * for all the events, which also get any type past
+     * {@link StatusEvent#MAX_EVENT_TYPE}.
+     */
+    private final List<List<SimulationStatusListener>> simStatListeners = newStatusListenerTable();
+
+    private static List<List<SimulationStatusListener>> newStatusListenerTable() {
+        List<List<SimulationStatusListener>> table = new ArrayList<List<SimulationStatusListener>>();
+        for (int t = 0; t <= StatusEvent.MAX_EVENT_TYPE; t++) {
+            table.add(new CopyOnWriteArrayList<SimulationStatusListener>());
+        }
+        return table;
+    }
+
+    /**
+     * Subscribe to all the status events.
+     * @param l
+     */
     public void addStatusListener(SimulationStatusListener l) {
-        simStatListeners.add(l);
+        simStatListeners.get(0).add(l);
+        for (int t = 1; t <= StatusEvent.MAX_EVENT_TYPE; t++) {
+            simStatListeners.get(t).add(l);
+        }
+    }
+
+    /**
+     * Subscribe to some of the status events. The payloads of the other
+     * types are not built for this listener.
+     * @param l
+     * @param eventTypes the {@link StatusEvent} types to receive.
+     * @throws IllegalArgumentException for an unknown type.
+     */
+    public void addStatusListener(SimulationStatusListener l, int... eventTypes) {
+        for (int t : eventTypes) {
+            if (t < 1 || t > StatusEvent.MAX_EVENT_TYPE) {
+                throw new IllegalArgumentException("Unknown status event type " + t);
+            }
+        }
+        for (int t : eventTypes) {
+            if (!simStatListeners.get(t).contains(l)) {
+                simStatListeners.get(t).add(l);
+            }
+        }
+    }
+
+    /**
+     * Unsubscribe from all the status events.
+     * @param l
+     */
+    public void removeStatusListener(SimulationStatusListener l) {
+        for (List<SimulationStatusListener> listeners : simStatListeners) {
+            listeners.remove(l);
+        }
+    }
+
+    /**
+     * @return true if any status listener is registered.
+     */
+    public boolean hasStatusListeners() {
+        for (List<SimulationStatusListener> listeners : simStatListeners) {
+            if (!listeners.isEmpty()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Check before building the payload of an event.
+     * @param eventType
+     * @return true if any listener receives events of the type.
+     */
+    public boolean hasStatusListeners(int eventType) {
+        return !statusListenersFor(eventType).isEmpty();
     }
 
     public void announceStatusEvent(StatusEvent se){
-        for (SimulationStatusListener l : simStatListeners) {
+        for (SimulationStatusListener l : statusListenersFor(se.eventType)) {
             l.receiveStatusEvent(se);
         }
     }
+
+    private List<SimulationStatusListener> statusListenersFor(int eventType) {
+        if (eventType < 1 || eventType > StatusEvent.MAX_EVENT_TYPE) {
+            return simStatListeners.get(0);
+        }
+        return simStatListeners.get(eventType);
+    }
     /////////////////////END STATUS LISTENER//////////////////////////
 
     /**
      * Constructor
      */
     public AMESMarket(boolean deleteIntermediateFiles) {
-        genAgentSupplyOfferByDay=new ArrayList<double[][]>();
-        lseAgentPriceSensitiveDemandByDay=new ArrayList<double[][]>();
-        lseAgentPriceSensitiveDemandWithTrueCost=new ArrayList<double[][]>();
-        lseAgentSurplusByDay=new ArrayList<double[][]>();
-        lseAgentSurplusWithTrueCost=new ArrayList<double[][]>();
-        genAgentProfitAndNetGainByDay=new ArrayList<double[][]>();
-        genAgentActionPropensityAndProbilityByDay=new ArrayList<double[][]>();
-        genAgentProfitAndNetGainWithTrueCost=new ArrayList<double[][]>();
-        genAgentCommitmentWithTrueCost=new ArrayList<double[][]>();
-        genAgentCommitmentByDay=new ArrayList<double[][]>();
-        genAgentRealTimeCommitmentByDay=new ArrayList<double[][]>();
-        branchFlowByDay=new ArrayList<double[][]>();
-        LMPByDay=new ArrayList<double[][]>();
-        productionCostsByDay = new ArrayList<double[][]>();
-        startupCostsByDay = new ArrayList<double[][]>();
-        shutdownCostsByDay = new ArrayList<double[][]>();
-        realTimeLMPByDay=new ArrayList<double[][]>();
-        realTimeBranchFlowByDay=new ArrayList<double[][]>();
-        LMPWithTrueCost=new ArrayList<double[][]>();
-        LMPWithTrueCost=new ArrayList<double[][]>();
+        this(deleteIntermediateFiles, new ResultStore());
+    }
+
+    /**
+     * @param deleteIntermediateFiles
+     * @param resultStore store for the daily results.
+     */
+    public AMESMarket(boolean deleteIntermediateFiles, ResultStore resultStore) {
+        this.resultStore=resultStore;
+        scucEngine=System.getProperty(SCUC_PROPERTY, "psst");
+        scedEngine=System.getProperty(SCED_PROPERTY, "pyomo");
+        genAgentSupplyOfferByDay=new ResultList(resultStore.newTable("genAgentSupplyOfferByDay"));
+        lseAgentPriceSensitiveDemandByDay=new ResultList(resultStore.newTable("lseAgentPriceSensitiveDemandByDay"));
+        lseAgentPriceSensitiveDemandWithTrueCost=new ResultList(resultStore.newTable("lseAgentPriceSensitiveDemandWithTrueCost"));
+        lseAgentSurplusByDay=new ResultList(resultStore.newTable("lseAgentSurplusByDay"));
+        lseAgentSurplusWithTrueCost=new ResultList(resultStore.newTable("lseAgentSurplusWithTrueCost"));
+        genAgentProfitAndNetGainByDay=new ResultList(resultStore.newTable("genAgentProfitAndNetGainByDay"));
+        genAgentActionPropensityAndProbilityByDay=new ResultList(resultStore.newTable("genAgentActionPropensityAndProbilityByDay"));
+        genAgentProfitAndNetGainWithTrueCost=new ResultList(resultStore.newTable("genAgentProfitAndNetGainWithTrueCost"));
+        genAgentCommitmentWithTrueCost=new ResultList(resultStore.newTable("genAgentCommitmentWithTrueCost"));
+        genAgentCommitmentByDay=new ResultList(resultStore.newTable("genAgentCommitmentByDay"));
+        genAgentRealTimeCommitmentByDay=new ResultList(resultStore.newTable("genAgentRealTimeCommitmentByDay"));
+        branchFlowByDay=new ResultList(resultStore.newTable("branchFlowByDay"));
+        LMPByDay=new ResultList(resultStore.newTable("LMPByDay"));
+        productionCostsByDay=new ResultList(resultStore.newTable("productionCostsByDay"));
+        startupCostsByDay=new ResultList(resultStore.newTable("startupCostsByDay"));
+        shutdownCostsByDay=new ResultList(resultStore.newTable("shutdownCostsByDay"));
+        realTimeLMPByDay=new ResultList(resultStore.newTable("realTimeLMPByDay"));
+        realTimeBranchFlowByDay=new ResultList(resultStore.newTable("realTimeBranchFlowByDay"));
+        LMPWithTrueCost=new ResultList(resultStore.newTable("LMPWithTrueCost"));
         lastDayGenActions=new ArrayList<double[][]>();
-        hasSolutionByDay=new ArrayList<int[]>();
+        hasSolutionByDay=new IntResultList(resultStore.newTable("hasSolutionByDay"));
         this.deleteIntermediateFiles = deleteIntermediateFiles;
     }
 
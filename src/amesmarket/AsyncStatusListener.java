@@ -0,0 +1,49 @@
+/*
+ * FIXME: LICENSE
+ */
+
+package amesmarket;
+
+import java.util.concurrent.Executor;
+
+/**
+ * Hands the status events to another listener on an {@link Executor}, so
+ * the simulation does not wait for slow listeners, e.g. Swing components
+ * updated on the event dispatch thread.
+ *
+ * The events are passed on in the order they were fired if the executor
+ * runs its tasks in order, as the AWT event queue and a single thread
+ * executor do. The payloads the market fires are copies, so they do not
+ * change after the event is fired.
+ */
+public class AsyncStatusListener implements SimulationStatusListener {
+
+    private final SimulationStatusListener listener;
+    private final Executor executor;
+
+    /**
+     * @param listener listener to pass the events on to.
+     * @param executor runs the listener.
+     */
+    public AsyncStatusListener(SimulationStatusListener listener, Executor executor) {
+        this.listener = listener;
+        this.executor = executor;
+    }
+
+    /**
+     * @return the listener the events are passed on to.
+     */
+    public SimulationStatusListener getListener() {
+        return this.listener;
+    }
+
+    @Override
+    public void receiveStatusEvent(final StatusEvent evt) {
+        this.executor.execute(new Runnable() {
+            @Override
+            public void run() {
+                listener.receiveStatusEvent(evt);
+            }
+        });
+    }
+}
@@ -22,6 +22,12 @@
 
 package amesmarket;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 
 /**
  * Bid-based Unit Commitment.
@@ -44,7 +50,44 @@ public class BUC implements SCED {
     /**numHoursPerDay = # of load profiles for each LSE*/
     private int H;
 
-    private boolean check;
+
+    /**
+     * System property with the number of threads used to solve the
+     * hourly DC-OPF problems in {@link #solveOPF()}, e.g. -DOPF_THREADS=4.
+     * Values less than 2 solve the hours serially.
+     */
+    public static final String OPF_THREADS_PROPERTY = "OPF_THREADS";
+
+    /**
+     * Executor for the hourly DC-OPF solves. Null means solve serially.
+     */
+    private ExecutorService opfExecutor;
+
+    /**
+     * System property to warm start the hourly DC-OPF problems in
+     * {@link #solveOPF()} from an earlier active set, e.g. -DOPF_WARM_START=true.
+     * Serial solves start from the previous hour, parallel solves from the
+     * same hour of the previous day.
+     *
+     * The dispatch is the same with or without warm starts. The LMPs come
+     * from the multipliers, which on degenerate problems depend on the
+     * start, so with warm starts on the LMPs can differ from a cold start,
+     * and between OPF_THREADS=1 and OPF_THREADS&gt;1.
+     */
+    public static final String OPF_WARM_START_PROPERTY = "OPF_WARM_START";
+
+    private boolean opfWarmStart;
+    /**active set of the last solution for each hour, used as warm start hints*/
+    private int[][] lastActiveSetByHour;
+    /**QuadProgJ iterations used for each hour of the last solveOPF*/
+    private int[] dailyOPFIterations;
+    /**DC-OPF structure shared by all hours, rebuilt when the grid or agent locations change*/
+    private DCOPFModel opfModel;
+    /**
+     * DC-OPF solution buffers by hour, reused every day. The rows of the
+     * daily arrays below point into them.
+     */
+    private OPFResult[] hourlyOPFResult, hourlyRealTimeOPFResult;
 
     /**daily commitments (24 hours by row)*/
     private double[][] dailyDispatch,dailyRealTimeCommitment,dailyRealTimeBranchFlow;
@@ -56,11 +99,10 @@ public class BUC implements SCED {
     private double[][] dailyBranchFlow;
     private double[][] dailyPriceSensitiveDemand;
 
-    private boolean [] bDCOPFHasSolution;
+    private boolean [] bDCOPFHasSolution, bRealTimeHasSolution;
 
     private AMESMarket ames;
     private ISO iso;
-    private DCOPFJ opf;
 
     private double[] ineqMultiplier;
     private String [] ineqMultiplierName;
@@ -72,13 +114,11 @@ public class BUC implements SCED {
     private static final int CAP_MIN    = 2;
     private static final int CAP_MAX    = 3;
     private double[][] supplyOfferByGen;
-    private double[] priceSensitiveDispatchRT;
     private double[][] supplyOfferByGenRT;
-    // Index for psDemandBidByLSE parameters, i.e., in the form of {C,D,DemandMax}
+    // Index for the hourly price-sensitive demand bids, i.e., in the form of {C,D,DemandMax}
     private static final int C_INDEX    = 0;
     private static final int D_INDEX    = 1;
     private static final int DEMAND_MAX    = 2;
-    private double[][] psDemandBidByLSE;
 
     private double[][] dailySLoad = new double[H][J]; // in price-sensitive demand case only
 
@@ -98,7 +138,6 @@ public class BUC implements SCED {
         J = ames.getNumLSEAgents();
         H = ames.NUM_HOURS_PER_DAY;  // H=24
 
-        check=false;
 
         dailyDispatch = new double[H][I];
         dailyRealTimeCommitment = new double[H][I];
@@ -111,35 +150,112 @@ public class BUC implements SCED {
         dailyPriceSensitiveDemand = new double [H][J];
 
         bDCOPFHasSolution = new boolean[24];
+        bRealTimeHasSolution = new boolean[H];
+        lastActiveSetByHour = new int[H][];
+        dailyOPFIterations = new int[H];
+        hourlyOPFResult = new OPFResult[H];
+        hourlyRealTimeOPFResult = new OPFResult[H];
+        for(int h=0; h<H; h++) {
+            hourlyOPFResult[h] = new OPFResult();
+            hourlyRealTimeOPFResult[h] = new OPFResult();
+        }
+
+        int opfThreads = Integer.getInteger(OPF_THREADS_PROPERTY, 1);
+        if(opfThreads > 1) {
+            opfExecutor = Support.newWorkerPool("DCOPFJ", opfThreads);
+        }
+        opfWarmStart = Boolean.getBoolean(OPF_WARM_START_PROPERTY);
     }
 
     /**
      * Solve OPF DC approximation problem by invoking DCOPFJ.
+     *
+     * The hourly problems do not depend on each other. If an executor has
+     * been configured (see {@link #OPF_THREADS_PROPERTY} and
+     * {@link #setOPFExecutor(ExecutorService)}) the hours are solved
+     * concurrently and gathered back in hour order, otherwise they are
+     * solved one after another. Both paths produce the same results, except
+     * for the LMPs of degenerate hours with warm starts, see
+     * {@link #OPF_WARM_START_PROPERTY}.
+     *
+     * If warm starts are enabled (see {@link #OPF_WARM_START_PROPERTY}), each
+     * hour starts from the active set of the previous hour when solved
+     * serially, or of the same hour yesterday when solved in parallel.
+     *
+     * The solutions are written into buffers that are reused by the next
+     * call, so the arrays returned by the daily getters are overwritten.
      */
-    public void solveOPF() {
-        
-        genSchedule=iso.getGenScheduleAsArray();
-        
-        double [] dLoad=new double[24]; // Total Demand
-        for (int h=0; h<H; h++) {
+    public void solveOPF() throws AMESMarketException {
 
+        genSchedule=iso.getGenScheduleAsArray();
         supplyOfferByGen = iso.getSupplyOfferByGen();
 
-        // Store supplyOfferByGen to dSupplyOfferByGen for later check
-        int iRow=supplyOfferByGen.length;
-        int iCol=supplyOfferByGen[0].length;
-        
-        int[] atNodeByGen = new int[I];
-        for(int i=0; i<I; i++) {
-            GenAgent gen = ames.getGenAgentList().get(i);
-            atNodeByGen[i] = gen.getAtNode();
+        int[] atNodeByGen = getAtNodeByGen();
+        int[] atNodeByLSE = getAtNodeByLSE();
+
+        final DCOPFModel model = getOPFModel(atNodeByGen, atNodeByLSE);
+        DCOPFJ[] hourlyOPF = new DCOPFJ[H];
+        if(opfExecutor == null) {
+            for (int h=0; h<H; h++) {
+                int[] hint = opfWarmStart ? lastActiveSetByHour[(h + H - 1) % H] : null;
+                hourlyOPF[h] = solveHourlyOPF(h, model, hint);
+            }
+        } else {
+            List<Future<DCOPFJ>> pending = new ArrayList<Future<DCOPFJ>>(H);
+            for (int h=0; h<H; h++) {
+                final int hour = h;
+                final int[] hint = opfWarmStart ? lastActiveSetByHour[h] : null;
+                pending.add(opfExecutor.submit(new Callable<DCOPFJ>() {
+                    @Override
+                    public DCOPFJ call() {
+                        return solveHourlyOPF(hour, model, hint);
+                    }
+                }));
+            }
+
+            //gather the solutions in hour order.
+            for (int h=0; h<H; h++) {
+                try {
+                    hourlyOPF[h] = pending.get(h).get();
+                } catch (InterruptedException e) {
+                    cancelAll(pending);
+                    Thread.currentThread().interrupt();
+                    throw new AMESMarketException("Interrupted while solving the DC-OPF for hour " + h, e);
+                } catch (ExecutionException e) {
+                    cancelAll(pending);
+                    throw new AMESMarketException("Unable to solve the DC-OPF for hour " + h, e.getCause());
+                }
+            }
         }
 
-        int[] atNodeByLSE = new int[J];
-        for(int j=0; j<J; j++) {
-            LSEAgent lse = ames.getLSEAgentList().get(j);
-            atNodeByLSE[j] = lse.getAtNode();
+        // get inequality multiplier
+        if(hourlyOPF[17] != null) {
+            ineqMultiplier=hourlyOPF[17].getIneqMultiplier();
+            ineqMultiplierName=hourlyOPF[17].getIneqMultiplierName();
+        }
+
+        for (int h=0; h<H; h++) {
+            if(!bDCOPFHasSolution[h])
+                System.out.println("  At hour "+h+" DCOPF has no solution!");
         }
+    }
+
+    /**
+     * Solve the DC-OPF for a single hour and store the solution in the
+     * hour's row of the daily arrays.
+     *
+     * Only reads shared state, and only writes row h of the daily arrays,
+     * so it is safe to call for different hours at the same time.
+     *
+     * @param h hour to solve
+     * @param model grid and agent locations, shared by all hours
+     * @param activeSetHint active set to warm start from, may be null
+     * @return the solved problem, or null if the capacity check failed.
+     */
+    private DCOPFJ solveHourlyOPF(int h, DCOPFModel model, int[] activeSetHint) {
+        // Store supplyOfferByGen to dSupplyOfferByGen for later check
+        int iRow=supplyOfferByGen.length;
+        int iCol=supplyOfferByGen[0].length;
 
         double [][] dSupplyOfferByGen=new double[iRow][iCol];
         for(int i=0; i<iRow; i++)
@@ -148,231 +264,254 @@ public class BUC implements SCED {
 
         double dMinGenCapacity=0.0;
         double dMaxGenCapacity=0.0;
-        
-        for (int i=0;i<I;i++)
-     {
-         if (genSchedule[i][h]==0)
-             dSupplyOfferByGen[i][CAP_MAX]=0.0;
-     }
 
-        // SI to PU conversion for supply offer and load profile
+        for (int i=0;i<I;i++)
+        {
+            if (genSchedule[i][h]==0)
+                dSupplyOfferByGen[i][CAP_MAX]=0.0;
+        }
 
         for(int i=0; i<supplyOfferByGen.length; i++) {
             dMinGenCapacity+=supplyOfferByGen[i][CAP_MIN];
             dMaxGenCapacity+=supplyOfferByGen[i][CAP_MAX];
-            //System.out.println("\n supplyOfferByGen-> dMaxGenCapacity "+supplyOfferByGen[i][CAP_MAX]+" for GenCo :"+i);
-
-            /*// Convert A from SI to PU-adjusted
-            supplyOfferByGen[i][A_INDEX] = supplyOfferByGen[i][A_INDEX]*INIT.getBaseS();
+        }
 
-            // Convert B from SI to PU-adjusted
-            supplyOfferByGen[i][B_INDEX] = supplyOfferByGen[i][B_INDEX]*INIT.getBaseS()*INIT.getBaseS();
+        //NOTE: phaseAngle is assumed to be zero at first bus, i.e. phaseAngle[0]=0
 
-            // Convert CapMin from SI to PU
-            supplyOfferByGen[i][CAP_MIN] = supplyOfferByGen[i][CAP_MIN]/INIT.getBaseS();
+        double[] hourlyLoadProfileByLSE = new double[J];
+        int[] hourlyLoadHybridFlagByLSE = new int[J];
 
-            // Convert CapMax from SI to PU
-            supplyOfferByGen[i][CAP_MAX] = supplyOfferByGen[i][CAP_MAX]/INIT.getBaseS();*/
+        double dLoad = 0.0; // Total Demand
+        for(int j=0; j<J; j++) {
+            hourlyLoadProfileByLSE[j] = iso.getLoadProfileByLSE()[j][h];
+            // Calculate total demand
+            hourlyLoadHybridFlagByLSE[j] = iso.getDemandHybridByLSE()[j][h];
 
+            if((hourlyLoadHybridFlagByLSE[j]&1)==1) {
+                dLoad += hourlyLoadProfileByLSE[j];
+            }
         }
 
-        
-
-
-
-        //psDemandBidByLSE = Support.correctRoundingError(psDemandBidByLSE);
+        double [][][] priceSensitiveDemandBidByLSE = iso.getDemandBidByLSE();
+        iRow=priceSensitiveDemandBidByLSE.length;
+        iCol=priceSensitiveDemandBidByLSE[0][0].length;
+        double[][] hourlyPSDemandBidByLSE=new double[iRow][iCol];
+        for(int i=0; i<iRow; i++)
+            for(int j=0; j<iCol; j++)
+                hourlyPSDemandBidByLSE[i][j]=priceSensitiveDemandBidByLSE[i][h][j];
 
-        
-            //NOTE: phaseAngle is assumed to be zero at first bus, i.e. phaseAngle[0]=0
 
-            double[] hourlyLoadProfileByLSE = new double[J];
-            int[] hourlyLoadHybridFlagByLSE = new int[J];
+        boolean bCheckMinMaxGenCapacityOK=true;
+        if(dMinGenCapacity>dLoad) {
+            System.out.println("GenCo total reported lower required operating capacity is greater than total fixed demand at hour "+h+" \n");
+            bCheckMinMaxGenCapacityOK=false;
+        }
 
-            dLoad[h] = 0.0;
-            for(int j=0; j<J; j++) {
-                hourlyLoadProfileByLSE[j] = iso.getLoadProfileByLSE()[j][h];
-                // Calculate total demand
-                hourlyLoadHybridFlagByLSE[j] = iso.getDemandHybridByLSE()[j][h];
+        if(dMaxGenCapacity<dLoad) {
+            System.out.println("GenCo total reported upper operating capacity under supply-offer price cap is less than total fixed demand at hour "+h+"\n");
+            bCheckMinMaxGenCapacityOK=false;
+        }
 
-                if((hourlyLoadHybridFlagByLSE[j]&1)==1) {
-                    dLoad[h] += hourlyLoadProfileByLSE[j];
-                }
+        if(bCheckMinMaxGenCapacityOK) {
+            DCOPFJ hourlyOPF = new DCOPFJ(model, dSupplyOfferByGen, hourlyPSDemandBidByLSE, hourlyLoadProfileByLSE,
+                             hourlyLoadHybridFlagByLSE, h, false, init, activeSetHint, hourlyOPFResult[h]);
 
+            bDCOPFHasSolution[h] = hourlyOPF.getIsSolutionFeasibleAndOptimal();
+            dailyOPFIterations[h] = hourlyOPF.getNumIterations();
+            if(bDCOPFHasSolution[h]) {
+                lastActiveSetByHour[h] = hourlyOPF.getActiveSet();
             }
+            dailyDispatch[h] = hourlyOPF.getCommitment();
+            dailyVoltAngle[h] = hourlyOPF.getVoltAngle();
+            dailyLMP[h]        = hourlyOPF.getLMP();
+            dailyMinTVC[h] = hourlyOPF.getMinTVC();
+            dailyBranchFlow[h] = hourlyOPF.getBranchFlow();
+            dailyPriceSensitiveDemand[h] = hourlyOPF.getSLoad();
+            dailyPriceSensitiveDemand[h]=Support.correctRoundingError(dailyPriceSensitiveDemand[h]);
+
+            return hourlyOPF;
+        }
+        else {
+            bDCOPFHasSolution[h]=false;
+            dailyOPFIterations[h] = 0;
+            // all zero, with a price-sensitive load for every LSE
+            OPFResult result = hourlyOPFResult[h];
+            result.reset(I, J, K, N);
+
+            dailyDispatch[h] = result.getCommitment();
+            dailyVoltAngle[h] = result.getVoltAngle();
+            dailyLMP[h]        = result.getLMP();
+            dailyMinTVC[h] = 0.0;
+            dailyBranchFlow[h] = result.getBranchFlow();
+            dailyPriceSensitiveDemand[h] = result.getSLoad();
+
+            return null;
+        }
+    }
 
-            //for(int i=0;i<hourlyLoadProfileByLSE.length;i++)
-              //      System.out.println("LSE Load: "+hourlyLoadProfileByLSE[i]+" MW"+"for hour: "+h);
-
-            double [][][] priceSensitiveDemandBidByLSE = iso.getDemandBidByLSE();
-            iRow=priceSensitiveDemandBidByLSE.length;
-            iCol=priceSensitiveDemandBidByLSE[0][0].length;
-            psDemandBidByLSE=new double[iRow][iCol];
-            for(int i=0; i<iRow; i++)
-                for(int j=0; j<iCol; j++)
-                    psDemandBidByLSE[i][j]=priceSensitiveDemandBidByLSE[i][h][j];
+    /**
+     * Get the DC-OPF model for the current grid and agent locations. The
+     * model of the last call is reused unless one of them has changed.
+     */
+    private DCOPFModel getOPFModel(int[] atNodeByGen, int[] atNodeByLSE) {
+        TransGrid grid = ames.getTransGrid();
+        if(opfModel == null || !opfModel.isFor(grid, atNodeByGen, atNodeByLSE)) {
+            opfModel = new DCOPFModel(grid, atNodeByGen, atNodeByLSE);
+        }
+        return opfModel;
+    }
 
+    private static void cancelAll(List<? extends Future<?>> tasks) {
+        for(Future<?> f : tasks) {
+            f.cancel(true);
+        }
+    }
 
-            boolean bCheckMinMaxGenCapacityOK=true;
-            if(dMinGenCapacity>dLoad[h]) {
-                System.out.println("GenCo total reported lower required operating capacity is greater than total fixed demand at hour "+h+" \n");
-                bCheckMinMaxGenCapacityOK=false;
-            }
+    /**
+     * Set the executor used to solve the hourly DC-OPF problems in
+     * parallel. Any ExecutorService works, including a ForkJoinPool.
+     * @param opfExecutor executor to use, or null to solve the hours serially.
+     */
+    public void setOPFExecutor(ExecutorService opfExecutor) {
+        this.opfExecutor = opfExecutor;
+    }
 
-            if(dMaxGenCapacity<dLoad[h]) {
-                System.out.println("GenCo total reported upper operating capacity under supply-offer price cap is less than total fixed demand at hour "+h+"\n");
-                bCheckMinMaxGenCapacityOK=false;
-            }
+    /**
+     * Turn warm starting of the hourly DC-OPF problems on or off.
+     * @param warmStart true to start each hour from an earlier active set.
+     */
+    public void setOPFWarmStart(boolean warmStart) {
+        this.opfWarmStart = warmStart;
+    }
 
+    /**
+     * QuadProgJ iterations used to solve each hour in the last call
+     * to {@link #solveOPF()}. Zero for hours that were not solved.
+     * @return iterations, by hour.
+     */
+    public int[] getDailyOPFIterations() {
+        return dailyOPFIterations;
+    }
 
+    //Real time OPF
 
-            if(bCheckMinMaxGenCapacityOK) {
-                //System.out.println("Check DAM:"+supplyOfferByGen[0][3]);
-
-                opf = new DCOPFJ(dSupplyOfferByGen, psDemandBidByLSE, hourlyLoadProfileByLSE, hourlyLoadHybridFlagByLSE,
-                                 atNodeByGen, atNodeByLSE, ames.getTransGrid(),h,false, init);
-                // System.out.println("Check DAM:"+supplyOfferByGen[0][3]);
-
-                bDCOPFHasSolution[h] = opf.getIsSolutionFeasibleAndOptimal();
-                dailyDispatch[h] = opf.getCommitment();
-                /*for(int i=0;i<dailyCommitment[h].length;i++)
-                            System.out.println("DAM Commit: "+h+" "+dailyCommitment[h][i]);*/
-
-                dailyVoltAngle[h] = opf.getVoltAngle();
-                dailyLMP[h]        = opf.getLMP();
-                /*for(int i=0;i<dailyLMP[h].length;i++)
-                            System.out.println("DAM Commit: "+h+" "+dailyLMP[h][i]);*/
-                dailyMinTVC[h] = opf.getMinTVC();
-                dailyBranchFlow[h] = opf.getBranchFlow();
-                dailyPriceSensitiveDemand[h] = opf.getSLoad();
-                dailyPriceSensitiveDemand[h]=Support.correctRoundingError(dailyPriceSensitiveDemand[h]);
-
-
-                /*for(int i=0;i<dailyPriceSensitiveDemand[h].length;i++)
-                            System.out.println("DAM PS: "+dailyPriceSensitiveDemand[h][i]+" MW"+" for hour: "+h);
-                for(int i=0;i<dailyCommitment[h].length;i++)
-                            System.out.println("DAM Commit: "+dailyCommitment[h][i]+" MW"+" for hour: "+h);
-                for(int i=0;i<dailyLMP[h].length;i++)
-                            System.out.println("DAM LMP: "+dailyLMP[h][i]+" $/MWh"+" for hour: "+h);
-                for(int i=0;i<dailyBranchFlow[h].length;i++)
-                            System.out.println("DAM Branch Flow: "+dailyBranchFlow[h][i]+" MW"+" for hour: "+h);
-                for(int i=0;i<opf.getIneqMultiplier().length;i++)
-                            System.out.println("DAM Ineq Multiplier: "+opf.getIneqMultiplier()[i]+" for hour: "+h+"Name"+opf.getIneqMultiplierName()[i]);
-                          System.out.println(dailyMinTVC[h]);*/
-                if(h==17) {// get inequality multiplier
-                    ineqMultiplier=opf.getIneqMultiplier();
-                    ineqMultiplierName=opf.getIneqMultiplierName();
-                }
-            }
-            else {
-                bDCOPFHasSolution[h]=false;
-                double[] dispatch = new double[I];   // in MWs
-                double[] voltAngle = new double[K-1];  // in radians
-                double[] lmp        = new double[K];
-                double[] branchFlow = new double[N]; //in MWs
-                double[] psLoad = new double[J]; //in MWs
-
-                dailyDispatch[h] = dispatch;
-
-
-                dailyVoltAngle[h] = voltAngle;
-                dailyLMP[h]        = lmp;
-                dailyMinTVC[h] = 0.0;
-                dailyBranchFlow[h] = branchFlow;
-                dailyPriceSensitiveDemand[h] = psLoad;
-            }
+    /**
+     * Solve the real time DC-OPF of every hour of the day, dispatching the
+     * GenCos committed in the ISO's real time schedule against the actual
+     * load. The hours are solved like in {@link #solveOPF()}: in parallel
+     * if an executor is configured, otherwise one after another.
+     *
+     * The solutions are written into buffers that are reused by the next
+     * call, so the arrays returned by the daily real time getters are
+     * overwritten.
+     *
+     * @param day day of the actual load.
+     * @throws AMESMarketException if there is no real time schedule, the
+     *         load is missing or a solve failed.
+     */
+    public void solveRealTimeOPF(int day) throws AMESMarketException {
+        supplyOfferByGenRT = iso.getSupplyOfferByGenRT();
+        genScheduleRT = iso.getGenScheduleRTAsArray();
+        if(genScheduleRT.length != I) {
+            throw new AMESMarketException("No real time commitment for day " + day);
         }
 
+        final DCOPFModel model = getOPFModel(getAtNodeByGen(), getAtNodeByLSE());
+        //read the loads up front, the solves may run on other threads.
+        final double[][] loadByHour = new double[H][J];
         for (int h=0; h<H; h++) {
-            if(!bDCOPFHasSolution[h])
-                System.out.println("  At hour "+h+" DCOPF has no solution!");
+            iso.getActualLoadProfile(h, day, loadByHour[h]);
         }
 
-        System.gc();
-    }
-
-    //Real time OPF
+        if(opfExecutor == null) {
+            for (int h=0; h<H; h++) {
+                solveHourlyRTOPF(h, model, loadByHour[h]);
+            }
+        } else {
+            List<Future<Void>> pending = new ArrayList<Future<Void>>(H);
+            for (int h=0; h<H; h++) {
+                final int hour = h;
+                pending.add(opfExecutor.submit(new Callable<Void>() {
+                    @Override
+                    public Void call() {
+                        solveHourlyRTOPF(hour, model, loadByHour[hour]);
+                        return null;
+                    }
+                }));
+            }
 
-    public void solveRTOPF(double [][] dc,double [] psd,int hour,int day) throws AMESMarketException{
-        //FIXME: This is an alias that gets modified. Only place this field gets used. Could drop the field.
-        
-       supplyOfferByGenRT = iso.getSupplyOfferByGenRT();
+            for (int h=0; h<H; h++) {
+                try {
+                    pending.get(h).get();
+                } catch (InterruptedException e) {
+                    cancelAll(pending);
+                    Thread.currentThread().interrupt();
+                    throw new AMESMarketException("Interrupted while solving the real time DC-OPF for hour " + h, e);
+                } catch (ExecutionException e) {
+                    cancelAll(pending);
+                    throw new AMESMarketException("Unable to solve the real time DC-OPF for hour " + h, e.getCause());
+                }
+            }
+        }
+    }
 
-      genScheduleRT = iso.getGenScheduleRTAsArray();
-      
+    /**
+     * Solve the real time DC-OPF of one hour, with all the load fixed.
+     * Safe to call for different hours at once.
+     *
+     * @param hour
+     * @param model grid and agent locations, shared by all hours
+     * @param load actual load by LSE, MW. Not changed.
+     * @return true if the hour has a solution.
+     */
+    private boolean solveHourlyRTOPF(int hour, DCOPFModel model, double[] load) {
         int iRow=supplyOfferByGenRT.length;
         int iCol=supplyOfferByGenRT[0].length;
 
-      double [][] dSupplyOfferByGen=new double[iRow][iCol];
+        double [][] dSupplyOfferByGen=new double[iRow][iCol];
         for(int i=0; i<iRow; i++)
-        for(int j=0; j<iCol; j++)
-            dSupplyOfferByGen[i][j]=supplyOfferByGenRT[i][j];
-
-      String strTemp=null;
+            for(int j=0; j<iCol; j++)
+                dSupplyOfferByGen[i][j]=supplyOfferByGenRT[i][j];
 
         double dMinGenCapacity=0.0;
-     double dMaxGenCapacity=0.0;
-
-     // SI to PU conversion for supply offer and load profile
-
-     for (int i=0;i<I;i++)
-     {
-         if (genSchedule[i][hour]==0)
-             dSupplyOfferByGen[i][CAP_MAX]=0.0;
-     }
-
-     for(int i=0; i<dSupplyOfferByGen.length; i++){
-      dMinGenCapacity+=dSupplyOfferByGen[i][CAP_MIN];
-      dMaxGenCapacity+=dSupplyOfferByGen[i][CAP_MAX];
-      //System.out.println("\n supplyOfferByGen-> dMaxGenCapacity "+dSupplyOfferByGen[i][CAP_MAX]+" for GenCo :"+i);
-
-         }
+        double dMaxGenCapacity=0.0;
 
-        int[] atNodeByGen = new int[I];
-        for(int i=0; i<I; i++) {
-            GenAgent gen = ames.getGenAgentList().get(i);
-            atNodeByGen[i] = gen.getAtNode();
+        //GenCos that are not committed can not produce.
+        for (int i=0;i<I;i++)
+        {
+            if (genScheduleRT[i][hour]==0) {
+                dSupplyOfferByGen[i][CAP_MIN]=0.0;
+                dSupplyOfferByGen[i][CAP_MAX]=0.0;
+            }
         }
 
-        int[] atNodeByLSE = new int[J];
-        for(int j=0; j<J; j++) {
-            LSEAgent lse = (LSEAgent) ames.getLSEAgentList().get(j);
-            atNodeByLSE[j] = lse.getAtNode();
+        for(int i=0; i<dSupplyOfferByGen.length; i++){
+            dMinGenCapacity+=dSupplyOfferByGen[i][CAP_MIN];
+            dMaxGenCapacity+=dSupplyOfferByGen[i][CAP_MAX];
         }
 
+        //the real time load is all fixed, no price-sensitive demand.
         double [][][] priceSensitiveDemandBidByLSE = iso.getDemandBidByLSE();
         iRow=priceSensitiveDemandBidByLSE.length;
         iCol=priceSensitiveDemandBidByLSE[0][0].length;
-        psDemandBidByLSE=new double[iRow][iCol];
+        double[][] hourlyPSDemandBidByLSE=new double[iRow][iCol];
         for(int i=0; i<iRow; i++)
             for(int j=0; j<iCol; j++)
             {
-                psDemandBidByLSE[i][j]=priceSensitiveDemandBidByLSE[i][hour][j];
-                if(j==2)
-                    psDemandBidByLSE[i][j]=0.0;
+                hourlyPSDemandBidByLSE[i][j]=priceSensitiveDemandBidByLSE[i][hour][j];
+                if(j==DEMAND_MAX)
+                    hourlyPSDemandBidByLSE[i][j]=0.0;
             }
 
-
-
-        double dLoad; // Total Demand
-
-
         double[] hourlyLoadProfileByLSE = new double[J];
         int[] hourlyLoadHybridFlagByLSE = new int[J];
 
-        dLoad = 0.0;
-
-        iso.getActualLoadProfile(hour, day, hourlyLoadProfileByLSE);
-        
-        //for(int i=0;i<hourlyLoadProfileByLSE.length;i++)
-                  //  System.out.println("LSE Load: "+hourlyLoadProfileByLSE[i]+" MW"+"for hour: "+hour);
-
-        /*for(int j=0; j<J; j++) {
-            //hourlyLoadProfileByLSE[j] = iso.getLoadProfileByLSE()[j][hour];
+        double dLoad = 0.0; // Total Demand
+        for(int j=0; j<J; j++) {
+            hourlyLoadProfileByLSE[j] = load[j];
             hourlyLoadHybridFlagByLSE[j] = 1;
-            hourlyLoadProfileByLSE[j]+=priceSensitiveDispatchRT[j];
-            hourlyLoadProfileByLSE[j]=Support.correctRoundingError(hourlyLoadProfileByLSE[j]);
-            dLoad+= hourlyLoadProfileByLSE[j];
-        }*/
+            dLoad += hourlyLoadProfileByLSE[j];
+        }
 
         boolean bCheckMinMaxGenCapacityOK=true;
         if(dMinGenCapacity>dLoad) {
@@ -386,42 +525,44 @@ public class BUC implements SCED {
         }
 
         if(bCheckMinMaxGenCapacityOK) {
-
-            if(hour ==10)
-            {
-                check=true;
-            }
-            else
-                check=false;
-
-            opf = new DCOPFJ(dSupplyOfferByGen, psDemandBidByLSE, hourlyLoadProfileByLSE, hourlyLoadHybridFlagByLSE,
-                             atNodeByGen, atNodeByLSE, ames.getTransGrid(),0,check, init);
-
-            boolean check = opf.getIsSolutionFeasibleAndOptimal();
-            dailyRealTimeCommitment[hour]=opf.getCommitment();
-            dailyRealTimeLMP[hour]=opf.getLMP();
-            dailyRealTimeBranchFlow[hour]=opf.getBranchFlow();
-
-            /*for(int i=0;i<dailyRealTimeCommitment[hour].length;i++)
-                            System.out.println("RT Commitment: "+dailyRealTimeCommitment[hour][i]+" MW"+" for hour: "+hour);
-                        for(int i=0;i<opf.getLMP().length;i++)
-                            System.out.println("RT LMP: "+opf.getLMP()[i]+" $/MWh"+" for hour: "+hour);
-                        for(int i=0;i<opf.getBranchFlow().length;i++)
-                            System.out.println("RT Branch Flow: "+opf.getBranchFlow()[i]+" MW"+" for hour: "+hour);
-                        for(int i=0;i<opf.getIneqMultiplier().length;i++)
-                            System.out.println("RT Ineq Multiplier: "+opf.getIneqMultiplier()[i]+" for hour: "+hour+"Name"+opf.getIneqMultiplierName()[i]);
-                              System.out.println(opf.getMinTVC());*/
-
-            /*if(h==17) {// get inequality multiplier
-                    ineqMultiplier=opf.getIneqMultiplier();
-                    ineqMultiplierName=opf.getIneqMultiplierName();
-                }*/
+            DCOPFJ hourlyOPF = new DCOPFJ(model, dSupplyOfferByGen, hourlyPSDemandBidByLSE,
+                             hourlyLoadProfileByLSE, hourlyLoadHybridFlagByLSE, hour, false, init, null,
+                             hourlyRealTimeOPFResult[hour]);
+
+            bRealTimeHasSolution[hour] = hourlyOPF.getIsSolutionFeasibleAndOptimal();
+            dailyRealTimeCommitment[hour]=hourlyOPF.getCommitment();
+            dailyRealTimeLMP[hour]=hourlyOPF.getLMP();
+            dailyRealTimeBranchFlow[hour]=hourlyOPF.getBranchFlow();
         }
         else {
+            bRealTimeHasSolution[hour]=false;
+            // all zero
+            OPFResult result = hourlyRealTimeOPFResult[hour];
+            result.reset(I, 0, K, N);
+
+            dailyRealTimeCommitment[hour]=result.getCommitment();
+            dailyRealTimeLMP[hour]=result.getLMP();
+            dailyRealTimeBranchFlow[hour]=result.getBranchFlow();
+        }
+        return bRealTimeHasSolution[hour];
+    }
 
-
+    private int[] getAtNodeByGen() {
+        int[] atNodeByGen = new int[I];
+        for(int i=0; i<I; i++) {
+            GenAgent gen = ames.getGenAgentList().get(i);
+            atNodeByGen[i] = gen.getAtNode();
         }
+        return atNodeByGen;
+    }
 
+    private int[] getAtNodeByLSE() {
+        int[] atNodeByLSE = new int[J];
+        for(int j=0; j<J; j++) {
+            LSEAgent lse = ames.getLSEAgentList().get(j);
+            atNodeByLSE[j] = lse.getAtNode();
+        }
+        return atNodeByLSE;
     }
 
 
@@ -480,6 +621,21 @@ public class BUC implements SCED {
         return dailyRealTimeLMP;
     }
 
+    /**
+     * @return 1 for the hours of the last real time solve that have a
+     *         solution, 0 for the others.
+     */
+    public int [] getRealTimeHasSolution() {
+        int [] hasSolution=new int[H];
+
+        for(int i=0; i<H; i++) {
+            if(bRealTimeHasSolution[i])
+                hasSolution[i]=1;
+        }
+
+        return hasSolution;
+    }
+
     public int [] getHasSolution() {
         int [] hasSolution=new int[H];
 
@@ -0,0 +1,362 @@
+/*
+ * FIXME: LICENSE
+ */
+
+package amesmarket;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+import amesmarket.filereaders.BadDataFileFormatException;
+import amesmarket.results.ResultList;
+
+/**
+ * Runs every seed of several cases without the GUI, a number of them at
+ * once, for the 'run' command of {@link AMESMain}.
+ *
+ * Each run is an independent {@link AMESMarket}, built by the
+ * {@link HeadlessRunner} of its case from its own copy of the case data.
+ * The markets draw from their own random generators and solve in their
+ * own working directories, so runs on different threads do not share any
+ * simulation state. The runs are queued on a pool of
+ * {@link #setThreads(int)} threads.
+ *
+ * When all the runs are done a summary of each is printed and written to
+ * {@link #SUMMARY_FILE} in the output directory of the first case.
+ */
+public class BatchRunner {
+
+    /**
+     * Name of the summary file.
+     */
+    public static final String SUMMARY_FILE = "batch-summary.csv";
+
+    private final List<HeadlessRunner> cases = new ArrayList<HeadlessRunner>();
+    private int threads = 1;
+
+    /**
+     * Parse the arguments of the run command:
+     * <pre>
+     *   &lt;case_file&gt; [&lt;case_file&gt; ...] [--threads n] [options]
+     * </pre>
+     * where the options are those of {@link HeadlessRunner#fromArgs(String[])}
+     * and apply to every case.
+     * @param args arguments after 'run'.
+     * @return
+     * @throws IllegalArgumentException if the arguments are wrong.
+     */
+    public static BatchRunner fromArgs(String[] args) {
+        List<String> caseFiles = new ArrayList<String>();
+        int i = 0;
+        while (i < args.length && !args[i].startsWith("--")) {
+            caseFiles.add(args[i++]);
+        }
+        if (caseFiles.isEmpty()) {
+            throw new IllegalArgumentException("Must supply the case file to run.");
+        }
+
+        BatchRunner batch = new BatchRunner();
+        List<String> options = new ArrayList<String>();
+        for (; i < args.length; i++) {
+            if ("--threads".equals(args[i])) {
+                if (i + 1 == args.length) {
+                    throw new IllegalArgumentException("Missing the value for --threads");
+                }
+                String value = args[++i];
+                try {
+                    batch.setThreads(Integer.parseInt(value));
+                } catch (NumberFormatException e) {
+                    throw new IllegalArgumentException("Expected a number for --threads, not " + value, e);
+                }
+            } else {
+                options.add(args[i]);
+            }
+        }
+
+        for (String caseFile : caseFiles) {
+            List<String> caseArgs = new ArrayList<String>();
+            caseArgs.add(caseFile);
+            caseArgs.addAll(options);
+            batch.addCase(HeadlessRunner.fromArgs(caseArgs.toArray(new String[caseArgs.size()])));
+        }
+        return batch;
+    }
+
+    /**
+     * @param runner a case and its seeds.
+     */
+    public void addCase(HeadlessRunner runner) {
+        this.cases.add(runner);
+    }
+
+    /**
+     * @return the cases to run.
+     */
+    public List<HeadlessRunner> getCases() {
+        return Collections.unmodifiableList(this.cases);
+    }
+
+    /**
+     * @param threads number of markets to run at once.
+     * @throws IllegalArgumentException if threads is less than 1.
+     */
+    public void setThreads(int threads) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("Need at least one thread, not " + threads);
+        }
+        this.threads = threads;
+    }
+
+    /**
+     * @return the number of markets to run at once.
+     */
+    public int getThreads() {
+        return this.threads;
+    }
+
+    /**
+     * Run every seed of every case and write the summary.
+     *
+     * @return the summary of each run, in case and seed order.
+     * @throws IOException if a case could not be read or the summary
+     *         could not be written.
+     * @throws BadDataFileFormatException if a case is not valid.
+     */
+    public List<RunSummary> runAll() throws IOException, BadDataFileFormatException {
+        //read every case up front, so a bad case fails before any run.
+        List<Callable<RunSummary>> tasks = new ArrayList<Callable<RunSummary>>();
+        for (HeadlessRunner runner : this.cases) {
+            for (long seed : runner.getSeeds(runner.loadCase())) {
+                tasks.add(newRun(runner, seed));
+            }
+        }
+
+        List<RunSummary> runs = new ArrayList<RunSummary>(tasks.size());
+        ExecutorService pool = Support.newWorkerPool("AMES batch", Math.min(this.threads, Math.max(1, tasks.size())));
+        try {
+            List<Future<RunSummary>> pending = new ArrayList<Future<RunSummary>>(tasks.size());
+            for (Callable<RunSummary> task : tasks) {
+                pending.add(pool.submit(task));
+            }
+            for (Future<RunSummary> f : pending) {
+                try {
+                    runs.add(f.get());
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IOException("Interrupted while waiting for the batch runs", e);
+                } catch (ExecutionException e) {
+                    //the runs catch their own errors.
+                    throw new IllegalStateException(e.getCause());
+                }
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+
+        printSummary(runs, System.out);
+        if (!this.cases.isEmpty()) {
+            File dir = this.cases.get(0).getOutDir();
+            if (!dir.isDirectory() && !dir.mkdirs()) {
+                throw new IOException("Could not create " + dir.getPath());
+            }
+            Writer out = new BufferedWriter(new FileWriter(new File(dir, SUMMARY_FILE)));
+            try {
+                writeSummary(runs, out);
+            } finally {
+                out.close();
+            }
+        }
+        return runs;
+    }
+
+    /**
+     * @return true if every run ended without an error.
+     */
+    public static boolean allOk(List<RunSummary> runs) {
+        for (RunSummary r : runs) {
+            if (r.isError()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static Callable<RunSummary> newRun(final HeadlessRunner runner, final long seed) {
+        return new Callable<RunSummary>() {
+            @Override
+            public RunSummary call() {
+                RunSummary r = new RunSummary(runner.getCaseName(), seed);
+                long start = System.nanoTime();
+                try {
+                    AMESMarket market = runner.run(runner.loadCase(), seed);
+                    r.stopCode = market.getStopCode();
+                    r.error = market.hasStopCodeError();
+                    r.days = market.getDay();
+                    r.totalCost = totalCost(market);
+                    r.outFile = runner.writeResults(market, seed);
+                } catch (IOException e) {
+                    r.fail(e);
+                } catch (BadDataFileFormatException e) {
+                    r.fail(e);
+                } catch (RuntimeException e) {
+                    //one bad run should not stop the batch.
+                    r.fail(e);
+                }
+                r.seconds = (System.nanoTime() - start) / 1e9;
+                System.out.println(r.getCaseName() + " seed " + seed
+                        + (r.isError() ? " stopped with an error" : " done")
+                        + String.format(" in %.1fs", r.getSeconds()));
+                return r;
+            }
+        };
+    }
+
+    /**
+     * Sum of the actual production, startup and shutdown costs of all the
+     * GenCos over the run, the objective value in the output file.
+     */
+    static double totalCost(AMESMarket market) {
+        return sum(market.getActualProductionCostsByDay())
+                + sum(market.getActualStartupCostsByDay())
+                + sum(market.getActualShutdownCostsByDay());
+    }
+
+    private static double sum(ResultList list) {
+        double total = 0;
+        for (int day = 0; day < list.size(); day++) {
+            for (int h = 0; h < list.getRows(day); h++) {
+                for (int g = 0; g < list.getCols(day); g++) {
+                    total += list.get(day, h, g);
+                }
+            }
+        }
+        return total;
+    }
+
+    /**
+     * Print the summary as a table.
+     * @param runs
+     * @param out
+     */
+    public static void printSummary(List<RunSummary> runs, PrintStream out) {
+        out.println(String.format("%-24s %10s %6s %10s %18s %10s",
+                "Case", "Seed", "Days", "StopCode", "TotalCost", "Seconds"));
+        for (RunSummary r : runs) {
+            out.println(String.format("%-24s %10d %6d %10d %18.2f %10.1f%s",
+                    r.getCaseName(), r.getSeed(), r.getDays(), r.getStopCode(),
+                    r.getTotalCost(), r.getSeconds(), r.isError() ? "  ERROR" : ""));
+        }
+    }
+
+    /**
+     * Write the summary as CSV.
+     * @param runs
+     * @param out
+     * @throws IOException
+     */
+    public static void writeSummary(List<RunSummary> runs, Writer out) throws IOException {
+        out.write("case,seed,days,stop_code,error,total_cost,seconds,output,message\n");
+        for (RunSummary r : runs) {
+            out.write(r.getCaseName() + "," + r.getSeed() + "," + r.getDays() + ","
+                    + r.getStopCode() + "," + r.isError() + "," + r.getTotalCost() + ","
+                    + String.format("%.3f", r.getSeconds()) + ","
+                    + (r.getOutFile() == null ? "" : r.getOutFile().getPath()) + ","
+                    + (r.getMessage() == null ? "" : "\"" + r.getMessage().replace("\"", "\"\"") + "\"")
+                    + "\n");
+        }
+    }
+
+    /**
+     * Outcome of one run of a batch.
+     */
+    public static class RunSummary {
+        private final String caseName;
+        private final long seed;
+        private int stopCode = 0;
+        private boolean error = false;
+        private int days = 0;
+        private double totalCost = 0;
+        private double seconds = 0;
+        private File outFile = null;
+        private String message = null;
+
+        RunSummary(String caseName, long seed) {
+            this.caseName = caseName;
+            this.seed = seed;
+        }
+
+        private void fail(Exception e) {
+            this.error = true;
+            this.message = e.toString();
+            System.err.println("Error running " + this.caseName + " with seed " + this.seed + ": " + e);
+        }
+
+        public String getCaseName() {
+            return this.caseName;
+        }
+
+        public long getSeed() {
+            return this.seed;
+        }
+
+        /**
+         * @return the stop code of the market, see {@link AMESMarket#getStopCode()}.
+         */
+        public int getStopCode() {
+            return this.stopCode;
+        }
+
+        /**
+         * @return true if the market stopped with an error, or the run failed.
+         */
+        public boolean isError() {
+            return this.error;
+        }
+
+        /**
+         * @return the day the market stopped on.
+         */
+        public int getDays() {
+            return this.days;
+        }
+
+        /**
+         * @return the total cost of the GenCos, see {@link BatchRunner#totalCost(AMESMarket)}.
+         */
+        public double getTotalCost() {
+            return this.totalCost;
+        }
+
+        /**
+         * @return the wall clock time of the run.
+         */
+        public double getSeconds() {
+            return this.seconds;
+        }
+
+        /**
+         * @return the results file, or null if it was not written.
+         */
+        public File getOutFile() {
+            return this.outFile;
+        }
+
+        /**
+         * @return the error that stopped the run, or null.
+         */
+        public String getMessage() {
+            return this.message;
+        }
+    }
+}
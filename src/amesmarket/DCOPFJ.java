@@ -28,6 +28,7 @@ package amesmarket;
 // DC-OPF paper: Junjie Sun and Leigh Tesfatsion, (2006) "DC OPF Formulation
 //     and Solution Using QuadProgJ", ISU Econ Working Paper Series #06014
 
+import cern.colt.function.IntIntDoubleFunction;
 import cern.colt.matrix.*;
 import cern.colt.matrix.impl.*;
 import java.io.*;
@@ -114,6 +115,15 @@ import java.io.*;
  * capU:    supplyOffer[][3]; capU; GenCo's upper operating capacity limit
  * sLoadL:  psDemandBid[][2]; sLoadL; LSE's price-sensitive lower load limit
  * sLoadU:  psDemandBid[][3]; sLoadU; LSE's price-sensitive upper load limit
+ *=======================================================================
+ * G, Ceq and Ciq are assembled as sparse matrices (SparseDoubleMatrix2D)
+ * straight from the sparse TransGrid matrices. Only the non-zero elements
+ * are set, so the zero blocks (Oni, Onj, Oij, Oji, Ojk, Oik) and the
+ * identity blocks (Iii, Ijj) are never allocated.
+ *
+ * Ceq and Ciq only depend on the grid and the agent locations. They come
+ * from a {@link DCOPFModel}, which builds them once and shares them between
+ * all the DCOPFJ instances created with it.
  */
 public class DCOPFJ {
 
@@ -146,6 +156,8 @@ public class DCOPFJ {
     private int[] atNodeByGen;
     private int[] atNodeByLSE;
     private TransGrid grid;
+    private final DCOPFModel model;
+    private DCOPFModel.Layout layout; // Ceq, Ciq for this hour's demand types
 
     // Intermediate input to form (G,a,Ceq,beq,Ciq,biq)
     private int K;               // numNodes
@@ -154,29 +166,15 @@ public class DCOPFJ {
     private int J;               // numLSEAgents
     private boolean check;
     private DoubleMatrix1D B;    // Ix1
-    private DoubleMatrix2D U;    // Ix1
     private DoubleMatrix2D Wrr;  // (K-1)x(K-1)
     private DoubleMatrix1D A;    // Ix1
-    private DoubleMatrix2D II;  // KxI
-    private DoubleMatrix2D rBusAdm;   // (K-1)xK
     private DoubleMatrix1D FDemand;  // Kx1
-    private DoubleMatrix2D Oni;   // NxI
-    private DoubleMatrix2D Z;    // NxN
-    private DoubleMatrix2D rAdj; // Nx(K-1)
-    private DoubleMatrix2D Iii;   // IxI
-    private DoubleMatrix2D Oik;   // Ix(K-1)
     private DoubleMatrix1D pU;   // Nx1
     private DoubleMatrix1D capL;  // Ix1
     private DoubleMatrix1D capU;  // Ix1
     //Below are the additional variables for the price-sensitive demand case
     private DoubleMatrix1D D; // Jx1
     private DoubleMatrix1D C; // Jx1
-    private DoubleMatrix2D JJ; // KxJ
-    private DoubleMatrix2D Onj; // NxJ
-    private DoubleMatrix2D Oij; // IxJ
-    private DoubleMatrix2D Oji; // JxI
-    private DoubleMatrix2D Ijj; // JxJ
-    private DoubleMatrix2D Ojk; // JxK
     private DoubleMatrix1D sLoadL; // Jx1
     private DoubleMatrix1D sLoadU; // Jx1
 
@@ -191,28 +189,70 @@ public class DCOPFJ {
     private QuadProgJ qpj;
 
     // Solution from QuadProgJ
-    private double[] commitment; // power production quantity
-    private double[] voltAngle;  // voltage angle in radians
-    private double[] voltAngleDegree;  // voltage angle in degrees
-    private double[] lmp;  // lmp (locational marginal prices) == eqMultiplier
-    private double[] ineqMultiplier;
+    // lmp (locational marginal prices) == eqMultiplier
+    // minTVC = SUM (Ai*PGi + Bi*PGi^2)
+    // branchFlow_km = (1/x_km)(delta_k - delta_m)
+    // sumSquaredAngleDifference = SUM(delta_k - delta_m)^2
+    private final OPFResult result;
     private String [] ineqMultiplierName;
-    private double minTVC; // minTVC = SUM (Ai*PGi + Bi*PGi^2)
-    private double[] branchFlow; // branchFlow_km = (1/x_km)(delta_k - delta_m)
-    private double[][] bi; // branch index
-    private double sumSquaredAngleDifference;  // SUM(delta_k - delta_m)^2
-    private double[] sLoad; //price-sensitive load demand quantity
 
     private final INIT init;
+    private final int[] activeSetHint; // QuadProgJ warm start, may be null
 
     // Constructor for hybrid demand
     public DCOPFJ(double[][] so, double[][] db, double[] lp, int [] hf, int[] ng, int[] nl,
                   TransGrid tg,int h,boolean checktemp, INIT init) {
+        this(so, db, lp, hf, ng, nl, tg, h, checktemp, init, null);
+    }
+
+    /**
+     * Constructor for hybrid demand, warm starting QuadProgJ from the
+     * active set of a similar problem, e.g. {@link #getActiveSet()} of the
+     * previous hour. A hint that does not fit this problem is ignored and
+     * QuadProgJ cold starts. The dispatch does not depend on the hint, but
+     * on degenerate problems the LMPs, which are read from the multipliers,
+     * can.
+     *
+     * @param activeSetHint active set to warm start from, may be null.
+     */
+    public DCOPFJ(double[][] so, double[][] db, double[] lp, int [] hf, int[] ng, int[] nl,
+                  TransGrid tg,int h,boolean checktemp, INIT init, int[] activeSetHint) {
+        this(new DCOPFModel(tg, ng, nl), so, db, lp, hf, h, checktemp, init, activeSetHint);
+    }
+
+    /**
+     * Constructor for hybrid demand on a prebuilt model. The grid and the
+     * GenCo and LSE locations are taken from the model, and so are the
+     * constraint matrices, so solving every hour of a day with the same
+     * model only forms them once.
+     *
+     * @param model grid and agent locations, shared between solves.
+     * @param activeSetHint active set to warm start from, may be null.
+     */
+    public DCOPFJ(DCOPFModel model, double[][] so, double[][] db, double[] lp, int [] hf,
+                  int h, boolean checktemp, INIT init, int[] activeSetHint) {
+        this(model, so, db, lp, hf, h, checktemp, init, activeSetHint, new OPFResult());
+    }
 
+    /**
+     * Constructor for hybrid demand writing the solution into a
+     * caller-owned result. The getters of this DCOPFJ return the arrays of
+     * that result, so they change when it is reused for another solve.
+     *
+     * @param model grid and agent locations, shared between solves.
+     * @param activeSetHint active set to warm start from, may be null.
+     * @param result buffers for the solution, reused if they have the right size.
+     */
+    public DCOPFJ(DCOPFModel model, double[][] so, double[][] db, double[] lp, int [] hf,
+                  int h, boolean checktemp, INIT init, int[] activeSetHint, OPFResult result) {
+
+        this.model = model;
+        this.result = result;
+        this.activeSetHint = activeSetHint;
         loadHybridFlag = hf; // Jx1; hybrid demand flag
-        atNodeByGen = ng;  // Ix1; GenCo location on the grid
-        atNodeByLSE = nl;  // Jx1; LSE location on the grid
-        grid        = tg;  // Grid data
+        atNodeByGen = model.getAtNodeByGen();  // Ix1; GenCo location on the grid
+        atNodeByLSE = model.getAtNodeByLSE();  // Jx1; LSE location on the grid
+        grid        = model.getGrid();  // Grid data
         check=checktemp;
         K = grid.getNumNodes();
         N = grid.getNumBranches();
@@ -288,6 +328,7 @@ public class DCOPFJ {
 
 
     private void solveDCOPF() {
+        layout = model.getLayout(loadHybridFlag);
         formG();
         forma();
         formCeq();
@@ -366,41 +407,34 @@ public class DCOPFJ {
             System.out.println("biq: " + biq);
         */
 
-        qpj = new QuadProgJ(G,a,Ceq,beq,Ciq,biq);
+        qpj = new QuadProgJ(G,a,Ceq,beq,Ciq,biq,activeSetHint);
         boolean bHaveSolution=qpj.getIsFeasibleAndOptimal();
 
-        commitment = new double[I];   // in MWs
-        voltAngle = new double[K-1];  // in radians
-        voltAngleDegree = new double[K-1]; // in degress
-        lmp        = new double[K];
-        ineqMultiplier = new double[2*N+2*I+2*iPriceSensitiveDemand];
-        minTVC = 0;  // in $/h
-        branchFlow = new double[N]; //in MWs
-        bi = new double[N][2]; // columns are FROM and TO; rows are branches
-        bi = grid.getBranchIndex();
-        double[] fullVoltAngle = new double[K]; // including delta_1 = 0
-        sumSquaredAngleDifference = 0;
-
+        // all zero unless QuadProgJ has a solution
+        result.reset(I, iPriceSensitiveDemand, K, N);
 
         // NOTE FOR THE SOLUTION STRUCTURE x* = qpj.getMinX()
         // x* = (p_{G1}...p_{GI}, delta_2...delta_K) for fixed demand
         // x* = (p_{G1}...p_{GI}, p_{L1}^S...p_{LJ}^S, delta_2...delta_K)
         //      for price-sensitive demand
 
-        sLoad = new double[iPriceSensitiveDemand];
-
         if(bHaveSolution) { // QuadProgJ has a solution
+            double[] commitment = result.commitment;   // in MWs
+            double[] voltAngle = result.voltAngle;     // in radians
+            double[] voltAngleDegree = result.voltAngleDegree; // in degress
+            double[] x = qpj.getMinX();
+
             // DC-OPF solution for (p_{G1},...,p_{GI}) in SI
             for(int i=0; i<I; i++) {
-                commitment[i] = qpj.getMinX()[i]*init.getBaseS();
+                commitment[i] = x[i]*init.getBaseS();
             }
             // DC-OPF solution for (p_{L1}^S,...,p_{LJ}^S) in SI
             for(int j=I; j<I+iPriceSensitiveDemand; j++) {
-                sLoad[j-I] = qpj.getMinX()[j]*init.getBaseS();
+                result.sLoad[j-I] = x[j]*init.getBaseS();
             }
             // DC-OPF solution for (delta_2,...,delta_K)
             for(int k=I+iPriceSensitiveDemand; k<I+iPriceSensitiveDemand+K-1; k++) {
-                voltAngle[k-I-iPriceSensitiveDemand] = qpj.getMinX()[k];  // voltAngle in radians
+                voltAngle[k-I-iPriceSensitiveDemand] = x[k];  // voltAngle in radians
             }
 
             // Convert voltage angle from radian to degree
@@ -409,35 +443,36 @@ public class DCOPFJ {
             }
 
             // lmp: locational marginal prices in SI
+            double[] eqMultiplier = qpj.getEqMultipliers();
             for(int k=0; k<K; k++) {
-                lmp[k] = qpj.getEqMultipliers()[k]/init.getBaseS();
+                result.lmp[k] = eqMultiplier[k]/init.getBaseS();
             }
 
+            double[] lambda = qpj.getIneqMultipiers();
             for(int j=0; j<2*N+2*I+2*iPriceSensitiveDemand; j++) {
-                ineqMultiplier[j] = qpj.getIneqMultipiers()[j]/init.getBaseS();
+                result.ineqMultiplier[j] = lambda[j]/init.getBaseS();
             }
+            double minTVC = 0;  // in $/h
             for(int i=0; i<I; i++) {
                 minTVC = minTVC + (A.get(i)/init.getBaseS())*commitment[i]
                          +(B.get(i)/(init.getBaseS()*init.getBaseS()))*commitment[i]*commitment[i];
             }
+            result.minTVC = minTVC;
 
-            for(int k=1; k<K; k++) {
-                fullVoltAngle[k] = voltAngle[k-1];
-            }
-            //System.out.println("fullVoltAngle");
-            //Support.print(fullVoltAngle,4);
+            // voltAngle holds delta_2...delta_K, delta_1 = 0
+            double[][] bi = grid.getBranchIndex(); // columns are FROM and TO; rows are branches
+            double[] reactance = grid.getReactance();
+            double sumSquaredAngleDifference = 0;
             for(int n=0; n<N; n++) {
-                //System.out.println("1/x_km: " +(1/grid.getReactance()[n]));
-                //System.out.println("k,m: " + bi[n][0] + "," + bi[n][1]);
-                //System.out.println("delta_k: " + fullVoltAngle[(int)bi[n][0]-1]);
-                //System.out.println("delta_m: " + fullVoltAngle[(int)bi[n][1]-1]);
-                branchFlow[n] = (1/grid.getReactance()[n])*(fullVoltAngle[(int)bi[n][0]-1]
-                                - fullVoltAngle[(int)bi[n][1]-1])*init.getBaseS();
+                int k = (int)bi[n][0]-1;
+                int m = (int)bi[n][1]-1;
+                double angleDifference = (k==0 ? 0 : voltAngle[k-1]) - (m==0 ? 0 : voltAngle[m-1]);
+                result.branchFlow[n] = (1/reactance[n])*angleDifference*init.getBaseS(); //in MWs
 
                 sumSquaredAngleDifference = sumSquaredAngleDifference
-                                            + Math.pow((fullVoltAngle[(int)bi[n][0]-1]
-                                                        - fullVoltAngle[(int)bi[n][1]-1]),2);
+                                            + Math.pow(angleDifference,2);
             }
+            result.sumSquaredAngleDifference = sumSquaredAngleDifference;
         }
     }
 
@@ -445,9 +480,9 @@ public class DCOPFJ {
     @SuppressWarnings("static-access")
     private void formG() {
         B = new DenseDoubleMatrix1D(supplyOffer.viewColumn(B_INDEX).toArray());
+        DoubleMatrix1D diagU;
         if (iPriceSensitiveDemand<1) {
-            U = new DenseDoubleMatrix2D(fac2d.diagonal(B.assign(F.mult(2))).toArray());
-            G = new DenseDoubleMatrix2D(I+K-1,I+K-1);
+            diagU = B.assign(F.mult(2));
         }
         else {
             double [] dSensitiveDemand = new double [iPriceSensitiveDemand];
@@ -458,12 +493,15 @@ public class DCOPFJ {
             }
 
             D = new DenseDoubleMatrix1D(dSensitiveDemand);
-            U = new DenseDoubleMatrix2D
-            (fac2d.diagonal(fac1d.append(B,D).assign(F.mult(2))).toArray());
-            G = new DenseDoubleMatrix2D(I+iPriceSensitiveDemand+K-1,I+iPriceSensitiveDemand+K-1);
+            diagU = fac1d.append(B,D).assign(F.mult(2));
         }
-        Wrr = new DenseDoubleMatrix2D(grid.getReducedVADWeight());
-        G.assign(fac2d.composeDiagonal(U,Wrr));
+        int sizeU = diagU.size();
+        G = new SparseDoubleMatrix2D(sizeU+K-1,sizeU+K-1);
+        for(int i=0; i<sizeU; i++) {
+            G.setQuick(i,i,diagU.getQuick(i));
+        }
+        Wrr = grid.getReducedVADWeight();
+        setBlock(G, sizeU, sizeU, Wrr, 1);
 
     }
 
@@ -491,77 +529,24 @@ public class DCOPFJ {
     }
 
     // CeqTranspose = (II, -Br'); Ceq = CeqTranspose'; where Br' is rBusAdm here
-    @SuppressWarnings("static-access")
+    // or CeqTranspose = (II, -JJ, -Br') for price-sensitive demand
+    // Ceq is shared with the other solves on the same model.
     private void formCeq() {
-        II = new DenseDoubleMatrix2D(K,I);
-        for(int k=0; k<K; k++) {
-            for(int i=0; i<I; i++) {
-                if(atNodeByGen[i]==k+1) {
-                    II.set(k,i,1);  // change set to setQuick() later
-                }
-            }
-        }
-        rBusAdm = new DenseDoubleMatrix2D(grid.getReducedBusAdmittance());
-
-        if (iPriceSensitiveDemand<1) {
-            DoubleMatrix2D[][] parts = {{ II, rBusAdm.viewDice().assign(F.neg)}};
-            DoubleMatrix2D CeqTranspose = new DenseDoubleMatrix2D(K,I+K-1);
-            CeqTranspose.assign(fac2d.compose(parts));
-            Ceq = new DenseDoubleMatrix2D(I+K-1,K);
-            Ceq.assign(CeqTranspose.viewDice());
-        }
-        else {
-            JJ = new DenseDoubleMatrix2D(K,iPriceSensitiveDemand);
-            int iCount=0;
-            for(int k=0; k<K; k++) {
-                for(int j=0; j<J; j++) {
-                    if((atNodeByLSE[j]==k+1)&&((loadHybridFlag[j]&2)==2)) {
-                        JJ.set(k,iCount,1);  // change set to setQuick() later
-                        iCount++;
-                    }
-                }
-            }
-            DoubleMatrix2D[][] parts = {{
-                    II, JJ.assign(F.neg),
-                    rBusAdm.viewDice().assign(F.neg)
-                }
-            };
-            DoubleMatrix2D CeqTranspose = new DenseDoubleMatrix2D(K,I+iPriceSensitiveDemand+K-1);
-            CeqTranspose.assign(fac2d.compose(parts));
-            Ceq = new DenseDoubleMatrix2D(I+iPriceSensitiveDemand+K-1,K);
-            Ceq.assign(CeqTranspose.viewDice());
-        }
+        Ceq = layout.Ceq;
     }
     // FDemand = someFunction(atNodeByLSE, loadProfile); beq = FDemand
+    // FDemand_k = SUM_j loadProfile_j over the LSEs j at node k, with fixed
+    // demand if some of the demand is price-sensitive.
     private void formbeq() {
-        if (iPriceSensitiveDemand<1) {
-            FDemand = new DenseDoubleMatrix1D(K);
-            for(int k=0; k<K; k++) {
-                double lp=0;
-                for(int j=0; j<J; j++) {
-                    if(atNodeByLSE[j]==k+1) {
-                        lp = lp + loadProfile[j];
-                    }
-                }
-                FDemand.set(k,lp);
-            }
-            beq = new DenseDoubleMatrix1D(K);
-            beq.assign(FDemand);
-        }
-        else {
-            FDemand = new DenseDoubleMatrix1D(K);
-            for(int k=0; k<K; k++) {
-                double lp=0;
-                for(int j=0; j<J; j++) {
-                    if((atNodeByLSE[j]==k+1)&&((loadHybridFlag[j]&1)==1)) {
-                        lp = lp + loadProfile[j];
-                    }
-                }
-                FDemand.set(k,lp);
+        double[] nodeDemand = new double[K];
+        for(int j=0; j<J; j++) {
+            int k = atNodeByLSE[j]-1;
+            if(k>=0 && k<K && (iPriceSensitiveDemand<1 || (loadHybridFlag[j]&1)==1)) {
+                nodeDemand[k] = nodeDemand[k] + loadProfile[j];
             }
-            beq = new DenseDoubleMatrix1D(K);
-            beq.assign(FDemand);
         }
+        FDemand = new DenseDoubleMatrix1D(nodeDemand);
+        beq = FDemand.copy();
     }
 
     // Ciq matrix formulation
@@ -575,45 +560,22 @@ public class DCOPFJ {
     // MatrixT = {{Oni, Onj, Z*rAdj}, {Oni, Onj, -Z*rAdj}};
     // MatrixG = {{Iii, Oij, Oik},{-Iii, Oij, Oik}};
     // MatrixL = {{Oji, Ijj, Ojk},{Oji, -Ijj, Ojk}};
-    @SuppressWarnings("static-access")
+    //
+    // Ciq is shared with the other solves on the same model.
     private void formCiq() {
-        Oni   = new DenseDoubleMatrix2D(N,I);
-        Z    = new DenseDoubleMatrix2D(grid.getDiagonalAdmittance());
-        rAdj = new DenseDoubleMatrix2D(grid.getReducedAdjacency());
-        Iii = new DenseDoubleMatrix2D(I,I).assign(fac2d.identity(I));
-        Oik = new DenseDoubleMatrix2D(I,K-1);
+        Ciq = layout.Ciq;
+    }
 
-        if (iPriceSensitiveDemand<1) {
-            DoubleMatrix2D[][] parts = {
-                { Oni,                      Z.zMult(rAdj,null)                     },
-                { Oni,                      Z.copy().assign(F.neg).zMult(rAdj,null)},
-                { Iii,                      Oik                                    },
-                { Iii.copy().assign(F.neg), Oik                                    }
-            };
-            DoubleMatrix2D CiqTranspose = new DenseDoubleMatrix2D(2*N+2*I,I+K-1);
-            CiqTranspose.assign(fac2d.compose(parts));
-            Ciq = new DenseDoubleMatrix2D(I+K-1,2*N+2*I);
-            Ciq.assign(CiqTranspose.viewDice());
-        }
-        else {
-            Onj = new DenseDoubleMatrix2D(N,iPriceSensitiveDemand);
-            Oij = new DenseDoubleMatrix2D(I,iPriceSensitiveDemand);
-            Oji = new DenseDoubleMatrix2D(iPriceSensitiveDemand,I);
-            Ijj = new DenseDoubleMatrix2D(iPriceSensitiveDemand,iPriceSensitiveDemand).assign(fac2d.identity(iPriceSensitiveDemand));
-            Ojk = new DenseDoubleMatrix2D(iPriceSensitiveDemand,K-1);
-            DoubleMatrix2D[][] parts = {
-                { Oni,                      Onj, Z.zMult(rAdj,null)},
-                { Oni,                      Onj, Z.copy().assign(F.neg).zMult(rAdj,null)},
-                { Iii,                      Oij, Oik},
-                { Iii.copy().assign(F.neg), Oij, Oik},
-                { Oji,                      Ijj, Ojk},
-                { Oji,                      Ijj.copy().assign(F.neg), Ojk}
-            };
-            DoubleMatrix2D CiqTranspose = new DenseDoubleMatrix2D(2*N+2*I+2*iPriceSensitiveDemand,I+iPriceSensitiveDemand+K-1);
-            CiqTranspose.assign(fac2d.compose(parts));
-            Ciq = new DenseDoubleMatrix2D(I+iPriceSensitiveDemand+K-1,2*N+2*I+2*iPriceSensitiveDemand);
-            Ciq.assign(CiqTranspose.viewDice());
-        }
+    // target[row+i][column+j] = scale*block[i][j] for the non-zero elements of block
+    private static void setBlock(final DoubleMatrix2D target, final int row, final int column,
+                                 DoubleMatrix2D block, final double scale) {
+        block.forEachNonZero(new IntIntDoubleFunction() {
+            @Override
+            public double apply(int i, int j, double value) {
+                target.setQuick(row+i, column+j, scale*value);
+                return value;
+            }
+        });
     }
 
     // biq = (-pU, -pU, capL, -capU) or biq = (-pU, -pU, capL, -capU, sLoadL, -sLoadU)
@@ -629,16 +591,6 @@ public class DCOPFJ {
                                      };
             biq = new DenseDoubleMatrix1D(2*N+2*I);
             biq.assign(fac1d.make(parts));
-
-            ineqMultiplierName=new String[2*N+2*I];
-            for(int i=0; i<N; i++) {
-                ineqMultiplierName[i]="-BFlow "+(i+1);
-                ineqMultiplierName[N+i]="+BFlow "+(i+1);
-            }
-            for(int i=0; i<I; i++) {
-                ineqMultiplierName[2*N+i]="capL "+(i+1);
-                ineqMultiplierName[2*N+I+i]="capU "+(i+1);
-            }
         }
         else {
             double [] dSensitiveDemandL = new double [iPriceSensitiveDemand];
@@ -660,55 +612,47 @@ public class DCOPFJ {
             };
             biq = new DenseDoubleMatrix1D(2*N+2*I+2*iPriceSensitiveDemand);
             biq.assign(fac1d.make(parts));
-
-            ineqMultiplierName=new String[2*N+2*I+2*iPriceSensitiveDemand];
-            for(int i=0; i<N; i++) {
-                ineqMultiplierName[i]="-BFlow "+(i+1);
-                ineqMultiplierName[N+i]="+BFlow "+(i+1);
-            }
-            for(int i=0; i<I; i++) {
-                ineqMultiplierName[2*N+i]="capL "+(i+1);
-                ineqMultiplierName[2*N+I+i]="capU "+(i+1);
-            }
-            for(int i=0; i<iPriceSensitiveDemand; i++) {
-                ineqMultiplierName[2*N+2*I+i]="-PS "+(i+1);
-                ineqMultiplierName[2*N+2*I+iPriceSensitiveDemand+i]="+PS "+(i+1);
-            }
-
         }
-
+        ineqMultiplierName = layout.ineqMultiplierName;
     }
 
+    /**
+     * @return the solution; see {@link OPFResult} for how long its arrays stay valid.
+     */
+    public OPFResult getResult() {
+        return result;
+    }
     public double[] getCommitment() {
-        return commitment;
+        return result.getCommitment();
     }
     public double[] getSLoad() {
-        return sLoad;
+        return result.getSLoad();
     }
 
     public double[] getVoltAngle() {
-        return voltAngle;
+        return result.getVoltAngle();
     }
     public double[] getVoltAngleDegree() {
-        return voltAngleDegree;
+        return result.getVoltAngleDegree();
     }
     public double[] getLMP() {
-        return lmp;
+        return result.getLMP();
     }
     public double[] getIneqMultiplier() {
-        return ineqMultiplier;
+        return result.getIneqMultiplier();
     }
+    // shared with the other solves on the same model, do not modify
     public String [] getIneqMultiplierName() {
         return ineqMultiplierName;
     }
     public double getMinTVC() {
-        return minTVC;
+        return result.getMinTVC();
     }
     public double[] getBranchFlow() {
-        return branchFlow;
+        return result.getBranchFlow();
     }
     public double getSumSquaredAngleDifference() {
-        return sumSquaredAngleDifference;
+        return result.getSumSquaredAngleDifference();
     }
     public int getNumBindingConstraints() {
         return qpj.getNumBC();
@@ -719,6 +663,12 @@ public class DCOPFJ {
     public boolean getIsSolutionFeasibleAndOptimal() {
         return qpj.getIsFeasibleAndOptimal();
     }
+    public int getNumIterations() {
+        return qpj.getNumIterations();
+    }
+    public boolean getIsWarmStarted() {
+        return qpj.getIsWarmStarted();
+    }
 
 
 
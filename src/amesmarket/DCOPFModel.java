@@ -0,0 +1,216 @@
+/*
+ * FIXME: LICENSE
+ */
+
+package amesmarket;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.Map;
+
+import cern.colt.function.IntIntDoubleFunction;
+import cern.colt.matrix.DoubleMatrix2D;
+import cern.colt.matrix.impl.SparseDoubleMatrix2D;
+
+/**
+ * The part of the DC-OPF problem that stays the same from one solve to the
+ * next: the transmission grid and the nodes the GenCos and LSEs are at.
+ *
+ * The equality and inequality constraint matrices (Ceq, Ciq) of
+ * {@link DCOPFJ} only depend on these and on which LSEs submit
+ * price-sensitive demand bids. They are built once for each such layout and
+ * reused, so each DCOPFJ only has to fill in the cost vector, the demand
+ * vector and the capacity bounds.
+ *
+ * A model can be shared by DCOPFJ instances on different threads. The
+ * matrices it hands out are shared too and must not be modified.
+ */
+public class DCOPFModel {
+
+    private final TransGrid grid;
+    private final int[] atNodeByGen;
+    private final int[] atNodeByLSE;
+
+    private final int K; // numNodes
+    private final int N; // numBranches
+    private final int I; // numGenAgents
+    private final int J; // numLSEAgents
+
+    /** Layouts built so far, by the set of price-sensitive LSEs. */
+    private final Map<BitSet, Layout> layouts = new HashMap<BitSet, Layout>();
+
+    /**
+     * @param grid transmission grid
+     * @param atNodeByGen GenCo location on the grid (1-based node numbers)
+     * @param atNodeByLSE LSE location on the grid (1-based node numbers)
+     */
+    public DCOPFModel(TransGrid grid, int[] atNodeByGen, int[] atNodeByLSE) {
+        if(grid == null) throw new IllegalArgumentException("Null TransGrid");
+        this.grid = grid;
+        this.atNodeByGen = atNodeByGen.clone();
+        this.atNodeByLSE = atNodeByLSE.clone();
+        K = grid.getNumNodes();
+        N = grid.getNumBranches();
+        I = atNodeByGen.length;
+        J = atNodeByLSE.length;
+    }
+
+    /**
+     * Check if this model describes the given grid and agent locations.
+     * @param grid
+     * @param atNodeByGen
+     * @param atNodeByLSE
+     * @return true if the model can be used for them.
+     */
+    public boolean isFor(TransGrid grid, int[] atNodeByGen, int[] atNodeByLSE) {
+        return this.grid == grid
+                && Arrays.equals(this.atNodeByGen, atNodeByGen)
+                && Arrays.equals(this.atNodeByLSE, atNodeByLSE);
+    }
+
+    public TransGrid getGrid() {
+        return grid;
+    }
+
+    public int getNumGenAgents() {
+        return I;
+    }
+
+    public int getNumLSEAgents() {
+        return J;
+    }
+
+    /**
+     * @return GenCo location on the grid. Do not modify.
+     */
+    int[] getAtNodeByGen() {
+        return atNodeByGen;
+    }
+
+    /**
+     * @return LSE location on the grid. Do not modify.
+     */
+    int[] getAtNodeByLSE() {
+        return atNodeByLSE;
+    }
+
+    /**
+     * Get the constraint structure for an hour's demand types.
+     * @param loadHybridFlag Jx1; hybrid demand flag, bit 2 marks price-sensitive demand.
+     * @return the (shared) layout.
+     */
+    synchronized Layout getLayout(int[] loadHybridFlag) {
+        BitSet priceSensitive = new BitSet(J);
+        for(int j=0; j<J; j++) {
+            if((loadHybridFlag[j]&2)==2) {
+                priceSensitive.set(j);
+            }
+        }
+
+        Layout layout = layouts.get(priceSensitive);
+        if(layout == null) {
+            layout = new Layout(priceSensitive);
+            layouts.put(priceSensitive, layout);
+        }
+        return layout;
+    }
+
+    /**
+     * Ceq and Ciq for one set of price-sensitive LSEs. See {@link DCOPFJ}
+     * for the block structure.
+     */
+    final class Layout {
+        /** number of LSEs with price-sensitive demand */
+        final int numPriceSensitive;
+        /** KxI, GenCo-node incidence */
+        final DoubleMatrix2D II;
+        /** KxJ, price-sensitive LSE-node incidence; null if there are none */
+        final DoubleMatrix2D JJ;
+        final DoubleMatrix2D Ceq;
+        final DoubleMatrix2D Ciq;
+        final String[] ineqMultiplierName;
+
+        private Layout(BitSet priceSensitive) {
+            numPriceSensitive = priceSensitive.cardinality();
+            int nx = I + numPriceSensitive + K - 1; // number of decision variables
+
+            // CeqTranspose = (II, -JJ, -Br'); Ceq = CeqTranspose'; where Br' is rBusAdm
+            final DoubleMatrix2D ceq = new SparseDoubleMatrix2D(nx, K);
+            II = new SparseDoubleMatrix2D(K, I);
+            for(int i=0; i<I; i++) {
+                int k = atNodeByGen[i]-1;
+                if(k>=0 && k<K) {
+                    II.setQuick(k, i, 1);
+                    ceq.setQuick(i, k, 1);
+                }
+            }
+
+            if(numPriceSensitive > 0) {
+                JJ = new SparseDoubleMatrix2D(K, numPriceSensitive);
+                int iCount=0;
+                for(int k=0; k<K; k++) {
+                    for(int j=0; j<J; j++) {
+                        if((atNodeByLSE[j]==k+1) && priceSensitive.get(j)) {
+                            JJ.setQuick(k, iCount, 1);
+                            ceq.setQuick(I+iCount, k, -1);
+                            iCount++;
+                        }
+                    }
+                }
+            }
+            else {
+                JJ = null;
+            }
+
+            final int offset = I + numPriceSensitive; // first voltage angle in x
+            grid.getReducedBusAdmittance().forEachNonZero(new IntIntDoubleFunction() {
+                @Override
+                public double apply(int k, int m, double value) {
+                    ceq.setQuick(offset+k, m, -value);
+                    return value;
+                }
+            });
+            Ceq = ceq;
+
+            // CiqTranspose = {{Oni, Onj, Z*rAdj}, {Oni, Onj, -Z*rAdj},
+            //                 {Iii, Oij, Oik},{-Iii, Oij, Oik},
+            //                 {Oji, Ijj, Ojk},{Oji, -Ijj, Ojk}};
+            // Only the non-zero blocks are set.
+            final DoubleMatrix2D ciq = new SparseDoubleMatrix2D(nx, 2*N+2*I+2*numPriceSensitive);
+            final DoubleMatrix2D Z = grid.getDiagonalAdmittance();
+            grid.getReducedAdjacency().forEachNonZero(new IntIntDoubleFunction() {
+                @Override
+                public double apply(int n, int k, double value) {
+                    double zrAdj = Z.getQuick(n,n)*value; // Z is diagonal
+                    ciq.setQuick(offset+k, n, zrAdj);
+                    ciq.setQuick(offset+k, N+n, -zrAdj);
+                    return value;
+                }
+            });
+            for(int i=0; i<I; i++) {
+                ciq.setQuick(i, 2*N+i, 1);
+                ciq.setQuick(i, 2*N+I+i, -1);
+            }
+            for(int j=0; j<numPriceSensitive; j++) {
+                ciq.setQuick(I+j, 2*N+2*I+j, 1);
+                ciq.setQuick(I+j, 2*N+2*I+numPriceSensitive+j, -1);
+            }
+            Ciq = ciq;
+
+            ineqMultiplierName = new String[2*N+2*I+2*numPriceSensitive];
+            for(int i=0; i<N; i++) {
+                ineqMultiplierName[i]="-BFlow "+(i+1);
+                ineqMultiplierName[N+i]="+BFlow "+(i+1);
+            }
+            for(int i=0; i<I; i++) {
+                ineqMultiplierName[2*N+i]="capL "+(i+1);
+                ineqMultiplierName[2*N+I+i]="capU "+(i+1);
+            }
+            for(int i=0; i<numPriceSensitive; i++) {
+                ineqMultiplierName[2*N+2*I+i]="-PS "+(i+1);
+                ineqMultiplierName[2*N+2*I+numPriceSensitive+i]="+PS "+(i+1);
+            }
+        }
+    }
+}
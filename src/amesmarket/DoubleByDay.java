@@ -0,0 +1,130 @@
+/*
+ * FIXME: LICENSE
+ */
+
+package amesmarket;
+
+import java.util.Arrays;
+
+/**
+ * Rows of doubles keyed by day, e.g. the hourly dispatch of a GenCo
+ * for each day of the simulation.
+ *
+ * Day numbers are small and dense, so the rows are stored back to back in
+ * one array indexed by day, instead of in a map from boxed day numbers to
+ * small arrays. The table grows as days are added. Rows are copied in
+ * and out; {@link #get(int, int)} reads a single value without copying.
+ */
+public class DoubleByDay {
+
+    /**
+     * Row d starts at d * stride.
+     */
+    private double[] values = new double[0];
+    /**
+     * Length of the row for each day, -1 if there is no row.
+     */
+    private int[] lengths = new int[0];
+    private int stride = 0;
+    private int maxDay = -1;
+
+    /**
+     * Store (a copy of) the row for the day, replacing any previous row.
+     * @param day day number, >= 0
+     * @param row
+     * @throws IllegalArgumentException if day < 0
+     */
+    public void put(int day, double[] row) {
+        if (day < 0) {
+            throw new IllegalArgumentException("Negative day " + day);
+        }
+        ensureCapacity(day, row.length);
+        System.arraycopy(row, 0, this.values, day * this.stride, row.length);
+        this.lengths[day] = row.length;
+        if (day > this.maxDay) {
+            this.maxDay = day;
+        }
+    }
+
+    /**
+     * @param day
+     * @return true if there is a row for the day.
+     */
+    public boolean has(int day) {
+        return day >= 0 && day < this.lengths.length && this.lengths[day] >= 0;
+    }
+
+    /**
+     * @param day
+     * @return a copy of the row for the day, or null if there is none.
+     */
+    public double[] get(int day) {
+        if (!has(day)) {
+            return null;
+        }
+        int start = day * this.stride;
+        return Arrays.copyOfRange(this.values, start, start + this.lengths[day]);
+    }
+
+    /**
+     * @param day
+     * @param i
+     * @return element i of the row for the day.
+     * @throws IndexOutOfBoundsException if there is no such element.
+     */
+    public double get(int day, int i) {
+        if (i < 0 || i >= length(day)) {
+            throw new IndexOutOfBoundsException("No element " + i + " for day " + day);
+        }
+        return this.values[day * this.stride + i];
+    }
+
+    /**
+     * @param day
+     * @return length of the row for the day, or 0 if there is none.
+     */
+    public int length(int day) {
+        return has(day) ? this.lengths[day] : 0;
+    }
+
+    /**
+     * @return the highest day with a row, or -1 if the table is empty.
+     */
+    public int getMaxDay() {
+        return this.maxDay;
+    }
+
+    /**
+     * @return the sum of all the values of all the rows.
+     */
+    public double sum() {
+        double sum = 0;
+        for (int d = 0; d <= this.maxDay; d++) {
+            int start = d * this.stride;
+            for (int i = 0; i < this.lengths[d]; i++) {
+                sum += this.values[start + i];
+            }
+        }
+        return sum;
+    }
+
+    private void ensureCapacity(int day, int len) {
+        int days = this.lengths.length;
+        int newDays = (day < days) ? days : Math.max(day + 1, 2 * days);
+        int newStride = Math.max(this.stride, len);
+        if (newDays == days && newStride == this.stride) {
+            return;
+        }
+        double[] v = new double[newDays * newStride];
+        for (int d = 0; d <= this.maxDay; d++) {
+            if (this.lengths[d] > 0) {
+                System.arraycopy(this.values, d * this.stride, v, d * newStride, this.lengths[d]);
+            }
+        }
+        int[] l = Arrays.copyOf(this.lengths, newDays);
+        Arrays.fill(l, days, newDays, -1);
+        this.values = v;
+        this.lengths = l;
+        this.stride = newStride;
+    }
+}
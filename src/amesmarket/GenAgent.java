@@ -27,9 +27,7 @@ import java.awt.*;
 import uchicago.src.sim.gui.*;
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.HashMap;
 import java.util.Iterator;
-import java.util.Map;
 import java.math.*;
 
 import amesmarket.CaseFileData.SCUCInputData;
@@ -129,18 +127,18 @@ public class GenAgent implements Drawable {
     /**
      * Commit vector for each day d.
      */
-    private final HashMap<Integer, int[]> commitmentByDay;
+    private final IntByDay commitmentByDay;
     /**
      * Dispatch levels for each hour hour of each day.
      */
-    private final HashMap<Integer, double[]> dispatchByDay;
+    private final DoubleByDay dispatchByDay;
     /**
      * Costs for each hour of a day.
      */
-    private final HashMap<Integer, double[]> productionCostsByDay;
+    private final DoubleByDay productionCostsByDay;
     //NOT USED. Stored in the AMESMARKET.
-    private final HashMap<Integer, double[]> startupCostsByDay;
-    private final HashMap<Integer, double[]> shutdownCostsByDay;
+    private final DoubleByDay startupCostsByDay;
+    private final DoubleByDay shutdownCostsByDay;
 
     private final ArrayList<double[][]> dayAheadLMPByDay;
     private final ArrayList<double[][]> realTimeLMPByDay;
@@ -290,11 +288,11 @@ public class GenAgent implements Drawable {
         marketPower = new double[HOURS_PER_DAY];
 
         // Create historical data records (initialized all to zeros)
-        commitmentByDay = new HashMap<Integer, int[]>();
-        dispatchByDay   = new HashMap<Integer, double[]>();
-        productionCostsByDay = new HashMap<Integer, double[]>();
-        startupCostsByDay = new HashMap<Integer, double[]>();
-        shutdownCostsByDay = new HashMap<Integer, double[]>();
+        commitmentByDay = new IntByDay();
+        dispatchByDay   = new DoubleByDay();
+        productionCostsByDay = new DoubleByDay();
+        startupCostsByDay = new DoubleByDay();
+        shutdownCostsByDay = new DoubleByDay();
         dayAheadLMPByDay = new ArrayList<double[][]>();
         realTimeLMPByDay = new ArrayList<double[][]>();
 
@@ -958,15 +956,15 @@ public class GenAgent implements Drawable {
 
     public void addDailyCosts(int day, double[] startCosts, 
             double[] productionCosts, double[] shutdownCosts) {
-        productionCostsByDay.put(day, Arrays.copyOf(productionCosts, productionCosts.length));
-        startupCostsByDay.put(day, Arrays.copyOf(startCosts, startCosts.length));
-        shutdownCostsByDay.put(day, Arrays.copyOf(shutdownCosts, shutdownCosts.length));
+        productionCostsByDay.put(day, productionCosts);
+        startupCostsByDay.put(day, startCosts);
+        shutdownCostsByDay.put(day, shutdownCosts);
     }
     
     /**
      * Get the dispatch values for day d.
      * @param day
-     * @return array of dispatches, or null if no data for the day.
+     * @return a copy of the dispatches, or null if no data for the day.
      */
     public double[] getDispatchesForDay(int day) {
         return dispatchByDay.get(day);
@@ -982,7 +980,7 @@ public class GenAgent implements Drawable {
     }
 
     /**
-     * Put the commitment for day d. This stores the commitment
+     * Put (a copy of) the commitment for day d. This stores the commitment
      * by day d, but the values are generated by the SCUC/DAM
      * on day d-1. In otherwords, if we are running the DAM on
      * day d, add commitment for d+1.
@@ -993,14 +991,17 @@ public class GenAgent implements Drawable {
         commitmentByDay.put(d, commitment);
     }
 
-    public Map<Integer, int[]> getCommitmentDecisions() {
+    /**
+     * @return the commitment decisions of all days.
+     */
+    public IntByDay getCommitmentDecisions() {
         return commitmentByDay;
     }
     
     /**
      * Get the commitment decision for day d.
      * @param d
-     * @return
+     * @return a copy of the commitment, or null if no data for the day.
      */
     public int[] getCommitmentsForDay(int d) {
         return commitmentByDay.get(d);
@@ -1042,19 +1043,19 @@ public class GenAgent implements Drawable {
      *
      */
     public int getUnitOnT0State(int day) {
-        final int[] commitmentsForDay = getCommitmentsForDay(day);
+        final int numHours = commitmentByDay.length(day);
         // Don't know anything about the day. Assume it has been on
         // for 1 hour.
-        if (commitmentsForDay == null) {
+        if (!commitmentByDay.has(day)) {
             return 1;
         }
 
-        final int lastHourState = commitmentsForDay[commitmentsForDay.length - 1];
+        final int lastHourState = commitmentByDay.get(day, numHours - 1);
         int numHourSame = 0;
 
         //count how many hours were the same generator state (on or off)
-        for (int i=commitmentsForDay.length-1; i>=0; i--) {
-            if (commitmentsForDay[i] == lastHourState) {
+        for (int i=numHours-1; i>=0; i--) {
+            if (commitmentByDay.get(day, i) == lastHourState) {
                 numHourSame++;
             } else { //state changed, done counting.
                 break;
@@ -1073,9 +1074,8 @@ public class GenAgent implements Drawable {
     }
 
     public double getPowerT0(int day) {
-            double[] powerGen = dispatchByDay.get(day);
-            if(powerGen != null) {
-                return powerGen[powerGen.length - 1]; //last hour of the day.
+            if(dispatchByDay.has(day)) {
+                return dispatchByDay.get(day, dispatchByDay.length(day) - 1); //last hour of the day.
             } else {
                 return getCapacityMax();
             }
@@ -1204,26 +1204,19 @@ public class GenAgent implements Drawable {
      * TODO-X comment.
      * @return
      */
-	@SuppressWarnings("unchecked")
     public double computeTotalCosts() {
 		double cost = 0;
 
 		//Startup costs
 		//Production Costs
 		//Shutdown Costs
-		for(HashMap<Integer, double[]> costMap :
+		for(DoubleByDay costs :
 		    Arrays.asList(
 		            startupCostsByDay,
 		            productionCostsByDay,
 		            shutdownCostsByDay
 		            )){
-		    for(double[] c : costMap.values()) {
-		        if(c == null) continue;
-
-		        for(int i = 0; i<c.length; i++) {
-		            cost += c[i];
-		        }
-		    }
+		    cost += costs.sum();
 		}
 
 		return cost;
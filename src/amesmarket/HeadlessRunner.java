@@ -0,0 +1,371 @@
+/*
+ * FIXME: LICENSE
+ */
+
+package amesmarket;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+
+import AMESGUIFrame.MarketResultsWriter;
+import amesmarket.filereaders.BadDataFileFormatException;
+import amesmarket.filereaders.CaseFileReader;
+import amesmarket.results.ResultStore;
+
+/**
+ * Runs simulations of a case without the GUI, for the 'run' command of
+ * {@link AMESMain}.
+ *
+ * The case is read with the {@link CaseFileReader} and each run builds an
+ * {@link AMESMarket} from it and drives it to the end on the calling
+ * thread. The results are written through the {@link MarketResultsWriter},
+ * to &lt;case&gt;_&lt;seed&gt;.out in the output directory.
+ *
+ * All the simulation parameters come from the case file. Unlike the GUI,
+ * the stopping rules are not reset to the defaults.
+ */
+public class HeadlessRunner {
+
+    private final File caseFile;
+    private final List<Long> seeds = new ArrayList<Long>();
+    private int maxDay = -1;
+    private String scuc = null;
+    private String sced = null;
+    private File outDir = null;
+
+    /**
+     * @param caseFile
+     */
+    public HeadlessRunner(File caseFile) {
+        this.caseFile = caseFile;
+    }
+
+    /**
+     * Parse the arguments of the run command:
+     * <pre>
+     *   &lt;case_file&gt; [--seed n[,n...]|a-b] [--max-day n] [--scuc psst|scucj]
+     *               [--sced pyomo|dcopfj] [--out dir]
+     * </pre>
+     * @param args arguments after 'run'.
+     * @return
+     * @throws IllegalArgumentException if the arguments are wrong.
+     */
+    public static HeadlessRunner fromArgs(String[] args) {
+        if (args.length == 0 || args[0].startsWith("--")) {
+            throw new IllegalArgumentException("Must supply the case file to run.");
+        }
+        HeadlessRunner runner = new HeadlessRunner(new File(args[0]));
+        for (int i = 1; i < args.length; i++) {
+            String flag = args[i];
+            if (i + 1 == args.length) {
+                throw new IllegalArgumentException("Missing the value for " + flag);
+            }
+            String value = args[++i];
+            try {
+                if ("--seed".equals(flag)) {
+                    for (String s : value.split(",")) {
+                        s = s.trim();
+                        int dash = s.indexOf('-', 1);
+                        if (dash > 0) {
+                            runner.addSeeds(Long.parseLong(s.substring(0, dash)),
+                                    Long.parseLong(s.substring(dash + 1)));
+                        } else {
+                            runner.addSeed(Long.parseLong(s));
+                        }
+                    }
+                } else if ("--max-day".equals(flag)) {
+                    runner.setMaxDay(Integer.parseInt(value));
+                } else if ("--scuc".equals(flag)) {
+                    runner.setSCUC(value);
+                } else if ("--sced".equals(flag)) {
+                    runner.setSCED(value);
+                } else if ("--out".equals(flag)) {
+                    runner.setOutDir(new File(value));
+                } else {
+                    throw new IllegalArgumentException("Unknown option " + flag);
+                }
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Expected a number for " + flag + ", not " + value, e);
+            }
+        }
+        return runner;
+    }
+
+    /**
+     * Add a random seed to run. If none are added, the case's seed is used.
+     * @param seed
+     */
+    public void addSeed(long seed) {
+        this.seeds.add(seed);
+    }
+
+    /**
+     * Add the random seeds first, ..., last to run.
+     * @param first
+     * @param last
+     * @throws IllegalArgumentException if last is before first.
+     */
+    public void addSeeds(long first, long last) {
+        if (last < first) {
+            throw new IllegalArgumentException("Empty seed range " + first + "-" + last);
+        }
+        for (long seed = first; seed <= last; seed++) {
+            this.seeds.add(seed);
+        }
+    }
+
+    /**
+     * @param cfd the case.
+     * @return the seeds to run, or the case's seed if none were added.
+     */
+    public List<Long> getSeeds(CaseFileData cfd) {
+        List<Long> runSeeds = new ArrayList<Long>(this.seeds);
+        if (runSeeds.isEmpty()) {
+            runSeeds.add(cfd.RandomSeed);
+        }
+        return runSeeds;
+    }
+
+    /**
+     * @return the case file.
+     */
+    public File getCaseFile() {
+        return this.caseFile;
+    }
+
+    /**
+     * @return the name of the case file, without the extension.
+     */
+    public String getCaseName() {
+        String caseName = this.caseFile.getName();
+        int dot = caseName.lastIndexOf('.');
+        if (dot > 0) {
+            caseName = caseName.substring(0, dot);
+        }
+        return caseName;
+    }
+
+    /**
+     * @param maxDay overrides the case's maximum day, if positive.
+     */
+    public void setMaxDay(int maxDay) {
+        this.maxDay = maxDay;
+    }
+
+    /**
+     * @param scuc SCUC engine, see {@link AMESMarket#setSCUCEngine(String)}.
+     */
+    public void setSCUC(String scuc) {
+        this.scuc = scuc;
+    }
+
+    /**
+     * @param sced SCED engine, see {@link AMESMarket#setSCEDEngine(String)}.
+     */
+    public void setSCED(String sced) {
+        this.sced = sced;
+    }
+
+    /**
+     * @param outDir directory for the output files. Defaults to the
+     *        Output directory next to the case file, as in the GUI.
+     */
+    public void setOutDir(File outDir) {
+        this.outDir = outDir;
+    }
+
+    /**
+     * @return the directory the output files are written to.
+     */
+    public File getOutDir() {
+        if (this.outDir != null) {
+            return this.outDir;
+        }
+        return new File(this.caseFile.getAbsoluteFile().getParentFile(), "Output");
+    }
+
+    /**
+     * Read the case file.
+     * @return
+     * @throws IOException
+     * @throws BadDataFileFormatException
+     */
+    public CaseFileData loadCase() throws IOException, BadDataFileFormatException {
+        return new CaseFileReader().loadCaseFileData(this.caseFile);
+    }
+
+    /**
+     * Run the case once for each seed.
+     * @return true if every run ended without an error.
+     * @throws IOException if the case could not be read or the results
+     *         could not be written.
+     * @throws BadDataFileFormatException if the case is not valid.
+     */
+    public boolean runAll() throws IOException, BadDataFileFormatException {
+        CaseFileData cfd = loadCase();
+        boolean ok = true;
+        for (long seed : getSeeds(cfd)) {
+            AMESMarket market = run(cfd, seed);
+            File out = writeResults(market, seed);
+            if (market.hasStopCodeError()) {
+                System.err.println("Run with seed " + seed + " stopped with an error. Results in " + out);
+                ok = false;
+            } else {
+                System.out.println("Run with seed " + seed + " done. Results in " + out);
+            }
+        }
+        return ok;
+    }
+
+    /**
+     * Build a market for the case and run it to the end.
+     *
+     * Markets may be run on several threads at once, each with its own
+     * case data. The daily results of each go to their own sink directory.
+     *
+     * @param cfd
+     * @param seed
+     * @return the market, after the run.
+     */
+    public AMESMarket run(CaseFileData cfd, long seed) {
+        AMESMarket market = createMarket(cfd, seed);
+        try {
+            market.runHeadless();
+        } catch (AMESMarketException e) {
+            System.err.println("Error building the model. The simulation cannot run!\n" + e.getMessage());
+        }
+        return market;
+    }
+
+    /**
+     * Write the results of a run to &lt;case&gt;_&lt;seed&gt;.out.
+     *
+     * @param market
+     * @param seed
+     * @return the file written.
+     * @throws IOException
+     */
+    public File writeResults(AMESMarket market, long seed) throws IOException {
+        File dir = getOutDir();
+        if (!dir.isDirectory() && !dir.mkdirs()) {
+            throw new IOException("Could not create " + dir.getPath());
+        }
+        File f = new File(dir, getCaseName() + "_" + seed + ".out");
+
+        Writer out = new BufferedWriter(new FileWriter(f));
+        try {
+            writeResults(market, out);
+        } finally {
+            out.close();
+        }
+        return f;
+    }
+
+    /**
+     * Write the results of a run.
+     * @param market
+     * @param out
+     * @throws IOException
+     */
+    public static void writeResults(AMESMarket market, Writer out) throws IOException {
+        MarketResultsWriter mrw = new MarketResultsWriter(market);
+        mrw.formatGenCoCommitments(market, out);
+        MarketResultsWriter.formatTotalCostsSplitByType(market, out);
+        MarketResultsWriter.formatTotalCostsSplitByFuelType(market, out);
+        mrw.formatTotalProductionCosts(market, market.getGenAgentList(), out);
+        mrw.formatStartupCosts(market, out);
+        mrw.formatShutdownCosts(market, out);
+        out.write("\n\n\n");
+        out.write("StopCode=" + String.format("\t%1$15d", market.getStopCode()) + "\n");
+        out.write("\n");
+    }
+
+    /**
+     * Set up a market the way AMESFrame.InitializeAMESMarket does, without
+     * the RePast Controller. Run it with {@link AMESMarket#runHeadless()}.
+     */
+    AMESMarket createMarket(CaseFileData cfd, long seed) {
+        boolean delIntermediateFiles = Boolean.parseBoolean(
+                System.getProperty("DEL_INTER_FILES", "false"));
+        AMESMarket market = new AMESMarket(delIntermediateFiles,
+                ResultStore.forRun(getCaseName() + "_" + seed));
+        //per market, so runs on other threads can use other engines.
+        if (this.scuc != null) {
+            market.setSCUCEngine(this.scuc);
+        }
+        if (this.sced != null) {
+            market.setSCEDEngine(this.sced);
+        }
+
+        double[][] bus = new double[1][2];
+        bus[0][0] = Support.parseDouble(cfd.nodeData[0][0].toString());
+        bus[0][1] = Support.parseDouble(cfd.nodeData[0][1].toString());
+
+        double[][] branch = new double[cfd.branchData.length][cfd.branchData[0].length - 1];
+        for (int i = 0; i < branch.length; i++) {
+            for (int j = 0; j < branch[i].length; j++) {
+                branch[i][j] = Support.parseDouble(cfd.branchData[i][j + 1].toString());
+            }
+        }
+
+        //Skip the name in the first column, and the alert flag in the last.
+        Object[][] genData = new Object[cfd.genData.length][];
+        for (int i = 0; i < genData.length; i++) {
+            genData[i] = cfd.genData[i].asArray();
+        }
+        int iGenCol = genData[0].length - 2;
+        double[][] gen = new double[genData.length][iGenCol];
+        boolean[] gencoAlertMarkers = new boolean[genData.length];
+        for (int i = 0; i < gen.length; i++) {
+            for (int j = 0; j < iGenCol; j++) {
+                gen[i][j] = Support.parseDouble(genData[i][j + 1].toString());
+            }
+            gencoAlertMarkers[i] = Boolean.parseBoolean(genData[i][genData[0].length - 1].toString());
+        }
+
+        double[][] lse = new double[cfd.lseData.length][cfd.lseData[0].length - 1];
+        for (int i = 0; i < lse.length; i++) {
+            for (int j = 0; j < lse[i].length; j++) {
+                lse[i][j] = Support.parseDouble(cfd.lseData[i][j + 1].toString());
+            }
+        }
+
+        int iLsePriceCol = cfd.lsePriceSensitiveDemand[0][0].length - 1;
+        double[][][] lsePrice = new double[cfd.lsePriceSensitiveDemand.length][24][iLsePriceCol];
+        for (int i = 0; i < lsePrice.length; i++) {
+            for (int h = 0; h < 24; h++) {
+                for (int j = 0; j < iLsePriceCol; j++) {
+                    lsePrice[i][h][j] = Support.parseDouble(cfd.lsePriceSensitiveDemand[i][h][j + 1].toString());
+                }
+            }
+        }
+
+        int[][] lseHybrid = new int[cfd.lseHybridDemand.length][cfd.lseHybridDemand[0].length - 1];
+        for (int i = 0; i < lseHybrid.length; i++) {
+            for (int j = 0; j < lseHybrid[i].length; j++) {
+                lseHybrid[i][j] = Integer.parseInt(cfd.lseHybridDemand[i][j + 1].toString());
+            }
+        }
+
+        int iMaxDay = (this.maxDay > 0) ? this.maxDay : cfd.iMaxDay;
+
+        market.InitLearningParameters(cfd.genLearningData);
+        market.InitSimulationParameters(iMaxDay, cfd.bMaximumDay,
+                cfd.dThresholdProbability, cfd.bThreshold,
+                cfd.dDailyNetEarningThreshold, cfd.bDailyNetEarningThreshold,
+                cfd.iDailyNetEarningStartDay, cfd.iDailyNetEarningDayLength,
+                cfd.iStartDay, cfd.iCheckDayLength,
+                cfd.dActionProbability, cfd.bActionProbabilityCheck,
+                cfd.iLearningCheckStartDay, cfd.iLearningCheckDayLength,
+                cfd.dLearningCheckDifference, cfd.bLearningCheck,
+                cfd.dGenPriceCap, cfd.dLSEPriceCap, seed, cfd);
+        market.InitDataFromGUI(cfd.baseS, cfd.baseV, bus, branch, gen, lse,
+                lsePrice, lseHybrid, gencoAlertMarkers, cfd.getSCUCInputData(), cfd.getReserveRequirements());
+        return market;
+    }
+}
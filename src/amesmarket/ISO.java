@@ -77,8 +77,12 @@ public class ISO {
 	private FTRMarket ftrm;
 	private ScenarioGenerator scengen;
 	// private CooprSCUC scuc;
-	private PSSTSCUC scuc;
+	private SCUC scuc;
 	private SCED sced;
+	/**
+	 * True if the SCEDs run in the JVM, false if they run in pyomo.
+	 */
+	private final boolean scedInJVM;
 	private BUC buc;
 	/**
 	 * Num hours per day.
@@ -117,27 +121,36 @@ public class ISO {
 		//genSchedule = new int[I][H];
 		//genScheduleRT = new int[I][H];
 
-		this.dam  = new DAMarket(this.ames);
-		this.srm  = new SRMarket(this.ames);
-		this.rtm  = new RTMarket(this,this.ames);
-		this.ftrm = new FTRMarket(this.ames);
-		this.buc = new BUC(this,this.ames, init);
-		this.scuc = new PSSTSCUC(this, this.ames);
-
-		this.rtm.setBUC(this.buc);
-
-		String scedProp = System.getProperty("SCED", "pyomo");
+		//the engines are resolved once, the markets below follow them.
+		String scedProp = this.ames.getSCEDEngine();
 		if ("pyomo".equals(scedProp)) {
 			System.out.println("Using the external pyomo SCED.");
-			// this.sced = new PSSTSCED(this, this.ames);
+			this.scedInJVM = false;
 		} else if ("dcopfj".equals(scedProp)) {
 			System.out.println("Using DCOPFJ SCED.");
-			this.sced = this.buc;
+			this.scedInJVM = true;
 		} else {
 			//TODO-XX Better error message
 			throw new IllegalArgumentException("Unknown SCED engine " + scedProp);
 		}
 
+		this.dam  = new DAMarket(this.ames);
+		this.srm  = new SRMarket(this.ames);
+		this.buc = new BUC(this,this.ames, init);
+		this.rtm  = new RTMarket(this,this.ames,this.buc);
+		this.ftrm = new FTRMarket(this.ames);
+		if (this.scedInJVM) {
+			this.sced = this.buc;
+		}
+		String scucProp = this.ames.getSCUCEngine();
+		if ("psst".equals(scucProp)) {
+			this.scuc = new PSSTSCUC(this, this.ames);
+		} else if ("scucj".equals(scucProp)) {
+			this.scuc = new SCUCJ(this, this.ames);
+		} else {
+			throw new IllegalArgumentException("Unknown SCUC engine " + scucProp);
+		}
+
 		this.scengen = new ScenarioGenerator(this,this.ames);
 		//FIXME: SEED
 		this.randomGenerator = new Random(50000);
@@ -326,10 +339,8 @@ public class ISO {
 		double[][] rtl = new double[this.I][];
 
 		for(int zNum = 0; zNum < this.J; zNum++ ) {
-			double[] l = today.getZoneLoad(zNum);
-			//TODO-XX: The daily load profile should protect itself from aliasing issues
-			//not ad-hoc at usage points.
-			rtl[zNum] = Arrays.copyOf(l, l.length); //don't use the real data, in case it changes.
+			//getZoneLoad builds a new array, no need to copy it again.
+			rtl[zNum] = today.getZoneLoad(zNum);
 		}
 
 		return rtl;
@@ -347,10 +358,8 @@ public class ISO {
 		}
 
 		for(CommitmentDecision cd : commDecision) {
-			//copy the array to make sure the data doesn't get changed accidentally.
-			int[] commCopy = Arrays.copyOf(cd.commitmentDecisions, cd.commitmentDecisions.length);
-
-			this.ames.getGenAgentByName(cd.generatorName).addCommitmentForDay(day, commCopy);
+			//addCommitmentForDay copies the array, the data can't be changed accidentally.
+			this.ames.getGenAgentByName(cd.generatorName).addCommitmentForDay(day, cd.commitmentDecisions);
 		}
 	}
 
@@ -558,25 +567,29 @@ public class ISO {
 	}
 
 	private void announceHourlyLoads(int h, int d) throws AMESMarketException {
-		double[] lseDemand = new double[this.J];
-		//assemble just the demand hour h. The loadProfileByLSE
-		//is stored as lse x hour. We just want 1 hour for each lse.
-		if(this.loadProfileByLSE != null) {
-			for(int l = 0; l < this.J; l++) {
-				lseDemand[l] = this.loadProfileByLSE[l][h];
+		if(this.ames.hasStatusListeners(SimulationStatusListener.StatusEvent.UPDATE_LSE_DEMAND)) {
+			double[] lseDemand = new double[this.J];
+			//assemble just the demand hour h. The loadProfileByLSE
+			//is stored as lse x hour. We just want 1 hour for each lse.
+			if(this.loadProfileByLSE != null) {
+				for(int l = 0; l < this.J; l++) {
+					lseDemand[l] = this.loadProfileByLSE[l][h];
+				}
 			}
+			this.ames.announceStatusEvent(
+					new SimulationStatusListener.StatusEvent(
+							SimulationStatusListener.StatusEvent.UPDATE_LSE_DEMAND,
+							lseDemand, this));
 		}
-		this.ames.announceStatusEvent(
-				new SimulationStatusListener.StatusEvent(
-						SimulationStatusListener.StatusEvent.UPDATE_LSE_DEMAND,
-						lseDemand, this));
 		//update the actual loads
-		double[] statusLoads = new double[this.J];
-		this.getActualLoadProfile(h, d, statusLoads);
-		this.ames.announceStatusEvent(
-				new SimulationStatusListener.StatusEvent(
-						SimulationStatusListener.StatusEvent.UPDATE_RT_LOAD,
-						statusLoads, this));
+		if(this.ames.hasStatusListeners(SimulationStatusListener.StatusEvent.UPDATE_RT_LOAD)) {
+			double[] statusLoads = new double[this.J];
+			this.getActualLoadProfile(h, d, statusLoads);
+			this.ames.announceStatusEvent(
+					new SimulationStatusListener.StatusEvent(
+							SimulationStatusListener.StatusEvent.UPDATE_RT_LOAD,
+							statusLoads, this));
+		}
 	}
 
 	// Get and set method
@@ -674,6 +687,14 @@ public class ISO {
 		return this.sced;
 	}
 
+	/**
+	 * @return true if the day-ahead and real time SCEDs run in the JVM
+	 *         (dcopfj), false if they run in pyomo.
+	 */
+	public boolean isSCEDInJVM() {
+		return this.scedInJVM;
+	}
+
 	public double[][] getDailyLMP() {
 		//TODO: Is this the rt or dayahead value?
 		return this.buc.getDailyLMP();
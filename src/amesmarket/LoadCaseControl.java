@@ -833,6 +833,9 @@ public class LoadCaseControl {
         /**
          * Use the {@link #scenarioFile} to read in the scenario.
          *
+         * Unless disabled with {@link LoadScenarioStore#STORE_PROPERTY},
+         * the scenario is then moved to a {@link LoadScenarioStore}.
+         *
          * @throws BadDataFileFormatException
          */
         public final void setupLoadScenario() throws BadDataFileFormatException{
@@ -890,6 +893,11 @@ public class LoadCaseControl {
             // the program logic for scenario probability and scenario day probability.
             scenario.setScenarioProb(getScenarioProb()); // make sure to copy the prob. over.
 
+            //Keep the (net) loads out of the heap. Each day is read
+            //back from the store when it is needed.
+            if(LoadScenarioStore.isEnabled()) {
+                scenario = LoadScenarioStore.toStored(scenario);
+            }
         }
 
         private void computeNetLoad(LoadProfileCollection load, LoadProfileCollection wind) {
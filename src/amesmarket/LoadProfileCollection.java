@@ -21,9 +21,7 @@ package amesmarket;
 
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.Collections;
-import java.util.Comparator;
-import java.util.HashMap;
+import java.util.BitSet;
 import java.util.List;
 
 import amesmarket.filereaders.BadDataFileFormatException;
@@ -44,15 +42,46 @@ public class LoadProfileCollection implements IChoice{
     private double scenarioProb = 0.0d;
 
     /**
-     * A map from a day, d,  to the load profile for the day.
+     * The load profile for day d is at index d, or null if there is none.
+     * Days are dense, so an array is cheaper than a map keyed by day.
      */
-    private final HashMap<Integer, DailyLoadProfile> loadProfiles;
+    private DailyLoadProfile[] loadProfiles;
+
+    /**
+     * Days that are not in loadProfiles are read from the store, if
+     * there is one. The store is read only, scaling is applied as the
+     * days are read.
+     */
+    private final LoadScenarioStore store;
+    private double storeScale = 1.0d;
+
+    /**
+     * The last day read from the store. Callers usually ask for the
+     * same day a few times in a row.
+     */
+    private volatile DailyLoadProfile lastStored = null;
 
     /**
      *
      */
     public LoadProfileCollection() {
-        loadProfiles = new HashMap<Integer, DailyLoadProfile>();
+        loadProfiles = new DailyLoadProfile[0];
+        store = null;
+    }
+
+    /**
+     * Construct a load scenario backed by a {@link LoadScenarioStore}.
+     *
+     * The case name and scenario number are taken from the store. Each
+     * {@link #get(int)} builds the profile for the day from the store.
+     *
+     * @param store
+     */
+    public LoadProfileCollection(LoadScenarioStore store) {
+        loadProfiles = new DailyLoadProfile[0];
+        this.store = store;
+        this.caseName = store.getCaseName();
+        this.scenarioNumber = store.getScenarioNumber();
     }
 
     /**
@@ -92,37 +121,61 @@ public class LoadProfileCollection implements IChoice{
         caseName = other.caseName;
         scenarioNumber = other.scenarioNumber;
         scenarioProb = other.scenarioProb;
-        loadProfiles = new HashMap<Integer, DailyLoadProfile>(other.loadProfiles.size());
-        for(Integer key : other.loadProfiles.keySet()){
-            loadProfiles.put(key, new DailyLoadProfile(other.loadProfiles.get(key)));
+        loadProfiles = new DailyLoadProfile[other.loadProfiles.length];
+        for(int d = 0; d < loadProfiles.length; d++){
+            if(other.loadProfiles[d] != null)
+                loadProfiles[d] = new DailyLoadProfile(other.loadProfiles[d]);
         }
+        //the store is read only, it can be shared.
+        store = other.store;
+        storeScale = other.storeScale;
     }
 
     public double peakTotalLoad() {
         double peakTotalLoad = Double.MIN_NORMAL;
         // TODO MOVE UP
-        for(DailyLoadProfile dlp : loadProfiles.values()) {
+        for(DailyLoadProfile dlp : loadProfiles) {
+            if(dlp == null)
+                continue;
             double localTotalLoad = dlp.peakHourLoad();
             peakTotalLoad = (localTotalLoad > peakTotalLoad) ? localTotalLoad : peakTotalLoad;
         }
+        //scan the stored days in place, without building the profiles.
+        if(store != null) {
+            for(int day : store.getDays()) {
+                if(heapGet(day) != null)
+                    continue;
+                double localTotalLoad = store.peakHourLoad(day, storeScale);
+                peakTotalLoad = (localTotalLoad > peakTotalLoad) ? localTotalLoad : peakTotalLoad;
+            }
+        }
 
         return peakTotalLoad;
     }
 
     public void scaleScenario(double scaleFactor) {
-        for(DailyLoadProfile dlp : loadProfiles.values())
-            dlp.scaleProfile(scaleFactor);
+        for(DailyLoadProfile dlp : loadProfiles)
+            if(dlp != null)
+                dlp.scaleProfile(scaleFactor);
+        storeScale = storeScale * scaleFactor;
+        lastStored = null;
     }
 
     public void subtractLoad(LoadProfileCollection other) {
         if(other == null) return;
 
-        final HashMap<Integer, DailyLoadProfile> otherLoadProfiles = other.loadProfiles;
-        for(Integer k :  loadProfiles.keySet()) {
-            DailyLoadProfile l = loadProfiles.get(k);
-            DailyLoadProfile o = otherLoadProfiles.get(k);
+        BitSet days = days();
+        for(int k = days.nextSetBit(0); k >= 0; k = days.nextSetBit(k + 1)) {
+            //stored days are read only, move them to the heap first.
+            DailyLoadProfile l = heapGet(k);
+            if(l == null) {
+                l = get(k);
+                put(l);
+            }
+            DailyLoadProfile o = other.get(k);
             l.subtractFromLoad(o);
         }
+        lastStored = null;
     }
 
     /**
@@ -136,7 +189,10 @@ public class LoadProfileCollection implements IChoice{
      * @param currentDay
      */
     public void put(DailyLoadProfile lp) {
-        loadProfiles.put(lp.getDayNumber(), lp);
+        int day = lp.getDayNumber();
+        if(day >= loadProfiles.length)
+            loadProfiles = Arrays.copyOf(loadProfiles, Math.max(day + 1, 2 * loadProfiles.length));
+        loadProfiles[day] = lp;
     }
 
     /**
@@ -146,7 +202,35 @@ public class LoadProfileCollection implements IChoice{
      * @return a DailyLoadProfile, or null if no profile exists for the day.
      */
     public DailyLoadProfile get(int day) {
-        return loadProfiles.get(day);
+        DailyLoadProfile dlp = heapGet(day);
+        if(dlp == null && store != null) {
+            dlp = lastStored;
+            if(dlp == null || dlp.getDayNumber() != day) {
+                dlp = store.get(day, storeScale);
+                lastStored = dlp;
+            }
+        }
+        return dlp;
+    }
+
+    private DailyLoadProfile heapGet(int day) {
+        return (day >= 0 && day < loadProfiles.length) ? loadProfiles[day] : null;
+    }
+
+    /**
+     * @return the set of days with a profile.
+     */
+    private BitSet days() {
+        BitSet days = new BitSet(loadProfiles.length);
+        for(int d = 0; d < loadProfiles.length; d++) {
+            if(loadProfiles[d] != null)
+                days.set(d);
+        }
+        if(store != null) {
+            for(int day : store.getDays())
+                days.set(day);
+        }
+        return days;
     }
 
     /**
@@ -189,21 +273,14 @@ public class LoadProfileCollection implements IChoice{
     }
 
     /**
-     * Get all the profiles, sort by hour.
+     * Get all the profiles, sort by day.
      * @return
      */
     public List<DailyLoadProfile> getAllProfiles() {
-        List<DailyLoadProfile> dlps = new ArrayList<DailyLoadProfile>(loadProfiles.values());
-
-        Collections.sort(dlps, new Comparator<DailyLoadProfile>() {
-            @Override
-            public int compare(DailyLoadProfile o1, DailyLoadProfile o2) {
-                int dn1, dn2;
-                dn1 = o1.getDayNumber();
-                dn2 = o2.getDayNumber();
-                return (dn1 < dn2) ? -1 : (dn1 == dn2) ? 0 : 1;
-            }
-        });
+        BitSet days = days();
+        List<DailyLoadProfile> dlps = new ArrayList<DailyLoadProfile>(days.cardinality());
+        for(int d = days.nextSetBit(0); d >= 0; d = days.nextSetBit(d + 1))
+            dlps.add(get(d));
 
         return dlps;
     }
@@ -255,7 +332,8 @@ public class LoadProfileCollection implements IChoice{
         }
 
         //correct number of days
-        if (exDays != loadProfiles.size()) {
+        int numDays = days().cardinality();
+        if (exDays != numDays) {
             String scenarioDesc = "";
             //adjust for ExpectedLoad
             if(scenarioNumber == LoadCaseControl.EXPECTED_LOAD_SCEN_NUM){
@@ -267,7 +345,7 @@ public class LoadProfileCollection implements IChoice{
             throw new BadDataFileFormatException(
                     "CaseName: " + caseName + ", " + scenarioDesc
                     + "-- Expected " + exDays
-                    + " days but found " + loadProfiles.size() + " days.");
+                    + " days but found " + numDays + " days.");
         }
     }
 
@@ -0,0 +1,377 @@
+/*
+ * FIXME: LICENSE
+ */
+
+package amesmarket;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+import java.util.List;
+
+import amesmarket.filereaders.BadDataFileFormatException;
+
+/**
+ * Read-only load scenario kept in a memory mapped binary file instead of
+ * on the heap.
+ *
+ * A scenario is converted from the text format once, when it is first
+ * read, and the {@link DailyLoadProfile} for a day is only built when it
+ * is asked for. The mapped pages belong to the OS page cache, so a case
+ * with many long scenarios no longer needs heap space for all of them.
+ *
+ * Layout, all numbers little-endian:
+ * <pre>
+ *   "AMESLOAD"                      8 byte magic
+ *   int32 version                   {@link #VERSION}
+ *   int32 scenario number
+ *   int32 D, H, Z                   days, hours per day, zones
+ *   int32 n, n bytes                case name, UTF-8, n = -1 for none
+ *   int32[D]                        day numbers, ascending
+ *   0-7 bytes                       padding to a multiple of 8
+ *   double[D][H][Z]                 loads, by day, hour and zone
+ * </pre>
+ */
+public class LoadScenarioStore {
+
+    /**
+     * System property to choose where the load scenarios are kept,
+     * 'mapped' (the default) or 'heap'.
+     */
+    public static final String STORE_PROPERTY = "LOAD_STORE";
+
+    /**
+     * System property with the directory for the store files. Defaults
+     * to java.io.tmpdir.
+     */
+    public static final String STORE_DIR_PROPERTY = "LOAD_STORE_DIR";
+
+    /**
+     * Version of the layout this class reads and writes.
+     */
+    public static final int VERSION = 1;
+
+    private static final byte[] MAGIC = {'A', 'M', 'E', 'S', 'L', 'O', 'A', 'D'};
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+
+    private final File file;
+    private final String caseName;
+    private final int scenarioNumber;
+    private final int[] days;
+    private final int numHours;
+    private final int numZones;
+    private final DoubleBuffer loads;
+
+    /**
+     * Map a store file and check its header.
+     * @param file
+     * @throws BadDataFileFormatException if the file is not a load store,
+     *         is an unknown version, or is truncated.
+     */
+    public LoadScenarioStore(File file) throws BadDataFileFormatException {
+        this.file = file;
+        ByteBuffer buf = map(file);
+        try {
+            byte[] magic = new byte[MAGIC.length];
+            buf.get(magic);
+            if (!Arrays.equals(MAGIC, magic)) {
+                throw new BadDataFileFormatException(file, 0, "Not a load scenario store");
+            }
+            int version = buf.getInt();
+            if (version != VERSION) {
+                throw new BadDataFileFormatException(file, 0,
+                        "Unsupported load scenario store version " + version);
+            }
+            this.scenarioNumber = buf.getInt();
+            this.days = new int[nonNegative(buf.getInt())];
+            this.numHours = nonNegative(buf.getInt());
+            this.numZones = nonNegative(buf.getInt());
+
+            int len = buf.getInt();
+            if (len < 0) {
+                this.caseName = null;
+            } else {
+                byte[] name = new byte[len];
+                buf.get(name);
+                this.caseName = new String(name, UTF8);
+            }
+            for (int d = 0; d < this.days.length; d++) {
+                this.days[d] = buf.getInt();
+                if (d > 0 && this.days[d] <= this.days[d - 1]) {
+                    throw new BadDataFileFormatException(file, 0, "Days are not in ascending order");
+                }
+            }
+            buf.position((buf.position() + 7) & ~7);
+
+            long size = 8L * this.days.length * this.numHours * this.numZones;
+            if (size > buf.remaining()) {
+                throw new BufferUnderflowException();
+            }
+            ByteBuffer data = buf.slice();
+            data.limit((int) size);
+            this.loads = data.order(ByteOrder.LITTLE_ENDIAN).asDoubleBuffer();
+        } catch (BufferUnderflowException e) {
+            throw new BadDataFileFormatException(file, 0, "Truncated load scenario store", e);
+        } catch (IllegalArgumentException e) {
+            throw new BadDataFileFormatException(file, 0, "Truncated load scenario store", e);
+        }
+    }
+
+    /**
+     * @return true unless {@link #STORE_PROPERTY} asks to keep the
+     *         scenarios on the heap.
+     */
+    public static boolean isEnabled() {
+        return !"heap".equalsIgnoreCase(System.getProperty(STORE_PROPERTY, "mapped").trim());
+    }
+
+    /**
+     * Move a scenario into a new store file, which is deleted when the JVM
+     * exits.
+     *
+     * @param lpc scenario to copy. Every day must have the same number of
+     *        hours and every hour the same number of zones.
+     * @return a collection reading from the store, with the case name,
+     *         scenario number and probability of lpc.
+     * @throws BadDataFileFormatException if the scenario is not rectangular
+     *         or the file could not be written.
+     */
+    public static LoadProfileCollection toStored(LoadProfileCollection lpc)
+            throws BadDataFileFormatException {
+        File f;
+        try {
+            f = File.createTempFile("scenario-", ".lpc", storeDir());
+        } catch (IOException e) {
+            throw new BadDataFileFormatException(e);
+        }
+        f.deleteOnExit();
+        write(lpc, f);
+
+        LoadProfileCollection stored = new LoadProfileCollection(new LoadScenarioStore(f));
+        stored.setScenarioProb(lpc.probability());
+        return stored;
+    }
+
+    /**
+     * Write a scenario in the store format.
+     * @param lpc
+     * @param f
+     * @throws BadDataFileFormatException if the scenario is not rectangular
+     *         or the file could not be written.
+     */
+    public static void write(LoadProfileCollection lpc, File f) throws BadDataFileFormatException {
+        List<DailyLoadProfile> profiles = lpc.getAllProfiles();
+        int numHours = profiles.isEmpty() ? 0 : profiles.get(0).getNumHours();
+        int numZones = 0;
+        if (numHours > 0 && profiles.get(0).getLoadByHour(0) != null) {
+            numZones = profiles.get(0).getLoadByHour(0).length;
+        }
+
+        byte[] name = lpc.getCaseName() == null ? null : lpc.getCaseName().getBytes(UTF8);
+        int headerLen = MAGIC.length + 6 * 4 + 4 + (name == null ? 0 : name.length) + 4 * profiles.size();
+        ByteBuffer header = ByteBuffer.allocate((headerLen + 7) & ~7).order(ByteOrder.LITTLE_ENDIAN);
+        header.put(MAGIC).putInt(VERSION).putInt(lpc.getScenarioNumber());
+        header.putInt(profiles.size()).putInt(numHours).putInt(numZones);
+        if (name == null) {
+            header.putInt(-1);
+        } else {
+            header.putInt(name.length).put(name);
+        }
+        for (DailyLoadProfile dlp : profiles) {
+            header.putInt(dlp.getDayNumber());
+        }
+        header.position(header.capacity());
+        header.flip();
+
+        ByteBuffer day = ByteBuffer.allocate(8 * numHours * numZones).order(ByteOrder.LITTLE_ENDIAN);
+        try {
+            FileOutputStream out = new FileOutputStream(f);
+            try {
+                FileChannel ch = out.getChannel();
+                writeFully(ch, header);
+                for (DailyLoadProfile dlp : profiles) {
+                    if (dlp.getNumHours() != numHours) {
+                        throw new BadDataFileFormatException(String.format(
+                                "Expected %d hours but found %d for day %d of scenario %d",
+                                numHours, dlp.getNumHours(), dlp.getDayNumber(), lpc.getScenarioNumber()));
+                    }
+                    day.clear();
+                    for (int h = 0; h < numHours; h++) {
+                        double[] l = dlp.getLoadByHour(h);
+                        if (l == null || l.length != numZones) {
+                            throw new BadDataFileFormatException(String.format(
+                                    "Expected %d zones for hour %d of day %d of scenario %d",
+                                    numZones, h + 1, dlp.getDayNumber(), lpc.getScenarioNumber()));
+                        }
+                        for (double v : l) {
+                            day.putDouble(v);
+                        }
+                    }
+                    day.flip();
+                    writeFully(ch, day);
+                }
+            } finally {
+                out.close();
+            }
+        } catch (IOException e) {
+            throw new BadDataFileFormatException(e);
+        }
+    }
+
+    /**
+     * @return the directory set by {@link #STORE_DIR_PROPERTY}, or java.io.tmpdir.
+     */
+    private static File storeDir() throws BadDataFileFormatException {
+        String prop = System.getProperty(STORE_DIR_PROPERTY);
+        File dir = (prop != null && prop.trim().length() > 0)
+                ? new File(prop.trim()) : new File(System.getProperty("java.io.tmpdir"));
+        if (!dir.isDirectory() && !dir.mkdirs()) {
+            throw new BadDataFileFormatException("Could not create " + dir.getPath());
+        }
+        return dir;
+    }
+
+    /**
+     * @return the store file.
+     */
+    public File getFile() {
+        return this.file;
+    }
+
+    /**
+     * @return the case name, may be null.
+     */
+    public String getCaseName() {
+        return this.caseName;
+    }
+
+    /**
+     * @return the scenario number
+     */
+    public int getScenarioNumber() {
+        return this.scenarioNumber;
+    }
+
+    /**
+     * @return the day numbers in the store, ascending.
+     */
+    public int[] getDays() {
+        return this.days.clone();
+    }
+
+    /**
+     * @return the number of hours in each day.
+     */
+    public int getNumHours() {
+        return this.numHours;
+    }
+
+    /**
+     * @return the number of zones in each hour.
+     */
+    public int getNumZones() {
+        return this.numZones;
+    }
+
+    /**
+     * @param day
+     * @return true if the store has a profile for the day.
+     */
+    public boolean hasDay(int day) {
+        return Arrays.binarySearch(this.days, day) >= 0;
+    }
+
+    /**
+     * Build the load profile for a day.
+     *
+     * @param day
+     * @param scale factor to multiply each load by.
+     * @return a new profile, or null if the store has no profile for the day.
+     */
+    public DailyLoadProfile get(int day, double scale) {
+        int d = Arrays.binarySearch(this.days, day);
+        if (d < 0) {
+            return null;
+        }
+        int pos = d * this.numHours * this.numZones;
+        DailyLoadProfile dlp = new DailyLoadProfile(this.numHours);
+        for (int h = 0; h < this.numHours; h++) {
+            double[] l = new double[this.numZones];
+            for (int z = 0; z < this.numZones; z++) {
+                l[z] = this.loads.get(pos++);
+                if (scale != 1.0) {
+                    l[z] = l[z] * scale;
+                }
+            }
+            dlp.setLoadByHour(h, l);
+        }
+        dlp.setDayNumber(day);
+        return dlp;
+    }
+
+    /**
+     * Same as {@link DailyLoadProfile#peakHourLoad()} on {@link #get(int, double)},
+     * without building the profile.
+     *
+     * @param day
+     * @param scale
+     * @return the largest total load of an hour of the day.
+     * @throws IllegalArgumentException if the store has no profile for the day.
+     */
+    public double peakHourLoad(int day, double scale) {
+        int d = Arrays.binarySearch(this.days, day);
+        if (d < 0) {
+            throw new IllegalArgumentException("No load profile for day " + day);
+        }
+        int pos = d * this.numHours * this.numZones;
+        double peak = Double.MIN_NORMAL;
+        for (int h = 0; h < this.numHours; h++) {
+            double total = 0;
+            for (int z = 0; z < this.numZones; z++) {
+                double v = this.loads.get(pos++);
+                total += (scale != 1.0) ? v * scale : v;
+            }
+            peak = (total > peak) ? total : peak;
+        }
+        return peak;
+    }
+
+    private static void writeFully(FileChannel ch, ByteBuffer buf) throws IOException {
+        while (buf.hasRemaining()) {
+            ch.write(buf);
+        }
+    }
+
+    private static int nonNegative(int n) {
+        if (n < 0) {
+            throw new IllegalArgumentException("Negative size " + n);
+        }
+        return n;
+    }
+
+    private static ByteBuffer map(File file) throws BadDataFileFormatException {
+        try {
+            RandomAccessFile raf = new RandomAccessFile(file, "r");
+            try {
+                FileChannel ch = raf.getChannel();
+                // The mapping stays valid after the channel is closed.
+                MappedByteBuffer buf = ch.map(FileChannel.MapMode.READ_ONLY, 0, ch.size());
+                buf.order(ByteOrder.LITTLE_ENDIAN);
+                return buf;
+            } finally {
+                raf.close();
+            }
+        } catch (IOException e) {
+            throw new BadDataFileFormatException(e);
+        }
+    }
+}
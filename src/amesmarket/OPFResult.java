@@ -0,0 +1,88 @@
+/*
+ * FIXME: LICENSE
+ */
+
+package amesmarket;
+
+import java.util.Arrays;
+
+/**
+ * Solution of one DC-OPF problem, in SI units.
+ *
+ * A result can be handed to {@link DCOPFJ} to be written into instead of
+ * having the solver allocate new arrays for every solve. The arrays are only
+ * reallocated when the problem size changes, so a caller that solves the
+ * same hour every day can keep one result per hour and reuse it.
+ *
+ * The arrays returned by the getters are the buffers themselves. They are
+ * overwritten by the next solve that uses this result; copy them to keep
+ * them.
+ */
+public class OPFResult {
+
+    double[] commitment;      // power production quantity, Ix1
+    double[] sLoad;           // price-sensitive load demand quantity
+    double[] voltAngle;       // voltage angle in radians, (K-1)x1
+    double[] voltAngleDegree; // voltage angle in degrees, (K-1)x1
+    double[] lmp;             // locational marginal prices, Kx1
+    double[] ineqMultiplier;  // (2N+2I+2*numPriceSensitive)x1
+    double[] branchFlow;      // Nx1
+    double minTVC;
+    double sumSquaredAngleDifference;
+
+    /**
+     * Size the buffers for a problem and zero them.
+     *
+     * @param numGen number of GenCos (I)
+     * @param numPriceSensitive number of price-sensitive LSEs
+     * @param numNodes number of nodes (K)
+     * @param numBranches number of branches (N)
+     */
+    void reset(int numGen, int numPriceSensitive, int numNodes, int numBranches) {
+        commitment = zeroed(commitment, numGen);
+        sLoad = zeroed(sLoad, numPriceSensitive);
+        voltAngle = zeroed(voltAngle, numNodes-1);
+        voltAngleDegree = zeroed(voltAngleDegree, numNodes-1);
+        lmp = zeroed(lmp, numNodes);
+        ineqMultiplier = zeroed(ineqMultiplier, 2*numBranches+2*numGen+2*numPriceSensitive);
+        branchFlow = zeroed(branchFlow, numBranches);
+        minTVC = 0;
+        sumSquaredAngleDifference = 0;
+    }
+
+    private static double[] zeroed(double[] buffer, int size) {
+        if(buffer == null || buffer.length != size) {
+            return new double[size];
+        }
+        Arrays.fill(buffer, 0);
+        return buffer;
+    }
+
+    public double[] getCommitment() {
+        return commitment;
+    }
+    public double[] getSLoad() {
+        return sLoad;
+    }
+    public double[] getVoltAngle() {
+        return voltAngle;
+    }
+    public double[] getVoltAngleDegree() {
+        return voltAngleDegree;
+    }
+    public double[] getLMP() {
+        return lmp;
+    }
+    public double[] getIneqMultiplier() {
+        return ineqMultiplier;
+    }
+    public double[] getBranchFlow() {
+        return branchFlow;
+    }
+    public double getMinTVC() {
+        return minTVC;
+    }
+    public double getSumSquaredAngleDifference() {
+        return sumSquaredAngleDifference;
+    }
+}
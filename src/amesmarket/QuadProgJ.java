@@ -94,7 +94,6 @@ public class QuadProgJ {
     // F: Naming shortcut to save some keystrokes for calling Colt's functions
     private DoubleFactory1D fac1 = DoubleFactory1D.dense;
     private DoubleFactory2D fac2 = DoubleFactory2D.dense;
-    private Algebra alg = new Algebra();
     private DoubleMatrix2D L; // L: Cholesky decomp lower matrix s.t. G = L*L'
 
     // A is the active set whose elements are the indices of binding constraints,
@@ -110,6 +109,7 @@ public class QuadProgJ {
     private boolean isFullStep;
     private boolean isInfeasible = false;
     private boolean isFeasibleAndOptimal = false;
+    private boolean isWarmStarted = false; // true if started from a hint active set
     // NOTE(1): the main loop goes back to Step 1 if isFullStep is true;
     //          otherwise it goes back to Step 2(a)
     // NOTE(2): the main loop of GI's algorithm can only be terminated by either
@@ -118,10 +118,10 @@ public class QuadProgJ {
 
     private double f; // f: min objective function evaluated at current iteration
     private DoubleMatrix1D x;     // x: minimizer, nx1
-    private DoubleMatrix2D N;     // N: active constraint matrix, nxq => nxm
-    private DoubleMatrix2D H;     // H: 'reduced' inverse Hessian operator, nxn
     private DoubleMatrix1D nplus; // nplus: current chosen violated constraint, nx1
-    private DoubleMatrix2D Nstar; // Nstar: pseudo-inverse of N, qxn
+    private double[][] J; // J: L^{-T}*Q, nxn, stored by column (see addToActiveSet())
+    private double[][] R; // R: upper triangular factor of L^{-1}*N, qxq => min(m,n)xmin(m,n)
+    private double[] d;   // d: J'*nplus, nx1
     private DoubleMatrix1D z; // z: step direction in primal space, nx1
     private DoubleMatrix1D r; // r: negative step direction in dual space,(q-1)x1
     private DoubleMatrix1D u;     // u: Lagrangian multiplier, qx1
@@ -156,6 +156,28 @@ public class QuadProgJ {
     public QuadProgJ(DoubleMatrix2D GMat,   DoubleMatrix1D aVec,
                      DoubleMatrix2D CeqMat, DoubleMatrix1D beqVec,
                      DoubleMatrix2D CiqMat, DoubleMatrix1D biqVec) {
+        this(GMat, aVec, CeqMat, beqVec, CiqMat, biqVec, null);
+    }
+
+    /**
+     * Constructor used in solving DC-OPF problem, warm started from a hint
+     * active set, e.g. {@link #getActiveSet()} of the previous hour.
+     *
+     * The hint uses the same indexing as {@link #getActiveSet()}: indices of
+     * columns in C = [Ceq,Ciq]. Indices of equality constraints are ignored,
+     * since those are always active. If the hint does not give a dual
+     * feasible starting point the solver falls back to the cold start.
+     *
+     * The optimal x does not depend on the hint. On degenerate problems the
+     * multipliers, and so the active set, can: more than one set of
+     * multipliers is optimal, and which one is found depends on the start.
+     *
+     * @param activeSetHint active set to start from, may be null.
+     */
+    public QuadProgJ(DoubleMatrix2D GMat,   DoubleMatrix1D aVec,
+                     DoubleMatrix2D CeqMat, DoubleMatrix1D beqVec,
+                     DoubleMatrix2D CiqMat, DoubleMatrix1D biqVec,
+                     int[] activeSetHint) {
         time.start();
 
         n   = aVec.size();
@@ -163,14 +185,26 @@ public class QuadProgJ {
         miq = biqVec.size();
         m   = meq + miq;
 
-        G   = new DenseDoubleMatrix2D(n,n).assign(GMat);     // G: nxn
         a   = new DenseDoubleMatrix1D(n).assign(aVec);       // a: nx1
-        Ceq = new DenseDoubleMatrix2D(n,meq).assign(CeqMat); // Ceq: nxmeq
         beq = new DenseDoubleMatrix1D(meq).assign(beqVec);   // beq: meqx1
-        Ciq = new DenseDoubleMatrix2D(n,miq).assign(CiqMat); // Ciq: nxmiq
         biq = new DenseDoubleMatrix1D(miq).assign(biqVec);   // biq: miqx1
 
-        C = fac2.appendColumns(Ceq,Ciq); // C = [Ceq,Ciq]_(nxm)
+        if(GMat instanceof SparseDoubleMatrix2D
+                || CeqMat instanceof SparseDoubleMatrix2D
+                || CiqMat instanceof SparseDoubleMatrix2D) {
+            // Sparse input (e.g. from DCOPFJ): the constraint matrices stay
+            //  sparse, only G is needed as a dense matrix for the factorization.
+            G   = copyNonZeros(GMat, new DenseDoubleMatrix2D(n,n), 0);
+            Ceq = copyNonZeros(CeqMat, new SparseDoubleMatrix2D(n,meq), 0);
+            Ciq = copyNonZeros(CiqMat, new SparseDoubleMatrix2D(n,miq), 0);
+            C   = copyNonZeros(Ciq, copyNonZeros(Ceq, new SparseDoubleMatrix2D(n,m), 0), meq);
+        }
+        else {
+            G   = new DenseDoubleMatrix2D(n,n).assign(GMat);     // G: nxn
+            Ceq = new DenseDoubleMatrix2D(n,meq).assign(CeqMat); // Ceq: nxmeq
+            Ciq = new DenseDoubleMatrix2D(n,miq).assign(CiqMat); // Ciq: nxmiq
+            C = fac2.appendColumns(Ceq,Ciq); // C = [Ceq,Ciq]_(nxm)
+        }
         b = fac1.append(beq,biq);        // b = [beq',biq']'_(mx1)
 
         scp = 1; // choose the most violated constraint at each iteration
@@ -180,13 +214,13 @@ public class QuadProgJ {
 
         L = new CholeskyDecomposition(G).getL();
         // L is the lower triangular matrix of Cholesky decomposition s.t. G = L*L'
+        // NOTE: G is only factorized here; J and R are updated from then on.
 
-        N = new DenseDoubleMatrix2D(n, Math.min(m, n));// N: n x min(m,n)
-        // NOTE: N is initialized as a max-sized zero matrix, so later on it is
-        //       easier for a constraint to be added or dropped.  The same for A.
-        //       So the N or A we are talking about are actually N[1:q] and A[1:q].
+        // NOTE: A and R are initialized as max-sized in findUnconstrainedMin(),
+        //       so later on it is easier for a constraint to be added or dropped.
+        //       So the A we are talking about is actually A[1:q].
 
-        dualActiveSetSolver(); // the 'main' method
+        dualActiveSetSolver(activeSetHint); // the 'main' method
 
         // Correct potential rounding error for final result: x, f and u
         x.assign(correctRoundingError(x));
@@ -305,10 +339,13 @@ public class QuadProgJ {
 
     }
 
-    private void dualActiveSetSolver() {
+    private void dualActiveSetSolver(int[] activeSetHint) {
         findUnconstrainedMin();                        // Step 0(a)
         if(meq > 0) {
-            findEqualityConstrainedMin_Lagrangian();     // Step 0(b)
+            findEqualityConstrainedMin();                // Step 0(b)
+        }
+        if(activeSetHint != null) {
+            warmStart(activeSetHint);
         }
         // If miq > 0, add inequality constraints if they get binding (violated)
 
@@ -328,74 +365,156 @@ public class QuadProgJ {
     }
 
     private void findUnconstrainedMin() {
-        x = alg.inverse(G).zMult(a, null).assign(F.neg); // x <- -G^{-1}*a
+        J = inverseTransposeOfL(); // J <- L^{-T}, so that G^{-1} = J*J'
+        R = new double[Math.min(m, n)][Math.min(m, n)];
+        d = new double[n];
+
+        // x <- -G^{-1}*a = -J*(J'*a)
+        multiplyJTranspose(a.toArray(), d);
+        double[] xv = new double[n];
+        for(int j=0; j<n; j++) {
+            addMultiple(xv, -d[j], J[j]);
+        }
+        x = new DenseDoubleMatrix1D(xv);
         f = 0.5 * a.zDotProduct(x); // f <- 0.5*a'*x
-        H = alg.inverse(G).copy(); // H <- G^{-1}
         A = new int[Math.min(m, n)]; // A <- empty set (all zeros)
         q = 0; // q <- 0
     }
 
-    /** This method uses the direct Lagrangian formulation to derive the equality
-     *  constrained minimization solution (Fletcher (1987) p.236-238)
+    /** Step 0(b): adds the equality constraints to the active set one at a
+     *  time, each with a full step in primal and dual space (GI section 3).
+     *  The multipliers of equality constraints are free in sign, so these
+     *  constraints are never dropped again.
      *
      * Problem:  min  a' * x + 0.5 * x' * G * x
      *     s.t.  Ceq' * x - beq  = 0
      *
-     * Linear system of equation:
-     *        [G -Ceq ; -Ceq' 0] * [x u]' = [-a -beq]'
-     *
-     *   or            GCeq * ecSol = abeq
-     *
-     * Solution:
-     *      [x u]' = [G -Ceq ; -Ceq' 0]^{-1} * [-a -beq]'
+     * After the last step x is the equality constrained minimum and u holds
+     * its Lagrangian multipliers, the same solution as the direct Lagrangian
+     * formulation [G -Ceq ; -Ceq' 0] * [x u]' = [-a -beq]' (Fletcher (1987)
+     * p.236-238) but without inverting the (n+meq)x(n+meq) Lagrangian matrix.
+     */
+    private void findEqualityConstrainedMin() {
+        for(int i=0; i<meq; i++) {
+            if(!addAsEquality(i)) {
+                throw new IllegalArgumentException("Equality constraint " + i
+                        + " is linearly dependent on the ones before it");
+            }
+        }
+
+        // Correct potential rounding error for x and f
+        x.assign(correctRoundingError(x));
+        f = correctRoundingError(f);
+    }
+
+    /** Warm start: after Step 0 the hinted inequality constraints are added
+     *  to the active set the same way as the equality constraints, i.e.
+     *  held as equalities:
      *
-     *   or          ecSol = GCeq^{-1} * abeq
+     * Problem:  min  a' * x + 0.5 * x' * G * x
+     *     s.t.  Nw' * x - bw  = 0,   Nw = [Ceq, C_hint], bw = [beq', b_hint']'
      *
-     * where GCeq  = [G -Ceq ; -Ceq' 0]
-     *       abeq  = [-a -beq]'
-     *       ecSol = [x u]'
+     * The resulting S-pair is only a valid starting point for the dual method
+     * if the columns of Nw are linearly independent and the multipliers of
+     * the hinted inequality constraints are non-negative.  Otherwise the
+     * S-pair of Step 0 is restored and false is returned, which is the same
+     * as a cold start.
      *
-     * Dimension:
-     *   GCeq:  (n+meq)x(n+meq)
-     *   abeq:  (n+meq)x1
-     *   ecSol: (n+meq)x1
+     * @return true if the solver was warm started from the hint.
      */
-    private void findEqualityConstrainedMin_Lagrangian() {
-
-        DoubleMatrix2D GCeq;   // Lagrangian matrix consisting of G and Ceq
-        DoubleMatrix1D abeq;   // Lagrangian RHS vector consisting of a and beq
-        DoubleMatrix1D ecsol;  // equality constrained solution vector
+    private boolean warmStart(int[] activeSetHint) {
+        // Keep the distinct inequality constraints of the hint, in hint order
+        boolean[] isHinted = new boolean[m];
+        int[] hint = new int[activeSetHint.length];
+        int numHint = 0;
+        for(int i=0; i<activeSetHint.length; i++) {
+            int c = activeSetHint[i];
+            if(c >= meq && c < m && !isHinted[c]) {
+                isHinted[c] = true;
+                hint[numHint++] = c;
+            }
+        }
+        if(numHint == 0 || q + numHint > Math.min(m, n)) {
+            return false;
+        }
 
-        DoubleMatrix2D[][] parts = {{G, Ceq.copy().assign(F.neg)},
-            {Ceq.copy().viewDice().assign(F.neg), null}
-        };
-        GCeq = fac2.compose(parts);
-        abeq = fac1.append(a.copy().assign(F.neg), beq.copy().assign(F.neg));
-        ecsol = alg.inverse(GCeq).zMult(abeq, null);
+        // The S-pair from Step 0, to go back to if the hint is rejected
+        double[][] J0 = copyOf(J);
+        double[][] R0 = copyOf(R);
+        int[] A0 = A.clone();
+        int q0 = q;
+        DoubleMatrix1D x0 = x.copy();
+        DoubleMatrix1D u0 = (u == null) ? null : u.copy();
+        double f0 = f;
+
+        boolean accepted = true;
+        for(int i=0; i<numHint && accepted; i++) {
+            accepted = addAsEquality(hint[i]); // false if linearly dependent
+        }
+        if(accepted) {
+            u.assign(correctRoundingError(u));
+            for(int i=meq; i<q; i++) {
+                if(u.getQuick(i) < 0) {
+                    accepted = false; // not dual feasible
+                    break;
+                }
+            }
+        }
 
-        x = ecsol.viewPart(0,n);
-        u = new DenseDoubleMatrix1D(meq).assign(ecsol.viewPart(n,meq));
-        f = 0.5*x.zDotProduct(G.zMult(x,null)) + a.zDotProduct(x);
-        // f <- 0.5*x'*G*x + a'*x
+        if(!accepted) {
+            J = J0;
+            R = R0;
+            A = A0;
+            q = q0;
+            x = x0;
+            u = u0;
+            f = f0;
+            return false;
+        }
 
-        // Correct potential rounding error for x, f and u
         x.assign(correctRoundingError(x));
         f = correctRoundingError(f);
-        if(q>0) u.assign(correctRoundingError(u));
+        isWarmStarted = true;
+        return true;
+    }
 
-        for(int i=0; i<meq; i++) {
-            A[i] = i;  //Add the index of Ceq's column to active set A
+    /** Takes a full step onto constraint c, keeping the active constraints
+     *  binding, and adds c to the active set.  The step may go either way,
+     *  so the multiplier of c may come out negative.
+     *
+     * @return false, with nothing changed, if c is linearly dependent on the
+     *         active constraints.
+     */
+    private boolean addAsEquality(int c) {
+        p = c;
+        nplus = new DenseDoubleMatrix1D(n).assign(C.viewColumn(p));
+        determineStepDirection();
+        if(z.zDotProduct(z) == 0.0) {
+            return false;
         }
-        q = meq; // # of binding constraints is the # of eq. constraints for now.
-        N.viewPart(0,0,n,meq).assign(Ceq.copy()); // N_active: n x meq
-        updateHandNstar();
-    }
+        computeFullStepLength();
+        t = t2;
 
+        if(q == 0) {
+            uplus = new DenseDoubleMatrix1D(1);
+        }
+        else {
+            uplus = fac1.append(u, new DenseDoubleMatrix1D(1)); // uplus <- (u,0)
+        }
+        x.assign(z, F.plusMult(t)); // x <- x + t*z
+        f = f + t*z.zDotProduct(nplus)*(0.5*t); // uplus(q+1) is zero here
+        DoubleMatrix1D rplus = fac1.append(
+                                   r.copy().assign(F.neg),new DenseDoubleMatrix1D(1).assign(1)); //rplus<-(-r 1)'
+        uplus.assign(rplus, F.plusMult(t)); // uplus <- uplus + t * rplus
+        u = new DenseDoubleMatrix1D(uplus.size()).assign(uplus); // u <- uplus
+        addToActiveSet(p);
+        return true;
+    }
 
     private void chooseViolatedConstraint() {
 
         // siq = Ciq' * x - biq
-        siq = Ciq.viewDice().zMult(x, null).copy().assign(biq, F.minus);
+        siq = Ciq.zMult(x, null, 1, 0, true).assign(biq, F.minus);
         siq.assign(correctRoundingError(siq));
 
         /*for(int i=0;i<siq.size();i++)
@@ -452,7 +571,7 @@ public class QuadProgJ {
                 p = meq + V[0];
             }
             // NOTE: p includes equality constraints as its first meq elements
-            nplus = C.viewColumn(p).copy(); // nplus <- np (nx1)
+            nplus = new DenseDoubleMatrix1D(n).assign(C.viewColumn(p)); // nplus <- np (nx1)
             if (q==0) {
                 uplus = new DenseDoubleMatrix1D(1); // uplus <- 0 if q==0
                 u = new DenseDoubleMatrix1D(1); // u <- 0 if q==0
@@ -465,15 +584,31 @@ public class QuadProgJ {
 
     private void determineStepDirection() {
 
+        // d = J'*nplus, split as d = (d1 d2) where d1 has the first q elements
+        multiplyJTranspose(nplus.toArray(), d);
+
         // Compute step direction in the primal space
-        z = H.zMult(nplus, null); // z = H*nplus
+        // z = J2*d2 (== H*nplus, where H = J2*J2' is the 'reduced' inverse Hessian)
+        double[] zv = new double[n];
+        for(int j=q; j<n; j++) {
+            addMultiple(zv, d[j], J[j]);
+        }
+        z = new DenseDoubleMatrix1D(zv);
         z.assign(correctRoundingError(z));
 
 
         // Compute the negative of the step direction in the dual space
         if (q > 0) {
-            // r = Nstar*nplus
-            r = new DenseDoubleMatrix1D(Nstar.rows()).assign(Nstar.zMult(nplus, null));
+            // r = R^{-1}*d1 (== Nstar*nplus), by back substitution
+            double[] rv = new double[q];
+            for(int i=q-1; i>=0; i--) {
+                double s = d[i];
+                for(int j=i+1; j<q; j++) {
+                    s -= R[i][j]*rv[j];
+                }
+                rv[i] = s / R[i][i];
+            }
+            r = new DenseDoubleMatrix1D(rv);
             r.assign(correctRoundingError(r));
         }
         else {
@@ -536,82 +671,67 @@ public class QuadProgJ {
     }
 
 
-    // Add the constraint p to active set A and update N, H and Nstar.
+    // Add the constraint p to active set A and update J and R.
     private void addConstraintP() {
         numAdd++;
-        A[q] = p;
-        N.viewColumn(q).assign(C. viewColumn(p).copy());
-        q++; // Update the number of binding constraints
-        updateHandNstar();
+        addToActiveSet(p);
 
         /** Example: showing how to add constraint p,
          *  Let meq = 3, p = 5 (the 5th constraint in Ciq and 8th constraint in C),
          *
-         *  N, A and q before update:
-         *        N = {n1,n2,n3,n5,n7}
+         *  A and q before update:
          *        A = { 1, 2, 3, 5, 7}
          *    index = { 0, 1, 2, 3, 4}
          *        q = 5
          *
-         *  N, A and q after update:
-         *        N = {n1,n2,n3,n5,n7,n8}
+         *  A and q after update:
          *        A = { 1, 2, 3, 5, 7, 8}
          *    index = { 0, 1, 2, 3, 4, 5}
          *        q = 6
          *
-         * NOTE: to be precise, here N and A are the non-zero (active) part of
-         *       actuall N and A, i.e., N is actually N[1:q] and A is actaully A[1:q]
+         * NOTE: to be precise, here A is the non-zero (active) part of
+         *       actual A, i.e., A is actually A[1:q].  The columns of R
+         *       are kept in the same order as A.
          */
     }
 
 
-    // Drop the constraint k from active set A and update N, H and Nstar.
+    // Drop the constraint k from active set A and update J and R.
     //
     // This method works by first finding the index (i) of A whose value is k, i.e.,
     //  finding i such that A[i] == k.  Then starting from i, replace the current
-    //  A and N by the next A and N, i.e., A[j] = A[j+1] for j = i,...,uplus.size()-1.
-    //  Lastly, get rid of the last element of uplus by defining a double array,
-    //  utemp, which stores the first uplus.size()-1 elements of uplus, and
-    //  declare a new instance of DenseDoubleMatrix1D with utemp as its intialization.
+    //  A by the next A, i.e., A[j] = A[j+1] for j = i,...,q-1, and drop
+    //  column i of R the same way (see dropFromActiveSet()).
     private void dropConstraintK() {
         numDrop++;
-        q--; // Update the number of binding constraints
-        for(int i=meq; i<A.length; i++) {
+        for(int i=meq; i<q; i++) {
             if(A[i] == k) {
-                for(int j=i; j<q; j++) { // NOTE: j<q, not j<q-1, b/c q--
-                    A[j] = A[j+1];
-                    N.viewColumn(j).assign(N.viewColumn(j+1).copy());
-                }
-                A[q] = 0; // maybe unnecessary?
-                N.viewColumn(q).assign(0);  // maybe unnecessary?
+                dropFromActiveSet(i);
                 break;
             }
         }
-        updateHandNstar();  // Update H and Nstar
 
         /** Example: showing how to drop constraint k,
          *  Let meq = 3, k = 8 (the 8th constraint in C and 5th constraint in Ciq),
          *
-         *  N and A before update:
-         *        N = {n1,n2,n3,n6,n8,n5,n7}
+         *  A before update:
          *        A = { 1, 2, 3, 6, 8, 5, 7}
          *    index = { 0, 1, 2, 3, 4, 5, 6}
          *        q = 7
          *
          *  Here k = 8 = A[4] => i = 4, then staring from index 4, copy the value
-         *  in the next cell into this cell for N and A and set the last cell to zero,
-         *  i.e., A[4] = A[5] and N[4] = N[5];
-         *        A[5] = A[6] and N[5] = N[6];
-         *        A[6] = 0    and N[6] = 0;
+         *  in the next cell into this cell for A and set the last cell to zero,
+         *  i.e., A[4] = A[5];
+         *        A[5] = A[6];
+         *        A[6] = 0;
          *
-         *  N and A after update:
-         *        N = {n1,n2,n3,n6,n5,n7}
+         *  A after update:
          *        A = { 1, 2, 3, 6, 5, 7}
          *    index = { 0, 1, 2, 3, 4, 5}
          *        q = 6
          *
-         * NOTE: to be precise, here N and A are the non-zero (active) part of
-         *       actuall N and A, i.e., N is actually N[1:q] and A is actaully A[1:q]
+         * NOTE: to be precise, here A is the non-zero (active) part of
+         *       actual A, i.e., A is actually A[1:q].
          */
     }
 
@@ -633,7 +753,7 @@ public class QuadProgJ {
     // The exact reason why uplus_k has to be dropped from uplus before the next
     //  iteration is because in the next iteration constraint k (n_k) will be dropped
     //  from the active constraint matrix N and q is decremented by 1.  Since the
-    //  calculation of r depends on Nstar, which in turn depends on N, r will not
+    //  calculation of r depends on R, which in turn depends on N, r will not
     //  depend on n_k anymore.  So it only makes sense to also drop u_k before
     //  attempting to calculate t1 = min{uplus_j / r_j} in the next iteration.
     //  Also in this way the dimension is right for updating uplus<-uplus + t(-r 1)'
@@ -714,31 +834,156 @@ public class QuadProgJ {
     }
 
 
-    // Use QR decomposition to update H and Nstar in a numerically stable way.
-    private void updateHandNstar() {
+    /////////////////////////////////////////////////////////////////////////
+    // Factorization of the active set (GI section 4).
+    //
+    // With G = L*L' and N the nxq matrix of active constraint normals
+    // (the columns of C listed in A[0:q]), GI keep
+    //
+    //      L^{-1} * N = Q * [R' 0]',    J = L^{-T} * Q = [J1 J2]
+    //
+    // where Q is nxn orthogonal, R is qxq upper triangular and J1 has q
+    // columns.  Then H = J2*J2' and Nstar = R^{-1}*J1', so the step directions
+    // only need d = J'*nplus (see determineStepDirection()).
+    //
+    // G is factorized once.  Adding or dropping a constraint changes J and R
+    // by a sequence of Givens rotations, O(n^2) per step, instead of
+    // refactorizing L^{-1}*N and inverting L on every step.
+    //
+    // J is stored by column: J[j] is the j-th column of J.
+    /////////////////////////////////////////////////////////////////////////
+
+    // J0 = L^{-T}, solving L'*J0 = I by back substitution.  J0 is upper
+    // triangular, so column c only has elements 0..c.
+    private double[][] inverseTransposeOfL() {
+        double[][] l = L.toArray();
+        double[][] inv = new double[n][n];
+        for(int c=0; c<n; c++) {
+            double[] col = inv[c];
+            for(int i=c; i>=0; i--) {
+                double s = (i == c) ? 1.0 : 0.0;
+                for(int j=i+1; j<=c; j++) {
+                    s -= l[j][i]*col[j];
+                }
+                col[i] = s / l[i][i];
+            }
+        }
+        return inv;
+    }
+
+    // Add constraint c to A[q], given d = J'*n_c from determineStepDirection().
+    //
+    // Givens rotations zero d[q+1..n-1] from the bottom up, and the same
+    // rotations are applied to the columns of J so that d = J'*n_c still holds.
+    // Only columns q..n-1 of J (i.e. J2) change, and d[0..q] becomes the new
+    // last column of R.
+    private void addToActiveSet(int c) {
+        for(int j=n-1; j>q; j--) {
+            if(d[j] == 0.0) {
+                continue;
+            }
+            double h = Math.hypot(d[j-1], d[j]);
+            double cs = d[j-1] / h;
+            double sn = d[j] / h;
+            d[j-1] = h;
+            d[j] = 0.0;
+            rotate(J[j-1], J[j], cs, sn);
+        }
+        for(int i=0; i<=q; i++) {
+            R[i][q] = d[i];
+        }
+        A[q] = c;
+        q++;
+    }
+
+    // Drop the constraint at A[l] and shift the rest of A and the columns of
+    // R one place to the left.  That leaves R upper Hessenberg from column l
+    // on; Givens rotations on rows j and j+1 of R, and on columns j and j+1
+    // of J, restore it to upper triangular form.
+    private void dropFromActiveSet(int l) {
+        for(int j=l; j<q-1; j++) {
+            A[j] = A[j+1];
+            for(int i=0; i<=j+1; i++) {
+                R[i][j] = R[i][j+1];
+            }
+        }
+        A[q-1] = 0;
+        for(int i=0; i<q; i++) {
+            R[i][q-1] = 0.0;
+        }
+
+        for(int j=l; j<q-1; j++) {
+            if(R[j+1][j] == 0.0) {
+                continue;
+            }
+            double h = Math.hypot(R[j][j], R[j+1][j]);
+            double cs = R[j][j] / h;
+            double sn = R[j+1][j] / h;
+            R[j][j] = h;
+            R[j+1][j] = 0.0;
+            for(int i=j+1; i<q-1; i++) {
+                double rj = R[j][i];
+                double rj1 = R[j+1][i];
+                R[j][i] = cs*rj + sn*rj1;
+                R[j+1][i] = cs*rj1 - sn*rj;
+            }
+            rotate(J[j], J[j+1], cs, sn);
+        }
+        q--;
+    }
+
+    // (colA, colB) <- (cs*colA + sn*colB, cs*colB - sn*colA)
+    private static void rotate(double[] colA, double[] colB, double cs, double sn) {
+        for(int i=0; i<colA.length; i++) {
+            double ai = colA[i];
+            double bi = colB[i];
+            colA[i] = cs*ai + sn*bi;
+            colB[i] = cs*bi - sn*ai;
+        }
+    }
 
-        // B = L^{-1} * N
-        DoubleMatrix2D B = alg.inverse(L).zMult(N.viewPart(0,0,n,q),null);
-        // Get economy-sized Q1 and R from Colt's QR decomposition
-        QRDecomposition qr = new QRDecomposition(B);
-        DoubleMatrix2D Q1 = qr.getQ(); // Q1: nxq
-        DoubleMatrix2D R = qr.getR();  //  R: qxq
-        DoubleMatrix2D J1 = alg.solve(L.viewDice(),Q1); //J1=L^{-T}*Q1 (nxq)
+    // out <- J'*v
+    private void multiplyJTranspose(double[] v, double[] out) {
+        for(int j=0; j<n; j++) {
+            double[] col = J[j];
+            double s = 0;
+            for(int i=0; i<n; i++) {
+                s += col[i]*v[i];
+            }
+            out[j] = s;
+        }
+    }
 
-        // Update H <- J2 * J2' == L^{-T}* Q2*Q2' * L^{-1} (H: nxn),
-        //   or equivalently (as in Fletcher(1987) p.238),
-        // H = L^{-T} * (I - Q1*Q1') * L^{-1}, or
-        // H = L^{-T} * Q2Q2T * L^{-1}, where Q2Q2T = I-Q1*Q1', (Q2*Q2'==I-Q1*Q1')
-        // NOTE: by computing H this way, we are avoiding computing Q2 directly.
-        //       Getting Q2 requires getting the full-sized Q from QR decomposition
-        //       instead of the economy-sized Q1, which is avaible through Colt.
+    // y <- y + alpha*v
+    private static void addMultiple(double[] y, double alpha, double[] v) {
+        if(alpha == 0.0) {
+            return;
+        }
+        for(int i=0; i<y.length; i++) {
+            y[i] += alpha*v[i];
+        }
+    }
 
-        DoubleMatrix2D Q2Q2T
-        = fac2.identity(n).assign(Q1.zMult(Q1.viewDice(),null),F.minus);
-        H = alg.inverse(L.viewDice()).zMult(Q2Q2T,null).zMult(alg.inverse(L),null);
+    // Copies the non-zero elements of source into target, shifted right by
+    //  columnOffset columns, and returns target.
+    private static DoubleMatrix2D copyNonZeros(DoubleMatrix2D source,
+            final DoubleMatrix2D target, final int columnOffset) {
+        source.forEachNonZero(new cern.colt.function.IntIntDoubleFunction() {
+            @Override
+            public double apply(int row, int column, double value) {
+                target.setQuick(row, column+columnOffset, value);
+                return value;
+            }
+        });
+        return target;
+    }
 
-        // Update Nstar <- R^{-1}*J1' or R*Nstar = J1' (Nstar: qxn)
-        Nstar = new DenseDoubleMatrix2D(q,n).assign(alg.solve(R,J1.viewDice()));
+    private static double[][] copyOf(double[][] m) {
+        double[][] c = new double[m.length][];
+        for(int i=0; i<m.length; i++) {
+            c[i] = m[i].clone();
+        }
+        return c;
     }
 
     // correctRoundingError() corrects potential rounding error such as
@@ -917,6 +1162,15 @@ public class QuadProgJ {
         return isFeasibleAndOptimal;
     }
 
+    /**
+     * Returns true if the solver started from the hint active set, false if
+     * no hint was given or the hint was rejected and the solver cold started.
+     * @return boolean
+     */
+    public boolean getIsWarmStarted() {
+        return isWarmStarted;
+    }
+
 
 
 }
@@ -27,6 +27,7 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 
+import amesmarket.extern.WorkDir;
 import amesmarket.extern.common.CommitmentDecision;
 import amesmarket.extern.psst.DataFileWriter;
 import amesmarket.extern.psst.PSSTSCED;
@@ -43,8 +44,8 @@ public class RTMarket {
 
     /*
      * The values of these arrays come from
-     * the SCED. The PSSTSced allocates fresh arrays
-     * each time it is called. Which means we do not
+     * the SCED. The PSSTSced and SCEDJ allocate fresh arrays
+     * each time they are called. Which means we do not
      * need to worry about aliasing issues with these
      * arrays and can just return the references.
      */
@@ -64,18 +65,24 @@ public class RTMarket {
     private int numSupplyOfferParams;
     private int numHoursPerDay;
 
-    BUC buc;
+    //the external SCED, or null if the SCED runs in the JVM.
     private final PSSTSCED sced;
+    //the in-JVM SCED, or null if the external SCED is used.
+    private final SCEDJ scedJ;
 
-    //TODO-X : Parameterize file paths. Probably should be accessible
-    //from the AMESMarket instance.
-    private final File scedOutFile = new File("RTSCED.dat");
-    private final File rtRefModelFile = new File("SCUCresources/ScenarioData/RTRefernceModel.dat");
-    private final File unitCommitmentFile = new File("rt-unitcommitments.dat");
+    //Files exchanged with the external SCED, in the market's working directory.
+    private final File scedOutFile;
+    private final File rtRefModelFile;
+    private final File unitCommitmentFile;
+    private final DataFileWriter dataFileWriter;
 
 
-    // constructor
-    public RTMarket(ISO iso, AMESMarket model) {
+    /**
+     * @param iso
+     * @param model
+     * @param buc solves the real time OPF if the ISO runs the SCED in the JVM.
+     */
+    public RTMarket(ISO iso, AMESMarket model, BUC buc) {
 
         //System.out.println("Created a RTMarket objecct");
         ames = model;
@@ -89,10 +96,23 @@ public class RTMarket {
 
         priceSensitiveDispatch = new double[numHoursPerDay][numLSEAgents];
 
-        sced = new PSSTSCED(model, model.getBaseS(),
-                unitCommitmentFile,
-                rtRefModelFile,
-                scedOutFile);
+        WorkDir workDir = model.getWorkDir();
+        scedOutFile = workDir.file("RTSCED.dat");
+        rtRefModelFile = new File(workDir.getScenarioDir(), "RTRefernceModel.dat");
+        unitCommitmentFile = workDir.file("rt-unitcommitments.dat");
+        dataFileWriter = new DataFileWriter(workDir.getScenarioDir());
+
+        //same engine as the ISO's day-ahead SCED.
+        if (iso.isSCEDInJVM()) {
+            sced = null;
+            scedJ = new SCEDJ(iso, model, buc);
+        } else {
+            scedJ = null;
+            sced = new PSSTSCED(model, model.getBaseS(),
+                    unitCommitmentFile,
+                    rtRefModelFile,
+                    scedOutFile);
+        }
     }
 
     public void realTimeOperation(int h, int d) {
@@ -113,8 +133,12 @@ public class RTMarket {
             double[][] rtDemand,
             int h, int d) throws AMESMarketException {
 
+        if (sced == null) {
+            evaluateInJVM(d);
+            return;
+        }
 
-        DataFileWriter dfw = new DataFileWriter();
+        DataFileWriter dfw = this.dataFileWriter;
 
         //write the correct data files.
         dfw.writeGenCommitments(genCoCommitments, unitCommitmentFile);
@@ -137,6 +161,25 @@ public class RTMarket {
         rtShutdownCost = sced.getShutdownCost();
     }
 
+    /**
+     * Dispatch the day with {@link SCEDJ}. The schedule, offers and load
+     * are read from the ISO, no files are written.
+     * @param d
+     * @throws AMESMarketException
+     */
+    private void evaluateInJVM(int d) throws AMESMarketException {
+        scedJ.setDay(d);
+        scedJ.solveOPF();
+
+        hasSolution  = scedJ.getHasSolution();
+        rtDispatches = scedJ.getDailyCommitment();
+        rtBranchFlow = scedJ.getDailyBranchFlow();
+        rtLMPs = scedJ.getDailyLMP();
+        rtProductionCost = scedJ.getProductionCost();
+        rtStartupCost = scedJ.getStartupCost();
+        rtShutdownCost = scedJ.getShutdownCost();
+    }
+
 //    public double[][] getSupplyOfferByGen() {
 //        return supplyOfferByGen;
 //    }
@@ -145,8 +188,11 @@ public class RTMarket {
 //        return priceSensitiveDispatch;
 //    }
 
-    public void setBUC(BUC buc) {
-        this.buc = buc;
+    /**
+     * @return the in-JVM SCED, or null if the external SCED is used.
+     */
+    public SCEDJ getSCEDJ() {
+        return scedJ;
     }
 
     public int[] hasSolution() {
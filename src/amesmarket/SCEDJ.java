@@ -0,0 +1,187 @@
+/*
+ * FIXME: LICENSE
+ */
+
+package amesmarket;
+
+import java.util.ArrayList;
+
+/**
+ * Real time SCED solved in the JVM, with the DC-OPF of {@link BUC}.
+ *
+ * Every hour of the day is dispatched in one call to {@link #solveOPF()}:
+ * the GenCos committed in the ISO's real time schedule serve the actual
+ * load at the least cost of their real time supply offers. The hours are
+ * solved in parallel when the BUC has an OPF executor.
+ *
+ * Unlike the external SCED the hours are solved on their own, the ramp
+ * limits between hours are not enforced.
+ *
+ * The costs are those of the schedule and the dispatch, priced like in
+ * {@link SCUCJ}:
+ * <ul>
+ * <li>production: no load cost + a*p + b*p^2 for each hour a GenCo is on,</li>
+ * <li>startup: hot or cold start cost in the hour it starts, see
+ * {@link SCUCJ.Unit#startupCost(int)},</li>
+ * <li>shutdown: shutdown cost in the hour it stops.</li>
+ * </ul>
+ *
+ * Each solve allocates fresh result arrays, so they can be kept by the
+ * caller.
+ */
+public class SCEDJ implements SCED {
+
+    private final ISO iso;
+    private final AMESMarket ames;
+    private final BUC buc;
+    private final int I, J, K, N, H;
+
+    private int day = 1;
+
+    private int[] hasSolution;
+    private double[][] dailyCommitment;
+    private double[][] dailyLMP;
+    private double[][] dailyBranchFlow;
+    private double[][] dailyPriceSensitiveDemand;
+    private double[][] productionCost;
+    private double[][] startupCost;
+    private double[][] shutdownCost;
+
+    /**
+     * @param iso supplies the real time schedule, offers and load.
+     * @param ames
+     * @param buc solves the hourly DC-OPF.
+     */
+    public SCEDJ(ISO iso, AMESMarket ames, BUC buc) {
+        this.iso = iso;
+        this.ames = ames;
+        this.buc = buc;
+        I = ames.getNumGenAgents();
+        J = ames.getNumLSEAgents();
+        K = ames.getNumNodes();
+        N = ames.getNumBranches();
+        H = ames.getNumHoursPerDay();
+    }
+
+    /**
+     * @param day day to dispatch on the next solve.
+     */
+    public void setDay(int day) {
+        this.day = day;
+    }
+
+    /**
+     * @return the day to dispatch on the next solve.
+     */
+    public int getDay() {
+        return day;
+    }
+
+    @Override
+    public void solveOPF() throws AMESMarketException {
+        buc.solveRealTimeOPF(day);
+
+        //the BUC reuses its buffers, copy the solution out.
+        hasSolution = buc.getRealTimeHasSolution();
+        dailyCommitment = copy(buc.getDailyRealTimeCommitment(), H, I);
+        dailyLMP = copy(buc.getDailyRealTimeLMP(), H, K);
+        dailyBranchFlow = copy(buc.getDailyRealTimeBranchFlow(), H, N);
+        dailyPriceSensitiveDemand = new double[H][J];
+
+        int[][] schedule = iso.getGenScheduleRTAsArray();
+        double[][] supplyOffer = iso.getSupplyOfferByGenRT();
+        productionCost = new double[H][I];
+        startupCost = new double[H][I];
+        shutdownCost = new double[H][I];
+
+        ArrayList<GenAgent> genCos = ames.getGenAgentList();
+        for (int i=0; i<I; i++) {
+            SCUCJ.Unit u = new SCUCJ.Unit(genCos.get(i), supplyOffer[i], day);
+            computeCosts(i, u, schedule[i], dailyCommitment, productionCost, startupCost, shutdownCost);
+        }
+    }
+
+    /**
+     * Fill in the costs of GenCo i, see the class comment.
+     *
+     * @param i GenCo index, the column of the cost arrays.
+     * @param u costs and state before the first hour of the GenCo.
+     * @param schedule 1 for the hours the GenCo is on.
+     * @param dispatch hour by GenCo output, MW.
+     */
+    static void computeCosts(int i, SCUCJ.Unit u, int[] schedule, double[][] dispatch,
+            double[][] productionCosts, double[][] startupCosts, double[][] shutdownCosts) {
+        int on = u.initiallyOn() ? 1 : 0;
+        int offHours = u.initiallyOn() ? 0 : -u.initialState;
+        for (int h=0; h<schedule.length; h++) {
+            if (schedule[h] == 1) {
+                double p = dispatch[h][i];
+                productionCosts[h][i] = u.noLoadCost + u.productionCost(p);
+                if (on == 0) {
+                    startupCosts[h][i] = u.startupCost(offHours);
+                }
+            } else if (on == 1) {
+                shutdownCosts[h][i] = u.shutdownCost;
+            }
+            offHours = schedule[h] == 1 ? 0 : offHours + 1;
+            on = schedule[h];
+        }
+    }
+
+    private static double[][] copy(double[][] src, int rows, int cols) {
+        double[][] dst = new double[rows][cols];
+        for (int r=0; r<rows; r++) {
+            System.arraycopy(src[r], 0, dst[r], 0, cols);
+        }
+        return dst;
+    }
+
+    @Override
+    public double[][] getDailyCommitment() {
+        return dailyCommitment;
+    }
+
+    @Override
+    public double[][] getDailyLMP() {
+        return dailyLMP;
+    }
+
+    @Override
+    public double[][] getDailyBranchFlow() {
+        return dailyBranchFlow;
+    }
+
+    /**
+     * @return zeros, the real time load is all fixed.
+     */
+    @Override
+    public double[][] getDailyPriceSensitiveDemand() {
+        return dailyPriceSensitiveDemand;
+    }
+
+    @Override
+    public int[] getHasSolution() {
+        return hasSolution;
+    }
+
+    /**
+     * @return hour by GenCo production costs of the last solve.
+     */
+    public double[][] getProductionCost() {
+        return productionCost;
+    }
+
+    /**
+     * @return hour by GenCo startup costs of the last solve.
+     */
+    public double[][] getStartupCost() {
+        return startupCost;
+    }
+
+    /**
+     * @return hour by GenCo shutdown costs of the last solve.
+     */
+    public double[][] getShutdownCost() {
+        return shutdownCost;
+    }
+}
@@ -0,0 +1,741 @@
+/*
+ * FIXME: LICENSE
+ */
+
+package amesmarket;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.logging.Level;
+
+import amesmarket.extern.common.CommitmentDecision;
+import amesmarket.filereaders.BadDataFileFormatException;
+import cern.colt.matrix.DoubleMatrix1D;
+import cern.colt.matrix.DoubleMatrix2D;
+import cern.colt.matrix.impl.DenseDoubleMatrix1D;
+import cern.colt.matrix.impl.DenseDoubleMatrix2D;
+import cern.colt.matrix.impl.SparseDoubleMatrix2D;
+
+/**
+ * Deterministic security constrained unit commitment solved in the JVM,
+ * as an alternative to the external psst program.
+ *
+ * The commitment is found by Lagrangian relaxation of the hourly demand and
+ * reserve constraints:
+ * <pre>
+ *   SUM_i p_it = D_t                 (demand, multiplier lambda_t)
+ *   SUM_i u_it * capMax_i &gt;= D_t + R_t  (spinning reserve, multiplier mu_t &gt;= 0)
+ * </pre>
+ * For fixed multipliers each GenCo's schedule is found on its own by dynamic
+ * programming over its up/down time states, which honours the minimum up
+ * and down times and the startup and shutdown costs. The multipliers are
+ * updated with subgradient steps. Each relaxed schedule is repaired into a
+ * feasible one by committing the cheapest available GenCos in hours that are
+ * short of capacity, and the cheapest repaired schedule is kept.
+ *
+ * The kept schedule is then dispatched over the whole horizon with
+ * {@link QuadProgJ}, with the nominal, startup and shutdown ramp limits as
+ * constraints between consecutive hours.
+ *
+ * Like the psst model, the commitment is found for
+ * {@link AMESMarket#NUM_HOURS_PER_DAY_UC} hours (when the next day's load is
+ * known) and the first {@link AMESMarket#NUM_HOURS_PER_DAY} are returned.
+ * Transmission limits are not modelled; the SCED enforces them when the
+ * committed GenCos are dispatched.
+ */
+public class SCUCJ implements SCUC {
+
+    /** Maximum number of subgradient iterations. */
+    static final int MAX_ITERATIONS = 200;
+    /** Stop when the relative duality gap is below this. */
+    static final double GAP_TOLERANCE = 1e-3;
+    /** Quadratic cost coefficient used for GenCos with linear costs. */
+    private static final double MIN_B = 1e-6;
+
+    private final AMESMarket ames;
+    private final ISO iso;
+    private final int numGenAgents, numLSEAgents, numHours, numIntervals;
+    private List<CommitmentDecision> genSchedule;
+    private Solution lastSolution;
+
+    public SCUCJ(ISO independentSystemOperator, AMESMarket model) {
+        this.ames = model;
+        this.iso = independentSystemOperator;
+        this.numGenAgents = model.getNumGenAgents();
+        this.numLSEAgents = model.getNumLSEAgents();
+        this.numHours = model.NUM_HOURS_PER_DAY;
+        this.numIntervals = model.NUM_HOURS_PER_DAY_UC;
+
+        if(model.getSCUCType() != SCUC_DETERM) {
+            throw new IllegalArgumentException("SCUCJ only solves the deterministic SCUC");
+        }
+        System.out.print("Running Deterministic SCUC with SCUCJ ");
+    }
+
+    @Override
+    public void calcSchedule(int day) throws IOException, AMESMarketException,
+            BadDataFileFormatException {
+
+        //system load for today and, if there is one, the start of tomorrow
+        double[][] loadProfileLSE = iso.getLoadProfileByLSE();
+        double[][] nextDayLoadProfileLSE = day < ames.DAY_MAX ? iso.getNextDayLoadProfileByLSE() : null;
+        int T = nextDayLoadProfileLSE != null ? Math.max(numHours, numIntervals) : numHours;
+
+        double[] demand = new double[T];
+        double[] reserve = new double[T];
+        for(int t=0; t<T; t++) {
+            for(int j=0; j<numLSEAgents; j++) {
+                demand[t] += t < numHours ? loadProfileLSE[j][t] : nextDayLoadProfileLSE[j][t-numHours];
+            }
+            reserve[t] = ames.getReserveRequirements();
+        }
+
+        double[][] supplyOfferByGen = iso.getSupplyOfferByGen();
+        List<GenAgent> genAgents = ames.getGenAgentList();
+        Unit[] units = new Unit[numGenAgents];
+        for(int i=0; i<numGenAgents; i++) {
+            units[i] = new Unit(genAgents.get(i), supplyOfferByGen[i], day);
+        }
+
+        AMESMarket.LOGGER.log(Level.FINER, "Solving the SCUC for day " + day);
+        lastSolution = solve(units, demand, reserve, ames.getBaseS());
+        if(!lastSolution.feasible) {
+            System.err.println("Warning: SCUCJ found no feasible dispatch for day " + day
+                    + ", using the best commitment found.");
+        }
+
+        genSchedule = new ArrayList<CommitmentDecision>(numGenAgents);
+        for(int i=0; i<numGenAgents; i++) {
+            GenAgent gc = genAgents.get(i);
+            genSchedule.add(new CommitmentDecision(gc.getID(), gc.getIndex(),
+                    Arrays.copyOf(lastSolution.commitment[i], numHours)));
+        }
+    }
+
+    @Override
+    public List<CommitmentDecision> getSchedule() {
+        return genSchedule;
+    }
+
+    /**
+     * @return the solution of the last {@link #calcSchedule(int)}, or null.
+     */
+    public Solution getLastSolution() {
+        return lastSolution;
+    }
+
+    /**
+     * SCUC data for one GenCo, in SI units.
+     */
+    static final class Unit {
+        final double a, b;       // production cost a*p + b*p^2 in $/h
+        final double noLoadCost; // $/h while committed
+        final double capMin, capMax;
+        final int minUpTime, minDownTime;
+        final double rampUp, rampDown, startupRamp, shutdownRamp; // MW/h
+        final double hotStartCost, coldStartCost, shutdownCost;
+        /** hours on (&gt; 0) or off (&lt; 0) before the first hour, see {@link GenAgent#getUnitOnT0State(int)} */
+        final int initialState;
+        final double powerT0;
+
+        Unit(double a, double b, double noLoadCost, double capMin, double capMax,
+                int minUpTime, int minDownTime, double rampUp, double rampDown,
+                double startupRamp, double shutdownRamp, double hotStartCost,
+                double coldStartCost, double shutdownCost, int initialState, double powerT0) {
+            this.a = a;
+            this.b = Math.max(b, MIN_B);
+            this.noLoadCost = noLoadCost;
+            this.capMin = capMin;
+            this.capMax = capMax;
+            this.minUpTime = Math.max(minUpTime, 1);
+            this.minDownTime = Math.max(minDownTime, 1);
+            //zero ramp limits are not set in the case file, i.e. unlimited
+            this.rampUp = rampUp > 0 ? rampUp : capMax;
+            this.rampDown = rampDown > 0 ? rampDown : capMax;
+            this.startupRamp = startupRamp > 0 ? Math.max(startupRamp, capMin) : capMax;
+            this.shutdownRamp = shutdownRamp > 0 ? Math.max(shutdownRamp, capMin) : capMax;
+            this.hotStartCost = hotStartCost;
+            this.coldStartCost = coldStartCost;
+            this.shutdownCost = shutdownCost;
+            this.initialState = initialState == 0 ? 1 : initialState;
+            this.powerT0 = this.initialState > 0 ? Math.min(Math.max(powerT0, capMin), capMax) : 0;
+        }
+
+        Unit(GenAgent ga, double[] supplyOffer, int day) {
+            this(supplyOffer[0], supplyOffer[1], ga.getNoLoadCost(),
+                    ga.getCapacityMin(), ga.getCapacityMax(),
+                    ga.getMinUpTime(), ga.getMinDownTime(),
+                    ga.getNominalRampUpLim(), ga.getNominalRampDownLim(),
+                    ga.getStartupRampLim(), ga.getShutdownRampLim(),
+                    ga.getHotStartUpCost(), ga.getColdStartUpCost(), ga.getShutDownCost(),
+                    ga.getUnitOnT0State(day - 1), ga.getPowerT0(day - 1));
+        }
+
+        boolean initiallyOn() {
+            return initialState > 0;
+        }
+
+        /**
+         * Cost of starting up after offHours hours off: hot if it has been
+         * off for at most minDownTime hours, otherwise cold.
+         */
+        double startupCost(int offHours) {
+            return offHours > minDownTime ? coldStartCost : hotStartCost;
+        }
+
+        /** Cost of p MW for an hour, not counting the no load cost. */
+        double productionCost(double p) {
+            return a*p + b*p*p;
+        }
+
+        /** Output in [lo, hi] where the marginal cost is lambda. */
+        double output(double lambda, double lo, double hi) {
+            return Math.min(Math.max((lambda - a)/(2*b), lo), hi);
+        }
+    }
+
+    /**
+     * Commitment and dispatch for the whole horizon.
+     */
+    public static final class Solution {
+        /** commitment[i][t] is 1 if GenCo i is on in hour t */
+        public final int[][] commitment;
+        /** dispatch[i][t] in MW; zero if no feasible dispatch was found */
+        public final double[][] dispatch;
+        /** production, no load, startup and shutdown costs in $ */
+        public final double totalCost;
+        /** best lower bound on the total cost found by the relaxation */
+        public final double lowerBound;
+        public final boolean feasible;
+        public final int iterations;
+
+        Solution(int[][] commitment, double[][] dispatch, double totalCost,
+                double lowerBound, boolean feasible, int iterations) {
+            this.commitment = commitment;
+            this.dispatch = dispatch;
+            this.totalCost = totalCost;
+            this.lowerBound = lowerBound;
+            this.feasible = feasible;
+            this.iterations = iterations;
+        }
+    }
+
+    /**
+     * Solve the unit commitment problem.
+     *
+     * @param units GenCos
+     * @param demand system demand by hour, MW
+     * @param reserve spinning reserve requirement by hour, MW
+     * @param baseS base power used to scale the dispatch problem
+     * @return commitment and dispatch by GenCo and hour.
+     */
+    static Solution solve(Unit[] units, double[] demand, double[] reserve, double baseS) {
+        final int I = units.length;
+        final int T = demand.length;
+
+        double[] lambda = new double[T];
+        double[] mu = new double[T];
+        for(int t=0; t<T; t++) {
+            lambda[t] = initialPrice(units, demand[t]);
+        }
+
+        int[][] relaxed = new int[I][T];
+        int[][] best = null;
+        double upperBound = Double.POSITIVE_INFINITY;
+        double lowerBound = Double.NEGATIVE_INFINITY;
+        double theta = 1;
+        int sinceImproved = 0;
+        int iteration = 0;
+        for(; iteration < MAX_ITERATIONS; iteration++) {
+            // dual function: SUM_t lambda_t*D_t + mu_t*(D_t+R_t) + SUM_i unit subproblems
+            double dual = 0;
+            for(int t=0; t<T; t++) {
+                dual += lambda[t]*demand[t] + mu[t]*(demand[t] + reserve[t]);
+            }
+            for(int i=0; i<I; i++) {
+                dual += scheduleUnit(units[i], lambda, mu, relaxed[i]);
+            }
+            if(dual > lowerBound + 1e-9*Math.abs(dual)) {
+                lowerBound = dual;
+                sinceImproved = 0;
+            } else if(++sinceImproved >= 5) {
+                theta /= 2;
+                sinceImproved = 0;
+            }
+
+            int[][] repaired = repair(units, relaxed, demand, reserve);
+            double cost = scheduleCost(units, repaired, demand);
+            if(cost < upperBound) {
+                upperBound = cost;
+                best = repaired;
+            }
+
+            if(upperBound - lowerBound <= GAP_TOLERANCE*Math.abs(upperBound) || theta < 1e-4) {
+                iteration++;
+                break;
+            }
+
+            // subgradients of the relaxed constraints
+            double[] g = new double[T];
+            double[] h = new double[T];
+            double norm = 0;
+            for(int t=0; t<T; t++) {
+                double supplied = 0, capacity = 0;
+                for(int i=0; i<I; i++) {
+                    if(relaxed[i][t] == 1) {
+                        supplied += units[i].output(lambda[t], units[i].capMin, units[i].capMax);
+                        capacity += units[i].capMax;
+                    }
+                }
+                g[t] = demand[t] - supplied;
+                h[t] = demand[t] + reserve[t] - capacity;
+                norm += g[t]*g[t] + (mu[t] > 0 || h[t] > 0 ? h[t]*h[t] : 0);
+            }
+            if(norm == 0) {
+                iteration++;
+                break; // the relaxed schedule is optimal
+            }
+            double target = upperBound < Double.POSITIVE_INFINITY ? upperBound : 1.05*Math.abs(lowerBound) + 1;
+            double step = theta*(target - lowerBound)/norm;
+            for(int t=0; t<T; t++) {
+                lambda[t] += step*g[t];
+                mu[t] = Math.max(0, mu[t] + step*h[t]);
+            }
+        }
+
+        double[][] dispatch = new double[I][T];
+        double totalCost = upperBound;
+        boolean feasible = best != null && upperBound < Double.POSITIVE_INFINITY;
+        if(best == null) {
+            best = repair(units, relaxed, demand, reserve);
+        }
+        if(feasible) {
+            double dispatchCost = dispatch(units, best, demand, baseS, dispatch);
+            feasible = !Double.isNaN(dispatchCost);
+            totalCost = feasible ? dispatchCost + transitionCost(units, best) : Double.POSITIVE_INFINITY;
+        }
+        return new Solution(best, dispatch, totalCost, lowerBound, feasible, iteration);
+    }
+
+    /**
+     * Price at which all the GenCos together, run between zero and their
+     * upper limit, produce the demand.
+     */
+    private static double initialPrice(Unit[] units, double demand) {
+        double lo = 0, hi = 1;
+        for(Unit u : units) {
+            hi = Math.max(hi, u.a + 2*u.b*u.capMax);
+        }
+        for(int k=0; k<100; k++) {
+            double mid = (lo + hi)/2;
+            double supplied = 0;
+            for(Unit u : units) {
+                supplied += u.output(mid, 0, u.capMax);
+            }
+            if(supplied < demand) lo = mid; else hi = mid;
+        }
+        return (lo + hi)/2;
+    }
+
+    /**
+     * Schedule one GenCo against the prices by dynamic programming.
+     *
+     * States are "on for k hours", k = 1..minUpTime (the last one meaning
+     * at least minUpTime), and "off for k hours", k = 1..minDownTime+1. A
+     * GenCo that has been off for exactly minDownTime hours starts hot,
+     * one that has been off longer starts cold.
+     *
+     * @param schedule receives the on/off decisions
+     * @return the optimal value of the GenCo's subproblem.
+     */
+    static double scheduleUnit(Unit u, double[] lambda, double[] mu, int[] schedule) {
+        final int T = lambda.length;
+        final int U = u.minUpTime;
+        final int D = u.minDownTime + 1;
+        final int S = U + D; // states 0..U-1 are on_1..on_U, U..U+D-1 are off_1..off_D
+
+        double[] hourly = new double[T]; // value of being on in hour t
+        for(int t=0; t<T; t++) {
+            if(u.capMax <= 0) {
+                hourly[t] = Double.POSITIVE_INFINITY;
+                continue;
+            }
+            double p = u.output(lambda[t], u.capMin, u.capMax);
+            hourly[t] = u.noLoadCost + u.productionCost(p) - lambda[t]*p - mu[t]*u.capMax;
+        }
+
+        double[] value = new double[S];
+        Arrays.fill(value, Double.POSITIVE_INFINITY);
+        if(u.initiallyOn()) {
+            value[Math.min(u.initialState, U) - 1] = 0;
+        } else {
+            value[U + Math.min(-u.initialState, D) - 1] = 0;
+        }
+
+        int[][] from = new int[T][S];
+        double[] next = new double[S];
+        for(int t=0; t<T; t++) {
+            Arrays.fill(next, Double.POSITIVE_INFINITY);
+            for(int s=0; s<S; s++) {
+                double v = value[s];
+                if(v == Double.POSITIVE_INFINITY) continue;
+                if(s < U) { // on for s+1 hours
+                    relax(next, from[t], Math.min(s+1, U-1), s, v + hourly[t]);
+                    if(s == U-1) {
+                        relax(next, from[t], U, s, v + u.shutdownCost);
+                    }
+                } else { // off for s-U+1 hours
+                    int k = s - U + 1;
+                    relax(next, from[t], U + Math.min(k, D-1), s, v);
+                    if(k >= D-1) {
+                        double startup = u.startupCost(k);
+                        relax(next, from[t], 0, s, v + hourly[t] + startup);
+                    }
+                }
+            }
+            double[] swap = value; value = next; next = swap;
+        }
+
+        int state = 0;
+        for(int s=1; s<S; s++) {
+            if(value[s] < value[state]) state = s;
+        }
+        double optimum = value[state];
+        for(int t=T-1; t>=0; t--) {
+            schedule[t] = state < U ? 1 : 0;
+            state = from[t][state];
+        }
+        return optimum;
+    }
+
+    private static void relax(double[] value, int[] from, int state, int previous, double v) {
+        if(v < value[state]) {
+            value[state] = v;
+            from[state] = previous;
+        }
+    }
+
+    /**
+     * Commit more GenCos until every hour has enough capacity for its
+     * demand and reserve, taking the ramp limits into account. GenCos are
+     * taken in order of their average cost at full output. Committed hours
+     * are extended where needed to keep the minimum up and down times.
+     *
+     * @return a repaired copy of the schedule.
+     */
+    static int[][] repair(final Unit[] units, int[][] schedule, double[] demand, double[] reserve) {
+        final int I = units.length;
+        final int T = demand.length;
+        int[][] repaired = new int[I][];
+        for(int i=0; i<I; i++) {
+            repaired[i] = schedule[i].clone();
+        }
+
+        Integer[] order = new Integer[I];
+        for(int i=0; i<I; i++) order[i] = i;
+        Arrays.sort(order, new java.util.Comparator<Integer>() {
+            @Override
+            public int compare(Integer x, Integer y) {
+                return Double.compare(averageCost(units[x]), averageCost(units[y]));
+            }
+        });
+
+        for(int pass=0; pass<I*T; pass++) {
+            int shortHour = forwardDispatch(units, repaired, demand, new double[I][T]);
+            for(int t=0; t<T && (shortHour < 0 || t < shortHour); t++) {
+                double committed = 0;
+                for(int i=0; i<I; i++) {
+                    if(repaired[i][t] == 1) committed += units[i].capMax;
+                }
+                if(committed < demand[t] + reserve[t] - 1e-9) {
+                    shortHour = t;
+                }
+            }
+            if(shortHour < 0) break;
+
+            boolean added = false;
+            for(int i : order) {
+                if(repaired[i][shortHour] == 0 && units[i].capMax > 0
+                        && commitFor(units[i], repaired[i], shortHour)) {
+                    added = true;
+                    break;
+                }
+            }
+            if(!added) break; // nothing left to commit
+        }
+        return repaired;
+    }
+
+    private static double averageCost(Unit u) {
+        return u.capMax > 0 ? (u.noLoadCost + u.productionCost(u.capMax))/u.capMax : Double.POSITIVE_INFINITY;
+    }
+
+    /**
+     * Turn a GenCo on in hour t, together with the neighbouring hours its
+     * minimum up and down times need. The startup is moved earlier by the
+     * hours its startup ramp needs to reach full output.
+     *
+     * @return false if the GenCo can not be on in hour t.
+     */
+    private static boolean commitFor(Unit u, int[] schedule, int t) {
+        final int T = schedule.length;
+        //the off period around t is [first, last]
+        int first = t, last = t;
+        while(first > 0 && schedule[first-1] == 0) first--;
+        while(last < T-1 && schedule[last+1] == 0) last++;
+
+        int rampHours = (int) Math.ceil(Math.max(0, u.capMax - u.startupRamp)/u.rampUp);
+        int start = Math.max(first, t - rampHours);
+
+        //hours off before the startup, if it does not join the previous on period
+        boolean onBefore = first > 0 || u.initiallyOn();
+        int offHours = start - first + (onBefore ? 0 : -u.initialState);
+        if(!(onBefore && start == first) && offHours < u.minDownTime) {
+            if(onBefore) {
+                start = first; // join the previous on period instead
+            } else {
+                start = u.minDownTime + u.initialState; // initialState < 0
+                if(start > t) return false;
+            }
+        }
+
+        int end = Math.max(t, start + u.minUpTime - 1);
+        if(end >= last || (last < T-1 && last - end < u.minDownTime)) {
+            end = last;
+        }
+        for(int k=start; k<=end; k++) {
+            schedule[k] = 1;
+        }
+        return true;
+    }
+
+    /**
+     * Cost of a schedule, dispatched hour by hour with
+     * {@link #forwardDispatch(Unit[], int[][], double[], double[][])}.
+     *
+     * @return the cost, or infinity if an hour can not be dispatched.
+     */
+    static double scheduleCost(Unit[] units, int[][] schedule, double[] demand) {
+        final int T = demand.length;
+        double[][] dispatch = new double[units.length][T];
+        if(forwardDispatch(units, schedule, demand, dispatch) >= 0) {
+            return Double.POSITIVE_INFINITY;
+        }
+
+        double cost = transitionCost(units, schedule);
+        for(int t=0; t<T; t++) {
+            double supplied = 0;
+            for(int i=0; i<units.length; i++) {
+                if(schedule[i][t] == 1) {
+                    supplied += dispatch[i][t];
+                    cost += units[i].noLoadCost + units[i].productionCost(dispatch[i][t]);
+                }
+            }
+            if(Math.abs(supplied - demand[t]) > 1e-6*Math.max(1, demand[t])) {
+                return Double.POSITIVE_INFINITY; // more must-run output than demand
+            }
+        }
+        return cost;
+    }
+
+    /**
+     * Dispatch a schedule one hour after the other at equal marginal cost,
+     * each GenCo limited by its ramp rates from its output in the hour
+     * before. This does not look ahead, so it may need more GenCos than the
+     * dispatch over the whole horizon, but whatever it can dispatch is
+     * feasible.
+     *
+     * @param dispatch receives the output in MW
+     * @return the first hour the committed GenCos can not produce the demand in, or -1.
+     */
+    static int forwardDispatch(Unit[] units, int[][] schedule, double[] demand, double[][] dispatch) {
+        final int I = units.length;
+        final int T = demand.length;
+        double[] lo = new double[I];
+        double[] hi = new double[I];
+        int shortHour = -1;
+        for(int t=0; t<T; t++) {
+            double totalLo = 0, totalHi = 0;
+            double minPrice = Double.POSITIVE_INFINITY, maxPrice = Double.NEGATIVE_INFINITY;
+            for(int i=0; i<I; i++) {
+                Unit u = units[i];
+                if(schedule[i][t] == 0) {
+                    lo[i] = hi[i] = 0;
+                    continue;
+                }
+                boolean wasOn = t == 0 ? u.initiallyOn() : schedule[i][t-1] == 1;
+                double previous = t == 0 ? u.powerT0 : dispatch[i][t-1];
+                lo[i] = wasOn ? Math.max(u.capMin, previous - u.rampDown) : u.capMin;
+                hi[i] = wasOn ? Math.min(u.capMax, previous + u.rampUp) : u.startupRamp;
+                if(t < T-1 && schedule[i][t+1] == 0) {
+                    hi[i] = Math.min(hi[i], u.shutdownRamp);
+                }
+                hi[i] = Math.max(hi[i], lo[i]);
+                totalLo += lo[i];
+                totalHi += hi[i];
+                minPrice = Math.min(minPrice, u.a + 2*u.b*lo[i]);
+                maxPrice = Math.max(maxPrice, u.a + 2*u.b*hi[i]);
+            }
+
+            if(totalHi < demand[t] - 1e-9 && shortHour < 0) {
+                shortHour = t;
+            }
+            double price = demand[t] <= totalLo ? minPrice : demand[t] >= totalHi ? maxPrice : 0;
+            if(demand[t] > totalLo && demand[t] < totalHi) {
+                //equal marginal cost dispatch
+                for(int k=0; k<100; k++) {
+                    price = (minPrice + maxPrice)/2;
+                    double supplied = 0;
+                    for(int i=0; i<I; i++) {
+                        supplied += units[i].output(price, lo[i], hi[i]);
+                    }
+                    if(supplied < demand[t]) minPrice = price; else maxPrice = price;
+                }
+                price = (minPrice + maxPrice)/2;
+            }
+            for(int i=0; i<I; i++) {
+                dispatch[i][t] = schedule[i][t] == 1 ? units[i].output(price, lo[i], hi[i]) : 0;
+            }
+        }
+        return shortHour;
+    }
+
+
+    /** Startup and shutdown costs of a schedule. */
+    static double transitionCost(Unit[] units, int[][] schedule) {
+        double cost = 0;
+        for(int i=0; i<units.length; i++) {
+            Unit u = units[i];
+            int on = u.initiallyOn() ? 1 : 0;
+            int offHours = u.initiallyOn() ? 0 : -u.initialState;
+            for(int t=0; t<schedule[i].length; t++) {
+                if(schedule[i][t] == 1 && on == 0) {
+                    cost += u.startupCost(offHours);
+                } else if(schedule[i][t] == 0 && on == 1) {
+                    cost += u.shutdownCost;
+                }
+                offHours = schedule[i][t] == 1 ? 0 : offHours + 1;
+                on = schedule[i][t];
+            }
+        }
+        return cost;
+    }
+
+    /**
+     * Dispatch the committed GenCos over the whole horizon with QuadProgJ.
+     *
+     * x holds the output of every committed GenCo-hour in per unit:
+     * <pre>
+     *   min  SUM (a*baseS) x + (b*baseS^2) x^2
+     *   s.t. SUM_i x_it = D_t
+     *        capMin &lt;= x_it &lt;= capMax (startup/shutdown ramp limit in the first/last hour on)
+     *        -rampDown &lt;= x_it - x_i(t-1) &lt;= rampUp
+     * </pre>
+     *
+     * @param dispatch receives the output in MW
+     * @return the production and no load cost, or NaN if there is no feasible dispatch.
+     */
+    static double dispatch(Unit[] units, int[][] schedule, double[] demand, double baseS,
+            double[][] dispatch) {
+        final int I = units.length;
+        final int T = demand.length;
+
+        int[][] index = new int[I][T];
+        int n = 0;
+        for(int i=0; i<I; i++) {
+            for(int t=0; t<T; t++) {
+                index[i][t] = schedule[i][t] == 1 ? n++ : -1;
+            }
+        }
+        if(n == 0) {
+            for(int t=0; t<T; t++) {
+                if(demand[t] > 0) return Double.NaN;
+            }
+            return 0;
+        }
+
+        //hours without a committed GenCo have no equality constraint
+        int[] hourColumn = new int[T];
+        int meq = 0;
+        for(int t=0; t<T; t++) {
+            boolean any = false;
+            for(int i=0; i<I; i++) any |= index[i][t] >= 0;
+            if(!any && demand[t] > 0) return Double.NaN;
+            hourColumn[t] = any ? meq++ : -1;
+        }
+
+        DoubleMatrix2D G = new DenseDoubleMatrix2D(n, n);
+        DoubleMatrix1D a = new DenseDoubleMatrix1D(n);
+        DoubleMatrix2D Ceq = new SparseDoubleMatrix2D(n, meq);
+        DoubleMatrix1D beq = new DenseDoubleMatrix1D(meq);
+        List<double[]> inequalities = new ArrayList<double[]>(); // {var, coef, var, coef, bound}
+
+        for(int i=0; i<I; i++) {
+            Unit u = units[i];
+            for(int t=0; t<T; t++) {
+                int v = index[i][t];
+                if(v < 0) continue;
+                G.setQuick(v, v, 2*u.b*baseS*baseS);
+                a.setQuick(v, u.a*baseS);
+                Ceq.setQuick(v, hourColumn[t], 1);
+
+                boolean startup = t == 0 ? !u.initiallyOn() : index[i][t-1] < 0;
+                boolean shutdown = t < T-1 && index[i][t+1] < 0;
+                double upper = u.capMax;
+                if(startup) upper = Math.min(upper, u.startupRamp);
+                if(shutdown) upper = Math.min(upper, u.shutdownRamp);
+                inequalities.add(new double[]{v, 1, -1, 0, u.capMin/baseS});
+                inequalities.add(new double[]{v, -1, -1, 0, -upper/baseS});
+
+                if(!startup) {
+                    if(t == 0) {
+                        //ramp from the initial output
+                        inequalities.add(new double[]{v, -1, -1, 0, -(u.powerT0 + u.rampUp)/baseS});
+                        inequalities.add(new double[]{v, 1, -1, 0, (u.powerT0 - u.rampDown)/baseS});
+                    } else {
+                        int w = index[i][t-1];
+                        inequalities.add(new double[]{v, -1, w, 1, -u.rampUp/baseS});
+                        inequalities.add(new double[]{v, 1, w, -1, -u.rampDown/baseS});
+                    }
+                }
+            }
+        }
+        for(int t=0; t<T; t++) {
+            if(hourColumn[t] >= 0) beq.setQuick(hourColumn[t], demand[t]/baseS);
+        }
+
+        int miq = inequalities.size();
+        DoubleMatrix2D Ciq = new SparseDoubleMatrix2D(n, miq);
+        DoubleMatrix1D biq = new DenseDoubleMatrix1D(miq);
+        for(int c=0; c<miq; c++) {
+            double[] ineq = inequalities.get(c);
+            Ciq.setQuick((int) ineq[0], c, ineq[1]);
+            if(ineq[2] >= 0) Ciq.setQuick((int) ineq[2], c, ineq[3]);
+            biq.setQuick(c, ineq[4]);
+        }
+
+        QuadProgJ qp;
+        try {
+            qp = new QuadProgJ(G, a, Ceq, beq, Ciq, biq);
+        } catch(IllegalArgumentException e) {
+            return Double.NaN; // the hourly demand constraints are dependent
+        }
+        if(!qp.getIsFeasibleAndOptimal()) {
+            return Double.NaN;
+        }
+
+        double[] x = qp.getMinX();
+        double cost = 0;
+        for(int i=0; i<I; i++) {
+            for(int t=0; t<T; t++) {
+                int v = index[i][t];
+                if(v < 0) continue;
+                dispatch[i][t] = x[v]*baseS;
+                cost += units[i].noLoadCost + units[i].productionCost(dispatch[i][t]);
+            }
+        }
+        return cost;
+    }
+}
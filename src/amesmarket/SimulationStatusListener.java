@@ -17,6 +17,11 @@ public interface SimulationStatusListener {
         public static final int UPDATE_RT_LOAD     = 10;
         public static final int UPDATE_LSE_DEMAND = 11;
         public static final int UPDATE_COSTS = 12;
+        /**
+         * Largest event type. Listeners can subscribe to the types
+         * 1 to MAX_EVENT_TYPE.
+         */
+        public static final int MAX_EVENT_TYPE = UPDATE_COSTS;
 
         //FIXME: Type safety issues.s
         public final int eventType;
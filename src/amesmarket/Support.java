@@ -33,6 +33,12 @@ import java.io.FileOutputStream;
 import java.io.IOException;
 import java.nio.channels.FileChannel;
 import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Miscellaneous support methods.
@@ -649,4 +655,35 @@ public class Support {
 		return Double.parseDouble(string.replace(",", "."));
 	}
 
+	/**
+	 * Create a bounded pool of daemon worker threads.
+	 *
+	 * Idle threads time out, so a pool that is no longer used does not keep
+	 * threads alive between simulation runs.
+	 *
+	 * @param name prefix for the thread names
+	 * @param numThreads maximum number of threads in the pool, at least 1
+	 * @return the pool
+	 */
+	public static ExecutorService newWorkerPool(final String name, int numThreads) {
+		if(numThreads < 1) {
+			throw new IllegalArgumentException("Need at least one thread for " + name);
+		}
+
+		ThreadPoolExecutor pool = new ThreadPoolExecutor(numThreads, numThreads,
+				30L, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(),
+				new ThreadFactory() {
+					private final AtomicInteger count = new AtomicInteger();
+
+					@Override
+					public Thread newThread(Runnable r) {
+						Thread t = new Thread(r, name + "-" + count.incrementAndGet());
+						t.setDaemon(true);
+						return t;
+					}
+				});
+		pool.allowCoreThreadTimeOut(true);
+		return pool;
+	}
+
 }
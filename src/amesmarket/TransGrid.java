@@ -27,7 +27,10 @@
 
 package amesmarket;
 
+import java.util.Arrays;
+
 import uchicago.src.sim.space.Object2DGrid;
+import cern.colt.function.IntIntDoubleFunction;
 import cern.colt.matrix.*;
 import cern.colt.matrix.impl.*;
 
@@ -38,6 +41,10 @@ import cern.colt.matrix.impl.*;
  * DC-OPF paper: Junjie Sun and Leigh Tesfatsion, (2006) "DC OPF Formulation
  *       and Solution Using QuadProgJ", ISU Econ Working Paper Series #06014
  *
+ * The network matrices are stored sparse (SparseDoubleMatrix2D). Each node
+ * only has entries for its neighbours, so the storage and the time to form
+ * them grow with the number of branches rather than with K^2.
+ *
  * Example of what contains in nodeData and branchData.
 <p>
 NodeData
@@ -71,23 +78,24 @@ public class TransGrid {
 
     private int numNodes;                        // K   (1x1)
     private double penaltyCoeff;                 // pi  (1x1)
-    private double[][] vadWeight;                // W   (KxK)  ~ Eq(42)
+    private DoubleMatrix2D vadWeight;            // W   (KxK)  ~ Eq(42)
     // vad = voltage angle difference
-    private double[][] reducedVADWeight;         // Wrr (K-1)x(K-1) ~ Eq(45)
+    private DoubleMatrix2D reducedVADWeight;     // Wrr (K-1)x(K-1) ~ Eq(45)
     private int numBranches;                     // N   (1x1)
     private double[][] branchIndex;              // BI  (Nx2)
     private double[] MaxCap;                    // T   (Nx1)
-    private double[][] negativeSusceptance;      // B   (KxK)   ~ Eq(16)
-    private double[][] busAdmittance;            // B'  (KxK)   ~ Eq(50)
-    private double[][] reducedBusAdmittance;     // Br' (K-1)xK ~ Eq(51)
-    private double[][] diagonalAdmittance;       // D   (NxN)   ~ Eq(55)
-    private double[][] adjacency;                // A   (NxK)   ~ Eq(52)
-    private double[][] reducedAdjacency;         // Ar  Nx(K-1) ~ Eq(53)
+    private DoubleMatrix2D negativeSusceptance;  // B   (KxK)   ~ Eq(16)
+    private DoubleMatrix2D busAdmittance;        // B'  (KxK)   ~ Eq(50)
+    private DoubleMatrix2D reducedBusAdmittance; // Br' (K-1)xK ~ Eq(51)
+    private DoubleMatrix2D diagonalAdmittance;   // D   (NxN)   ~ Eq(55)
+    private DoubleMatrix2D adjacency;            // A   (NxK)   ~ Eq(52)
+    private DoubleMatrix2D reducedAdjacency;     // Ar  Nx(K-1) ~ Eq(53)
     private double[] reactance; //Nx1
+    private int[][] neighbours; // distinct neighbours of each node, in node order
 
     private DoubleMatrix2D ndata;  // to hold nodeData
     private DoubleMatrix2D bdata;  // to hold branchData
-    private DoubleFactory2D fac2d = DoubleFactory2D.dense;
+    private DoubleFactory2D fac2d = DoubleFactory2D.sparse;
     // for using Colt's methods e.g. diagonal(), identity(), etc.
     private cern.jet.math.Functions F = cern.jet.math.Functions.functions;
     // F: Naming shortcut to save some keystrokes for calling Colt's functions
@@ -117,17 +125,9 @@ public class TransGrid {
 
         numNodes = (int) nodeData[0][NN];
         penaltyCoeff = nodeData[0][PENALTY_COEFF];
-        vadWeight = new double[numNodes][numNodes];
-        reducedVADWeight = new double[numNodes-1][numNodes-1];
         numBranches = branchData.length;
         branchIndex = new double[numBranches][2];  //e.g., {{1,2},{1,4},{2,3},...}
         MaxCap = new double[numBranches];
-        negativeSusceptance = new double[numNodes][numNodes];
-        busAdmittance = new double[numNodes][numNodes];
-        reducedBusAdmittance = new double[numNodes-1][numNodes];
-        diagonalAdmittance = new double[numBranches][numBranches];
-        adjacency = new double[numBranches][numNodes];
-        reducedAdjacency = new double[numBranches][numNodes-1];
         reactance = new double[numBranches];
 
         ndata = new DenseDoubleMatrix2D(nodeData);
@@ -150,6 +150,8 @@ public class TransGrid {
 
     private void formMatrices() {
         setBranchIndex();
+        setReactance();
+        setNeighbours();
         setVADWeight();
         setReducedVADWeight();
         setLineCap();
@@ -159,114 +161,157 @@ public class TransGrid {
         setDiagonalAdmittance();
         setAdjacency();
         setReducedAdjacency();
-        setReactance();
     }
 
     private void setBranchIndex() {
         branchIndex = bdata.viewPart(0,FROM,numBranches,2).toArray();
     }
 
-    private void setVADWeight() {
-
+    // neighbours[k] = the distinct nodes connected to node k by a branch,
+    //  in increasing order (0-based).  The diagonals of W and B' are sums
+    //  over these, in the same order as a sum over all nodes.
+    private void setNeighbours() {
+        int[] degree = new int[numNodes];
         for(int n=0; n<numBranches; n++) {
-            vadWeight[(int)branchIndex[n][0]-1][(int)branchIndex[n][1]-1]
-            = -2*penaltyCoeff;  //NOTE: there should be a factor 2 in front of penaltyCoeff
-            vadWeight[(int)branchIndex[n][1]-1][(int)branchIndex[n][0]-1]
-            = -2*penaltyCoeff;
+            degree[(int)branchIndex[n][0]-1]++;
+            degree[(int)branchIndex[n][1]-1]++;
         }
-        for(int i=0; i<numNodes; i++) {
-            for(int j=0; j<numNodes; j++) {
-                if(j==i) {
-                    for(int k=0; k<numNodes; k++) {
-                        if(k!=i) {
-                            vadWeight[i][j] = vadWeight[i][j] - vadWeight[i][k];
-                        }
-                    }
+        int[][] adj = new int[numNodes][];
+        for(int k=0; k<numNodes; k++) {
+            adj[k] = new int[degree[k]];
+            degree[k] = 0;
+        }
+        for(int n=0; n<numBranches; n++) {
+            int from = (int)branchIndex[n][0]-1;
+            int to = (int)branchIndex[n][1]-1;
+            adj[from][degree[from]++] = to;
+            adj[to][degree[to]++] = from;
+        }
+
+        neighbours = new int[numNodes][];
+        for(int k=0; k<numNodes; k++) {
+            Arrays.sort(adj[k]);
+            int distinct = 0;
+            for(int i=0; i<adj[k].length; i++) {
+                if(i==0 || adj[k][i] != adj[k][i-1]) {
+                    adj[k][distinct++] = adj[k][i];
                 }
             }
+            neighbours[k] = Arrays.copyOf(adj[k], distinct);
         }
-        vadWeight = Support.correctRoundingError(vadWeight);
     }
 
-    private void setReducedVADWeight() {
-        for(int i=0; i<numNodes-1; i++) {
-            for(int j=0; j<numNodes-1; j++) {
-                reducedVADWeight[i][j] = vadWeight[i+1][j+1];
+    private void setVADWeight() {
+        vadWeight = new SparseDoubleMatrix2D(numNodes, numNodes);
+        for(int n=0; n<numBranches; n++) {
+            vadWeight.setQuick((int)branchIndex[n][0]-1, (int)branchIndex[n][1]-1,
+                               -2*penaltyCoeff);  //NOTE: there should be a factor 2 in front of penaltyCoeff
+            vadWeight.setQuick((int)branchIndex[n][1]-1, (int)branchIndex[n][0]-1,
+                               -2*penaltyCoeff);
+        }
+        // W_ii = W_ii - SUM_{k!=i} W_ik
+        double[] diag = new double[numNodes];
+        for(int i=0; i<numNodes; i++) {
+            diag[i] = vadWeight.getQuick(i, i);
+            for(int k : neighbours[i]) {
+                if(k!=i) {
+                    diag[i] = diag[i] - vadWeight.getQuick(i, k);
+                }
             }
         }
+        for(int i=0; i<numNodes; i++) {
+            vadWeight.setQuick(i, i, diag[i]);
+        }
+        vadWeight.forEachNonZero(new IntIntDoubleFunction() {
+            @Override
+            public double apply(int row, int column, double value) {
+                return Support.correctRoundingError(value);
+            }
+        });
+    }
 
+    private void setReducedVADWeight() {
+        reducedVADWeight = new SparseDoubleMatrix2D(numNodes-1, numNodes-1);
+        copyNonZeros(vadWeight, reducedVADWeight, 1, 1);
     }
 
     private void setLineCap() {
         MaxCap = bdata.viewColumn(LINE_CAP).toArray();
     }
     private void setNegativeSusceptance() {
+        negativeSusceptance = new SparseDoubleMatrix2D(numNodes, numNodes);
         for(int n=0; n<numBranches; n++) {
-            negativeSusceptance[(int)branchIndex[n][0]-1][(int)branchIndex[n][1]-1]
-            = 1/bdata.viewColumn(REACTANCE).toArray()[n];
-            negativeSusceptance[(int)branchIndex[n][1]-1][(int)branchIndex[n][0]-1]
-            = 1/bdata.viewColumn(REACTANCE).toArray()[n];
-
+            negativeSusceptance.setQuick((int)branchIndex[n][0]-1, (int)branchIndex[n][1]-1,
+                                         1/reactance[n]);
+            negativeSusceptance.setQuick((int)branchIndex[n][1]-1, (int)branchIndex[n][0]-1,
+                                         1/reactance[n]);
         }
     }
 
     private void setBusAdmittance() {
+        busAdmittance = new SparseDoubleMatrix2D(numNodes, numNodes);
         for(int i=0; i<numNodes; i++) {
-            for(int j=0; j<numNodes; j++) {
-                if(j==i) {
-                    for(int k=0; k<numNodes; k++) {
-                        if(k!=i) {
-                            busAdmittance[i][j] = busAdmittance[i][j] + negativeSusceptance[i][k];
-                        }
-                    }
+            double bii = 0;
+            for(int k : neighbours[i]) {
+                if(k!=i) {
+                    bii = bii + negativeSusceptance.getQuick(i, k);
+                    busAdmittance.setQuick(i, k, - negativeSusceptance.getQuick(i, k));
                 }
-                else
-                    busAdmittance[i][j] = - negativeSusceptance[i][j];
             }
+            busAdmittance.setQuick(i, i, bii);
         }
     }
     private void setReducedBusAdmittance() {
-        DoubleMatrix2D na = new DenseDoubleMatrix2D(busAdmittance);
-        reducedBusAdmittance = na.viewPart(1,0,numNodes-1,numNodes).toArray();
+        reducedBusAdmittance = new SparseDoubleMatrix2D(numNodes-1, numNodes);
+        copyNonZeros(busAdmittance, reducedBusAdmittance, 1, 0);
     }
     private void setDiagonalAdmittance() {
         diagonalAdmittance = fac2d.diagonal(bdata.copy().viewColumn(REACTANCE)
-                                            .assign(F.inv)).toArray();
+                                            .assign(F.inv));
         //NOTE: Have to keep .copy(), otherwise reactance will be 1/reactance
     }
     private void setAdjacency() {
+        adjacency = new SparseDoubleMatrix2D(numBranches, numNodes);
         for(int n=0; n<numBranches; n++) {
-            for(int k=0; k<numNodes; k++) {
-                if(k == branchIndex[n][0]-1) {
-                    adjacency[n][k] = 1;
-                }
-                else if (k == branchIndex[n][1]-1) {
-                    adjacency[n][k] = -1;
-                }
-                else {
-                    adjacency[n][k] = 0;
-                }
-            }
+            adjacency.setQuick(n, (int)branchIndex[n][1]-1, -1);
+            adjacency.setQuick(n, (int)branchIndex[n][0]-1, 1);
         }
     }
     private void setReducedAdjacency() {
-        DoubleMatrix2D adj = new DenseDoubleMatrix2D(adjacency);
-        reducedAdjacency = adj.viewPart(0,1,numBranches,numNodes-1).toArray();
+        reducedAdjacency = new SparseDoubleMatrix2D(numBranches, numNodes-1);
+        copyNonZeros(adjacency, reducedAdjacency, 0, 1);
     }
     private void setReactance() {
         reactance = bdata.viewColumn(REACTANCE).toArray();
     }
 
+    // Copies the non-zero elements of source into target, leaving out the
+    //  first rowOffset rows and columnOffset columns of source.
+    private static void copyNonZeros(DoubleMatrix2D source, final DoubleMatrix2D target,
+                                     final int rowOffset, final int columnOffset) {
+        source.forEachNonZero(new IntIntDoubleFunction() {
+            @Override
+            public double apply(int row, int column, double value) {
+                if(row >= rowOffset && column >= columnOffset) {
+                    target.setQuick(row-rowOffset, column-columnOffset, value);
+                }
+                return value;
+            }
+        });
+    }
+
     public int getNumNodes() {
         return numNodes;
     }
     public double getPenaltyCoeff() {
         return penaltyCoeff;
     }
-    public double[][] getVADWeight() {
+    // NOTE: the network matrices below are sparse and shared, callers must
+    //  not modify them.
+    public DoubleMatrix2D getVADWeight() {
         return vadWeight;
     }
-    public double[][] getReducedVADWeight() {
+    public DoubleMatrix2D getReducedVADWeight() {
         return reducedVADWeight;
     }
     public int getNumBranches() {
@@ -278,22 +323,22 @@ public class TransGrid {
     public double[] getLineCap() {
         return MaxCap;
     }
-    public double[][] getNegativeSusceptance() {
+    public DoubleMatrix2D getNegativeSusceptance() {
         return negativeSusceptance;
     }
-    public double[][] getBusAdmittance() {
+    public DoubleMatrix2D getBusAdmittance() {
         return busAdmittance;
     }
-    public double[][] getReducedBusAdmittance() {
+    public DoubleMatrix2D getReducedBusAdmittance() {
         return reducedBusAdmittance;
     }
-    public double[][] getDiagonalAdmittance() {
+    public DoubleMatrix2D getDiagonalAdmittance() {
         return diagonalAdmittance;
     }
-    public double[][] getAdjacency() {
+    public DoubleMatrix2D getAdjacency() {
         return adjacency;
     }
-    public double[][] getReducedAdjacency() {
+    public DoubleMatrix2D getReducedAdjacency() {
         return reducedAdjacency;
     }
     public double[] getReactance() {
@@ -0,0 +1,309 @@
+/*
+ * FIXME: LICENSE
+ */
+
+package amesmarket.extern;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+
+import amesmarket.AMESMarket;
+
+/**
+ * Run external solver programs.
+ *
+ * The stdout and stderr of the program are drained at the same time, on
+ * their own threads, so a program that writes a lot to one of them can not
+ * block on a full pipe. The lines are copied to System.out/System.err and
+ * the last lines of each are kept for error messages.
+ *
+ * A program that runs longer than the timeout is killed and started again,
+ * up to a number of retries. Non-zero exit codes are not retried; they are
+ * returned to the caller.
+ *
+ * The runner keeps track of how long the calls took.
+ */
+public class ProcessRunner {
+
+	/**
+	 * System property with the wall-clock timeout for one solver run, in
+	 * seconds, e.g. -DSOLVER_TIMEOUT=600. 0, the default, waits forever.
+	 */
+	public static final String TIMEOUT_PROPERTY = "SOLVER_TIMEOUT";
+
+	/**
+	 * System property with how many times a solver run that timed out is
+	 * started again, e.g. -DSOLVER_RETRIES=2. Defaults to 1.
+	 */
+	public static final String RETRIES_PROPERTY = "SOLVER_RETRIES";
+
+	/**
+	 * Number of lines of stdout and stderr kept for each run.
+	 */
+	public static final int DEFAULT_TAIL_LINES = 200;
+
+	/**
+	 * How long to keep reading the output of a program after it exited, in
+	 * ms. Children of the program can hold the pipes open.
+	 */
+	private static final long DRAIN_WAIT = 1000;
+
+	private final String name;
+	private final long timeout;
+	private final int retries;
+	private final int tailLines;
+
+	private int calls;
+	private long totalMillis;
+	private long maxMillis;
+	private long lastMillis;
+
+	/**
+	 * @param name what the runner runs, used in messages
+	 * @param timeout ms to wait for one run; 0 waits forever
+	 * @param retries how many times to restart a run that timed out
+	 * @param tailLines lines of output kept for each stream
+	 */
+	public ProcessRunner(String name, long timeout, int retries, int tailLines) {
+		if (timeout < 0 || retries < 0 || tailLines < 0) {
+			throw new IllegalArgumentException("Negative timeout, retries or tail lines");
+		}
+		this.name = name;
+		this.timeout = timeout;
+		this.retries = retries;
+		this.tailLines = tailLines;
+	}
+
+	/**
+	 * Create a runner configured by {@link #TIMEOUT_PROPERTY} and {@link #RETRIES_PROPERTY}.
+	 * @param name what the runner runs, used in messages
+	 * @return
+	 */
+	public static ProcessRunner fromSystemProperties(String name) {
+		return new ProcessRunner(name,
+				TimeUnit.SECONDS.toMillis(Long.getLong(TIMEOUT_PROPERTY, 0)),
+				Integer.getInteger(RETRIES_PROPERTY, 1),
+				DEFAULT_TAIL_LINES);
+	}
+
+	/**
+	 * Run a program to completion.
+	 * @param pb the program to start. Started once per attempt.
+	 * @return how the run ended.
+	 * @throws TimeoutException if every attempt timed out
+	 * @throws IOException if the program could not be started
+	 * @throws InterruptedException if interrupted waiting for the program,
+	 *         which is killed.
+	 */
+	public Result run(ProcessBuilder pb) throws IOException, InterruptedException {
+		long start = System.currentTimeMillis();
+		for (int attempt = 1; ; attempt++) {
+			final Process p = pb.start();
+			Tail stdout = new Tail(this.tailLines);
+			Tail stderr = new Tail(this.tailLines);
+			Thread outThread = drain(p.getInputStream(), stdout, System.out);
+			Thread errThread = drain(p.getErrorStream(), stderr, System.err);
+
+			boolean exited;
+			try {
+				exited = waitFor(p);
+			} catch (InterruptedException e) {
+				p.destroy();
+				throw e;
+			}
+			if (!exited) {
+				p.destroy();
+			}
+			outThread.join(DRAIN_WAIT);
+			errThread.join(DRAIN_WAIT);
+
+			long millis = System.currentTimeMillis() - start;
+			if (exited) {
+				record(millis);
+				AMESMarket.LOGGER.log(Level.FINE, this.name + " finished in " + millis + "ms");
+				return new Result(p.exitValue(), attempt, millis, stdout.lines(), stderr.lines());
+			}
+
+			AMESMarket.LOGGER.log(Level.WARNING, this.name + " timed out after "
+					+ this.timeout + "ms (attempt " + attempt + ")");
+			if (attempt > this.retries) {
+				record(millis);
+				throw new TimeoutException(this.name + " timed out " + attempt
+						+ " times after " + this.timeout + "ms", stderr.lines());
+			}
+		}
+	}
+
+	/**
+	 * @return true if the program exited, false if it timed out.
+	 */
+	private boolean waitFor(final Process p) throws InterruptedException {
+		if (this.timeout == 0) {
+			p.waitFor();
+			return true;
+		}
+
+		final CountDownLatch exited = new CountDownLatch(1);
+		Thread waiter = new Thread(this.name + " waiter") {
+			@Override
+			public void run() {
+				try {
+					p.waitFor();
+					exited.countDown();
+				} catch (InterruptedException e) {
+					// the runner gave up on the program
+				}
+			}
+		};
+		waiter.setDaemon(true);
+		waiter.start();
+		try {
+			return exited.await(this.timeout, TimeUnit.MILLISECONDS);
+		} finally {
+			waiter.interrupt();
+		}
+	}
+
+	private synchronized void record(long millis) {
+		this.calls++;
+		this.totalMillis += millis;
+		this.maxMillis = Math.max(this.maxMillis, millis);
+		this.lastMillis = millis;
+	}
+
+	/**
+	 * @return number of runs, including those that timed out.
+	 */
+	public synchronized int getCalls() {
+		return this.calls;
+	}
+
+	/**
+	 * @return total wall-clock time of all runs, in ms.
+	 */
+	public synchronized long getTotalMillis() {
+		return this.totalMillis;
+	}
+
+	/**
+	 * @return longest run, in ms.
+	 */
+	public synchronized long getMaxMillis() {
+		return this.maxMillis;
+	}
+
+	/**
+	 * @return the most recent run, in ms.
+	 */
+	public synchronized long getLastMillis() {
+		return this.lastMillis;
+	}
+
+	/**
+	 * Copy the lines of a stream to a print stream and a tail, on a daemon thread.
+	 */
+	private Thread drain(final InputStream in, final Tail tail, final PrintStream echo) {
+		Thread t = new Thread(this.name + " output") {
+			@Override
+			public void run() {
+				BufferedReader r = new BufferedReader(new InputStreamReader(in));
+				try {
+					String line;
+					while ((line = r.readLine()) != null) {
+						echo.println(line);
+						tail.add(line);
+					}
+				} catch (IOException e) {
+					// the program was killed
+				} finally {
+					try {
+						r.close();
+					} catch (IOException e) {
+						// nothing to do
+					}
+				}
+			}
+		};
+		t.setDaemon(true);
+		t.start();
+		return t;
+	}
+
+	/**
+	 * How a run ended.
+	 */
+	public static class Result {
+		public final int exitCode;
+		/** number of times the program was started */
+		public final int attempts;
+		/** wall-clock time of all attempts, in ms */
+		public final long millis;
+		/** last lines of stdout */
+		public final List<String> stdout;
+		/** last lines of stderr */
+		public final List<String> stderr;
+
+		Result(int exitCode, int attempts, long millis, List<String> stdout, List<String> stderr) {
+			this.exitCode = exitCode;
+			this.attempts = attempts;
+			this.millis = millis;
+			this.stdout = stdout;
+			this.stderr = stderr;
+		}
+	}
+
+	/**
+	 * Thrown when a program timed out on every attempt.
+	 */
+	public static class TimeoutException extends IOException {
+		private static final long serialVersionUID = 1L;
+
+		/** last lines of stderr of the last attempt */
+		public final List<String> stderr;
+
+		TimeoutException(String msg, List<String> stderr) {
+			super(msg);
+			this.stderr = stderr;
+		}
+	}
+
+	/**
+	 * Ring buffer with the last lines of a stream.
+	 */
+	private static class Tail {
+		private final String[] buf;
+		private int next;
+		private int size;
+
+		Tail(int capacity) {
+			this.buf = new String[capacity];
+		}
+
+		synchronized void add(String line) {
+			if (this.buf.length == 0) {
+				return;
+			}
+			this.buf[this.next] = line;
+			this.next = (this.next + 1) % this.buf.length;
+			this.size = Math.min(this.size + 1, this.buf.length);
+		}
+
+		synchronized List<String> lines() {
+			List<String> lines = new ArrayList<String>(this.size);
+			int first = (this.next - this.size + this.buf.length) % Math.max(1, this.buf.length);
+			for (int i = 0; i < this.size; i++) {
+				lines.add(this.buf[(first + i) % this.buf.length]);
+			}
+			return Collections.unmodifiableList(lines);
+		}
+	}
+}
@@ -0,0 +1,193 @@
+/*
+ * FIXME: LICENSE
+ */
+
+package amesmarket.extern;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Random;
+
+/**
+ * Scratch directory for the files a simulation exchanges with the external
+ * solvers.
+ *
+ * Every simulation gets its own directory, so several simulations can run
+ * at the same time, in one JVM or in several, without overwriting each
+ * other's files. The directories are created under
+ * {@link #WORK_DIR_PROPERTY}, or under /dev/shm (tmpfs) if it is available,
+ * or else under java.io.tmpdir. They are deleted by {@link #close()} when
+ * the simulation ends, or when the JVM exits.
+ *
+ * With {@link #KEEP_PROPERTY} the directories are kept for inspection.
+ * They are then created under {@link #WORK_DIR_PROPERTY} or the current
+ * directory, never in tmpfs.
+ *
+ * Layout:
+ * <pre>
+ *   ames-XXXX/              cwd of the solver processes, result files
+ *   ames-XXXX/ScenarioData/ reference model and scenario data files
+ * </pre>
+ */
+public class WorkDir {
+
+	/**
+	 * System property with the directory to create the working directories
+	 * in, e.g. -DAMES_WORK_DIR=/scratch/ames
+	 */
+	public static final String WORK_DIR_PROPERTY = "AMES_WORK_DIR";
+
+	/**
+	 * System property to keep the working directories after the simulation,
+	 * e.g. -DAMES_KEEP_WORK_DIR=true
+	 */
+	public static final String KEEP_PROPERTY = "AMES_KEEP_WORK_DIR";
+
+	private static final File TMPFS = new File("/dev/shm");
+	private static final Random random = new Random();
+
+	private final File dir;
+	/**
+	 * Deletes the directory when the JVM exits, null if it is kept.
+	 */
+	private Thread deleteHook;
+
+	private WorkDir(File dir) {
+		this.dir = dir;
+	}
+
+	/**
+	 * Create a new, empty working directory, kept or not as set by
+	 * {@link #KEEP_PROPERTY}.
+	 * @return
+	 * @throws IOException if the directory could not be created.
+	 */
+	public static WorkDir create() throws IOException {
+		boolean keep = Boolean.getBoolean(KEEP_PROPERTY);
+		return create(keep ? keepRoot() : defaultRoot(), !keep);
+	}
+
+	/**
+	 * Create a new, empty working directory.
+	 * @param root directory to create it in
+	 * @param delete delete the directory and its files on {@link #close()}
+	 *        or when the JVM exits.
+	 * @return
+	 * @throws IOException if the directory could not be created.
+	 */
+	public static WorkDir create(File root, boolean delete) throws IOException {
+		if (!root.isDirectory() && !root.mkdirs()) {
+			throw new IOException("Could not create " + root.getPath());
+		}
+		for (int attempt = 0; attempt < 100; attempt++) {
+			long n;
+			synchronized (random) {
+				n = random.nextLong() & Long.MAX_VALUE;
+			}
+			// mkdir is atomic, a directory is never handed out twice.
+			File dir = new File(root, "ames-" + Long.toString(n, 36)).getAbsoluteFile();
+			if (dir.mkdir()) {
+				final WorkDir wd = new WorkDir(dir);
+				if (delete) {
+					wd.deleteHook = new Thread("delete " + dir.getName()) {
+						@Override
+						public void run() {
+							wd.delete();
+						}
+					};
+					Runtime.getRuntime().addShutdownHook(wd.deleteHook);
+				}
+				return wd;
+			}
+		}
+		throw new IOException("Could not create a working directory in " + root.getPath());
+	}
+
+	/**
+	 * @return the directory set by {@link #WORK_DIR_PROPERTY}, tmpfs, or java.io.tmpdir.
+	 */
+	static File defaultRoot() {
+		String prop = System.getProperty(WORK_DIR_PROPERTY);
+		if (prop != null && prop.trim().length() > 0) {
+			return new File(prop.trim());
+		}
+		if (TMPFS.isDirectory() && TMPFS.canWrite()) {
+			return TMPFS;
+		}
+		return new File(System.getProperty("java.io.tmpdir"));
+	}
+
+	/**
+	 * @return the directory set by {@link #WORK_DIR_PROPERTY}, or the current directory.
+	 */
+	static File keepRoot() {
+		String prop = System.getProperty(WORK_DIR_PROPERTY);
+		if (prop != null && prop.trim().length() > 0) {
+			return new File(prop.trim());
+		}
+		return new File(System.getProperty("user.dir"));
+	}
+
+	/**
+	 * @return true if the directory is kept after {@link #close()}.
+	 */
+	public synchronized boolean isKept() {
+		return this.deleteHook == null;
+	}
+
+	/**
+	 * The simulation is done with the directory: delete it, unless it is kept.
+	 */
+	public synchronized void close() {
+		if (this.deleteHook == null) {
+			return;
+		}
+		try {
+			Runtime.getRuntime().removeShutdownHook(this.deleteHook);
+		} catch (IllegalStateException e) {
+			// the JVM is exiting, the hook deletes it.
+			return;
+		}
+		this.deleteHook = null;
+		delete();
+	}
+
+	/**
+	 * @return the (absolute) working directory.
+	 */
+	public File getDir() {
+		return this.dir;
+	}
+
+	/**
+	 * @return the directory for the reference model and scenario data files.
+	 */
+	public File getScenarioDir() {
+		return new File(this.dir, "ScenarioData");
+	}
+
+	/**
+	 * @param name
+	 * @return a file in the working directory.
+	 */
+	public File file(String name) {
+		return new File(this.dir, name);
+	}
+
+	/**
+	 * Delete the directory and everything in it.
+	 */
+	public void delete() {
+		deleteTree(this.dir);
+	}
+
+	private static void deleteTree(File f) {
+		File[] children = f.listFiles();
+		if (children != null) {
+			for (File c : children) {
+				deleteTree(c);
+			}
+		}
+		f.delete();
+	}
+}
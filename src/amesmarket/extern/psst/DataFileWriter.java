@@ -5,12 +5,19 @@ package amesmarket.extern.psst;
 
 import java.io.BufferedWriter;
 import java.io.File;
+import java.io.FileOutputStream;
 import java.io.FileWriter;
 import java.io.IOException;
 import java.io.PrintWriter;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CodingErrorAction;
 import java.text.SimpleDateFormat;
-import java.util.ArrayList;
 import java.util.Date;
+import java.util.Formatter;
 import java.util.List;
 
 import amesmarket.AMESMarket;
@@ -30,11 +37,47 @@ import amesmarket.extern.common.CommitmentDecision;
  */
 public class DataFileWriter {
 
-    //TODO-XX: make sure everywhere that writes data is using the same
-    //object, instead of hard coded paths.
-    private final File scenDir = new File("SCUCresources/ScenarioData");
+    private final File scenDir;
+
+    private final SimpleDateFormat dateFormat = new SimpleDateFormat(
+            "MM/dd/yyyy HH:mm:ss\n\n");
+
+    /**
+     * Reference model sections that are the same every day, for the last
+     * market written.
+     */
+    private StaticSections staticSections;
+
+    /**
+     * Write the scenario files to SCUCresources/ScenarioData.
+     */
+    public DataFileWriter() {
+        this(new File("SCUCresources/ScenarioData"));
+    }
+
+    /**
+     * @param scenDir directory for the scenario structure file, usually
+     *                {@link amesmarket.extern.WorkDir#getScenarioDir()}.
+     */
+    public DataFileWriter(File scenDir) {
+        this.scenDir = scenDir;
+    }
 
     public void writeScenarioStructures(int noOfScenarios, double[] scenProb) throws AMESMarketException, IOException {
+        writeScenarioStructures(noOfScenarios, scenProb, true);
+    }
+
+    /**
+     * Write the scenario tree of a stochastic SCUC.
+     * @param noOfScenarios
+     * @param scenProb probability of each scenario
+     * @param scenarioBasedData true if each scenario is described by a
+     *        complete ScenN.dat; false if the solver combines the shared
+     *        RootNode.dat with a ScenNodeN.dat per scenario.
+     * @throws AMESMarketException
+     * @throws IOException
+     */
+    public void writeScenarioStructures(int noOfScenarios, double[] scenProb, boolean scenarioBasedData) throws AMESMarketException, IOException {
 
         String nodeBase = "ScenNode";
         String scenBase = "Scen";
@@ -50,10 +93,7 @@ public class DataFileWriter {
         try {
 
             ScenBufferWriter.write("# Written by AMES");
-            SimpleDateFormat dateFormat = new SimpleDateFormat(
-                    "MM/dd/yyyy HH:mm:ss\n\n");
-            Date date = new Date();
-            ScenBufferWriter.write(dateFormat.format(date));
+            ScenBufferWriter.write(timestamp());
 
             ScenBufferWriter.write("set Stages := FirstStage SecondStage ;\n");
             ScenBufferWriter.write("\n");
@@ -115,7 +155,8 @@ public class DataFileWriter {
                     .write("                           SecondStage StageCost[SecondStage] ;\n");
 
             ScenBufferWriter.write("\n");
-            ScenBufferWriter.write("param ScenarioBasedData := True ;\n");
+            ScenBufferWriter.write("param ScenarioBasedData := "
+                    + (scenarioBasedData ? "True" : "False") + " ;\n");
 
             ScenBufferWriter.close();
         } finally {
@@ -137,234 +178,357 @@ public class DataFileWriter {
      * @throws AMESMarketException
      */
     public void writeScenDatFile(File fileObj, AMESMarket ames,  int day, double [][] LoadProfileLSE, int numIntervalsInSim) throws AMESMarketException {
-        //set up all the elements we need.
-        final int numHoursPerDay = ames.NUM_HOURS_PER_DAY;
-//        final int numIntervalsInSim = ames.NUM_HOURS_PER_DAY_UC;
-        final ISO iso = ames.getISO();
-        final int numNodes = ames.getNumNodes();
-        final double baseS = ames.getBaseS();
-        final int numGenAgents = ames.getNumGenAgents();
-        final int numLSEAgents = ames.getNumLSEAgents();
+        writeModel(fileObj, ames, day, LoadProfileLSE, numIntervalsInSim);
+    }
+
+    /**
+     * Write the data shared by all of the scenarios of a stochastic SCUC:
+     * everything in {@link #writeScenDatFile} except the demand. With
+     * node-based scenario data (see {@link #writeScenarioStructures(int, double[], boolean)})
+     * this is the RootNode.dat the solver combines with each scenario's
+     * demand.
+     * @param fileObj
+     * @param ames
+     * @param day
+     * @param numIntervalsInSim
+     * @throws AMESMarketException
+     */
+    public void writeRootNodeDatFile(File fileObj, AMESMarket ames, int day, int numIntervalsInSim) throws AMESMarketException {
+        writeModel(fileObj, ames, day, null, numIntervalsInSim);
+    }
 
-        final double[][] branchIndex;
-        final double[][] numBranchData;
-        final double reserveRequirements;
+    /**
+     * Write only the demand of a scenario, e.g. the ScenNodeN.dat of a
+     * stochastic SCUC with node-based scenario data.
+     * @param fileObj
+     * @param ames
+     * @param LoadProfileLSE
+     * @param numIntervalsInSim
+     * @throws AMESMarketException
+     */
+    public void writeDemandDatFile(File fileObj, AMESMarket ames, double[][] LoadProfileLSE, int numIntervalsInSim) throws AMESMarketException {
+        final StaticSections sections = getStaticSections(ames);
 
         if ( !ensureFileParentExists(fileObj) ) {
             throw new AMESMarketException("Could not create the directory for " + fileObj.getPath());
         }
 
-        numBranchData=ames.getBranchData();
-        reserveRequirements=ames.getReserveRequirements();
-        branchIndex=ames.getTransGrid().getBranchIndex();
+        FileBuffer buffer = FileBuffer.get();
+        StringBuilder sb = buffer.text;
+        sb.setLength(0);
+
+        sb.append("# Written by AMES per unit ").append(timestamp());
+        appendDemand(sb, sections, ames.getBaseS(), LoadProfileLSE, numIntervalsInSim);
 
-        //Now that we have all the parameters. Write it out.
         try {
+            buffer.writeTo(fileObj);
+        } catch (IOException e){
+            throw new AMESMarketException("Unable to write the scenario demand.", e);
+        }
+    }
 
+    /**
+     * Write the reference model.
+     * @param LoadProfileLSE demand, or null to leave the demand out.
+     */
+    private void writeModel(File fileObj, AMESMarket ames,  int day, double [][] LoadProfileLSE, int numIntervalsInSim) throws AMESMarketException {
+        //set up all the elements we need.
+        final ISO iso = ames.getISO();
+        final double baseS = ames.getBaseS();
+        final StaticSections sections = getStaticSections(ames);
+        final GenAgent[] genAgents = sections.genAgents;
 
+        if ( !ensureFileParentExists(fileObj) ) {
+            throw new AMESMarketException("Could not create the directory for " + fileObj.getPath());
+        }
 
-            BufferedWriter refBufferWriter = new BufferedWriter(new FileWriter(fileObj));
+        //Now that we have all the parameters. Write it out.
+        FileBuffer buffer = FileBuffer.get();
+        StringBuilder sb = buffer.text;
+        sb.setLength(0);
 
-            refBufferWriter.write("# Written by AMES per unit ");
-            SimpleDateFormat dateFormat = new SimpleDateFormat(
-                    "MM/dd/yyyy HH:mm:ss\n\n");
-            Date date = new Date();
-            refBufferWriter.write(dateFormat.format(date));
+        sb.append("# Written by AMES per unit ").append(timestamp());
+        sb.append(sections.network);
 
-            refBufferWriter.write("set StageSet := FirstStage SecondStage ;\n");
-            refBufferWriter.write("\n");
+        sb.append("\nparam NumTimePeriods := ").append(numIntervalsInSim).append(" ;\n\n");
 
-            refBufferWriter
-                    .write("set CommitmentTimeInStage[FirstStage] := 1 2 3 4 5 6 7 8 9 10 11 12 13 14 15 16 17 18 19 20 21 22 23 24 ;\n");
-            refBufferWriter
-                    .write("set CommitmentTimeInStage[SecondStage] := ;\n\n");
+        sb.append("param: PowerGeneratedT0 UnitOnT0State MinimumPowerOutput MaximumPowerOutput MinimumUpTime MinimumDownTime NominalRampUpLimit NominalRampDownLimit StartupRampLimit ShutdownRampLimit ColdStartCost HotStartCost ShutdownCostCoefficient :=\n");
+        for (int i = 0; i < genAgents.length; i++) {
+            appendGenAgentState(sb, buffer.formatter, genAgents[i], day, baseS,
+                    sections.capMin[i], sections.capMax[i]);
+            sb.append(sections.genParams[i]).append('\n');
+        }
+        sb.append(" ;\n");
 
-            refBufferWriter
-                    .write("set GenerationTimeInStage[FirstStage] := ;\n");
-            refBufferWriter
-                    .write("set GenerationTimeInStage[SecondStage] := 1 2 3 4 5 6 7 8 9 10 11 12 13 14 15 16 17 18 19 20 21 22 23 24 ;\n\n");
+        if (LoadProfileLSE != null) {
+            appendDemand(sb, sections, baseS, LoadProfileLSE, numIntervalsInSim);
+        }
 
-            refBufferWriter.write("set Buses := ");
+        sb.append("param: ReserveRequirement := \n");
+        final double reserve = ames.getReserveRequirements() / baseS;
+        for (int h = 0; h < numIntervalsInSim; h++) {
+            sb.append(h + 1).append(' ').append(reserve).append('\n');
+        }
+        sb.append("; \n");
+
+        sb.append("param: ProductionCostA0 ProductionCostA1 ProductionCostA2 :=\n");
+        double[][] supplyOfferByGen = iso.getSupplyOfferByGen();
+        for (int i = 0; i < genAgents.length; i++) {
+            //FIXME: Is the no load cost supposed be part of the getSupplyOffer?
+            sb.append(genAgents[i].getID()).append(' ')
+                .append(genAgents[i].getNoLoadCost()).append(' ')
+                .append(supplyOfferByGen[i][0] * baseS).append(' ')
+                .append(supplyOfferByGen[i][1] * baseS * baseS).append(" \n");
+        }
+        sb.append("; \n");
 
+        try {
+            buffer.writeTo(fileObj);
+        } catch (IOException e){
+            throw new AMESMarketException("Unable to write the reference model.", e);
+        }
+    }
 
-            for (int i = 0; i < numNodes; i++) {
-                refBufferWriter.write("Bus" + (i + 1) + " ");
+    private static void appendDemand(StringBuilder sb, StaticSections sections, double baseS,
+            double[][] LoadProfileLSE, int numIntervalsInSim) {
+        sb.append("param: Demand :=\n");
+        for (int i = 0; i < sections.demandPrefix.length; i++) {
+            for (int h = 0; h < numIntervalsInSim; h++) {
+                sb.append(sections.demandPrefix[i]).append(h + 1).append(' ')
+                    .append(LoadProfileLSE[i][h] / baseS).append('\n');
             }
-            refBufferWriter.write(";\n\n");
-
-            refBufferWriter.write("set TransmissionLines :=\n");
-
-            for (int i = 0; i < branchIndex.length; i++)
-                refBufferWriter.write("Bus" + (int) branchIndex[i][0] + " Bus"
-                        + (int) branchIndex[i][1] + "\n");
-
-            refBufferWriter.write(";\n\n");
-
-            refBufferWriter.write("param NumTransmissionLines := "
-                    + branchIndex.length + " ;\n\n");
-            
-            refBufferWriter
-                    .write("param: BusFrom BusTo ThermalLimit Reactance :=\n");
+            sb.append('\n');
+        }
+        sb.append("; \n");
+    }
 
-            for (int i = 0; i < branchIndex.length; i++)
-                refBufferWriter.write((i + 1) + " Bus"
-                        + (int) numBranchData[i][0] + " Bus"
-                        + (int) numBranchData[i][1] + " " + numBranchData[i][2]
-                        + " " + numBranchData[i][3] + "\n");
+    /**
+     * @return the time stamp for a file header.
+     */
+    private String timestamp() {
+        synchronized (this.dateFormat) {
+            return this.dateFormat.format(new Date());
+        }
+    }
 
-            refBufferWriter.write(";\n\n");
+    /**
+     * Get the sections of the reference model that do not change during
+     * a simulation, building them the first time they are needed.
+     * @param ames
+     * @return
+     */
+    private synchronized StaticSections getStaticSections(AMESMarket ames) {
+        if (this.staticSections == null || this.staticSections.ames != ames) {
+            this.staticSections = new StaticSections(ames);
+        }
+        return this.staticSections;
+    }
 
-            refBufferWriter.write("set ThermalGenerators := ");
+    /**
+     * Write the day-dependent start of a genco's line in the SCUC input
+     * file: its name, initial power and initial on/off state.
+     * @param sb
+     * @param f formatter writing to sb
+     * @param ga
+     * @param day
+     * @param baseS
+     * @param capMin per unit
+     * @param capMax per unit
+     */
+    private static void appendGenAgentState(StringBuilder sb, Formatter f, GenAgent ga,
+            int day, double baseS, double capMin, double capMax) {
+        double powerT0 = ga.getPowerT0(day - 1) / baseS;
 
-            for (GenAgent gc : ames.getGenAgentList())
-                refBufferWriter.write(gc.getID() + " ");
+        //some rounding checks
+        if (powerT0 < capMin) {
+            System.err.println("Warning: " + ga.getID() + " PowerT0 value of "
+                    + powerT0 + " is less than capMin of " + capMin +
+                    ". Adjusting to " + capMin
+                    );
+            powerT0 = capMin;
+        } else if (powerT0 > capMax) {
+            System.err.println("Warning: " + ga.getID() + " PowerT0 value of "
+                    + powerT0 + " excedes the capMax value of " + capMax +
+                    ". Adjusting to " + capMax
+                    );
+            powerT0 = capMax;
+        }
 
-            refBufferWriter.write(";\n\n");
+        //Name, powerTO, On/OffT0
+        sb.append(ga.getID()).append(' ');
+        f.format("%f", powerT0); //TODO-XX Decimal precision.
+        sb.append(' ').append(ga.getUnitOnT0State(day - 1));
+    }
 
-            GenAgent[][] genNodeBusTable = new GenAgent[numNodes][numGenAgents];
+    /**
+     * The parts of the SCUC input file that only depend on the grid and
+     * the agents, which do not change during a simulation.
+     */
+    private static final class StaticSections {
+        final AMESMarket ames;
+        /** From the stage sets to the generators at each bus. */
+        final String network;
+        final GenAgent[] genAgents;
+        /** Per unit capacity limits, to check the initial power against. */
+        final double[] capMin, capMax;
+        /** The rest of each genco's line, after the on/off state. */
+        final String[] genParams;
+        /** "BusN " for each LSE. */
+        final String[] demandPrefix;
+
+        StaticSections(AMESMarket ames) {
+            this.ames = ames;
+            final int numNodes = ames.getNumNodes();
+            final double baseS = ames.getBaseS();
+            final double[][] branchIndex = ames.getTransGrid().getBranchIndex();
+            final double[][] numBranchData = ames.getBranchData();
+            final List<GenAgent> genList = ames.getGenAgentList();
+
+            StringBuilder sb = new StringBuilder();
+            sb.append("set StageSet := FirstStage SecondStage ;\n");
+            sb.append("\n");
+            sb.append("set CommitmentTimeInStage[FirstStage] := 1 2 3 4 5 6 7 8 9 10 11 12 13 14 15 16 17 18 19 20 21 22 23 24 ;\n");
+            sb.append("set CommitmentTimeInStage[SecondStage] := ;\n\n");
+            sb.append("set GenerationTimeInStage[FirstStage] := ;\n");
+            sb.append("set GenerationTimeInStage[SecondStage] := 1 2 3 4 5 6 7 8 9 10 11 12 13 14 15 16 17 18 19 20 21 22 23 24 ;\n\n");
+
+            sb.append("set Buses := ");
             for (int i = 0; i < numNodes; i++) {
-                for (int j = 0; j < numGenAgents; j++) {
-                    GenAgent gen = (GenAgent) ames.getGenAgentList().get(j);
-                    //System.out.println(gen.getAtNode());
-
-                    if (gen.getAtNode() - 1 == i)
-                        genNodeBusTable[i][j] = gen;
-                    else
-                        genNodeBusTable[i][j] = null;
-                }
+                sb.append("Bus").append(i + 1).append(' ');
             }
+            sb.append(";\n\n");
 
-            for (int i = 0; i < numNodes; i++) {
-                refBufferWriter.write("set ThermalGeneratorsAtBus[Bus"
-                        + (i + 1) + "] := ");
-
-                for (int j = 0; j < numGenAgents; j++) {
-                    if (genNodeBusTable[i][j] != null)
-                        refBufferWriter.write(genNodeBusTable[i][j].getID() + " ");
-
-                }
-
-                refBufferWriter.write(" ;\n");
+            sb.append("set TransmissionLines :=\n");
+            for (int i = 0; i < branchIndex.length; i++) {
+                sb.append("Bus").append((int) branchIndex[i][0])
+                    .append(" Bus").append((int) branchIndex[i][1]).append('\n');
             }
+            sb.append(";\n\n");
 
-            refBufferWriter.write("\nparam NumTimePeriods := " + numIntervalsInSim
-                    + " ;\n\n");
-
-            refBufferWriter
-                    .write("param: PowerGeneratedT0 UnitOnT0State MinimumPowerOutput MaximumPowerOutput MinimumUpTime MinimumDownTime NominalRampUpLimit NominalRampDownLimit StartupRampLimit ShutdownRampLimit ColdStartCost HotStartCost ShutdownCostCoefficient :=\n");
-
+            sb.append("param NumTransmissionLines := ").append(branchIndex.length).append(" ;\n\n");
 
-            for(GenAgent ga : ames.getGenAgentList()) {
-                refBufferWriter.write(genAgentToSCUCDesc(ga, day, baseS));
-                refBufferWriter.write("\n");
+            sb.append("param: BusFrom BusTo ThermalLimit Reactance :=\n");
+            for (int i = 0; i < branchIndex.length; i++) {
+                sb.append(i + 1)
+                    .append(" Bus").append((int) numBranchData[i][0])
+                    .append(" Bus").append((int) numBranchData[i][1])
+                    .append(' ').append(numBranchData[i][2])
+                    .append(' ').append(numBranchData[i][3]).append('\n');
             }
+            sb.append(";\n\n");
 
-            refBufferWriter.write(" ;\n");
-
-            refBufferWriter.write("param: Demand :=\n");
-
-            for (int i = 0; i < numLSEAgents; i++) {
-                LSEAgent lse = ames.getLSEAgentList().get(i);
-                int lseNode = lse.getAtNode();
+            sb.append("set ThermalGenerators := ");
+            for (GenAgent gc : genList) {
+                sb.append(gc.getID()).append(' ');
+            }
+            sb.append(";\n\n");
 
-                for (int h = 0; h < numIntervalsInSim; h++) {
-                    refBufferWriter.write("Bus" + lseNode + " " + (h + 1) + " "
-                            + LoadProfileLSE[i][h] / baseS + "\n");
+            //list the gencos at each bus in one pass over the gencos.
+            StringBuilder[] genAtBus = new StringBuilder[numNodes];
+            for (int i = 0; i < numNodes; i++) {
+                genAtBus[i] = new StringBuilder();
+            }
+            for (GenAgent gen : genList) {
+                int k = gen.getAtNode() - 1;
+                if (k >= 0 && k < numNodes) {
+                    genAtBus[k].append(gen.getID()).append(' ');
                 }
-
-                refBufferWriter.write("\n");
             }
-
-            refBufferWriter.write("; \n");
-
-            refBufferWriter.write("param: ReserveRequirement := \n");
-
-            for (int h = 0; h < numIntervalsInSim; h++) {
-                refBufferWriter.write((h + 1) + " " + reserveRequirements
-                        / baseS + "\n");
+            for (int i = 0; i < numNodes; i++) {
+                sb.append("set ThermalGeneratorsAtBus[Bus").append(i + 1).append("] := ")
+                    .append(genAtBus[i]).append(" ;\n");
             }
-
-            refBufferWriter.write("; \n");
-
-            refBufferWriter
-                    .write("param: ProductionCostA0 ProductionCostA1 ProductionCostA2 :=\n");
-
-            double[][] supplyOfferByGen = iso.getSupplyOfferByGen();
-
-            final ArrayList<GenAgent> genagents = ames.getGenAgentList();
-            for (int i = 0; i < numGenAgents; i++){
-                GenAgent ga = genagents.get(i);
-                refBufferWriter.write(
-                        ga.getID() + " " + //ga.getSupplyOffer()[0] + " "
-                        + ga.getNoLoadCost() + " " + //FIXME: Is this supposed be part of the getSupplyOffer?
-                        + supplyOfferByGen[i][0] * baseS + " "
-                        + supplyOfferByGen[i][1] * baseS
-                        * baseS + " " + "\n");
+            this.network = sb.toString();
+
+            final int numGenAgents = genList.size();
+            this.genAgents = genList.toArray(new GenAgent[numGenAgents]);
+            this.capMin = new double[numGenAgents];
+            this.capMax = new double[numGenAgents];
+            this.genParams = new String[numGenAgents];
+            for (int i = 0; i < numGenAgents; i++) {
+                GenAgent ga = this.genAgents[i];
+                this.capMin[i] = ga.getCapacityMin() / baseS;
+                this.capMax[i] = ga.getCapacityMax() / baseS;
+                this.genParams[i] = String.format(
+                        //MinPow, MaxPow, MinUp, MinDown, NominalRampUP, NominalRampDown, StartupLim, ShutdownLim, ColdStartupCost, HotStartupCost, ShutDownCost
+                        " %f %f %d %d %f %f %f %f %f %f %f"
+                        , this.capMin[i]
+                        , this.capMax[i]
+                        , ga.getMinUpTime()
+                        , ga.getMinDownTime()
+                        , ga.getNominalRampUpLim() / baseS
+                        , ga.getNominalRampDownLim() / baseS
+                        , ga.getStartupRampLim() / baseS
+                        , ga.getShutdownRampLim() / baseS
+                        , ga.getColdStartUpCost()
+                        , ga.getHotStartUpCost()
+                        , ga.getShutDownCost()
+                        );
             }
 
-            refBufferWriter.write("; \n");
-
-            refBufferWriter.close();
-        } catch (IOException e){
-            throw new AMESMarketException("Unable to write the reference model.", e);
+            final List<LSEAgent> lseList = ames.getLSEAgentList();
+            this.demandPrefix = new String[ames.getNumLSEAgents()];
+            for (int i = 0; i < this.demandPrefix.length; i++) {
+                this.demandPrefix[i] = "Bus" + lseList.get(i).getAtNode() + " ";
+            }
         }
     }
 
     /**
-     * Get a string to write into the SCUC input file describing the genco.
-     * @param ga
-     * @param baseS
-     * @return a string with all of the parameters, or an empty string if the ga parameter is null.
+     * A text buffer and the buffers to encode it to a file, reused by each
+     * thread for all the files it writes.
      */
-    private String genAgentToSCUCDesc(GenAgent ga, int day, double baseS) {
-        if(ga == null) return "";
-
-        //do all the conversions
-        double powerT0          = ga.getPowerT0(day - 1) / baseS;
-        double capMin           = ga.getCapacityMin() / baseS;
-        double capMax           = ga.getCapacityMax() / baseS;
-        double nominalUp        = ga.getNominalRampUpLim() / baseS;
-        double nominalDown      = ga.getNominalRampDownLim() / baseS;
-        double startupramplimit = ga.getStartupRampLim() / baseS ;
-        double shutdownramplimit= ga.getShutdownRampLim() / baseS ;
-        double coldstartupcost  = ga.getColdStartUpCost() ;
-        double hotstartupcost  = ga.getHotStartUpCost()  ;
-        double shutdowncost     = ga.getShutDownCost()  ;
+    private static final class FileBuffer {
+        private static final ThreadLocal<FileBuffer> buffers = new ThreadLocal<FileBuffer>() {
+            @Override
+            protected FileBuffer initialValue() {
+                return new FileBuffer();
+            }
+        };
+
+        final StringBuilder text = new StringBuilder(1 << 16);
+        final Formatter formatter = new Formatter(this.text);
+        //same encoding, and replacement of bad characters, as FileWriter.
+        private final CharsetEncoder encoder = Charset.defaultCharset().newEncoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        private final ByteBuffer bytes = ByteBuffer.allocate(1 << 16);
+
+        static FileBuffer get() {
+            return buffers.get();
+        }
 
-        //some rounding checks
-        if (powerT0 < capMin) {
-            System.err.println("Warning: " + ga.getID() + " PowerT0 value of "
-                    + powerT0 + " is less than capMin of " + capMin +
-                    ". Adjusting to " + capMin
-                    );
-            powerT0 = capMin;
-        } else if (powerT0 > capMax) {
-            System.err.println("Warning: " + ga.getID() + " PowerT0 value of "
-                    + powerT0 + " excedes the capMax value of " + capMax +
-                    ". Adjusting to " + capMax
-                    );
-            powerT0 = capMax;
+        /**
+         * Write the text to a file, replacing its contents.
+         * @param f
+         * @throws IOException
+         */
+        void writeTo(File f) throws IOException {
+            FileOutputStream out = new FileOutputStream(f);
+            try {
+                FileChannel ch = out.getChannel();
+                CharBuffer chars = CharBuffer.wrap(this.text);
+                this.encoder.reset();
+                this.bytes.clear();
+                while (this.encoder.encode(chars, this.bytes, true).isOverflow()) {
+                    drain(ch);
+                }
+                while (this.encoder.flush(this.bytes).isOverflow()) {
+                    drain(ch);
+                }
+                drain(ch);
+            } finally {
+                out.close();
+            }
         }
 
-        return String.format(
-                // 1     2          3       4       5       6       7       8               9               10          11
-                //Name, powerTO, On/OffT0, MinPow, MaxPow, MinUp, MinDown, NominalRampUP, NominalRampDown, StartupLim, ShutdownLim, ColdStartupCost, HotStartupCost, ShutDownCost
-                "%1$s %2$f %3$d %4$f %5$f %6$d %7$d %8$f %9$f %10$f %11$f %12$f %13$f %14$f" //TODO-XX Decimal precision.
-                , ga.getID() //1
-                , powerT0 //2
-                , ga.getUnitOnT0State(day - 1) //3
-                , capMin //4
-                , capMax//5
-                , ga.getMinUpTime()           //6
-                , ga.getMinDownTime()         //7
-                , nominalUp //8
-                , nominalDown//9
-                , startupramplimit //10
-                , shutdownramplimit //11
-                , coldstartupcost //12
-                , hotstartupcost //13
-                , shutdowncost //14
-                );
+        private void drain(FileChannel ch) throws IOException {
+            this.bytes.flip();
+            while (this.bytes.hasRemaining()) {
+                ch.write(this.bytes);
+            }
+            this.bytes.clear();
+        }
     }
 
     /**
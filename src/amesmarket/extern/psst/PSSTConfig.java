@@ -2,8 +2,11 @@ package amesmarket.extern.psst;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.Arrays;
 import java.util.Map;
 
+import amesmarket.Support;
+
 /**
  * Configuration information for using a PSST program to run some
  * optimization problem.
@@ -22,12 +25,17 @@ public class PSSTConfig {
 	//    private final String solutionWriter;
 
 	private final String[] args;
+	/**
+	 * Directory the program runs in; null for the current directory.
+	 */
+	private final File workDir;
 	/**
 	 * Create a psst program.
-	 * @param psstProg
-	 * @param solutionWriter
+	 * @param workDir
+	 * @param psstProgArgs
 	 */
-	private PSSTConfig(String ... psstProgArgs) {
+	private PSSTConfig(File workDir, String ... psstProgArgs) {
+		this.workDir = workDir;
 		this.args = psstProgArgs;
 	}
 
@@ -39,7 +47,19 @@ public class PSSTConfig {
 	 * @return
 	 */
 	public static PSSTConfig createStochasticPSST(File referenceModelDir, File scenarioModelDir, String solutionWriter) {
-		return new PSSTConfig(
+		return createStochasticPSST(referenceModelDir, scenarioModelDir, solutionWriter, null);
+	}
+
+	/**
+	 *
+	 * @param referenceModelDir
+	 * @param scenarioModelDir
+	 * @param solutionWriter
+	 * @param workDir directory the solution writer writes its results to
+	 * @return
+	 */
+	public static PSSTConfig createStochasticPSST(File referenceModelDir, File scenarioModelDir, String solutionWriter, File workDir) {
+		return new PSSTConfig(workDir,
 				"pyomo" ,
 				"-m",referenceModelDir.getAbsolutePath(),
 				"-i",scenarioModelDir.getAbsolutePath(),
@@ -55,11 +75,55 @@ public class PSSTConfig {
 	 * @return
 	 */
 	public static PSSTConfig createDeterministicPSST(File referenceModel, File referenceFile) {
-		return new PSSTConfig("psst", "scuc",
+		return createDeterministicPSST(referenceModel, referenceFile, null);
+	}
+
+	/**
+	 *
+	 * @param referenceModel
+	 * @param referenceFile
+	 * @param workDir directory xfertoames.dat is written to
+	 * @return
+	 */
+	public static PSSTConfig createDeterministicPSST(File referenceModel, File referenceFile, File workDir) {
+		return new PSSTConfig(workDir, "psst", "scuc",
 				"--data", referenceFile.getAbsolutePath(),
 				"--output", "xfertoames.dat");
 	}
 
+	/**
+	 * A long-lived psst process that serves many solves, see {@link PSSTWorker}.
+	 * @param workerCmd command to start the worker; if empty, 'psst worker'.
+	 * @return
+	 */
+	public static PSSTConfig createPSSTWorker(String ... workerCmd) {
+		if (workerCmd.length == 0) {
+			return new PSSTConfig(null, Support.findExecutableOnPath("psst"), "worker");
+		}
+		return new PSSTConfig(null, workerCmd);
+	}
+
+	/**
+	 * @return true if this runs a psst command, which a {@link PSSTWorker} can serve.
+	 */
+	public boolean isPSST() {
+		return "psst".equals(new File(this.args[0]).getName());
+	}
+
+	/**
+	 * @return the arguments to the psst program, without the program itself.
+	 */
+	public String[] getPSSTArgs() {
+		return Arrays.copyOfRange(this.args, 1, this.args.length);
+	}
+
+	/**
+	 * @return the directory the program runs in; null for the current directory.
+	 */
+	public File getWorkDir() {
+		return this.workDir;
+	}
+
 	/**
 	 * Get the arguments that will on invoked to start the process.
 	 * @return
@@ -74,9 +138,18 @@ public class PSSTConfig {
 	 * @throws IOException
 	 */
 	public Process createPSSTProcess() throws IOException{
+		return this.createProcessBuilder().start();
+	}
+
+	/**
+	 * Set up, but do not start, a process that runs a PSST program.
+	 * @return
+	 */
+	public ProcessBuilder createProcessBuilder() {
 		ProcessBuilder pb = new ProcessBuilder(this.getExecCmd());
+		pb.directory(this.workDir);
 		this.setupEnv(pb.environment());
-		return pb.start();
+		return pb;
 	}
 
 	/**
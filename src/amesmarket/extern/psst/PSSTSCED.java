@@ -3,10 +3,8 @@
  */
 package amesmarket.extern.psst;
 
-import java.io.BufferedReader;
 import java.io.File;
 import java.io.IOException;
-import java.io.InputStreamReader;
 import java.util.Arrays;
 import java.util.List;
 
@@ -17,8 +15,10 @@ import amesmarket.INIT;
 import amesmarket.SCED;
 import amesmarket.Support;
 import amesmarket.TransGrid;
+import amesmarket.extern.ProcessRunner;
 import amesmarket.filereaders.AbstractConfigFileReader;
 import amesmarket.filereaders.BadDataFileFormatException;
+import amesmarket.filereaders.LineTokenizer;
 
 /**
  * Setup and run the SCED using the PSST program
@@ -30,8 +30,10 @@ import amesmarket.filereaders.BadDataFileFormatException;
  */
 public class PSSTSCED implements SCED {
 
-	//TODO-XX : Make this client configurable
-	private final File scedResourcesDir = new File("SCUCresources");
+	/**
+	 * Directory the external SCED runs in, see {@link AMESMarket#getWorkDir()}.
+	 */
+	private final File workDir;
 	private final File scedScript = new File("SCED.py");
 	private final File ucVectorFile;
 	private final File refModelFile;
@@ -67,6 +69,24 @@ public class PSSTSCED implements SCED {
 	private final int H;
 	private final boolean deleteFiles;
 
+	/**
+	 * Runs the external SCED, one process per solve.
+	 */
+	private final ProcessRunner runner = ProcessRunner.fromSystemProperties("PSST SCED");
+
+	/**
+	 * System property with the format psst writes the SCED results in,
+	 * 'text' (the default) or 'binary', e.g. -DSCED_RESULT_FORMAT=binary.
+	 * The binary format (see {@link SCEDResultFile}) avoids parsing text for
+	 * every solve. Either format is read, whichever the file turns out to be.
+	 */
+	public static final String RESULT_FORMAT_PROPERTY = "SCED_RESULT_FORMAT";
+
+	/**
+	 * Whether to ask psst for binary results.
+	 */
+	private final boolean binaryResults = "binary".equals(System.getProperty(RESULT_FORMAT_PROPERTY));
+
 	/**
 	 * @param ames market instance begin used.
 	 * @param init init instance -- used to get the BaseS for PU/SI conversions.
@@ -89,6 +109,7 @@ public class PSSTSCED implements SCED {
 		this.ucVectorFile = ucVectorFile;
 		this.refModelFile = refModelFile;
 		this.scedFile = outFile;
+		this.workDir = ames.getWorkDir().getDir();
 		this.baseS = baseS;
 		this.grid = ames.getTransGrid();
 		this.ames = ames;
@@ -220,43 +241,38 @@ public class PSSTSCED implements SCED {
 
 	private int runPSSTSCED() throws IOException, InterruptedException {
 
-		//Process Builder.
-
-		String psst = Support.findExecutableOnPath( "psst" );
-
-		ProcessBuilder pb = new ProcessBuilder(
-				psst,
+		String[] args = {
 				"sced",
 				"--uc", "'" + this.ucVectorFile.getAbsolutePath() + "'",
 				"--data", "'" + this.refModelFile.getAbsolutePath() + "'",
 				"--output", "'" + this.scedFile.getAbsolutePath() + "'"
-				);
-		pb.directory(this.scedResourcesDir);
-
-		Process p = pb.start();
-
-		BufferedReader stdInput = new BufferedReader(new
-				InputStreamReader(p.getInputStream()));
-
-		BufferedReader stdError = new BufferedReader(new
-				InputStreamReader(p.getErrorStream()));
-
-		// read the output from the command
-		String s = null;
-		System.out.println("Here is the standard output of the command:\n");
-		while ((s = stdInput.readLine()) != null) {
-			System.out.println(s);
+				};
+		if (this.binaryResults) {
+			args = Arrays.copyOf(args, args.length + 2);
+			args[args.length - 2] = "--format";
+			args[args.length - 1] = "binary";
 		}
 
-		// read any errors from the attempted command
-		System.err.println("Here is the standard error of the command (if any):\n");
-		while ((s = stdError.readLine()) != null) {
-			System.out.println(s);
+		PSSTWorker worker = PSSTWorker.checkOut();
+		if (worker != null) {
+			try {
+				return worker.run(this.workDir, args);
+			} finally {
+				PSSTWorker.checkIn(worker);
+			}
 		}
 
-		int resCode = p.waitFor();
+		//Process Builder.
+
+		String psst = Support.findExecutableOnPath( "psst" );
+
+		String[] cmd = new String[args.length + 1];
+		cmd[0] = psst;
+		System.arraycopy(args, 0, cmd, 1, args.length);
+		ProcessBuilder pb = new ProcessBuilder(cmd);
+		pb.directory(this.workDir);
 
-		return resCode;
+		return this.runner.run(pb).exitCode;
 	}
 
 	private void cleanup() {
@@ -287,15 +303,49 @@ public class PSSTSCED implements SCED {
 	}
 
 	private void readResults(File in) throws BadDataFileFormatException {
-		SCEDReader scedr = new SCEDReader();
-		scedr.read(in);
+		boolean binary;
+		try {
+			binary = SCEDResultFile.isBinary(in);
+		} catch (IOException e) {
+			throw new BadDataFileFormatException(e);
+		}
+
+		if (binary) {
+			this.readBinaryResults(new SCEDResultFile(in));
+		} else {
+			SCEDReader scedr = new SCEDReader();
+			scedr.read(in);
+		}
 	}
 
 	/**
-	 * @return the scedResourcesDir
+	 * Copy the results of a binary result file into the solution arrays.
+	 * Fills the same entries as the {@link SCEDReader}.
 	 */
-	public File getScedResourcesDir() {
-		return this.scedResourcesDir;
+	private void readBinaryResults(SCEDResultFile res) throws BadDataFileFormatException {
+		res.readLMP(this.dailyLMP);
+		//The text results key the angles by the number in the bus name, BusN.
+		res.readVoltageAngles(this.voltageAngles, 1);
+
+		String[] names = res.getGenCoNames();
+		for (int g = 0; g < names.length; g++) {
+			GenAgent ga = this.ames.getGenAgentByName(names[g]);
+			if (ga == null) {
+				throw new BadDataFileFormatException(
+						"Unknown GenCo " + names[g] + " in SCED results");
+			}
+			res.readGenCo(g, ga.getIndex(), this.dailyCommitment, this.productionCost,
+					this.startupCost, this.shutdownCost);
+		}
+
+		res.readHasSolution(this.hasSolution);
+	}
+
+	/**
+	 * @return the directory the external SCED runs in
+	 */
+	public File getWorkDir() {
+		return this.workDir;
 	}
 
 	/**
@@ -401,16 +451,14 @@ public class PSSTSCED implements SCED {
 				}
 
 				//This section is formatted a little differently than the gencos.
-				String[] p = this.currentLine.split(DELIM);
-				Support.trimAllStrings(p);
-
-				//assume p[0] looks like 'BusN'
-				// TODO - fix below for more than 9 buses
-				p[0] = p[0].substring(p[0].length() - 1, p[0].length());
-				int h = this.stoi(p[1]) - 1; //adjust for array index
-				int b = this.stoi(p[0]) - 1;
+				//bus : hour : lmp
+				LineTokenizer p = this.tokens(DELIM);
+
+				//the bus is either 'BusN' or 'N'
+				int b = p.nextTrailingInt() - 1;
+				int h = p.nextInt() - 1; //adjust for array index
 				//deal with the current line to find the lmp.
-				lmp[h][b] = this.stod(p[2]);
+				lmp[h][b] = p.nextDouble();
 				//sced.lmp[branch][hour] ?or the other way around = value
 			}while(true);
 		}
@@ -425,9 +473,6 @@ public class PSSTSCED implements SCED {
 			double[][] productionCost = PSSTSCED.this.productionCost;
 
 
-			//key/value indexes for the data in this section.
-			final int KIDX = 0;
-			final int VIDX = 1;
 			int curGenCoIdx = 0;
 			int curHour = 0;
 
@@ -455,10 +500,15 @@ public class PSSTSCED implements SCED {
 				} else {
 					//should find either Hour, PowerGenerated, ProductionCost, StartupCost, or ShutdownCost.
 					//these are all label ':' value
-					String[] keyAndValue = this.splitKeyValue(DELIM, this.currentLine, true);
+					LineTokenizer keyAndValue = this.tokens(DELIM);
+					if(keyAndValue.countTokens() != 2) {
+						throw new BadDataFileFormatException(this.lineNum, "Expected key/value pair in " +
+								this.currentLine + ". Expected 2 items, found " + keyAndValue.countTokens());
+					}
+					keyAndValue.skipToken();
 					try{
-						if(HOUR.equals(keyAndValue[KIDX])) {
-							curHour = Integer.parseInt(keyAndValue[VIDX]);
+						if(keyAndValue.lastTokenEquals(HOUR)) {
+							curHour = keyAndValue.nextInt();
 							if( (curHour > 0) && (curHour <= PSSTSCED.this.hoursPerDay) ) {
 								curHour = curHour -1; //adjust for array index repr.
 							} else {
@@ -466,21 +516,21 @@ public class PSSTSCED implements SCED {
 										"Invalid hour for GenCo" + curGenCoIdx +
 										" Encountered hour " + curHour);
 							}
-						} else if (POWER_GEN.equals(keyAndValue[KIDX])) {  //PowerGenerated
-							dispatch[curHour][curGenCoIdx] = Support.parseDouble(keyAndValue[VIDX]);
-						} else if (PRODUCTION_COST.equals(keyAndValue[KIDX])) { //Production Cost
-							productionCost[curHour][curGenCoIdx] = Support.parseDouble(keyAndValue[VIDX]);
-						} else if (STARTUP_COST.equals(keyAndValue[KIDX])) { //Startup Cost
-							startupCost[curHour][curGenCoIdx] = Support.parseDouble(keyAndValue[VIDX]);
-						} else if (SHUTDOWN_COST.equals(keyAndValue[KIDX])) { //Shutdown Cost
-							shutdownCost[curHour][curGenCoIdx] = Support.parseDouble(keyAndValue[VIDX]);
+						} else if (keyAndValue.lastTokenEquals(POWER_GEN)) {  //PowerGenerated
+							dispatch[curHour][curGenCoIdx] = keyAndValue.nextDouble();
+						} else if (keyAndValue.lastTokenEquals(PRODUCTION_COST)) { //Production Cost
+							productionCost[curHour][curGenCoIdx] = keyAndValue.nextDouble();
+						} else if (keyAndValue.lastTokenEquals(STARTUP_COST)) { //Startup Cost
+							startupCost[curHour][curGenCoIdx] = keyAndValue.nextDouble();
+						} else if (keyAndValue.lastTokenEquals(SHUTDOWN_COST)) { //Shutdown Cost
+							shutdownCost[curHour][curGenCoIdx] = keyAndValue.nextDouble();
 						} else {
-							throw new BadDataFileFormatException(this.lineNum, "Unknown label " + keyAndValue[KIDX]);
+							throw new BadDataFileFormatException(this.lineNum, "Unknown label " + keyAndValue.lastToken());
 						}
 					} catch(NumberFormatException nfe) {
 						//the only thing that throws a NumberFormatExecption is parsing the value of the key/value pairs.
 						throw new BadDataFileFormatException(this.lineNum,
-								"Invalid value " + keyAndValue[VIDX]);
+								"Invalid value " + keyAndValue.lastToken());
 					}
 				}
 
@@ -491,8 +541,6 @@ public class PSSTSCED implements SCED {
 		 * Read the voltage angle at each Bus, for each Hour, in radians.
 		 */
 		private void readVoltageAngles() throws BadDataFileFormatException {
-			final int BUS_LEN = 3; //length of the word Bus
-
 			do {
 				int busNum = -1;
 				int hour = -1;
@@ -503,31 +551,22 @@ public class PSSTSCED implements SCED {
 					break;
 				}
 
-				String[] p = this.currentLine.split(":");
-				Support.trimAllStrings(p);
-
-				if(p.length != 2){
+				//BusN hour : angle
+				LineTokenizer p = this.tokens(DELIM);
+				if(p.countTokens() != 3){
 					throw new BadDataFileFormatException("Expected BusX <hour> : <angle>. Found " + this.currentLine);
 				}
 
-				String[] busAndHour = p[0].split(WS_REG_EX);
-				Support.trimAllStrings(busAndHour);
-				if(busAndHour.length != 2) {
-					throw new BadDataFileFormatException("Could not find and bus and hour in" + p[0] + ".");
-				}
-
 				//assume that each bus starts with the word Bus
 				try {
-					busNum = Integer.parseInt(
-							busAndHour[0].substring(BUS_LEN)
-							);
+					busNum = p.nextTrailingInt();
 				} catch(NumberFormatException nfe){
 					throw new BadDataFileFormatException(nfe);
 				}
 
 				//parse the hour
 				try {
-					hour = Integer.parseInt( busAndHour[1] );
+					hour = p.nextInt();
 					hour = hour - 1; //adjust for the 1-24 representation in the data file.
 				} catch(NumberFormatException nfe){
 					throw new BadDataFileFormatException(nfe);
@@ -535,7 +574,7 @@ public class PSSTSCED implements SCED {
 
 				//parse the actual angle.
 				try {
-					voltageAngle = Support.parseDouble( p[1] );
+					voltageAngle = p.nextDouble();
 				} catch(NumberFormatException nfe){
 					throw new BadDataFileFormatException(nfe);
 				}
@@ -564,28 +603,28 @@ public class PSSTSCED implements SCED {
 			int[] hasSols = PSSTSCED.this.hasSolution; //local copy.
 			this.move(true);
 			//assume the next line is vector with 1 entry for each hour.
-			String[] vs = this.currentLine.split("\\s+");
-			if(vs.length != hasSols.length) {
+			LineTokenizer vs = this.tokens();
+			if(vs.countTokens() != hasSols.length) {
 				throw new BadDataFileFormatException(
 						String.format("Expected %d found %d in hasSolution vector from the external SCED.",
-								hasSols.length, vs.length
+								hasSols.length, vs.countTokens()
 								));
 			}
 
 			//now that we know there are the expected number of hasSolution elems in vs.
 			for(int i = 0; i<hasSols.length; i++){
 				try{
-					int s = Integer.parseInt(vs[i]);
+					int s = vs.nextInt();
 
 					if(!((s == 0) || (s==1))){
 						throw new BadDataFileFormatException(this.lineNum,
-								"Invalid hasSolution marker. Expected 0/1, got " + vs[i]);
+								"Invalid hasSolution marker. Expected 0/1, got " + vs.lastToken());
 					}
 
 					PSSTSCED.this.hasSolution[i] = s;
 				}catch(NumberFormatException nfe){
 					throw new BadDataFileFormatException(this.lineNum,
-							"Invalid hasSolution marker. Expected 0/1, got " + vs[i]);
+							"Invalid hasSolution marker. Expected 0/1, got " + vs.lastToken());
 				}
 
 			}
@@ -3,27 +3,33 @@
  * and open the template in the editor.
  */
 package amesmarket.extern.psst;
-import java.io.BufferedReader;
 import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.IOException;
-import java.io.InputStreamReader;
+import java.io.InterruptedIOException;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.List;
 import java.util.Scanner;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 import java.util.logging.Level;
 
 import amesmarket.AMESMarket;
 import amesmarket.AMESMarketException;
+import amesmarket.DailyLoadProfile;
 import amesmarket.GenAgent;
 import amesmarket.ISO;
 import amesmarket.LoadCaseControl;
 import amesmarket.LoadProfileCollection;
 import amesmarket.SCUC;
 import amesmarket.Support;
+import amesmarket.extern.ProcessRunner;
+import amesmarket.extern.WorkDir;
 import amesmarket.extern.common.CommitmentDecision;
 import amesmarket.filereaders.BadDataFileFormatException;
 
@@ -47,6 +53,17 @@ public class PSSTSCUC implements SCUC {
 	private final File python_Input, referenceFile, pyomoSolPrint, runefSolPrint, referenceModelDir,
 	scenarioModelDir;
 
+	/**
+	 * Directory the external SCUC runs in, see {@link AMESMarket#getWorkDir()}.
+	 */
+	private final File workDir;
+
+	/**
+	 * Writes the input files for the external SCUC. Kept for the whole
+	 * simulation, the parts of the files that do not change are only built once.
+	 */
+	private final DataFileWriter dataFileWriter;
+
 
 	//TODO-X: make pyomo/cplex user settable, somewhere.
 	//Probably an option in the TestCase file.
@@ -61,6 +78,23 @@ public class PSSTSCUC implements SCUC {
 	 */
 	private final PSSTConfig PSSTExt;
 
+	/**
+	 * Runs the external SCUC, one process per solve.
+	 */
+	private final ProcessRunner runner = ProcessRunner.fromSystemProperties("PSST SCUC");
+
+	/**
+	 * System property with the number of threads that write the scenario
+	 * files, e.g. -DSCUC_WRITE_THREADS=4. Defaults to 1; values less than 2
+	 * write the files serially. Each market has its own pool.
+	 */
+	public static final String WRITE_THREADS_PROPERTY = "SCUC_WRITE_THREADS";
+
+	/**
+	 * Pool that writes the scenario files. Null means write them serially.
+	 */
+	private final ExecutorService scenarioWriter;
+
 	public PSSTSCUC(ISO independentSystemOperator, AMESMarket model) {
 		this.ames = model;
 		this.iso = independentSystemOperator;
@@ -72,10 +106,13 @@ public class PSSTSCUC implements SCUC {
 
 		//genSchedule=new int[numGenAgents][numHoursPerDay];
 
-		this.python_Input=new File("xfertoames.dat");
+		WorkDir workDir = model.getWorkDir();
+		this.workDir = workDir.getDir();
+		this.python_Input=workDir.file("xfertoames.dat");
 		this.referenceModelDir=new File("SCUCresources/Models");
-		this.scenarioModelDir=new File("SCUCresources/ScenarioData");
+		this.scenarioModelDir=workDir.getScenarioDir();
 		this.referenceFile=new File(this.scenarioModelDir, "ReferenceModel.dat");
+		this.dataFileWriter = new DataFileWriter(this.scenarioModelDir);
 		this.pyomoSolPrint=new File("SCUCresources/pyomosolprint.py");
 		this.runefSolPrint=new File("SCUCresources/runefsolprint.py");
 		//referenceModel=new File("SCUCresources/Models/ReferenceModel.py");
@@ -84,12 +121,12 @@ public class PSSTSCUC implements SCUC {
 		case SCUC_STOC :
 			//Run the External SCUC.
 			System.out.print("Running Stochastic SCUC with external call to PSST ");
-			this.PSSTExt = PSSTConfig.createStochasticPSST(this.referenceModelDir, this.scenarioModelDir, "runefsolprint");
+			this.PSSTExt = PSSTConfig.createStochasticPSST(this.referenceModelDir, this.scenarioModelDir, "runefsolprint", this.workDir);
 			break;
 		case SCUC_DETERM :
 			System.out.print("Running Deterministic SCUC with external call to PSST ");
 			this.PSSTExt = PSSTConfig.createDeterministicPSST(new File(this.referenceModelDir, "ReferenceModel.py"),
-					this.referenceFile);
+					this.referenceFile, this.workDir);
 			break;
 		default :
 			throw new IllegalArgumentException("Unknown SCUC type");
@@ -99,6 +136,11 @@ public class PSSTSCUC implements SCUC {
 		this.psstProg = Support.findExecutableInPath("psst");
 
 		this.deleteFiles = model.isDeleteIntermediateFiles();
+
+		int writeThreads = Integer.getInteger(WRITE_THREADS_PROPERTY, 1);
+		this.scenarioWriter = writeThreads > 1
+				? Support.newWorkerPool("SCUC scenario writer", writeThreads)
+				: null;
 	}
 
 	/* (non-Javadoc)
@@ -130,7 +172,7 @@ public class PSSTSCUC implements SCUC {
 			}
 		}
 
-		DataFileWriter dfw = new DataFileWriter();
+		final DataFileWriter dfw = this.dataFileWriter;
 
 		dfw.writeScenDatFile(this.referenceFile, this.ames, day, loadProfileLSEALL, this.ames.NUM_HOURS_PER_DAY_UC);
 
@@ -140,48 +182,32 @@ public class PSSTSCUC implements SCUC {
 		for (int i=0;i<loadCaseControl.getNumLoadScenarios();i++){
 			scenProb[i]=loadCaseControl.getScenarioProbability(day, i+1);
 		}
-		dfw.writeScenarioStructures(loadCaseControl.getNumLoadScenarios(),scenProb);
-
-		double[][] scenarioLoadProfileLSE=new double[this.numLSEAgents][this.numHours];
-		double[][] nextDayScenarioLoadProfileLSE=new double[this.numLSEAgents][this.numHours];
-		double[][] scenarioLoadProfileLSEALL=new double[this.numLSEAgents][this.numHours+this.numHours];
-
-		for (int i = 0; i < loadCaseControl.getNumLoadScenarios(); i++) {
-			LoadProfileCollection scenario = loadCaseControl.getLoadScenario(i + 1);
-
-			for (int j = 0; j < this.numLSEAgents; j++) {
-				for (int k = 0; k < this.numHours; k++) {
-					scenarioLoadProfileLSE[j][k] = scenario.get(day)
-							.getLoadByHour(k)[j];
-				}
-
-			}
-
-			if(day<this.ames.DAY_MAX){
-
-				for (int j = 0; j < this.numLSEAgents; j++) {
-					for (int k = 0; k < this.numHours; k++) {
-						nextDayScenarioLoadProfileLSE[j][k] = scenario.get(day+1)
-								.getLoadByHour(k)[j];
-					}
-
-				}
-
-				for (int k=0; k < loadProfileLSE.length; k++) {
-					System.arraycopy(scenarioLoadProfileLSE[k], 0, scenarioLoadProfileLSEALL[k], 0, scenarioLoadProfileLSE[k].length);
-					System.arraycopy(nextDayScenarioLoadProfileLSE[k], 0, scenarioLoadProfileLSEALL[k], scenarioLoadProfileLSE[k].length, nextDayScenarioLoadProfileLSE[k].length);
-				}
-			} else {
-				for (int k=0; k < loadProfileLSE.length; k++) {
-					System.arraycopy(scenarioLoadProfileLSE[k], 0, scenarioLoadProfileLSEALL[k], 0, scenarioLoadProfileLSE[k].length);
-				}
-			}
-
-
-			File fileObj = new File("SCUCresources/ScenarioData/Scen" + (i + 1)
+		//The scenarios only differ in their demand. Write everything else
+		//once, to RootNode.dat, and only the demand to each ScenNodeN.dat.
+		//The solver combines the two (node-based scenario data).
+		dfw.writeScenarioStructures(loadCaseControl.getNumLoadScenarios(),scenProb, false);
+		dfw.writeRootNodeDatFile(new File(this.scenarioModelDir, "RootNode.dat"), this.ames, day, this.ames.NUM_HOURS_PER_DAY_UC);
+
+		//Materialise and write the scenario demand files, in parallel if a
+		//pool is configured. Each task has its own buffers.
+		int numScenarios = loadCaseControl.getNumLoadScenarios();
+		List<Callable<Void>> tasks = new ArrayList<Callable<Void>>(numScenarios);
+		for (int i = 0; i < numScenarios; i++) {
+			final LoadProfileCollection scenario = loadCaseControl.getLoadScenario(i + 1);
+			final File fileObj = new File(this.scenarioModelDir, "ScenNode" + (i + 1)
 					+ ".dat");
-			dfw.writeScenDatFile(fileObj, this.ames, day, scenarioLoadProfileLSEALL, this.ames.NUM_HOURS_PER_DAY_UC);
+			final int scenDay = day;
+			tasks.add(new Callable<Void>() {
+				@Override
+				public Void call() throws AMESMarketException {
+					dfw.writeDemandDatFile(fileObj, PSSTSCUC.this.ames,
+							scenarioLoadProfile(scenario, scenDay),
+							PSSTSCUC.this.ames.NUM_HOURS_PER_DAY_UC);
+					return null;
+				}
+			});
 		}
+		writeScenarioFiles(tasks);
 
 		this.syscall(this.PSSTExt);
 
@@ -254,26 +280,93 @@ public class PSSTSCUC implements SCUC {
 		//END Read in GenCo commitments
 	}
 
-	public void syscall(PSSTConfig runefConfig) throws IOException {
-		Process p = runefConfig.createPSSTProcess();
+	/**
+	 * Copy the load of a scenario for the day and the next day into a new
+	 * [LSE][2*hours] array. On the last day the next day is left at 0.
+	 */
+	private double[][] scenarioLoadProfile(LoadProfileCollection scenario, int day) {
+		double[][] load = new double[this.numLSEAgents][this.numHours + this.numHours];
+		copyLoad(scenario.get(day), load, 0);
+		if (day < this.ames.DAY_MAX) {
+			copyLoad(scenario.get(day + 1), load, this.numHours);
+		}
+		return load;
+	}
+
+	private void copyLoad(DailyLoadProfile dlp, double[][] load, int offset) {
+		for (int k = 0; k < this.numHours; k++) {
+			double[] byLSE = dlp.getLoadByHour(k);
+			for (int j = 0; j < this.numLSEAgents; j++) {
+				load[j][offset + k] = byLSE[j];
+			}
+		}
+	}
+
+	/**
+	 * Run the tasks that write the scenario files, on the pool if there is
+	 * one, and wait for all of them.
+	 */
+	private void writeScenarioFiles(List<Callable<Void>> tasks) throws AMESMarketException, InterruptedIOException {
+		if (this.scenarioWriter == null || tasks.size() < 2) {
+			for (Callable<Void> t : tasks) {
+				try {
+					t.call();
+				} catch (AMESMarketException e) {
+					throw e;
+				} catch (Exception e) {
+					throw new AMESMarketException("Unable to write the scenario files", e);
+				}
+			}
+			return;
+		}
 
-		BufferedReader stdInput = new BufferedReader(new
-				InputStreamReader(p.getInputStream()));
+		List<Future<Void>> pending = new ArrayList<Future<Void>>(tasks.size());
+		for (Callable<Void> t : tasks) {
+			pending.add(this.scenarioWriter.submit(t));
+		}
+		try {
+			for (Future<Void> f : pending) {
+				f.get();
+			}
+		} catch (InterruptedException e) {
+			cancelAll(pending);
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException("Interrupted writing the scenario files");
+		} catch (ExecutionException e) {
+			cancelAll(pending);
+			if (e.getCause() instanceof AMESMarketException) {
+				throw (AMESMarketException) e.getCause();
+			}
+			throw new AMESMarketException("Unable to write the scenario files", e.getCause());
+		}
+	}
 
-		BufferedReader stdError = new BufferedReader(new
-				InputStreamReader(p.getErrorStream()));
+	private static void cancelAll(List<? extends Future<?>> tasks) {
+		for (Future<?> f : tasks) {
+			f.cancel(true);
+		}
+	}
 
-		// read the output from the command
-		String s = null;
-		System.out.println("Here is the standard output of the command:\n");
-		while ((s = stdInput.readLine()) != null) {
-			System.out.println(s);
+	public void syscall(PSSTConfig runefConfig) throws IOException {
+		if (runefConfig.isPSST()) {
+			PSSTWorker worker = PSSTWorker.checkOut();
+			if (worker != null) {
+				try {
+					int resCode = worker.run(runefConfig.getWorkDir(), runefConfig.getPSSTArgs());
+					System.out.println("SCUC Result code: " + resCode);
+				} finally {
+					PSSTWorker.checkIn(worker);
+				}
+				return;
+			}
 		}
 
-		// read any errors from the attempted command
-		System.err.println("Here is the standard error of the command (if any):\n");
-		while ((s = stdError.readLine()) != null) {
-			System.out.println(s);
+		try {
+			ProcessRunner.Result res = this.runner.run(runefConfig.createProcessBuilder());
+			System.out.println("SCUC Result code: " + res.exitCode + " (" + res.millis + "ms)");
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException("Interrupted waiting for the SCUC");
 		}
 	}
 
@@ -0,0 +1,393 @@
+/*
+ * FIXME: LICENSE
+ */
+
+package amesmarket.extern.psst;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.InterruptedIOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintStream;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import amesmarket.extern.ProcessRunner;
+
+/**
+ * A long-lived psst process that runs one solve after the other, instead
+ * of starting a new python interpreter (and importing pyomo) for every
+ * SCUC and SCED.
+ *
+ * The worker is started with 'psst worker' and talks a line protocol over
+ * its stdin/stdout:
+ * <pre>
+ *   READY                        (written once the worker is up)
+ *   PING                     -&gt; PONG
+ *   RUN cwd arg arg ...      -&gt; DONE exitcode
+ *   QUIT
+ * </pre>
+ * Fields are separated by tabs. Anything the worker writes to stderr is
+ * copied to System.err.
+ *
+ * The worker is health checked with a PING before each request and
+ * restarted if it died or does not answer. A request the worker dies on is
+ * retried once on a new worker. A request that times out is not retried.
+ *
+ * The SCUC and SCED solves borrow workers from a pool with
+ * {@link #checkOut()} and give them back with {@link #checkIn(PSSTWorker)},
+ * so there are only as many worker processes as solves running at once,
+ * whichever threads run them. At most {@link #MAX_IDLE_PROPERTY} workers
+ * are kept waiting in the pool, the others are shut down when they are
+ * given back.
+ */
+public class PSSTWorker {
+
+	/**
+	 * System property to use a psst worker for the SCUC and SCED solves.
+	 * 'true' starts 'psst worker'; any other value other than 'false' is the
+	 * command that starts the worker, split at spaces.
+	 * e.g. -DPSST_WORKER=true
+	 */
+	public static final String PSST_WORKER_PROPERTY = "PSST_WORKER";
+
+	/**
+	 * System property for the number of idle workers kept in the pool.
+	 * Defaults to the number of processors.
+	 * e.g. -DPSST_WORKER_MAX_IDLE=2
+	 */
+	public static final String MAX_IDLE_PROPERTY = "PSST_WORKER_MAX_IDLE";
+
+	/**
+	 * Default time to wait for the worker to start up or answer a PING, in ms.
+	 * Importing the solver stack can take a while.
+	 */
+	public static final long DEFAULT_HEALTH_TIMEOUT = 60000;
+
+	/**
+	 * Marks the end of the worker output in the queue.
+	 */
+	private static final String EOF = new String("EOF");
+
+	/**
+	 * Workers not in use. Guarded by itself, as is {@link #live}.
+	 */
+	private static final List<PSSTWorker> idle = new ArrayList<PSSTWorker>();
+	/**
+	 * Every worker of the pool that was not shut down, checked out or not.
+	 */
+	private static final List<PSSTWorker> live = new ArrayList<PSSTWorker>();
+	private static boolean shutdownHookAdded = false;
+
+	private final PSSTConfig config;
+	private final long healthTimeout;
+	private final long requestTimeout;
+
+	private Process process;
+	private PrintWriter toWorker;
+	private BlockingQueue<String> fromWorker;
+	private int starts;
+
+	/**
+	 * @param config command that starts the worker
+	 * @param healthTimeout ms to wait for the worker to start or answer a PING
+	 * @param requestTimeout ms to wait for a solve to finish, 0 waits forever
+	 */
+	public PSSTWorker(PSSTConfig config, long healthTimeout, long requestTimeout) {
+		this.config = config;
+		this.healthTimeout = healthTimeout;
+		this.requestTimeout = requestTimeout;
+	}
+
+	/**
+	 * Borrow a worker configured by {@link #PSST_WORKER_PROPERTY} from the
+	 * pool, starting a new one if none is idle. It must be given back with
+	 * {@link #checkIn(PSSTWorker)} when the solve is done. The workers of the
+	 * pool are shut down with the JVM.
+	 * Requests time out after {@link ProcessRunner#TIMEOUT_PROPERTY}.
+	 * @return the worker, or null if the solves should start their own processes.
+	 */
+	public static PSSTWorker checkOut() {
+		String prop = System.getProperty(PSST_WORKER_PROPERTY);
+		if (prop == null || prop.trim().length() == 0 || "false".equals(prop)) {
+			return null;
+		}
+		synchronized (idle) {
+			if (!idle.isEmpty()) {
+				return idle.remove(idle.size() - 1);
+			}
+			PSSTConfig cfg = "true".equals(prop)
+					? PSSTConfig.createPSSTWorker()
+					: PSSTConfig.createPSSTWorker(prop.trim().split("\\s+"));
+			PSSTWorker worker = new PSSTWorker(cfg, DEFAULT_HEALTH_TIMEOUT,
+					TimeUnit.SECONDS.toMillis(Long.getLong(ProcessRunner.TIMEOUT_PROPERTY, 0)));
+			live.add(worker);
+			if (!shutdownHookAdded) {
+				Runtime.getRuntime().addShutdownHook(new Thread("psst worker shutdown") {
+					@Override
+					public void run() {
+						closeAll();
+					}
+				});
+				shutdownHookAdded = true;
+			}
+			return worker;
+		}
+	}
+
+	/**
+	 * Give a worker from {@link #checkOut()} back to the pool. It is shut
+	 * down if the pool already holds {@link #MAX_IDLE_PROPERTY} idle workers.
+	 * @param worker the worker, null is ignored.
+	 */
+	public static void checkIn(PSSTWorker worker) {
+		if (worker == null) {
+			return;
+		}
+		int maxIdle = Integer.getInteger(MAX_IDLE_PROPERTY, Runtime.getRuntime().availableProcessors());
+		synchronized (idle) {
+			if (idle.size() < maxIdle) {
+				idle.add(worker);
+				return;
+			}
+			live.remove(worker);
+		}
+		worker.close();
+	}
+
+	/**
+	 * Shut down every worker of the pool, including those checked out.
+	 */
+	public static void closeAll() {
+		List<PSSTWorker> workers;
+		synchronized (idle) {
+			workers = new ArrayList<PSSTWorker>(live);
+			live.clear();
+			idle.clear();
+		}
+		for (PSSTWorker w : workers) {
+			w.close();
+		}
+	}
+
+	/**
+	 * @return the number of workers waiting in the pool.
+	 */
+	public static int getIdleCount() {
+		synchronized (idle) {
+			return idle.size();
+		}
+	}
+
+	/**
+	 * Run a psst command in the worker.
+	 * @param dir working directory for the command; null for the current directory.
+	 * @param args arguments to psst, e.g. "scuc", "--data", ...
+	 * @return the exit code of the command.
+	 * @throws IOException if the worker could not be started, failed twice,
+	 *                     or the command timed out.
+	 */
+	public synchronized int run(File dir, String... args) throws IOException {
+		StringBuilder request = new StringBuilder("RUN\t");
+		request.append(checkField((dir == null ? new File(".") : dir).getAbsoluteFile().getPath()));
+		for (String a : args) {
+			request.append('\t').append(checkField(a));
+		}
+
+		try {
+			for (int attempt = 0; ; attempt++) {
+				ensureRunning();
+				this.toWorker.println(request);
+				this.toWorker.flush();
+
+				long deadline = this.requestTimeout > 0
+						? System.currentTimeMillis() + this.requestTimeout
+						: Long.MAX_VALUE;
+				String line;
+				while ((line = next(deadline)) != null && line != EOF) {
+					if (line.startsWith("DONE ")) {
+						return Integer.parseInt(line.substring(5).trim());
+					}
+					if (line.startsWith("ERR")) {
+						throw new IOException("psst worker rejected the request: " + line);
+					}
+					System.out.println(line);
+				}
+
+				destroy();
+				if (line == null) {
+					throw new IOException("psst worker timed out after "
+							+ this.requestTimeout + "ms running " + request);
+				}
+				if (attempt > 0) {
+					throw new IOException("psst worker died twice running " + request);
+				}
+				System.err.println("psst worker died, restarting it.");
+			}
+		} catch (InterruptedException e) {
+			destroy();
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException("Interrupted waiting for the psst worker");
+		}
+	}
+
+	/**
+	 * Check that the worker is running and answering.
+	 * @return false if it is not running, died or did not answer in time.
+	 */
+	public synchronized boolean ping() {
+		if (this.process == null || !isAlive(this.process)) {
+			return false;
+		}
+		try {
+			this.toWorker.println("PING");
+			this.toWorker.flush();
+			long deadline = System.currentTimeMillis() + this.healthTimeout;
+			String line;
+			while ((line = next(deadline)) != null && line != EOF) {
+				if ("PONG".equals(line)) {
+					return true;
+				}
+			}
+			return false;
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			return false;
+		}
+	}
+
+	/**
+	 * @return true if the worker process is running. Unlike {@link #ping()}
+	 *         this does not talk to the worker.
+	 */
+	public synchronized boolean isRunning() {
+		return this.process != null && isAlive(this.process);
+	}
+
+	/**
+	 * @return how many times a worker process was started.
+	 */
+	public synchronized int getStarts() {
+		return this.starts;
+	}
+
+	/**
+	 * Ask the worker to quit, and kill it.
+	 */
+	public synchronized void close() {
+		if (this.process != null) {
+			this.toWorker.println("QUIT");
+			this.toWorker.close();
+			try {
+				long deadline = System.currentTimeMillis() + 1000;
+				String line;
+				while ((line = next(deadline)) != null && line != EOF) {
+					// drop the rest of the output
+				}
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			destroy();
+		}
+	}
+
+	private void ensureRunning() throws IOException, InterruptedException {
+		if (this.process != null && ping()) {
+			return;
+		}
+		destroy();
+
+		this.process = this.config.createPSSTProcess();
+		this.starts++;
+		this.toWorker = new PrintWriter(new OutputStreamWriter(this.process.getOutputStream()));
+		this.fromWorker = new LinkedBlockingQueue<String>();
+		pump(this.process.getInputStream(), this.fromWorker, null);
+		pump(this.process.getErrorStream(), null, System.err);
+
+		long deadline = System.currentTimeMillis() + this.healthTimeout;
+		String line;
+		while ((line = next(deadline)) != null && line != EOF) {
+			if ("READY".equals(line)) {
+				return;
+			}
+			System.out.println(line);
+		}
+		destroy();
+		throw new IOException("psst worker did not start: "
+				+ (line == null ? "no answer in " + this.healthTimeout + "ms" : "it exited"));
+	}
+
+	/**
+	 * @return the next line from the worker, EOF if it exited, or null on timeout.
+	 */
+	private String next(long deadline) throws InterruptedException {
+		long wait = deadline - System.currentTimeMillis();
+		if (wait <= 0) {
+			return null;
+		}
+		return this.fromWorker.poll(wait, TimeUnit.MILLISECONDS);
+	}
+
+	private void destroy() {
+		if (this.process != null) {
+			this.process.destroy();
+			this.toWorker.close();
+			this.process = null;
+		}
+	}
+
+	private static boolean isAlive(Process p) {
+		try {
+			p.exitValue();
+			return false;
+		} catch (IllegalThreadStateException e) {
+			return true;
+		}
+	}
+
+	private static String checkField(String field) {
+		if (field.indexOf('\t') >= 0 || field.indexOf('\n') >= 0 || field.indexOf('\r') >= 0) {
+			throw new IllegalArgumentException("Can not pass '" + field + "' to the psst worker");
+		}
+		return field;
+	}
+
+	/**
+	 * Copy the lines of a worker stream to a queue or a print stream, on a
+	 * daemon thread. Queues get {@link #EOF} at the end.
+	 */
+	private static void pump(final InputStream in, final BlockingQueue<String> queue,
+			final PrintStream out) {
+		Thread t = new Thread("psst worker output") {
+			@Override
+			public void run() {
+				BufferedReader r = new BufferedReader(new InputStreamReader(in));
+				try {
+					String line;
+					while ((line = r.readLine()) != null) {
+						if (queue != null) {
+							queue.add(line);
+						} else {
+							out.println(line);
+						}
+					}
+				} catch (IOException e) {
+					// the worker was killed
+				} finally {
+					if (queue != null) {
+						queue.add(EOF);
+					}
+				}
+			}
+		};
+		t.setDaemon(true);
+		t.start();
+	}
+}
@@ -0,0 +1,269 @@
+/*
+ * FIXME: LICENSE
+ */
+
+package amesmarket.extern.psst;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+
+import amesmarket.filereaders.BadDataFileFormatException;
+
+/**
+ * Binary SCED result file written by 'psst sced --format binary'.
+ *
+ * The file is memory mapped and the blocks are copied straight into the
+ * result arrays, without parsing any text. All numbers are little-endian.
+ * <pre>
+ *   "PSSTSCED"                      8 byte magic
+ *   int32 version                   {@link #VERSION}
+ *   int32 T, K, G, S                periods, buses, GenCos, hasSolution entries
+ *   G * (int32 n, n bytes)          GenCo names, UTF-8
+ *   0-7 bytes                       padding to a multiple of 8
+ *   double[T][K]                    LMP, by period and bus
+ *   double[T][K]                    voltage angles, by period and bus
+ *   G * double[4][T]                PowerGenerated, ProductionCost,
+ *                                   StartupCost, ShutdownCost of each GenCo
+ *   int32[S]                        hasSolution, 0/1
+ * </pre>
+ * The values are in the same (PU) units as the text format.
+ */
+public class SCEDResultFile {
+
+	/**
+	 * Marks a binary result file.
+	 */
+	static final byte[] MAGIC = {'P', 'S', 'S', 'T', 'S', 'C', 'E', 'D'};
+
+	/**
+	 * Version of the layout this class reads.
+	 */
+	public static final int VERSION = 1;
+
+	private static final Charset UTF8 = Charset.forName("UTF-8");
+
+	private final File file;
+	private final int numPeriods;
+	private final int numBuses;
+	private final String[] genCoNames;
+	private final int numHasSolution;
+
+	private final DoubleBuffer lmp;
+	private final DoubleBuffer angles;
+	private final DoubleBuffer genCoResults;
+	private final IntBuffer hasSolution;
+
+	/**
+	 * Map a binary result file and check its header.
+	 * @param file
+	 * @throws BadDataFileFormatException if the file is not a binary result
+	 *         file, is an unknown version, or is truncated.
+	 */
+	public SCEDResultFile(File file) throws BadDataFileFormatException {
+		this.file = file;
+		ByteBuffer buf = map(file);
+		try {
+			byte[] magic = new byte[MAGIC.length];
+			buf.get(magic);
+			if (!Arrays.equals(MAGIC, magic)) {
+				throw new BadDataFileFormatException(file, 0, "Not a binary SCED result file");
+			}
+			int version = buf.getInt();
+			if (version != VERSION) {
+				throw new BadDataFileFormatException(file, 0,
+						"Unsupported SCED result version " + version);
+			}
+			this.numPeriods = nonNegative(buf.getInt());
+			this.numBuses = nonNegative(buf.getInt());
+			this.genCoNames = new String[nonNegative(buf.getInt())];
+			this.numHasSolution = nonNegative(buf.getInt());
+
+			for (int g = 0; g < this.genCoNames.length; g++) {
+				byte[] name = new byte[nonNegative(buf.getInt())];
+				buf.get(name);
+				this.genCoNames[g] = new String(name, UTF8).trim();
+			}
+			buf.position((buf.position() + 7) & ~7);
+
+			long tk = (long) this.numPeriods * this.numBuses;
+			this.lmp = slice(buf, tk * 8).asDoubleBuffer();
+			this.angles = slice(buf, tk * 8).asDoubleBuffer();
+			this.genCoResults = slice(buf, 4L * this.genCoNames.length * this.numPeriods * 8).asDoubleBuffer();
+			this.hasSolution = slice(buf, 4L * this.numHasSolution).asIntBuffer();
+		} catch (BufferUnderflowException e) {
+			throw new BadDataFileFormatException(file, 0, "Truncated SCED result file", e);
+		} catch (IllegalArgumentException e) {
+			throw new BadDataFileFormatException(file, 0, "Truncated SCED result file", e);
+		}
+	}
+
+	/**
+	 * @param file
+	 * @return true if the file starts with the binary result marker.
+	 * @throws IOException if the file can not be read.
+	 */
+	public static boolean isBinary(File file) throws IOException {
+		byte[] magic = new byte[MAGIC.length];
+		FileInputStream in = new FileInputStream(file);
+		try {
+			int n = 0;
+			while (n < magic.length) {
+				int r = in.read(magic, n, magic.length - n);
+				if (r < 0) {
+					return false;
+				}
+				n += r;
+			}
+		} finally {
+			in.close();
+		}
+		return Arrays.equals(MAGIC, magic);
+	}
+
+	/**
+	 * @return the number of periods (hours) in the file.
+	 */
+	public int getNumPeriods() {
+		return this.numPeriods;
+	}
+
+	/**
+	 * @return the number of buses in the file.
+	 */
+	public int getNumBuses() {
+		return this.numBuses;
+	}
+
+	/**
+	 * @return the GenCo names, in the order of their results.
+	 */
+	public String[] getGenCoNames() {
+		return this.genCoNames.clone();
+	}
+
+	/**
+	 * Copy the LMPs into lmp[period][bus].
+	 * @param lmp
+	 * @throws BadDataFileFormatException if lmp is too small.
+	 */
+	public void readLMP(double[][] lmp) throws BadDataFileFormatException {
+		readByPeriod(this.lmp, lmp, 0, "LMP");
+	}
+
+	/**
+	 * Copy the voltage angles into angles[period][bus + offset].
+	 * @param angles
+	 * @param offset column of the first bus
+	 * @throws BadDataFileFormatException if angles is too small.
+	 */
+	public void readVoltageAngles(double[][] angles, int offset) throws BadDataFileFormatException {
+		readByPeriod(this.angles, angles, offset, "voltage angles");
+	}
+
+	/**
+	 * Copy the results of the g-th GenCo in the file into column idx of
+	 * each of the arrays, which are indexed [period][genco].
+	 * @param g position of the GenCo in {@link #getGenCoNames()}
+	 * @param idx column to copy the results into
+	 * @throws BadDataFileFormatException if the arrays are too small.
+	 */
+	public void readGenCo(int g, int idx, double[][] powerGenerated, double[][] productionCost,
+			double[][] startupCost, double[][] shutdownCost) throws BadDataFileFormatException {
+		int pos = g * 4 * this.numPeriods;
+		double[][][] dest = {powerGenerated, productionCost, startupCost, shutdownCost};
+		for (double[][] d : dest) {
+			checkSize(d, this.numPeriods, idx + 1, "GenCo results");
+			for (int t = 0; t < this.numPeriods; t++) {
+				d[t][idx] = this.genCoResults.get(pos++);
+			}
+		}
+	}
+
+	/**
+	 * Copy the hasSolution markers.
+	 * @param hasSolution
+	 * @throws BadDataFileFormatException if the number of entries does not
+	 *         match, or an entry is not 0/1.
+	 */
+	public void readHasSolution(int[] hasSolution) throws BadDataFileFormatException {
+		if (hasSolution.length != this.numHasSolution) {
+			throw new BadDataFileFormatException(this.file, 0,
+					String.format("Expected %d found %d in hasSolution vector from the external SCED.",
+							hasSolution.length, this.numHasSolution));
+		}
+		IntBuffer src = this.hasSolution.duplicate();
+		src.get(hasSolution);
+		for (int s : hasSolution) {
+			if (s != 0 && s != 1) {
+				throw new BadDataFileFormatException(this.file, 0,
+						"Invalid hasSolution marker. Expected 0/1, got " + s);
+			}
+		}
+	}
+
+	private void readByPeriod(DoubleBuffer block, double[][] dest, int offset, String what)
+			throws BadDataFileFormatException {
+		checkSize(dest, this.numPeriods, offset + this.numBuses, what);
+		DoubleBuffer src = block.duplicate();
+		for (int t = 0; t < this.numPeriods; t++) {
+			src.get(dest[t], offset, this.numBuses);
+		}
+	}
+
+	private void checkSize(double[][] dest, int rows, int cols, String what)
+			throws BadDataFileFormatException {
+		if (dest.length < rows || (rows > 0 && dest[0].length < cols)) {
+			throw new BadDataFileFormatException(this.file, 0, String.format(
+					"%s for %d periods and %d columns do not fit in %dx%d",
+					what, rows, cols, dest.length, dest.length > 0 ? dest[0].length : 0));
+		}
+	}
+
+	private static int nonNegative(int n) {
+		if (n < 0) {
+			throw new IllegalArgumentException("Negative size " + n);
+		}
+		return n;
+	}
+
+	/**
+	 * @return the next len bytes of buf, as a little-endian buffer.
+	 */
+	private static ByteBuffer slice(ByteBuffer buf, long len) {
+		if (len > buf.remaining()) {
+			throw new BufferUnderflowException();
+		}
+		ByteBuffer s = buf.slice();
+		s.limit((int) len);
+		buf.position(buf.position() + (int) len);
+		return s.order(ByteOrder.LITTLE_ENDIAN);
+	}
+
+	private static ByteBuffer map(File file) throws BadDataFileFormatException {
+		try {
+			RandomAccessFile raf = new RandomAccessFile(file, "r");
+			try {
+				FileChannel ch = raf.getChannel();
+				// The mapping stays valid after the channel is closed.
+				MappedByteBuffer buf = ch.map(FileChannel.MapMode.READ_ONLY, 0, ch.size());
+				buf.order(ByteOrder.LITTLE_ENDIAN);
+				return buf;
+			} finally {
+				raf.close();
+			}
+		} catch (IOException e) {
+			throw new BadDataFileFormatException(e);
+		}
+	}
+}
@@ -2,10 +2,13 @@
 package amesmarket.filereaders;
 
 import java.io.File;
+import java.io.FileInputStream;
 import java.io.FileNotFoundException;
+import java.io.IOException;
 import java.io.InputStream;
+import java.io.InputStreamReader;
 import java.io.Reader;
-import java.util.Scanner;
+import java.util.NoSuchElementException;
 
 import amesmarket.Support;
 
@@ -25,7 +28,8 @@ import amesmarket.Support;
  * the config file.
  *
  * The {@link #move} method should be called every time a new line of input is
- * required.
+ * required. Besides {@link #currentLine}, the tokens of the current line can
+ * be read without splitting the line, see {@link #tokens()}.
  *
  * @author Sean L. Mooney
  *
@@ -40,7 +44,7 @@ public abstract class AbstractConfigFileReader<T> {
     protected static final String WS_REG_EX = "\\s+";
 
 
-    private Scanner loadProfileReader;
+    private LineTokenizer loadProfileReader;
     private String commentMarker = "//";
 
     /**
@@ -89,15 +93,22 @@ public abstract class AbstractConfigFileReader<T> {
 
         try {
             this.sourceFile = file;
-            initialize(new Scanner(file));
+            initialize(new LineTokenizer(new InputStreamReader(new FileInputStream(file))));
             return read();
         } catch(FileNotFoundException fnfe){
             throw new BadDataFileFormatException("Could not find " + file.getPath());
         } catch (IllegalArgumentException il) {
             throw new BadDataFileFormatException(lineNum, currentLine, il);
+        } catch (NoSuchElementException nse) {
+            throw new BadDataFileFormatException(lineNum, currentLine, nse);
         } finally {
-            if(loadProfileReader != null)
-                loadProfileReader.close();
+            if(loadProfileReader != null) {
+                try {
+                    loadProfileReader.close();
+                } catch (IOException e) {
+                    //nothing to do, the file has been read.
+                }
+            }
         }
     }
 
@@ -114,12 +125,14 @@ public abstract class AbstractConfigFileReader<T> {
             throw new IllegalArgumentException("InputStream may not be null");
         }
 
-        initialize(new Scanner(loadProfileStream));
+        initialize(new LineTokenizer(loadProfileStream));
 
         try{
             return read();
         }catch (IllegalArgumentException il) {
             throw new BadDataFileFormatException(lineNum, currentLine, il);
+        }catch (NoSuchElementException nse) {
+            throw new BadDataFileFormatException(lineNum, currentLine, nse);
         }
     }
 
@@ -136,7 +149,7 @@ public abstract class AbstractConfigFileReader<T> {
             throw new IllegalArgumentException("InputStream may not be null");
         }
 
-        initialize(new Scanner(loadProfileStream));
+        initialize(new LineTokenizer(new InputStreamReader(loadProfileStream)));
 
         return read();
     }
@@ -147,11 +160,11 @@ public abstract class AbstractConfigFileReader<T> {
      *
      * And sub types with state that needs to be initialized before
      * reading a file <i>must</i> override this method to reset it's state
-     * and <i>must</i> call s.initialize(Scanner) to correctly
+     * and <i>must</i> call s.initialize(LineTokenizer) to correctly
      * initialize the parent class's (AbstractConfigFileReader) state.
      * @param s
      */
-    private void initialize(Scanner s){
+    private void initialize(LineTokenizer s){
         currentLine = null; //make sure we don't get old data on reuse
         lineNum = 0;
         loadProfileReader = s;
@@ -176,27 +189,49 @@ public abstract class AbstractConfigFileReader<T> {
      */
     protected void move(boolean failOnEOF) throws BadDataFileFormatException {
         currentLine = null;
-        if(loadProfileReader.hasNextLine()){
-            do{ //read until we have non-blank line, or encounter the end of the file/stream.
+        try {
+            //read until we have non-blank line, or encounter the end of the file/stream.
+            while(loadProfileReader.nextLine()) {
                 ++lineNum;
-                currentLine = trimLine(loadProfileReader.nextLine());
-            }while( "".equals(currentLine) && loadProfileReader.hasNextLine() );
-
-            //See if we ran out file while reading for the next
-            //non-whitespace only line.
-            if( "".equals(currentLine) ){
-                currentLine = null;
+                loadProfileReader.stripComment(commentMarker);
+                if(!loadProfileReader.isBlank()) {
+                    currentLine = loadProfileReader.line().trim();
+                    break;
+                }
             }
+        } catch (IOException e) {
+            throw new BadDataFileFormatException(sourceFile, lineNum, e);
         }
-        else {
-            currentLine = null;
-       }
 
         if(currentLine == null && failOnEOF){
             throw new BadDataFileFormatException(sourceFile, lineNum, UNEXPECTED_EOF);
         }
     }
 
+    /**
+     * Tokens of the {@link #currentLine}, with the comment removed.
+     *
+     * Reading the tokens from the tokenizer avoids splitting the line into
+     * Strings. The tokenizer is rewound to the first token of the line, and
+     * is only valid until the next {@link #move(boolean)}.
+     *
+     * @param delims characters that separate tokens, in addition to whitespace.
+     * @return the tokenizer
+     */
+    protected LineTokenizer tokens(String delims) {
+        loadProfileReader.setDelimiters(delims);
+        loadProfileReader.rewind();
+        return loadProfileReader;
+    }
+
+    /**
+     * Like {@link #tokens(String)}, with whitespace separated tokens.
+     * @return the tokenizer
+     */
+    protected LineTokenizer tokens() {
+        return tokens("");
+    }
+
     /**
      * Parse a key/value pair line, where the key and value are seperated by a delim.
      *
@@ -223,7 +258,7 @@ public abstract class AbstractConfigFileReader<T> {
 
     public int stoi(String s) throws BadDataFileFormatException{
         try{
-            return Integer.parseInt(s);
+            return LineTokenizer.parseInt(s);
         }catch(NumberFormatException nfe){
             throw new BadDataFileFormatException(sourceFile, lineNum, "Expected \"" + s
                     + "\" to be an integer", nfe);
@@ -232,7 +267,7 @@ public abstract class AbstractConfigFileReader<T> {
 
     public double stod(String s) throws BadDataFileFormatException{
         try{
-            return Support.parseDouble(s);
+            return LineTokenizer.parseDouble(s);
         }catch(NumberFormatException nfe){
             throw new BadDataFileFormatException(sourceFile, lineNum, "Expected \"" + s
                     + "\" to be a decimal", nfe);
@@ -20,13 +20,14 @@
 package amesmarket.filereaders;
 
 import java.io.File;
+import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.io.InputStreamReader;
 import java.io.Reader;
 import java.io.StringReader;
 import java.util.ArrayList;
 import java.util.Map;
-import java.util.Scanner;
 
 import amesmarket.CaseFileData;
 import amesmarket.DefaultSimulationParameters;
@@ -86,8 +87,6 @@ public class CaseFileReader {
     private static final String GEN_COST_END = "#GenCostEnd";
 
 
-    private static final String WS_REG_EX = "\\s+";
-
     private SimpleLineReader inputReader;
     /**
      * If opening from a file (instead of a reader) name of file.
@@ -273,7 +272,7 @@ public class CaseFileReader {
     private String splitValueFromKey(String line, String key) throws BadDataFileFormatException {
         //Split the string on white space
         line = line.trim();
-        String[] splits = line.split("\\s+");
+        String[] splits = LineTokenizer.splitWhitespace(line);
         if(splits.length != 2) {
             throw new BadDataFileFormatException(inputReader.sourceFile,
                     inputReader.lineNum, "Expected key/value pair in " + line + ". Expected 2 items, found " + splits.length);
@@ -385,7 +384,7 @@ public class CaseFileReader {
         testConf.nodeData = new Object[1][2];
         move();
 
-        String[] splits = currentLine.split(WS_REG_EX);
+        String[] splits = LineTokenizer.splitWhitespace(currentLine);
 
         if(splits.length != 2) {
             throw new BadDataFileFormatException(inputReader.sourceFile, inputReader.lineNum, currentLine);
@@ -476,7 +475,7 @@ public class CaseFileReader {
             String strGen = (String) genDataList.get(i);
 
             //Split the line at white space.
-            String[] lineElems = strGen.split(WS_REG_EX);
+            String[] lineElems = LineTokenizer.splitWhitespace(strGen);
             if (lineElems.length != 9) {
                 throw new BadDataFileFormatException(inputReader.sourceFile, inputReader.lineNum, strGen);
             }
@@ -529,7 +528,7 @@ public class CaseFileReader {
         for (String s : scucData) {
             try {
                 //Split the line at white space.
-                String[] lineElems = s.split(WS_REG_EX);
+                String[] lineElems = LineTokenizer.splitWhitespace(s);
                 testConf.putScucData(lineElems[0],
                         numRecog.stod(lineElems[1]),//PowerT0
                         numRecog.stoi(lineElems[2]),//UnitOnT0
@@ -849,7 +848,7 @@ public class CaseFileReader {
         ArrayList<String> fuelTypes = collectLines(GEN_FUELTYPE_END);
 
         for(String fuelType : fuelTypes) {
-            String[] p = fuelType.split(WS_REG_EX);
+            String[] p = LineTokenizer.splitWhitespace(fuelType);
             testConf.addFuelType(p[0],p[1]);
         }
     }
@@ -860,7 +859,7 @@ public class CaseFileReader {
         ArrayList<String> zoneNoLoads = collectLines(GEN_COST_END);
 
         for(String noLoad : zoneNoLoads) {
-            String[] p = noLoad.split(WS_REG_EX);
+            String[] p = LineTokenizer.splitWhitespace(noLoad);
             if( p.length != 5 ){
                 throw new BadDataFileFormatException(
                         "Expected 5 fields in '" + noLoad + "'. Found " + p.length + "."
@@ -910,55 +909,69 @@ public class CaseFileReader {
     /**
      * A simple line reader which skips any line which
      * starts with a comment delimiter.
+     *
+     * Looks one non-blank line ahead, for {@link #hasNext()}.
      */
     private static class SimpleLineReader {
 
-        Scanner scanner;
+        final LineTokenizer tokenizer;
         int lineNum = 0;
         File sourceFile = null;
 
+        /**
+         * Next line with any non-whitespace in it, trimmed. Null at the end of the input.
+         */
+        private String pending;
+        private int pendingLineNum;
+
         public SimpleLineReader(File inputFile) throws FileNotFoundException {
-            scanner = new Scanner(inputFile);
+            this(new InputStreamReader(new FileInputStream(inputFile)));
             this.sourceFile = inputFile;
         }
 
         public SimpleLineReader(Reader inputReader) {
-            scanner = new Scanner(inputReader);
+            tokenizer = new LineTokenizer(inputReader);
+            fill();
         }
 
-        String nextLine() {
-            String line = "";
-            boolean scanMore = false;
-            do {
-                ++lineNum;
-                scanMore = false;
-                if(!scanner.hasNext()) {
-                    line = null;
-                    break;
-                }
-
-                line = scanner.nextLine();
-
-                line = line.trim();
-                if (line.length() == 0) {
-                    scanMore = true;
+        private void fill() {
+            pending = null;
+            try {
+                while(tokenizer.nextLine()) {
+                    if(!tokenizer.isBlank()) {
+                        pending = tokenizer.line().trim();
+                        pendingLineNum = tokenizer.getLineNumber();
+                        break;
+                    }
                 }
+            } catch(IOException e) {
+                throw new IllegalStateException("Could not read line " + (tokenizer.getLineNumber() + 1), e);
+            }
+        }
 
-                int iCommentIndex = line.indexOf("//");
-                if (iCommentIndex == 0) {
-                    scanMore = true;
+        String nextLine() {
+            while(pending != null) {
+                String line = pending;
+                lineNum = pendingLineNum;
+                fill();
+                if(!line.startsWith("//")) {
+                    return line;
                 }
-            } while(scanMore);
-
-            return line;
+            }
+            ++lineNum;
+            return null;
         }
 
         boolean hasNext() {
-            return scanner.hasNext();
+            return pending != null;
         }
 
         void close() {
-            scanner.close();
+            try {
+                tokenizer.close();
+            } catch(IOException e) {
+                //nothing to do, the file has been read.
+            }
         }
     }
 }
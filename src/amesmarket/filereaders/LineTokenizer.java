@@ -0,0 +1,533 @@
+/*
+ * FIXME: LICENSE
+ */
+
+package amesmarket.filereaders;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * Line based tokenizer for the data files.
+ *
+ * Reads the input a line at a time into a reusable character buffer and
+ * splits the current line into tokens at whitespace (and, optionally, at
+ * some delimiter characters) without regular expressions. Numbers are
+ * parsed straight from the buffer; no String is created for a token unless
+ * it is asked for with {@link #nextToken()}.
+ *
+ * Whitespace is the same set of characters as the regular expression
+ * "\\s": space, \t, \n, \u000B, \f and \r. Lines end at \n, \r or \r\n.
+ *
+ * Usage protocol:
+ * <pre>
+ *   while(t.nextLine()) {
+ *       while(t.hasMoreTokens()) {
+ *           double d = t.nextDouble();
+ *           ...
+ * </pre>
+ *
+ * Decimals may use ',' as the decimal point, like {@link amesmarket.Support#parseDouble(String)}.
+ *
+ * @see AbstractConfigFileReader
+ */
+public class LineTokenizer {
+
+    /**
+     * Powers of ten that are exact in a double.
+     */
+    private static final double[] POW10 = {
+        1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10,
+        1e11, 1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20,
+        1e21, 1e22
+    };
+
+    /**
+     * Largest mantissa that converts to a double exactly.
+     */
+    private static final long MAX_EXACT = 1L << 53;
+
+    private final Reader in;
+    private final char[] cbuf = new char[8192];
+    private int cpos = 0;
+    private int clen = 0;
+    /** last line ended with \r, skip a \n at the start of the next read */
+    private boolean skipLF = false;
+    private boolean eof = false;
+
+    private char[] line = new char[256];
+    private int lineEnd = 0;
+    private int lineNum = 0;
+
+    /** token cursor */
+    private int pos = 0;
+    private int tokStart = 0;
+    private int tokEnd = 0;
+
+    private char[] delimiters = new char[0];
+
+    /**
+     * @param in input to tokenize. Closed by {@link #close()}.
+     */
+    public LineTokenizer(Reader in) {
+        if(in == null) {
+            throw new IllegalArgumentException("Reader may not be null");
+        }
+        this.in = in;
+    }
+
+    /**
+     * Characters that separate tokens, in addition to whitespace.
+     * @param delims e.g. ":" to split "Bus1 : 3" into "Bus1" and "3".
+     */
+    public void setDelimiters(String delims) {
+        delimiters = delims.toCharArray();
+    }
+
+    /**
+     * Move to the next line of the input and rewind the token cursor.
+     * @return false if the end of the input was reached.
+     * @throws IOException
+     */
+    public boolean nextLine() throws IOException {
+        lineEnd = 0;
+        pos = tokStart = tokEnd = 0;
+        if(eof) {
+            return false;
+        }
+
+        boolean any = false;
+        while(true) {
+            if(cpos == clen) {
+                clen = in.read(cbuf, 0, cbuf.length);
+                cpos = 0;
+                if(clen <= 0) {
+                    clen = 0;
+                    eof = true;
+                    if(any) {
+                        lineNum++;
+                    }
+                    return any;
+                }
+            }
+            if(skipLF) {
+                skipLF = false;
+                if(cbuf[cpos] == '\n') {
+                    cpos++;
+                    continue;
+                }
+            }
+
+            any = true;
+            int start = cpos;
+            while(cpos < clen && cbuf[cpos] != '\n' && cbuf[cpos] != '\r') {
+                cpos++;
+            }
+            append(start, cpos);
+            if(cpos < clen) {
+                skipLF = cbuf[cpos] == '\r';
+                cpos++;
+                lineNum++;
+                return true;
+            }
+        }
+    }
+
+    private void append(int start, int end) {
+        int n = end - start;
+        if(lineEnd + n > line.length) {
+            char[] bigger = new char[Math.max(line.length * 2, lineEnd + n)];
+            System.arraycopy(line, 0, bigger, 0, lineEnd);
+            line = bigger;
+        }
+        System.arraycopy(cbuf, start, line, lineEnd, n);
+        lineEnd += n;
+    }
+
+    /**
+     * @return number of lines read so far, the current line's number.
+     */
+    public int getLineNumber() {
+        return lineNum;
+    }
+
+    /**
+     * @return the current line, as a new String.
+     */
+    public String line() {
+        return new String(line, 0, lineEnd);
+    }
+
+    /**
+     * Cut the current line off at the first comment marker.
+     * @param marker e.g. "//"
+     */
+    public void stripComment(String marker) {
+        int m = marker.length();
+        for(int i = 0; i + m <= lineEnd; i++) {
+            if(line[i] == marker.charAt(0) && regionMatches(i, marker)) {
+                lineEnd = i;
+                break;
+            }
+        }
+        pos = Math.min(pos, lineEnd);
+    }
+
+    /**
+     * @param prefix
+     * @return true if the current line, without leading whitespace, starts with prefix.
+     */
+    public boolean startsWith(String prefix) {
+        int i = skipWhitespace(0);
+        return i + prefix.length() <= lineEnd && regionMatches(i, prefix);
+    }
+
+    /**
+     * @return true if the current line is empty or only whitespace.
+     */
+    public boolean isBlank() {
+        return skipWhitespace(0) == lineEnd;
+    }
+
+    /**
+     * Start over at the first token of the current line.
+     */
+    public void rewind() {
+        pos = tokStart = tokEnd = 0;
+    }
+
+    /**
+     * @return true if there is another token on the current line.
+     */
+    public boolean hasMoreTokens() {
+        pos = skipSeparators(pos);
+        return pos < lineEnd;
+    }
+
+    /**
+     * Count the tokens on the current line. Does not move the cursor.
+     * @return
+     */
+    public int countTokens() {
+        int n = 0;
+        int i = skipSeparators(0);
+        while(i < lineEnd) {
+            n++;
+            while(i < lineEnd && !isSeparator(line[i])) {
+                i++;
+            }
+            i = skipSeparators(i);
+        }
+        return n;
+    }
+
+    /**
+     * Skip the next token.
+     * @throws NoSuchElementException if there are no more tokens on the line.
+     */
+    public void skipToken() {
+        advance();
+    }
+
+    /**
+     * @return the next token, as a new String.
+     * @throws NoSuchElementException if there are no more tokens on the line.
+     */
+    public String nextToken() {
+        advance();
+        return lastToken();
+    }
+
+    /**
+     * @return the token most recently read, as a new String. Useful for error messages.
+     */
+    public String lastToken() {
+        return new String(line, tokStart, tokEnd - tokStart);
+    }
+
+    /**
+     * @param s
+     * @return true if the next token is s. Consumes the token either way.
+     * @throws NoSuchElementException if there are no more tokens on the line.
+     */
+    public boolean nextTokenEquals(String s) {
+        advance();
+        return lastTokenEquals(s);
+    }
+
+    /**
+     * @param s
+     * @return true if the token most recently read is s.
+     */
+    public boolean lastTokenEquals(String s) {
+        return tokEnd - tokStart == s.length() && regionMatches(tokStart, s);
+    }
+
+    /**
+     * @return the next token as an int.
+     * @throws NumberFormatException if the token is not an integer.
+     * @throws NoSuchElementException if there are no more tokens on the line.
+     */
+    public int nextInt() {
+        advance();
+        return parseInt(line, tokStart, tokEnd);
+    }
+
+    /**
+     * @return the number the next token ends with, e.g. 12 for Bus12.
+     * @throws NumberFormatException if the token does not end with a digit.
+     * @throws NoSuchElementException if there are no more tokens on the line.
+     */
+    public int nextTrailingInt() {
+        advance();
+        int i = tokEnd;
+        while(i > tokStart && line[i - 1] >= '0' && line[i - 1] <= '9') {
+            i--;
+        }
+        if(i == tokEnd) {
+            throw new NumberFormatException("No number at the end of " + lastToken());
+        }
+        return parseInt(line, i, tokEnd);
+    }
+
+    /**
+     * @return the next token as a double.
+     * @throws NumberFormatException if the token is not a number.
+     * @throws NoSuchElementException if there are no more tokens on the line.
+     */
+    public double nextDouble() {
+        advance();
+        return parseDouble(line, tokStart, tokEnd);
+    }
+
+    /**
+     * Close the underlying reader.
+     * @throws IOException
+     */
+    public void close() throws IOException {
+        in.close();
+    }
+
+    private void advance() {
+        if(!hasMoreTokens()) {
+            throw new NoSuchElementException("No more tokens on line " + lineNum);
+        }
+        tokStart = pos;
+        while(pos < lineEnd && !isSeparator(line[pos])) {
+            pos++;
+        }
+        tokEnd = pos;
+    }
+
+    private int skipWhitespace(int i) {
+        while(i < lineEnd && isWhitespace(line[i])) {
+            i++;
+        }
+        return i;
+    }
+
+    private int skipSeparators(int i) {
+        while(i < lineEnd && isSeparator(line[i])) {
+            i++;
+        }
+        return i;
+    }
+
+    private boolean isSeparator(char c) {
+        if(isWhitespace(c)) {
+            return true;
+        }
+        for(char d : delimiters) {
+            if(c == d) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean regionMatches(int i, String s) {
+        for(int k = 0; k < s.length(); k++) {
+            if(line[i + k] != s.charAt(k)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isWhitespace(char c) {
+        return c == ' ' || c == '\t' || c == '\n' || c == '\u000B' || c == '\f' || c == '\r';
+    }
+
+    /**
+     * Split a string at whitespace, without a regular expression.
+     * Gives the same result as s.split("\\s+").
+     * @param s
+     * @return
+     */
+    public static String[] splitWhitespace(String s) {
+        List<String> parts = new ArrayList<String>();
+        int n = s.length();
+        int i = 0;
+        if(n > 0 && isWhitespace(s.charAt(0))) {
+            //split keeps a leading empty string
+            parts.add("");
+        }
+        while(i < n) {
+            while(i < n && isWhitespace(s.charAt(i))) {
+                i++;
+            }
+            int start = i;
+            while(i < n && !isWhitespace(s.charAt(i))) {
+                i++;
+            }
+            if(i > start) {
+                parts.add(s.substring(start, i));
+            }
+        }
+        if(n == 0) {
+            return new String[]{s};
+        }
+        if(parts.size() == 1 && "".equals(parts.get(0))) {
+            //only whitespace, split drops the trailing empty strings.
+            return new String[0];
+        }
+        return parts.toArray(new String[parts.size()]);
+    }
+
+    /**
+     * Parse a decimal, like {@link amesmarket.Support#parseDouble(String)}.
+     * @param s
+     * @return
+     * @throws NumberFormatException
+     */
+    public static double parseDouble(String s) {
+        return parseDouble(s.toCharArray(), 0, s.length());
+    }
+
+    /**
+     * Parse a decimal from b[start, end). Plain decimals are converted
+     * directly when that is exact; anything else (long mantissas, large
+     * exponents, NaN, hex, ...) goes through Double.parseDouble. Either
+     * way the result is the same as {@link amesmarket.Support#parseDouble(String)}.
+     * @throws NumberFormatException
+     */
+    static double parseDouble(char[] b, int start, int end) {
+        int i = start;
+        boolean neg = false;
+        if(i < end && (b[i] == '-' || b[i] == '+')) {
+            neg = b[i] == '-';
+            i++;
+        }
+
+        long m = 0;
+        int digits = 0;
+        int scale = 0;
+        boolean point = false;
+        boolean any = false;
+        for(; i < end; i++) {
+            char c = b[i];
+            if(c >= '0' && c <= '9') {
+                any = true;
+                if(m == 0 && c == '0') {
+                    if(point) {
+                        scale--;
+                    }
+                    continue;
+                }
+                if(++digits > 18) {
+                    return slowParseDouble(b, start, end);
+                }
+                m = m * 10 + (c - '0');
+                if(point) {
+                    scale--;
+                }
+            } else if((c == '.' || c == ',') && !point) {
+                point = true;
+            } else {
+                break;
+            }
+        }
+        if(!any) {
+            return slowParseDouble(b, start, end);
+        }
+
+        if(i < end && (b[i] == 'e' || b[i] == 'E')) {
+            i++;
+            boolean negExp = false;
+            if(i < end && (b[i] == '-' || b[i] == '+')) {
+                negExp = b[i] == '-';
+                i++;
+            }
+            int exp = 0;
+            int expStart = i;
+            for(; i < end && b[i] >= '0' && b[i] <= '9'; i++) {
+                if(i - expStart >= 4) {
+                    return slowParseDouble(b, start, end);
+                }
+                exp = exp * 10 + (b[i] - '0');
+            }
+            if(i == expStart) {
+                return slowParseDouble(b, start, end);
+            }
+            scale += negExp ? -exp : exp;
+        }
+        if(i != end) {
+            return slowParseDouble(b, start, end);
+        }
+
+        double v;
+        if(m == 0) {
+            v = 0;
+        } else if(m > MAX_EXACT || scale > 22 || scale < -22) {
+            return slowParseDouble(b, start, end);
+        } else if(scale >= 0) {
+            //m and 10^scale are exact, so this is rounded once, correctly.
+            v = m * POW10[scale];
+        } else {
+            v = m / POW10[-scale];
+        }
+        return neg ? -v : v;
+    }
+
+    private static double slowParseDouble(char[] b, int start, int end) {
+        return Double.parseDouble(new String(b, start, end - start).replace(",", "."));
+    }
+
+    /**
+     * Parse an int, like Integer.parseInt.
+     * @param s
+     * @return
+     * @throws NumberFormatException
+     */
+    public static int parseInt(String s) {
+        return parseInt(s.toCharArray(), 0, s.length());
+    }
+
+    /**
+     * Parse an int from b[start, end), like Integer.parseInt.
+     * @throws NumberFormatException
+     */
+    static int parseInt(char[] b, int start, int end) {
+        int i = start;
+        boolean neg = false;
+        if(i < end && (b[i] == '-' || b[i] == '+')) {
+            neg = b[i] == '-';
+            i++;
+        }
+        if(i == end || end - i > 9) {
+            return Integer.parseInt(new String(b, start, end - start));
+        }
+        int v = 0;
+        for(; i < end; i++) {
+            char c = b[i];
+            if(c < '0' || c > '9') {
+                return Integer.parseInt(new String(b, start, end - start));
+            }
+            v = v * 10 + (c - '0');
+        }
+        return neg ? -v : v;
+    }
+}
@@ -70,7 +70,7 @@ public class LoadCaseLabelInfo {
         Support.trimAllStrings(lineelems);
 
         //split the line into tokens by white space.
-        String[] elems = lineelems[0].trim().split("\\s+");
+        String[] elems = LineTokenizer.splitWhitespace(lineelems[0].trim());
         value = lineelems[1];
 
         //then while more tokens,
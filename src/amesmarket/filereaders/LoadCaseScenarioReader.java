@@ -248,10 +248,10 @@ public class LoadCaseScenarioReader extends AbstractConfigFileReader<LoadProfile
         final DailyLoadProfile dlp = new DailyLoadProfile(HOURS_PER_DAY);
 
         for(int h = 0; h < HOURS_PER_DAY; h++){
-            String[] lpElements = currentLine.split("\\s+");
-            trimAllStrings(lpElements);
+            //Read the numbers straight from the line, without splitting it.
+            LineTokenizer lpElements = tokens();
 
-            if( !checkCorrectZoneCount(lpElements) ){
+            if( lpElements.countTokens() != numTimeCols + NUM_ZONES ){
                 //TODO: Error message reported expected/found.
                 throw new BadDataFileFormatException(sourceFile, lineNum, "Wrong number elements in \"" + currentLine + "\"");
             }
@@ -260,11 +260,11 @@ public class LoadCaseScenarioReader extends AbstractConfigFileReader<LoadProfile
             int hour;
 
             if(!isSplitScenarioDays)
-                day = stoi(lpElements[dayIdx]);
+                day = nextInt(lpElements);
             else
                 day = this.dayNumber;
 
-            hour = stoi(lpElements[hourIdx]);
+            hour = nextInt(lpElements);
 
             if(expectedDay == -1){
                 expectedDay = day; //set the expected day the first time through
@@ -282,9 +282,9 @@ public class LoadCaseScenarioReader extends AbstractConfigFileReader<LoadProfile
             for(int zi = numTimeCols; zi < LAST_ZONE_IDX; zi++){
                 try{
                     zoneLoads[zi - numTimeCols] //adjust for time coordinate columns
-                            = Support.parseDouble(lpElements[zi]);
+                            = lpElements.nextDouble();
                 }catch(NumberFormatException nfe){
-                    throw new BadDataFileFormatException(sourceFile, lineNum, lpElements[zi] + " must be a valid double");
+                    throw new BadDataFileFormatException(sourceFile, lineNum, lpElements.lastToken() + " must be a valid double");
                 }
             }
 
@@ -309,6 +309,21 @@ public class LoadCaseScenarioReader extends AbstractConfigFileReader<LoadProfile
         slp.put(dlp);
     }
 
+    /**
+     * Read the next token as an int, like {@link #stoi(String)}.
+     * @param t
+     * @return
+     * @throws BadDataFileFormatException
+     */
+    private int nextInt(LineTokenizer t) throws BadDataFileFormatException {
+        try {
+            return t.nextInt();
+        } catch(NumberFormatException nfe) {
+            throw new BadDataFileFormatException(sourceFile, lineNum, "Expected \""
+                    + t.lastToken() + "\" to be an integer", nfe);
+        }
+    }
+
     /**
      * Reorder the zoneLoads according to the expected order in
      * the TestCase file.
@@ -405,7 +420,7 @@ public class LoadCaseScenarioReader extends AbstractConfigFileReader<LoadProfile
                             String.format("No load profile collection type found in %s", currentLine)
                             );
                 }
-                String[] scenParts = lpmem[1].split("\\s+");
+                String[] scenParts = LineTokenizer.splitWhitespace(lpmem[1]);
                 Support.trimAllStrings(scenParts);
 
                 if( EXP_LOAD.equals(scenParts[0]) ){ //check for the ExpectedLoad marker.
@@ -536,7 +551,7 @@ public class LoadCaseScenarioReader extends AbstractConfigFileReader<LoadProfile
     private void validateColumnDescriptions(String dataDesc) throws BadDataFileFormatException{
 
         //split on whitespace. Will handle not explicitly tab deliminated columns
-        String[]  columnDescs = dataDesc.split("\\s+");
+        String[]  columnDescs = LineTokenizer.splitWhitespace(dataDesc);
         trimAllStrings(columnDescs);
 
         if( !checkCorrectZoneCount(columnDescs) ){
@@ -20,15 +20,15 @@
 package amesmarket.filereaders;
 
 import java.io.File;
+import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.InputStreamReader;
 import java.util.ArrayList;
-import java.util.Scanner;
 
 import amesmarket.DailyLoadProfile;
 import amesmarket.LoadProfileCollection;
-import amesmarket.Support;
 
 /**
  * Read in a data file represting the load profile for each our of each day.
@@ -53,7 +53,7 @@ import amesmarket.Support;
  */
 public class LoadProfileReader {
 
-	private final Scanner loadProfileReader;
+	private final LineTokenizer loadProfileReader;
 	private String currentLine = null;
 
 	/**
@@ -62,7 +62,7 @@ public class LoadProfileReader {
 	 * @throws FileNotFoundException
 	 */
 	public LoadProfileReader(final File loadProfileFile) throws FileNotFoundException {
-		this.loadProfileReader = new Scanner(loadProfileFile);
+		this.loadProfileReader = new LineTokenizer(new InputStreamReader(new FileInputStream(loadProfileFile)));
 	}
 
 	/**
@@ -74,7 +74,7 @@ public class LoadProfileReader {
 		if(loadProfileStream == null) {
 			throw new IllegalArgumentException("Reader may not be null");
 		}
-		this.loadProfileReader = new Scanner(loadProfileStream);
+		this.loadProfileReader = new LineTokenizer(new InputStreamReader(loadProfileStream));
 	}
 
 	/**
@@ -112,13 +112,11 @@ public class LoadProfileReader {
 		while( (this.currentLine != null) && !this.isDayMarker(this.currentLine)) {
 			//if null, or Day <int> return
 
-			//else, split the line in to its parts, create double array and add it
-			String[] lineParts = this.currentLine.split("\\s+");
-
-			if(lineParts.length == expectedEntries) {
+			//else, read the numbers on the line, create double array and add it
+			if(this.loadProfileReader.countTokens() == expectedEntries) {
 				double[] hourlyLoadProfileByLSE = new double[expectedEntries];
 				for(int i = 0; i < expectedEntries; i++) {
-					hourlyLoadProfileByLSE[i] = Support.parseDouble(lineParts[i]);
+					hourlyLoadProfileByLSE[i] = this.loadProfileReader.nextDouble();
 				}
 
 				loads.add(hourlyLoadProfileByLSE);
@@ -137,7 +135,7 @@ public class LoadProfileReader {
 	}
 
 	protected int getDay(String s) {
-		String[] elems = s.split("\\s+"); //split on whitespace.
+		String[] elems = LineTokenizer.splitWhitespace(s); //split on whitespace.
 
 		//if not 2 indexes error. FIXME
 		return Integer.parseInt(elems[1]);
@@ -147,14 +145,20 @@ public class LoadProfileReader {
 	 * Move to the next line in the file.
 	 *
 	 * Trims the whitespace off of the read in line.
+	 *
+	 * @throws IllegalStateException if the input could not be read.
 	 */
 	protected void move() {
 		//TODO-X: Protocol for unexpected end of file?
 		//FIXME-X: Strip Comments from the end of the line.
-		if(this.loadProfileReader.hasNextLine()) {
-			this.currentLine = this.loadProfileReader.nextLine().trim();
-		} else {
-			this.currentLine = null;
+		try {
+			if(this.loadProfileReader.nextLine()) {
+				this.currentLine = this.loadProfileReader.line().trim();
+			} else {
+				this.currentLine = null;
+			}
+		} catch (IOException e) {
+			throw new IllegalStateException("Could not read the load profile", e);
 		}
 	}
 
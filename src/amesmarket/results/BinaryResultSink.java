@@ -0,0 +1,72 @@
+/*
+ * FIXME: LICENSE
+ */
+
+package amesmarket.results;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Writes each table to a binary file.
+ *
+ * Layout, all numbers little-endian:
+ * <pre>
+ *   "AMESRSLT"                      8 byte magic
+ *   int32 version                   {@link #VERSION}
+ *   then for each entry:
+ *   int32 day, index, rows, cols
+ *   double[rows][cols]              values, by row
+ * </pre>
+ */
+public class BinaryResultSink extends FileResultSink {
+
+    /**
+     * Version of the layout this class writes.
+     */
+    public static final int VERSION = 1;
+
+    static final byte[] MAGIC = {'A', 'M', 'E', 'S', 'R', 'S', 'L', 'T'};
+
+    private ByteBuffer buf = ByteBuffer.allocate(4096).order(ByteOrder.LITTLE_ENDIAN);
+
+    /**
+     * @param dir directory for the files, created if needed.
+     * @param compress gzip the files.
+     */
+    public BinaryResultSink(File dir, boolean compress) {
+        super(dir, compress);
+    }
+
+    @Override
+    protected String getExtension() {
+        return "bin";
+    }
+
+    @Override
+    protected void writeHeader(String table, OutputStream out) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(MAGIC.length + 4).order(ByteOrder.LITTLE_ENDIAN);
+        header.put(MAGIC).putInt(VERSION);
+        out.write(header.array());
+    }
+
+    @Override
+    protected void writeEntry(int day, int index, double[][] values, int cols, OutputStream out)
+            throws IOException {
+        int size = 16 + 8 * values.length * cols;
+        if (this.buf.capacity() < size) {
+            this.buf = ByteBuffer.allocate(Math.max(size, 2 * this.buf.capacity())).order(ByteOrder.LITTLE_ENDIAN);
+        }
+        this.buf.clear();
+        this.buf.putInt(day).putInt(index).putInt(values.length).putInt(cols);
+        for (int r = 0; r < values.length; r++) {
+            for (int c = 0; c < cols; c++) {
+                this.buf.putDouble(values[r][c]);
+            }
+        }
+        out.write(this.buf.array(), 0, this.buf.position());
+    }
+}
@@ -0,0 +1,57 @@
+/*
+ * FIXME: LICENSE
+ */
+
+package amesmarket.results;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+
+/**
+ * Writes each table to a CSV file, a line per row of each entry:
+ * <pre>
+ *   day,index,row,v0,v1,...
+ * </pre>
+ * The values are written with {@link Double#toString(double)}, so they
+ * read back exactly.
+ */
+public class CsvResultSink extends FileResultSink {
+
+    private static final Charset ASCII = Charset.forName("US-ASCII");
+
+    private final StringBuilder sb = new StringBuilder();
+
+    /**
+     * @param dir directory for the files, created if needed.
+     * @param compress gzip the files.
+     */
+    public CsvResultSink(File dir, boolean compress) {
+        super(dir, compress);
+    }
+
+    @Override
+    protected String getExtension() {
+        return "csv";
+    }
+
+    @Override
+    protected void writeHeader(String table, OutputStream out) throws IOException {
+        out.write("day,index,row,values\n".getBytes(ASCII));
+    }
+
+    @Override
+    protected void writeEntry(int day, int index, double[][] values, int cols, OutputStream out)
+            throws IOException {
+        this.sb.setLength(0);
+        for (int r = 0; r < values.length; r++) {
+            this.sb.append(day).append(',').append(index).append(',').append(r);
+            for (int c = 0; c < cols; c++) {
+                this.sb.append(',').append(values[r][c]);
+            }
+            this.sb.append('\n');
+        }
+        out.write(this.sb.toString().getBytes(ASCII));
+    }
+}
@@ -0,0 +1,118 @@
+/*
+ * FIXME: LICENSE
+ */
+
+package amesmarket.results;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Base class of the sinks that write one file per table.
+ *
+ * The entries of a day are buffered per table and appended to the file at
+ * the end of the day. A compressed file gets a gzip member per day, so the
+ * days written before a crash can still be read. The files are replaced
+ * by the first day a sink writes.
+ */
+public abstract class FileResultSink implements ResultSink {
+
+    private final File dir;
+    private final boolean compress;
+    private final Map<String, ByteArrayOutputStream> pending = new LinkedHashMap<String, ByteArrayOutputStream>();
+    private final Map<String, File> files = new LinkedHashMap<String, File>();
+
+    /**
+     * @param dir directory for the files, created if needed.
+     * @param compress gzip the files.
+     */
+    protected FileResultSink(File dir, boolean compress) {
+        this.dir = dir;
+        this.compress = compress;
+    }
+
+    /**
+     * @return file name extension, without the .gz.
+     */
+    protected abstract String getExtension();
+
+    /**
+     * Write the start of a new file.
+     * @param table
+     * @param out
+     * @throws IOException
+     */
+    protected abstract void writeHeader(String table, OutputStream out) throws IOException;
+
+    /**
+     * Format an entry.
+     * @see ResultSink#write(String, int, int, double[][], int)
+     */
+    protected abstract void writeEntry(int day, int index, double[][] values, int cols,
+            OutputStream out) throws IOException;
+
+    @Override
+    public void write(String table, int day, int index, double[][] values, int cols) throws IOException {
+        ByteArrayOutputStream buf = this.pending.get(table);
+        if (buf == null) {
+            buf = new ByteArrayOutputStream();
+            this.pending.put(table, buf);
+        }
+        writeEntry(day, index, values, cols, buf);
+    }
+
+    @Override
+    public void endDay(int day) throws IOException {
+        for (Map.Entry<String, ByteArrayOutputStream> e : this.pending.entrySet()) {
+            ByteArrayOutputStream buf = e.getValue();
+            if (buf.size() > 0) {
+                append(e.getKey(), buf);
+                buf.reset();
+            }
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        endDay(-1);
+        this.pending.clear();
+    }
+
+    /**
+     * @param table
+     * @return the file for the table, which may not exist yet.
+     */
+    public File getFile(String table) {
+        return new File(this.dir, table + "." + getExtension() + (this.compress ? ".gz" : ""));
+    }
+
+    private void append(String table, ByteArrayOutputStream buf) throws IOException {
+        File f = this.files.get(table);
+        boolean created = (f == null);
+        if (created) {
+            if (!this.dir.isDirectory() && !this.dir.mkdirs()) {
+                throw new IOException("Could not create " + this.dir.getPath());
+            }
+            f = getFile(table);
+            this.files.put(table, f);
+        }
+
+        FileOutputStream fos = new FileOutputStream(f, !created);
+        try {
+            OutputStream out = this.compress ? new GZIPOutputStream(fos) : fos;
+            if (created) {
+                writeHeader(table, out);
+            }
+            buf.writeTo(out);
+            out.close();
+        } finally {
+            fos.close();
+        }
+    }
+}
@@ -0,0 +1,73 @@
+/*
+ * FIXME: LICENSE
+ */
+
+package amesmarket.results;
+
+import java.util.AbstractList;
+import java.util.RandomAccess;
+
+/**
+ * List of int[], one per day, kept in a {@link ResultTable} as one row
+ * per day.
+ */
+public class IntResultList extends AbstractList<int[]> implements RandomAccess {
+
+    private final ResultTable table;
+    private final double[][] row = new double[1][];
+
+    /**
+     * @param table
+     */
+    public IntResultList(ResultTable table) {
+        this.table = table;
+    }
+
+    /**
+     * @return a copy of the day.
+     */
+    @Override
+    public synchronized int[] get(int day) {
+        int[] values = new int[this.table.getCols(day)];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = (int) this.table.get(day, 0, i);
+        }
+        return values;
+    }
+
+    /**
+     * @param day index of the day in the list, from 0.
+     * @param i
+     * @return a single value, without copying the day.
+     */
+    public int get(int day, int i) {
+        return (int) this.table.get(day, 0, i);
+    }
+
+    @Override
+    public int size() {
+        return this.table.size();
+    }
+
+    /**
+     * Append a copy of the day to the table.
+     */
+    @Override
+    public synchronized boolean add(int[] day) {
+        if (this.row[0] == null || this.row[0].length != day.length) {
+            this.row[0] = new double[day.length];
+        }
+        for (int i = 0; i < day.length; i++) {
+            this.row[0][i] = day[i];
+        }
+        this.table.append(this.row);
+        this.modCount++;
+        return true;
+    }
+
+    @Override
+    public void clear() {
+        this.table.clear();
+        this.modCount++;
+    }
+}
@@ -0,0 +1,97 @@
+/*
+ * FIXME: LICENSE
+ */
+
+package amesmarket.results;
+
+import java.util.AbstractList;
+import java.util.RandomAccess;
+
+/**
+ * List view of a {@link ResultTable}, with one element per day.
+ *
+ * {@link #get(int)} copies the day out of the table. Code that only needs
+ * a few values should use {@link #get(int, int, int)}, which does not.
+ * With a retention window the list only holds the retained days, see
+ * {@link #getEvicted()}.
+ */
+public class ResultList extends AbstractList<double[][]> implements RandomAccess {
+
+    private final ResultTable table;
+
+    /**
+     * @param table
+     */
+    public ResultList(ResultTable table) {
+        this.table = table;
+    }
+
+    /**
+     * @return the table the list reads from.
+     */
+    public ResultTable getTable() {
+        return this.table;
+    }
+
+    /**
+     * @return a copy of the day.
+     */
+    @Override
+    public double[][] get(int day) {
+        return this.table.getDay(day);
+    }
+
+    /**
+     * @param day index of the day in the list, from 0.
+     * @param row
+     * @param col
+     * @return a single value, without copying the day.
+     */
+    public double get(int day, int row, int col) {
+        return this.table.get(day, row, col);
+    }
+
+    /**
+     * @param day index of the day in the list, from 0.
+     * @return the number of rows of the day.
+     */
+    public int getRows(int day) {
+        return this.table.getRows(day);
+    }
+
+    /**
+     * @param day index of the day in the list, from 0.
+     * @return the number of columns of the day.
+     */
+    public int getCols(int day) {
+        return this.table.getCols(day);
+    }
+
+    /**
+     * @return the number of days evicted by the retention window.
+     */
+    public int getEvicted() {
+        return this.table.getEvicted();
+    }
+
+    @Override
+    public int size() {
+        return this.table.size();
+    }
+
+    /**
+     * Append a copy of the day to the table.
+     */
+    @Override
+    public boolean add(double[][] day) {
+        this.table.append(day);
+        this.modCount++;
+        return true;
+    }
+
+    @Override
+    public void clear() {
+        this.table.clear();
+        this.modCount++;
+    }
+}
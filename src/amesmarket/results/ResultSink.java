@@ -0,0 +1,46 @@
+/*
+ * FIXME: LICENSE
+ */
+
+package amesmarket.results;
+
+import java.io.IOException;
+
+/**
+ * Receives the daily results as they are recorded, e.g. to stream them to
+ * disk while the simulation runs.
+ *
+ * Sinks are added to a {@link ResultStore}. Every append to one of its
+ * tables is passed to {@link #write}, and {@link #endDay(int)} is called
+ * when the market finishes a day, which is when a sink should make the
+ * day durable. The calls come from the simulation thread, one at a time.
+ */
+public interface ResultSink {
+
+    /**
+     * A day was appended to a table.
+     *
+     * @param table name of the table.
+     * @param day market day the values were recorded on.
+     * @param index index of the entry in the table, counting from 0 at
+     *        the start of the run (evicted days included).
+     * @param values the values, only valid during the call.
+     * @param cols number of columns of each row to use.
+     * @throws IOException
+     */
+    void write(String table, int day, int index, double[][] values, int cols) throws IOException;
+
+    /**
+     * The market finished a day.
+     * @param day
+     * @throws IOException
+     */
+    void endDay(int day) throws IOException;
+
+    /**
+     * The run is over. Write anything still buffered and release the
+     * files.
+     * @throws IOException
+     */
+    void close() throws IOException;
+}
@@ -0,0 +1,301 @@
+/*
+ * FIXME: LICENSE
+ */
+
+package amesmarket.results;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Where the daily results of a simulation are kept.
+ *
+ * Each kind of result (LMPs, branch flows, commitments, ...) is a
+ * {@link ResultTable}, which appends each day to large buffers instead of
+ * keeping an array of arrays per day. The buffers are allocated according
+ * to the store's {@link Mode}:
+ * <ul>
+ * <li>MAPPED (default) - memory mapped temporary files. The OS pages the
+ *     results in and out, so a long run is not bounded by the heap or the
+ *     direct memory limit.</li>
+ * <li>DIRECT - direct (off-heap) buffers.</li>
+ * <li>HEAP - ordinary heap buffers.</li>
+ * </ul>
+ * The mode is chosen with the {@link #STORE_PROPERTY} system property, e.g.
+ * -DRESULT_STORE=direct
+ *
+ * Each entry appended to a table is also passed to the store's
+ * {@link ResultSink}s, which can stream the results to disk as the run
+ * goes. With a retention window ({@link #RETAIN_PROPERTY}) the tables only
+ * keep the last days in memory, so a long run with a sink needs constant
+ * memory. The tables then only show the retained days, e.g. to the
+ * output windows and writers at the end of the run.
+ */
+public class ResultStore {
+
+    /**
+     * System property with the {@link Mode} to use.
+     */
+    public static final String STORE_PROPERTY = "RESULT_STORE";
+
+    /**
+     * System property with the directory for the mapped files. Defaults
+     * to java.io.tmpdir.
+     */
+    public static final String STORE_DIR_PROPERTY = "RESULT_STORE_DIR";
+
+    /**
+     * System property with the number of days each table keeps. The
+     * default, 0, keeps every day.
+     */
+    public static final String RETAIN_PROPERTY = "RESULT_RETAIN_DAYS";
+
+    /**
+     * System property with a comma separated list of sinks to stream the
+     * results to: csv, csv.gz, binary or binary.gz. None by default.
+     */
+    public static final String SINK_PROPERTY = "RESULT_SINK";
+
+    /**
+     * System property with the directory for the sink files. Defaults to
+     * 'results' in the working directory.
+     */
+    public static final String SINK_DIR_PROPERTY = "RESULT_SINK_DIR";
+
+    /**
+     * How the table buffers are allocated.
+     */
+    public static enum Mode {
+        HEAP,
+        DIRECT,
+        MAPPED
+    }
+
+    private final Mode mode;
+    private final File dir;
+    private final int retainDays;
+    private final List<ResultSink> sinks = new ArrayList<ResultSink>();
+
+    /**
+     * Market day the entries being appended belong to.
+     */
+    private int day = 1;
+
+    /**
+     * Create a store configured by the system properties: mode, directory,
+     * retention window and sinks.
+     */
+    public ResultStore() {
+        this(modeFromProperty(), dirFromProperty(), intProperty(RETAIN_PROPERTY, 0));
+        for (ResultSink sink : sinksFromProperty(sinkDirFromProperty())) {
+            addSink(sink);
+        }
+    }
+
+    /**
+     * Create a store configured by the system properties, with the sink
+     * files of the run in their own subdirectory of {@link #SINK_DIR_PROPERTY}.
+     * Use this when several runs share the sink directory.
+     *
+     * @param runName name of the subdirectory.
+     * @return
+     */
+    public static ResultStore forRun(String runName) {
+        ResultStore store = new ResultStore(modeFromProperty(), dirFromProperty(),
+                intProperty(RETAIN_PROPERTY, 0));
+        for (ResultSink sink : sinksFromProperty(new File(sinkDirFromProperty(), runName))) {
+            store.addSink(sink);
+        }
+        return store;
+    }
+
+    /**
+     * @param mode
+     * @param dir directory for the files of a MAPPED store.
+     */
+    public ResultStore(Mode mode, File dir) {
+        this(mode, dir, 0);
+    }
+
+    /**
+     * @param mode
+     * @param dir directory for the files of a MAPPED store.
+     * @param retainDays number of days each table keeps, 0 for all.
+     */
+    public ResultStore(Mode mode, File dir, int retainDays) {
+        if (retainDays < 0) {
+            throw new IllegalArgumentException("Negative retention window " + retainDays);
+        }
+        this.mode = mode;
+        this.dir = dir;
+        this.retainDays = retainDays;
+    }
+
+    /**
+     * Stream the entries appended from now on to a sink.
+     * @param sink
+     */
+    public synchronized void addSink(ResultSink sink) {
+        this.sinks.add(sink);
+    }
+
+    /**
+     * @return the sinks of the store.
+     */
+    public synchronized List<ResultSink> getSinks() {
+        return new ArrayList<ResultSink>(this.sinks);
+    }
+
+    /**
+     * The market finished a day. Lets the sinks write the day out.
+     * @param day
+     * @throws IllegalStateException if a sink could not write.
+     */
+    public synchronized void endDay(int day) {
+        for (ResultSink sink : this.sinks) {
+            try {
+                sink.endDay(day);
+            } catch (IOException e) {
+                throw new IllegalStateException("Could not write the results of day " + day, e);
+            }
+        }
+        this.day = day + 1;
+    }
+
+    /**
+     * The run is over. Close the sinks. The tables can still be read.
+     * @throws IllegalStateException if a sink could not write.
+     */
+    public synchronized void close() {
+        IOException error = null;
+        for (ResultSink sink : this.sinks) {
+            try {
+                sink.close();
+            } catch (IOException e) {
+                error = (error == null) ? e : error;
+            }
+        }
+        this.sinks.clear();
+        if (error != null) {
+            throw new IllegalStateException("Could not write the results", error);
+        }
+    }
+
+    /**
+     * Pass an appended entry to the sinks.
+     */
+    synchronized void publish(String table, int index, double[][] values, int cols) {
+        for (ResultSink sink : this.sinks) {
+            try {
+                sink.write(table, this.day, index, values, cols);
+            } catch (IOException e) {
+                throw new IllegalStateException("Could not write the " + table + " results", e);
+            }
+        }
+    }
+
+    /**
+     * @param name used to name the table's files, if it has any.
+     * @return a new, empty table.
+     */
+    public ResultTable newTable(String name) {
+        return new ResultTable(this, name);
+    }
+
+    /**
+     * @return the mode
+     */
+    public Mode getMode() {
+        return this.mode;
+    }
+
+    /**
+     * @return the directory for the mapped files.
+     */
+    public File getDir() {
+        return this.dir;
+    }
+
+    /**
+     * @return the number of days each table keeps, 0 for all.
+     */
+    public int getRetainDays() {
+        return this.retainDays;
+    }
+
+    /**
+     * @return the mode set by {@link #STORE_PROPERTY}, or MAPPED.
+     * @throws IllegalArgumentException if the property is not a mode.
+     */
+    static Mode modeFromProperty() {
+        String prop = System.getProperty(STORE_PROPERTY);
+        if (prop == null || prop.trim().length() == 0) {
+            return Mode.MAPPED;
+        }
+        try {
+            return Mode.valueOf(prop.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unknown " + STORE_PROPERTY + " " + prop
+                    + ". Expected heap, direct or mapped.", e);
+        }
+    }
+
+    private static File dirFromProperty() {
+        String prop = System.getProperty(STORE_DIR_PROPERTY);
+        if (prop != null && prop.trim().length() > 0) {
+            return new File(prop.trim());
+        }
+        return new File(System.getProperty("java.io.tmpdir"));
+    }
+
+    /**
+     * @param dir directory for the sink files.
+     * @return the sinks listed in {@link #SINK_PROPERTY}.
+     * @throws IllegalArgumentException for an unknown sink.
+     */
+    static List<ResultSink> sinksFromProperty(File dir) {
+        List<ResultSink> sinks = new ArrayList<ResultSink>();
+        String prop = System.getProperty(SINK_PROPERTY);
+        if (prop == null || prop.trim().length() == 0) {
+            return sinks;
+        }
+        for (String name : prop.split(",")) {
+            name = name.trim().toLowerCase();
+            if (name.equals("csv")) {
+                sinks.add(new CsvResultSink(dir, false));
+            } else if (name.equals("csv.gz")) {
+                sinks.add(new CsvResultSink(dir, true));
+            } else if (name.equals("binary")) {
+                sinks.add(new BinaryResultSink(dir, false));
+            } else if (name.equals("binary.gz")) {
+                sinks.add(new BinaryResultSink(dir, true));
+            } else if (name.length() > 0) {
+                throw new IllegalArgumentException("Unknown " + SINK_PROPERTY + " " + name
+                        + ". Expected csv, csv.gz, binary or binary.gz.");
+            }
+        }
+        return sinks;
+    }
+
+    private static File sinkDirFromProperty() {
+        String prop = System.getProperty(SINK_DIR_PROPERTY);
+        if (prop != null && prop.trim().length() > 0) {
+            return new File(prop.trim());
+        }
+        return new File("results");
+    }
+
+    private static int intProperty(String name, int def) {
+        String prop = System.getProperty(name);
+        if (prop == null || prop.trim().length() == 0) {
+            return def;
+        }
+        try {
+            return Integer.parseInt(prop.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Expected a number of days for " + name + ", not " + prop, e);
+        }
+    }
+}
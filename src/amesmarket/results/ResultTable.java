@@ -0,0 +1,372 @@
+/*
+ * FIXME: LICENSE
+ */
+
+package amesmarket.results;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Append only table of daily results, e.g. the LMP of each hour and bus
+ * for each day.
+ *
+ * Each day is a rows x cols block of doubles (usually hour x entity).
+ * The blocks are copied back to back into large buffers, allocated as
+ * set by the {@link ResultStore}, so appending a day does not create any
+ * objects. The shape of each day is kept in primitive arrays indexed by
+ * day. Single values and rows can be read without copying the day.
+ *
+ * If the store has a retention window, the oldest days are evicted as new
+ * ones are appended and buffers that no longer hold a retained day are
+ * reused. Day indexes count from the first retained day.
+ *
+ * The methods are synchronized, so the GUI can read while the simulation
+ * appends.
+ */
+public class ResultTable {
+
+    /**
+     * Largest buffer to allocate, unless a single day is larger.
+     */
+    static final int MAX_CHUNK_BYTES = 8 << 20;
+
+    /**
+     * Number of days the first buffer holds. Buffers double in size up
+     * to {@link #MAX_CHUNK_BYTES}.
+     */
+    static final int FIRST_CHUNK_DAYS = 8;
+
+    private final ResultStore store;
+    private final String name;
+
+    private final List<DoubleBuffer> chunks = new ArrayList<DoubleBuffer>();
+    /**
+     * Number of chunks released from the front of {@link #chunks}.
+     * {@link #dayChunk} counts from the first chunk ever allocated.
+     */
+    private int chunkBase = 0;
+    /**
+     * Released chunk, reused by the next chunk that fits.
+     */
+    private DoubleBuffer spare = null;
+    /**
+     * Next free position in the last chunk.
+     */
+    private int chunkPos = 0;
+
+    /**
+     * The shape and position of the retained days are at first, ...,
+     * first + numDays - 1 of the day arrays.
+     */
+    private int first = 0;
+    private int numDays = 0;
+    private int evicted = 0;
+    private int[] dayChunk = new int[16];
+    private int[] dayOffset = new int[16];
+    private int[] dayRows = new int[16];
+    private int[] dayCols = new int[16];
+
+    /**
+     * Backing file of a MAPPED table, created with the first chunk.
+     */
+    private File file = null;
+    private long fileLength = 0;
+
+    ResultTable(ResultStore store, String name) {
+        this.store = store;
+        this.name = name;
+    }
+
+    /**
+     * @return the name of the table.
+     */
+    public String getName() {
+        return this.name;
+    }
+
+    /**
+     * Append a day, with as many columns as the first row.
+     * @param values
+     * @throws IllegalArgumentException if a row is shorter than the first.
+     */
+    public void append(double[][] values) {
+        append(values, values.length == 0 ? 0 : values[0].length);
+    }
+
+    /**
+     * Append the first cols columns of each row as a day.
+     * @param values
+     * @param cols
+     * @throws IllegalArgumentException if a row is shorter than cols.
+     */
+    public void append(double[][] values, int cols) {
+        int index;
+        synchronized (this) {
+            index = store(values, cols);
+        }
+        this.store.publish(this.name, index, values, cols);
+    }
+
+    /**
+     * @return the index of the new day since the start of the run.
+     */
+    private int store(double[][] values, int cols) {
+        int rows = values.length;
+        for (int r = 0; r < rows; r++) {
+            if (values[r].length < cols) {
+                throw new IllegalArgumentException(String.format(
+                        "%s: row %d has %d columns, expected %d", this.name, r, values[r].length, cols));
+            }
+        }
+        int n = rows * cols;
+        DoubleBuffer chunk = reserve(n);
+
+        int last = this.first + this.numDays;
+        if (last == this.dayChunk.length) {
+            if (this.first > 0) {
+                // Move the retained days to the front.
+                System.arraycopy(this.dayChunk, this.first, this.dayChunk, 0, this.numDays);
+                System.arraycopy(this.dayOffset, this.first, this.dayOffset, 0, this.numDays);
+                System.arraycopy(this.dayRows, this.first, this.dayRows, 0, this.numDays);
+                System.arraycopy(this.dayCols, this.first, this.dayCols, 0, this.numDays);
+                this.first = 0;
+                last = this.numDays;
+            }
+            if (last == this.dayChunk.length) {
+                int len = 2 * last;
+                this.dayChunk = Arrays.copyOf(this.dayChunk, len);
+                this.dayOffset = Arrays.copyOf(this.dayOffset, len);
+                this.dayRows = Arrays.copyOf(this.dayRows, len);
+                this.dayCols = Arrays.copyOf(this.dayCols, len);
+            }
+        }
+        this.dayChunk[last] = this.chunkBase + this.chunks.size() - 1;
+        this.dayOffset[last] = this.chunkPos;
+        this.dayRows[last] = rows;
+        this.dayCols[last] = cols;
+
+        chunk.position(this.chunkPos);
+        for (int r = 0; r < rows; r++) {
+            chunk.put(values[r], 0, cols);
+        }
+        this.chunkPos += n;
+        this.numDays++;
+
+        int index = this.evicted + this.numDays - 1;
+        int retain = this.store.getRetainDays();
+        while (retain > 0 && this.numDays > retain) {
+            evictFirst();
+        }
+        return index;
+    }
+
+    /**
+     * Drop the oldest day, and the chunks only it used.
+     */
+    private void evictFirst() {
+        this.first++;
+        this.numDays--;
+        this.evicted++;
+        int keep = this.dayChunk[this.first];
+        while (this.chunkBase < keep) {
+            DoubleBuffer released = this.chunks.remove(0);
+            this.chunkBase++;
+            if (this.spare == null || released.capacity() > this.spare.capacity()) {
+                this.spare = released;
+            }
+        }
+    }
+
+    /**
+     * @return the number of days in the table.
+     */
+    public synchronized int size() {
+        return this.numDays;
+    }
+
+    /**
+     * @return the number of days evicted by the retention window. Day 0
+     *         of the table is entry getEvicted() of the run.
+     */
+    public synchronized int getEvicted() {
+        return this.evicted;
+    }
+
+    /**
+     * @param day index of the day in the table, from 0.
+     * @return the number of rows of the day.
+     */
+    public synchronized int getRows(int day) {
+        checkDay(day);
+        return this.dayRows[this.first + day];
+    }
+
+    /**
+     * @param day index of the day in the table, from 0.
+     * @return the number of columns of the day.
+     */
+    public synchronized int getCols(int day) {
+        checkDay(day);
+        return this.dayCols[this.first + day];
+    }
+
+    /**
+     * @param day index of the day in the table, from 0.
+     * @param row
+     * @param col
+     * @return a single value.
+     */
+    public synchronized double get(int day, int row, int col) {
+        checkDay(day);
+        int d = this.first + day;
+        int cols = this.dayCols[d];
+        if (row < 0 || row >= this.dayRows[d] || col < 0 || col >= cols) {
+            throw new IndexOutOfBoundsException(String.format("%s: no value at %d, %d of day %d",
+                    this.name, row, col, day));
+        }
+        return chunk(d).get(this.dayOffset[d] + row * cols + col);
+    }
+
+    /**
+     * Copy a row of a day into dest.
+     * @param day index of the day in the table, from 0.
+     * @param row
+     * @param dest must have room for {@link #getCols(int)} values.
+     */
+    public synchronized void getRow(int day, int row, double[] dest) {
+        checkDay(day);
+        int d = this.first + day;
+        if (row < 0 || row >= this.dayRows[d]) {
+            throw new IndexOutOfBoundsException(String.format("%s: no row %d on day %d",
+                    this.name, row, day));
+        }
+        int cols = this.dayCols[d];
+        DoubleBuffer chunk = chunk(d);
+        chunk.position(this.dayOffset[d] + row * cols);
+        chunk.get(dest, 0, cols);
+    }
+
+    /**
+     * @param day index of the day in the table, from 0.
+     * @return a copy of the day.
+     */
+    public synchronized double[][] getDay(int day) {
+        checkDay(day);
+        double[][] values = new double[this.dayRows[this.first + day]][this.dayCols[this.first + day]];
+        for (int r = 0; r < values.length; r++) {
+            getRow(day, r, values[r]);
+        }
+        return values;
+    }
+
+    /**
+     * Remove all the days. The buffers are released.
+     */
+    public synchronized void clear() {
+        this.chunks.clear();
+        this.chunkBase = 0;
+        this.spare = null;
+        this.chunkPos = 0;
+        this.first = 0;
+        this.numDays = 0;
+        this.evicted = 0;
+        this.fileLength = 0;
+    }
+
+    private DoubleBuffer chunk(int d) {
+        return this.chunks.get(this.dayChunk[d] - this.chunkBase);
+    }
+
+    private void checkDay(int day) {
+        if (day < 0 || day >= this.numDays) {
+            throw new IndexOutOfBoundsException(String.format("%s: no day %d, size %d",
+                    this.name, day, this.numDays));
+        }
+    }
+
+    /**
+     * Make sure the last chunk has room for n more values.
+     * @return the last chunk.
+     */
+    private DoubleBuffer reserve(int n) {
+        if (!this.chunks.isEmpty()) {
+            DoubleBuffer last = this.chunks.get(this.chunks.size() - 1);
+            if (this.chunkPos + n <= last.capacity()) {
+                return last;
+            }
+        }
+        long bytes;
+        if (this.chunks.isEmpty()) {
+            bytes = 8L * n * FIRST_CHUNK_DAYS;
+        } else {
+            bytes = 16L * this.chunks.get(this.chunks.size() - 1).capacity();
+        }
+        bytes = Math.max(Math.min(bytes, MAX_CHUNK_BYTES), 8L * n);
+        bytes = Math.max(bytes, 8);
+        if (bytes > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException(this.name + ": day of " + n + " values is too large");
+        }
+
+        DoubleBuffer chunk;
+        if (this.spare != null && 8L * this.spare.capacity() >= bytes) {
+            chunk = this.spare;
+            chunk.clear();
+        } else {
+            chunk = allocate((int) bytes);
+        }
+        this.spare = null;
+        this.chunks.add(chunk);
+        this.chunkPos = 0;
+        return chunk;
+    }
+
+    private DoubleBuffer allocate(int bytes) {
+        ByteBuffer buf;
+        switch (this.store.getMode()) {
+        case HEAP:
+            buf = ByteBuffer.allocate(bytes);
+            break;
+        case DIRECT:
+            buf = ByteBuffer.allocateDirect(bytes);
+            break;
+        default:
+            buf = map(bytes);
+            break;
+        }
+        return buf.order(ByteOrder.nativeOrder()).asDoubleBuffer();
+    }
+
+    private ByteBuffer map(int bytes) {
+        try {
+            if (this.file == null) {
+                File dir = this.store.getDir();
+                if (!dir.isDirectory() && !dir.mkdirs()) {
+                    throw new IOException("Could not create " + dir.getPath());
+                }
+                this.file = File.createTempFile(this.name + "-", ".res", dir);
+                this.file.deleteOnExit();
+            }
+            RandomAccessFile raf = new RandomAccessFile(this.file, "rw");
+            try {
+                // Mapping past the end grows the file. The mapping stays
+                // valid after the channel is closed.
+                ByteBuffer buf = raf.getChannel().map(FileChannel.MapMode.READ_WRITE, this.fileLength, bytes);
+                this.fileLength += bytes;
+                return buf;
+            } finally {
+                raf.close();
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException("Could not map the " + this.name + " results", e);
+        }
+    }
+}
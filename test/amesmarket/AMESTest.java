@@ -37,7 +37,6 @@ import java.io.FileNotFoundException;
 import java.io.FileWriter;
 import java.io.IOException;
 import java.text.DecimalFormat;
-import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 
@@ -115,7 +114,7 @@ public class AMESTest extends AbstractTestAMES {
 
         assertFalse("Error stopped market operation.", testMarket.hasStopCodeError());
 
-        ArrayList<int[]> solsByDay = testMarket.getHasSolutionByDay();
+        List<int[]> solsByDay = testMarket.getHasSolutionByDay();
         assertNotNull("No solution by day found", solsByDay);
 
         int numSols = solsByDay.size();
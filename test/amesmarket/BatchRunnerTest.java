@@ -0,0 +1,69 @@
+/*
+ * FIXME: LICENSE
+ */
+
+package amesmarket;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.StringWriter;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+/**
+ * Arguments and summary of the batch 'run' command.
+ */
+public class BatchRunnerTest {
+
+    @Test
+    public void testCases() {
+        BatchRunner b = BatchRunner.fromArgs(new String[]{
+                "5Bus.dat", "cases/8Bus.dat", "--threads", "4", "--seed", "1-3,7", "--out", "/tmp/ames-out"});
+        assertEquals(4, b.getThreads());
+        List<HeadlessRunner> cases = b.getCases();
+        assertEquals(2, cases.size());
+        assertEquals("5Bus", cases.get(0).getCaseName());
+        assertEquals("8Bus", cases.get(1).getCaseName());
+        for (HeadlessRunner r : cases) {
+            assertEquals(new File("/tmp/ames-out"), r.getOutDir());
+            assertEquals(Arrays.asList(1L, 2L, 3L, 7L), r.getSeeds(new CaseFileData()));
+        }
+    }
+
+    @Test
+    public void testDefaultSeed() {
+        CaseFileData cfd = new CaseFileData();
+        cfd.RandomSeed = 695672061;
+        BatchRunner b = BatchRunner.fromArgs(new String[]{"5Bus.dat"});
+        assertEquals(1, b.getThreads());
+        assertEquals(Arrays.asList(695672061L), b.getCases().get(0).getSeeds(cfd));
+    }
+
+    @Test
+    public void testSummary() throws Exception {
+        BatchRunner.RunSummary r = new BatchRunner.RunSummary("5Bus", 3);
+        StringWriter out = new StringWriter();
+        BatchRunner.writeSummary(Arrays.asList(r), out);
+        assertEquals("case,seed,days,stop_code,error,total_cost,seconds,output,message\n"
+                + "5Bus,3,0,0,false,0.0,0.000,,\n", out.toString());
+        assertTrue(BatchRunner.allOk(Arrays.asList(r)));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNoThreads() {
+        BatchRunner.fromArgs(new String[]{"5Bus.dat", "--threads", "0"});
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testBadSeedRange() {
+        BatchRunner.fromArgs(new String[]{"5Bus.dat", "--seed", "9-2"});
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNoCase() {
+        BatchRunner.fromArgs(new String[]{"--threads", "2"});
+    }
+}
@@ -0,0 +1,74 @@
+/*
+ * FIXME: LICENSE
+ */
+
+package amesmarket;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+/**
+ * Day indexed tables {@link DoubleByDay} and {@link IntByDay}.
+ */
+public class ByDayTest {
+
+    @Test
+    public void testDoubleByDay() {
+        DoubleByDay t = new DoubleByDay();
+        assertEquals(-1, t.getMaxDay());
+        assertNull(t.get(1));
+        assertFalse(t.has(-1));
+
+        double[] row = {1, 2, 3};
+        t.put(1, row);
+        row[0] = 100; //rows are copied in
+        t.put(5, new double[]{4, 5, 6, 7});
+        t.put(2, new double[]{8});
+
+        assertEquals(5, t.getMaxDay());
+        assertArrayEquals(new double[]{1, 2, 3}, t.get(1), 0);
+        assertArrayEquals(new double[]{4, 5, 6, 7}, t.get(5), 0);
+        assertArrayEquals(new double[]{8}, t.get(2), 0);
+        assertFalse(t.has(0));
+        assertFalse(t.has(3));
+        assertEquals(0, t.length(3));
+        assertEquals(7, t.get(5, 3), 0);
+        assertEquals(36, t.sum(), 0);
+
+        t.get(1)[0] = 100; //and out
+        assertEquals(1, t.get(1, 0), 0);
+
+        t.put(1, new double[]{9, 9});
+        assertArrayEquals(new double[]{9, 9}, t.get(1), 0);
+        assertEquals(2, t.length(1));
+
+        try {
+            t.get(1, 2);
+            fail("past the end of the row");
+        } catch (IndexOutOfBoundsException e) {
+            // expected
+        }
+    }
+
+    @Test
+    public void testIntByDay() {
+        IntByDay t = new IntByDay();
+        for (int d = 1; d <= 100; d++) {
+            int[] row = new int[24];
+            row[d % 24] = 1;
+            t.put(d, row);
+        }
+        assertEquals(100, t.getMaxDay());
+        assertEquals(100, t.count(1));
+        assertEquals(1, t.get(47, 23));
+        assertEquals(0, t.get(47, 22));
+        assertNull(t.get(0));
+        assertNull(t.get(101));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNegativeDay() {
+        new IntByDay().put(-1, new int[1]);
+    }
+}
@@ -0,0 +1,202 @@
+/*
+ * FIXME: LICENSE
+ */
+
+package amesmarket;
+
+import static org.junit.Assert.*;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import cern.colt.matrix.DoubleMatrix2D;
+import cern.colt.matrix.impl.SparseDoubleMatrix2D;
+
+/**
+ * DC-OPF on the 3-bus example grid from the {@link TransGrid} documentation.
+ */
+public class DCOPFJTest {
+
+    private static final double EPS = 1e-6;
+
+    private INIT init;
+    private TransGrid grid;
+
+    @Before
+    public void setUp() {
+        init = new INIT();
+        init.setBaseS(100);
+        init.setBaseV(10);
+        grid = threeBusGrid(init);
+    }
+
+    static TransGrid threeBusGrid(INIT init) {
+        double[][] nodeData = {{3, 0.05}};
+        double[][] branchData = {
+                {1, 2, 100, 0.08},
+                {1, 3, 150, 0.12},
+                {2, 3, 120, 0.05}};
+        return new TransGrid(nodeData, branchData, 10, 10, init);
+    }
+
+    @Test
+    public void testGridMatricesAreSparse() {
+        DoubleMatrix2D busAdm = grid.getBusAdmittance();
+        assertTrue(busAdm instanceof SparseDoubleMatrix2D);
+
+        // B'_ii = SUM_k 1/x_ik, B'_ik = -1/x_ik
+        assertEquals(1/0.08 + 1/0.12, busAdm.get(0, 0), EPS);
+        assertEquals(1/0.08 + 1/0.05, busAdm.get(1, 1), EPS);
+        assertEquals(-1/0.05, busAdm.get(1, 2), EPS);
+        assertEquals(-1/0.05, busAdm.get(2, 1), EPS);
+        assertEquals(9, busAdm.cardinality());
+
+        // reduced bus admittance drops the first row
+        assertEquals(busAdm.get(1, 0), grid.getReducedBusAdmittance().get(0, 0), 0);
+
+        DoubleMatrix2D adj = grid.getAdjacency();
+        assertEquals(1, adj.get(2, 1), 0);
+        assertEquals(-1, adj.get(2, 2), 0);
+        assertEquals(6, adj.cardinality());
+        assertEquals(4, grid.getReducedAdjacency().cardinality());
+
+        DoubleMatrix2D w = grid.getVADWeight();
+        assertEquals(-0.1, w.get(0, 1), EPS);
+        assertEquals(0.2, w.get(0, 0), EPS);
+    }
+
+    @Test
+    public void testUncongestedDispatch() {
+        // cheap unit at bus 1, expensive unit at bus 3, 120MW of load at bus 2
+        double[][] supplyOffer = {
+                {10, 0.01, 0, 300},
+                {30, 0.01, 0, 300}};
+        double[] load = {120};
+        int[] hybrid = {1};
+        DCOPFJ opf = new DCOPFJ(supplyOffer, new double[1][4], load, hybrid,
+                new int[]{1, 3}, new int[]{2}, grid, 0, false, init);
+
+        assertTrue(opf.getIsSolutionFeasibleAndOptimal());
+        double[] p = opf.getCommitment();
+        assertEquals(120, p[0], EPS);
+        assertEquals(0, p[1], EPS);
+        // only the lower limit of unit 2 binds
+        assertEquals(1, opf.getNumBindingConstraints());
+
+        for(int n = 0; n < grid.getNumBranches(); n++) {
+            assertTrue(Math.abs(opf.getBranchFlow()[n]) < grid.getLineCap()[n] * init.getBaseS());
+        }
+        // no congestion, every bus sees the marginal cost of unit 1
+        double[] lmp = opf.getLMP();
+        assertEquals(12.4, lmp[0], EPS);
+        assertEquals(lmp[0], lmp[1], 1e-4);
+        assertEquals(lmp[0], lmp[2], 1e-4);
+    }
+
+    @Test
+    public void testCongestedDispatch() {
+        // 200MW at bus 2, branch 1-2 limits what unit 1 can deliver
+        double[][] supplyOffer = {
+                {10, 0.01, 0, 500},
+                {30, 0.01, 0, 500}};
+        double[] load = {200};
+        DCOPFJ opf = new DCOPFJ(supplyOffer, new double[1][4], load, new int[]{1},
+                new int[]{1, 3}, new int[]{2}, grid, 0, false, init);
+
+        assertTrue(opf.getIsSolutionFeasibleAndOptimal());
+        double[] p = opf.getCommitment();
+        assertEquals(200, p[0] + p[1], EPS);
+        assertEquals(125, p[0], EPS);
+        assertEquals(100, opf.getBranchFlow()[0], EPS);
+        assertEquals(1, opf.getNumBindingConstraints());
+
+        // bus 1 is priced by unit 1 alone, the congested bus 2 above both units
+        double[] lmp = opf.getLMP();
+        assertEquals(12.5, lmp[0], EPS);
+        assertTrue(lmp[1] > lmp[2]);
+    }
+
+    @Test
+    public void testSharedModel() {
+        int[] atNodeByGen = {1, 3};
+        int[] atNodeByLSE = {2, 3};
+        DCOPFModel model = new DCOPFModel(grid, atNodeByGen, atNodeByLSE);
+        assertTrue(model.isFor(grid, new int[]{1, 3}, new int[]{2, 3}));
+        assertFalse(model.isFor(grid, new int[]{1, 2}, atNodeByLSE));
+        assertFalse(model.isFor(threeBusGrid(init), atNodeByGen, atNodeByLSE));
+
+        // the constraint structure only changes with the price-sensitive LSEs
+        assertSame(model.getLayout(new int[]{1, 1}), model.getLayout(new int[]{1, 1}));
+        assertSame(model.getLayout(new int[]{3, 1}), model.getLayout(new int[]{2, 1}));
+        assertNotSame(model.getLayout(new int[]{1, 1}), model.getLayout(new int[]{1, 3}));
+        assertEquals(1, model.getLayout(new int[]{1, 3}).numPriceSensitive);
+
+        double[] demand = {60, 110, 150, 90};
+        for(int hour = 0; hour < demand.length; hour++) {
+            int[] hybrid = {1, hour % 2 == 0 ? 1 : 3};
+            DCOPFJ shared = new DCOPFJ(model, supplyOffer(), demandBid(), load(demand[hour]),
+                    hybrid, hour, false, init, null);
+            DCOPFJ own = new DCOPFJ(supplyOffer(), demandBid(), load(demand[hour]),
+                    hybrid, atNodeByGen, atNodeByLSE, grid, hour, false, init);
+
+            assertTrue(shared.getIsSolutionFeasibleAndOptimal());
+            assertArrayEquals(own.getCommitment(), shared.getCommitment(), 0);
+            assertArrayEquals(own.getSLoad(), shared.getSLoad(), 0);
+            assertArrayEquals(own.getLMP(), shared.getLMP(), 0);
+            assertArrayEquals(own.getBranchFlow(), shared.getBranchFlow(), 0);
+            assertArrayEquals(own.getIneqMultiplierName(), shared.getIneqMultiplierName());
+        }
+    }
+
+    @Test
+    public void testReusedResult() {
+        int[] atNodeByGen = {1, 3};
+        int[] atNodeByLSE = {2, 3};
+        DCOPFModel model = new DCOPFModel(grid, atNodeByGen, atNodeByLSE);
+        OPFResult result = new OPFResult();
+
+        DCOPFJ first = new DCOPFJ(model, supplyOffer(), demandBid(), load(150),
+                new int[]{1, 3}, 0, false, init, null, result);
+        double[] commitment = result.getCommitment();
+        double[] lmp = result.getLMP();
+        assertSame(commitment, first.getCommitment());
+        assertEquals(1, result.getSLoad().length);
+
+        // same problem size, the buffers are written in place
+        DCOPFJ second = new DCOPFJ(model, supplyOffer(), demandBid(), load(90),
+                new int[]{1, 3}, 1, false, init, null, result);
+        assertSame(commitment, second.getCommitment());
+        assertSame(lmp, second.getLMP());
+
+        DCOPFJ fresh = new DCOPFJ(model, supplyOffer(), demandBid(), load(90),
+                new int[]{1, 3}, 1, false, init, null);
+        assertArrayEquals(fresh.getCommitment(), result.getCommitment(), 0);
+        assertArrayEquals(fresh.getSLoad(), result.getSLoad(), 0);
+        assertArrayEquals(fresh.getLMP(), result.getLMP(), 0);
+        assertArrayEquals(fresh.getVoltAngle(), result.getVoltAngle(), 0);
+        assertArrayEquals(fresh.getIneqMultiplier(), result.getIneqMultiplier(), 0);
+        assertEquals(fresh.getMinTVC(), result.getMinTVC(), 0);
+
+        // no price-sensitive demand, the sized buffers are replaced
+        new DCOPFJ(model, supplyOffer(), demandBid(), load(90),
+                new int[]{1, 1}, 2, false, init, null, result);
+        assertEquals(0, result.getSLoad().length);
+        assertEquals(2 * 3 + 2 * 2, result.getIneqMultiplier().length);
+    }
+
+    private static double[][] supplyOffer() {
+        return new double[][]{
+                {10, 0.01, 0, 300},
+                {30, 0.01, 0, 300}};
+    }
+
+    private static double[][] demandBid() {
+        return new double[][]{
+                {0, 0, 0, 0},
+                {40, 0.02, 50, 0}};
+    }
+
+    private static double[] load(double total) {
+        return new double[]{total / 2, total / 2};
+    }
+}
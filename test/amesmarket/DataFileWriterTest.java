@@ -0,0 +1,62 @@
+/*
+ * FIXME: LICENSE
+ */
+
+package amesmarket;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Scanner;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import amesmarket.extern.psst.DataFileWriter;
+
+/**
+ * Scenario tree files for the stochastic SCUC.
+ */
+public class DataFileWriterTest {
+
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+
+    @Test
+    public void testNodeBasedScenarioStructure() throws Exception {
+        File scenarioBased = tmp.newFolder("scenario");
+        File nodeBased = tmp.newFolder("node");
+        double[] prob = {0.25, 0.75};
+        new DataFileWriter(scenarioBased).writeScenarioStructures(2, prob);
+        new DataFileWriter(nodeBased).writeScenarioStructures(2, prob, false);
+
+        List<String> a = lines(new File(scenarioBased, "ScenarioStructure.dat"));
+        List<String> b = lines(new File(nodeBased, "ScenarioStructure.dat"));
+        assertEquals(a.size(), b.size());
+        // skip the time stamp
+        for(int i = 1; i < a.size(); i++) {
+            if(a.get(i).startsWith("param ScenarioBasedData")) {
+                assertEquals("param ScenarioBasedData := True ;", a.get(i));
+                assertEquals("param ScenarioBasedData := False ;", b.get(i));
+            } else {
+                assertEquals(a.get(i), b.get(i));
+            }
+        }
+        assertTrue(b.contains("ScenNode2 0.75"));
+        assertTrue(b.contains("Scen2 ScenNode2"));
+    }
+
+    private static List<String> lines(File f) throws FileNotFoundException {
+        List<String> lines = new ArrayList<String>();
+        Scanner s = new Scanner(f);
+        while(s.hasNextLine()) {
+            lines.add(s.nextLine());
+        }
+        s.close();
+        return lines;
+    }
+}
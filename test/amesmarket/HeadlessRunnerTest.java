@@ -0,0 +1,92 @@
+/*
+ * FIXME: LICENSE
+ */
+
+package amesmarket;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+
+import org.junit.Test;
+
+/**
+ * Arguments of the headless 'run' command.
+ */
+public class HeadlessRunnerTest {
+
+    @Test
+    public void testDefaults() {
+        HeadlessRunner r = HeadlessRunner.fromArgs(new String[]{"cases/5Bus.dat"});
+        assertEquals(new File(new File("cases/5Bus.dat").getAbsoluteFile().getParentFile(), "Output"),
+                r.getOutDir());
+    }
+
+    @Test
+    public void testFlags() {
+        HeadlessRunner r = HeadlessRunner.fromArgs(new String[]{
+                "5Bus.dat", "--seed", "1,2, 3", "--max-day", "7", "--scuc", "scucj",
+                "--sced", "dcopfj", "--out", "/tmp/ames-out"});
+        assertEquals(new File("/tmp/ames-out"), r.getOutDir());
+    }
+
+    @Test
+    public void testEnginesPerMarket() throws Exception {
+        HeadlessRunner r = HeadlessRunner.fromArgs(new String[]{
+                "DATA/8BusTestCase_8gen.dat", "--scuc", "scucj", "--sced", "dcopfj"});
+        AMESMarket m = r.createMarket(r.loadCase(), 1);
+        assertEquals("scucj", m.getSCUCEngine());
+        assertEquals("dcopfj", m.getSCEDEngine());
+        //the JVM-wide defaults are left alone.
+        assertNull(System.getProperty(AMESMarket.SCUC_PROPERTY));
+        assertNull(System.getProperty(AMESMarket.SCED_PROPERTY));
+
+        AMESMarket d = HeadlessRunner.fromArgs(new String[]{"DATA/8BusTestCase_8gen.dat"})
+                .createMarket(r.loadCase(), 1);
+        assertEquals("psst", d.getSCUCEngine());
+        assertEquals("pyomo", d.getSCEDEngine());
+    }
+
+    @Test
+    public void testRealTimeFollowsISO() throws Exception {
+        HeadlessRunner r = HeadlessRunner.fromArgs(new String[]{
+                "DATA/8BusTestCase_8gen.dat", "--scuc", "scucj", "--sced", "dcopfj"});
+        AMESMarket jvm = r.createMarket(r.loadCase(), 1);
+        AMESMarket ext = HeadlessRunner.fromArgs(new String[]{"DATA/8BusTestCase_8gen.dat"})
+                .createMarket(r.loadCase(), 1);
+        try {
+            //both in one JVM, each with its own engine.
+            jvm.setup();
+            jvm.buildModel();
+            ext.setup();
+            ext.buildModel();
+            assertTrue(jvm.getISO().isSCEDInJVM());
+            assertNotNull(jvm.getISO().getRTMarket().getSCEDJ());
+            assertFalse(ext.getISO().isSCEDInJVM());
+            assertNull(ext.getISO().getRTMarket().getSCEDJ());
+        } finally {
+            jvm.getWorkDir().close();
+            ext.getWorkDir().close();
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNoCase() {
+        HeadlessRunner.fromArgs(new String[]{"--seed", "1"});
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testBadNumber() {
+        HeadlessRunner.fromArgs(new String[]{"5Bus.dat", "--max-day", "ten"});
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testMissingValue() {
+        HeadlessRunner.fromArgs(new String[]{"5Bus.dat", "--out"});
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testUnknownFlag() {
+        HeadlessRunner.fromArgs(new String[]{"5Bus.dat", "--days", "3"});
+    }
+}
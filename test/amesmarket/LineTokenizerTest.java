@@ -0,0 +1,106 @@
+/*
+ * FIXME: LICENSE
+ */
+
+package amesmarket;
+
+import static org.junit.Assert.*;
+
+import java.io.StringReader;
+import java.util.Random;
+
+import org.junit.Test;
+
+import amesmarket.filereaders.LineTokenizer;
+
+/**
+ * Tokenizing and number parsing without regular expressions.
+ */
+public class LineTokenizerTest {
+
+    @Test
+    public void testLinesAndTokens() throws Exception {
+        LineTokenizer t = new LineTokenizer(new StringReader(
+                "1\t2  3.5 // comment\r\n\r\n  Day 4\rlast"));
+
+        assertTrue(t.nextLine());
+        t.stripComment("//");
+        assertEquals(3, t.countTokens());
+        assertEquals(1, t.nextInt());
+        assertEquals(2, t.nextInt());
+        assertEquals(3.5, t.nextDouble(), 0);
+        assertFalse(t.hasMoreTokens());
+
+        assertTrue(t.nextLine());
+        assertTrue(t.isBlank());
+        assertEquals(2, t.getLineNumber());
+
+        assertTrue(t.nextLine());
+        assertTrue(t.startsWith("Day"));
+        assertTrue(t.nextTokenEquals("Day"));
+        assertEquals("4", t.nextToken());
+
+        assertTrue(t.nextLine());
+        assertEquals("last", t.line());
+        assertFalse(t.nextLine());
+        assertEquals(4, t.getLineNumber());
+    }
+
+    @Test
+    public void testDelimiters() throws Exception {
+        LineTokenizer t = new LineTokenizer(new StringReader("Bus3 : 12:-0,5"));
+        t.setDelimiters(":");
+        assertTrue(t.nextLine());
+        assertEquals(3, t.countTokens());
+        assertEquals("Bus3", t.nextToken());
+        assertEquals(12, t.nextInt());
+        assertEquals(-0.5, t.nextDouble(), 0);
+    }
+
+    @Test
+    public void testParseDoubleMatchesSupport() {
+        String[] fixed = {"0", "-0", "-0.0", "1.", ".5", "1,5", "007", "1e5", "1E-5",
+                "2.5e+3", "123456789012345678901", "0.1000000000000000000001",
+                "9007199254740993", "1e23", "1e-300", "4.9e-324", "Infinity", "NaN",
+                "1d", "0x1p3"};
+        for(String s : fixed) {
+            assertSame(s, Support.parseDouble(s), LineTokenizer.parseDouble(s));
+        }
+
+        Random r = new Random(17);
+        for(int i = 0; i < 20000; i++) {
+            double d;
+            switch(i % 4) {
+            case 0: d = r.nextDouble() * 5000; break;
+            case 1: d = Math.round(r.nextDouble() * 1e6) / 1e3; break;
+            case 2: d = -r.nextInt(100000) / 100.0; break;
+            default: d = Double.longBitsToDouble(r.nextLong()); break;
+            }
+            String s = Double.toString(d);
+            assertSame(s, Support.parseDouble(s), LineTokenizer.parseDouble(s));
+            s = String.format("%.4f", d);
+            assertSame(s, Support.parseDouble(s), LineTokenizer.parseDouble(s));
+        }
+
+        for(String bad : new String[]{"", "-", ".", "1e", "1.2.3", "1,000.5", "abc", "1-"}) {
+            try {
+                LineTokenizer.parseDouble(bad);
+                fail(bad);
+            } catch(NumberFormatException e) {
+                // expected
+            }
+        }
+    }
+
+    @Test
+    public void testSplitWhitespaceMatchesRegex() {
+        String[] lines = {"", " ", "a", " a", "a ", "a\tb  c", "\t a \u000B b\f", "Day\t Hour 1\t 2"};
+        for(String s : lines) {
+            assertArrayEquals("'" + s + "'", s.split("\\s+"), LineTokenizer.splitWhitespace(s));
+        }
+    }
+
+    private static void assertSame(String s, double expected, double actual) {
+        assertEquals(s, Double.doubleToRawLongBits(expected), Double.doubleToRawLongBits(actual));
+    }
+}
@@ -0,0 +1,104 @@
+/*
+ * FIXME: LICENSE
+ */
+
+package amesmarket;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.RandomAccessFile;
+import java.util.List;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import amesmarket.filereaders.BadDataFileFormatException;
+
+/**
+ * Load scenarios kept in a memory mapped {@link LoadScenarioStore}.
+ */
+public class LoadScenarioStoreTest {
+
+    private static final int DAYS = 3;
+    private static final int HOURS = 24;
+    private static final int ZONES = 2;
+
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+
+    @Test
+    public void testRoundTrip() throws Exception {
+        LoadProfileCollection lpc = scenario();
+        File f = tmp.newFile("scenario.lpc");
+        LoadScenarioStore.write(lpc, f);
+
+        LoadScenarioStore store = new LoadScenarioStore(f);
+        assertEquals("TestCase", store.getCaseName());
+        assertEquals(2, store.getScenarioNumber());
+        assertArrayEquals(new int[]{1, 2, 3}, store.getDays());
+        assertEquals(HOURS, store.getNumHours());
+        assertEquals(ZONES, store.getNumZones());
+        assertNull(store.get(DAYS + 1, 1.0));
+
+        for(int d = 1; d <= DAYS; d++) {
+            DailyLoadProfile exp = lpc.get(d);
+            DailyLoadProfile act = store.get(d, 1.0);
+            assertEquals(d, act.getDayNumber());
+            for(int h = 0; h < HOURS; h++) {
+                assertArrayEquals(exp.getLoadByHour(h), act.getLoadByHour(h), 0);
+            }
+            assertEquals(exp.peakHourLoad(), store.peakHourLoad(d, 1.0), 0);
+        }
+    }
+
+    @Test
+    public void testStoredCollection() throws Exception {
+        LoadProfileCollection lpc = scenario();
+        double peak = lpc.peakTotalLoad();
+        LoadProfileCollection stored = LoadScenarioStore.toStored(lpc);
+
+        assertEquals("TestCase", stored.getCaseName());
+        assertEquals(2, stored.getScenarioNumber());
+        assertEquals(0.25, stored.probability(), 0);
+        assertEquals(peak, stored.peakTotalLoad(), 0);
+        stored.validate("TestCase", 2, DAYS);
+
+        List<DailyLoadProfile> all = stored.getAllProfiles();
+        assertEquals(DAYS, all.size());
+        assertEquals(3, all.get(2).getDayNumber());
+
+        stored.scaleScenario(0.5);
+        lpc.scaleScenario(0.5);
+        assertEquals(lpc.peakTotalLoad(), stored.peakTotalLoad(), 0);
+        assertArrayEquals(lpc.get(2).getLoadByHour(5), stored.get(2).getLoadByHour(5), 0);
+
+        //subtracting moves the days to the heap.
+        stored.subtractLoad(lpc);
+        assertArrayEquals(new double[ZONES], stored.get(1).getLoadByHour(0), 0);
+
+        //a copy shares the store.
+        LoadProfileCollection copy = new LoadProfileCollection(LoadScenarioStore.toStored(scenario()));
+        assertArrayEquals(scenario().get(3).getLoadByHour(23), copy.get(3).getLoadByHour(23), 0);
+    }
+
+    @Test(expected = BadDataFileFormatException.class)
+    public void testTruncated() throws Exception {
+        File f = tmp.newFile("scenario.lpc");
+        LoadScenarioStore.write(scenario(), f);
+        RandomAccessFile raf = new RandomAccessFile(f, "rw");
+        raf.setLength(raf.length() - 8);
+        raf.close();
+        new LoadScenarioStore(f);
+    }
+
+    private static LoadProfileCollection scenario() {
+        double[][][] loads = new double[DAYS][HOURS][ZONES];
+        for(int d = 0; d < DAYS; d++)
+            for(int h = 0; h < HOURS; h++)
+                for(int z = 0; z < ZONES; z++)
+                    loads[d][h][z] = 100 * (d + 1) + 10 * z + h / 3.0;
+        return new LoadProfileCollection("TestCase", 2, 0.25, loads, false);
+    }
+}
@@ -0,0 +1,69 @@
+/*
+ * FIXME: LICENSE
+ */
+
+package amesmarket;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+
+/**
+ * Stand-in for 'psst worker' that speaks the same protocol without python.
+ *
+ * Commands:
+ * <pre>
+ *   scuc --data in --output out   writes "scuc in" to out
+ *   fail                          exit code 2
+ *   crash                         the worker exits
+ *   crash-once marker             the worker exits unless marker exists
+ *   sleep ms                      exit code 0 after ms
+ * </pre>
+ */
+public class PSSTWorkerStub {
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        BufferedReader in = new BufferedReader(new InputStreamReader(System.in));
+        System.out.println("READY");
+        String line;
+        while((line = in.readLine()) != null) {
+            String[] fields = line.split("\t");
+            if("PING".equals(fields[0])) {
+                System.out.println("PONG");
+            } else if("QUIT".equals(fields[0])) {
+                return;
+            } else if("RUN".equals(fields[0]) && fields.length > 2) {
+                System.err.println("stub running " + fields[2]);
+                System.out.println("DONE " + run(new File(fields[1]), fields));
+            } else {
+                System.out.println("ERR unknown request " + fields[0]);
+            }
+        }
+    }
+
+    private static int run(File cwd, String[] fields) throws IOException, InterruptedException {
+        String cmd = fields[2];
+        if("scuc".equals(cmd)) {
+            FileWriter out = new FileWriter(new File(cwd, fields[6]));
+            out.write("scuc " + fields[4] + "\n");
+            out.close();
+            return 0;
+        } else if("fail".equals(cmd)) {
+            return 2;
+        } else if("crash".equals(cmd)) {
+            System.exit(3);
+        } else if("crash-once".equals(cmd)) {
+            File marker = new File(fields[3]);
+            if(marker.createNewFile()) {
+                System.exit(3);
+            }
+            return 0;
+        } else if("sleep".equals(cmd)) {
+            Thread.sleep(Long.parseLong(fields[3]));
+            return 0;
+        }
+        return 1;
+    }
+}
@@ -0,0 +1,179 @@
+/*
+ * FIXME: LICENSE
+ */
+
+package amesmarket;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Scanner;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import amesmarket.extern.psst.PSSTConfig;
+import amesmarket.extern.psst.PSSTWorker;
+
+/**
+ * {@link PSSTWorker} against the {@link PSSTWorkerStub} stand-in.
+ */
+public class PSSTWorkerTest {
+
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+
+    private PSSTWorker worker;
+
+    private PSSTWorker startWorker(long requestTimeout) {
+        String java = new File(new File(System.getProperty("java.home"), "bin"), "java").getPath();
+        worker = new PSSTWorker(PSSTConfig.createPSSTWorker(java, "-cp",
+                System.getProperty("java.class.path"), PSSTWorkerStub.class.getName()),
+                10000, requestTimeout);
+        return worker;
+    }
+
+    @After
+    public void tearDown() {
+        if(worker != null) {
+            worker.close();
+        }
+        PSSTWorker.closeAll();
+        System.clearProperty(PSSTWorker.PSST_WORKER_PROPERTY);
+        System.clearProperty(PSSTWorker.MAX_IDLE_PROPERTY);
+    }
+
+    private static String stubCommand() {
+        String java = new File(new File(System.getProperty("java.home"), "bin"), "java").getPath();
+        return java + " -cp " + System.getProperty("java.class.path") + " " + PSSTWorkerStub.class.getName();
+    }
+
+    /**
+     * Check out a worker, run a solve on it and give it back.
+     */
+    private static Callable<PSSTWorker> solve() {
+        return new Callable<PSSTWorker>() {
+            @Override
+            public PSSTWorker call() throws IOException {
+                PSSTWorker w = PSSTWorker.checkOut();
+                try {
+                    assertEquals(2, w.run(null, "fail"));
+                } finally {
+                    PSSTWorker.checkIn(w);
+                }
+                return w;
+            }
+        };
+    }
+
+    @Test
+    public void testPoolOutlivesThreads() throws Exception {
+        System.setProperty(PSSTWorker.PSST_WORKER_PROPERTY, stubCommand());
+        System.setProperty(PSSTWorker.MAX_IDLE_PROPERTY, "1");
+
+        //a new thread for each solve, as pool threads time out.
+        PSSTWorker first = null;
+        for(int i = 0; i < 2; i++) {
+            ExecutorService pool = Support.newWorkerPool("psst test " + i, 1);
+            try {
+                PSSTWorker w = pool.submit(solve()).get();
+                if(first == null) {
+                    first = w;
+                }
+                assertSame(first, w);
+            } finally {
+                pool.shutdownNow();
+            }
+        }
+        assertEquals(1, first.getStarts());
+        assertTrue(first.isRunning());
+        assertEquals(1, PSSTWorker.getIdleCount());
+
+        //a second worker is shut down when it is given back to a full pool.
+        PSSTWorker a = PSSTWorker.checkOut();
+        PSSTWorker b = PSSTWorker.checkOut();
+        assertSame(first, a);
+        assertNotSame(a, b);
+        assertEquals(2, b.run(null, "fail"));
+        assertTrue(b.isRunning());
+        PSSTWorker.checkIn(a);
+        PSSTWorker.checkIn(b);
+        assertFalse(b.isRunning());
+        assertTrue(a.isRunning());
+        assertEquals(1, PSSTWorker.getIdleCount());
+
+        PSSTWorker.closeAll();
+        assertFalse(a.isRunning());
+        assertEquals(0, PSSTWorker.getIdleCount());
+    }
+
+    @Test
+    public void testNoPoolWithoutProperty() {
+        System.clearProperty(PSSTWorker.PSST_WORKER_PROPERTY);
+        assertNull(PSSTWorker.checkOut());
+    }
+
+    @Test
+    public void testOneProcessForManySolves() throws IOException {
+        PSSTWorker w = startWorker(0);
+        File dir = tmp.getRoot();
+        for(int day = 0; day < 3; day++) {
+            assertEquals(0, w.run(dir, "scuc", "--data", "day" + day + ".dat",
+                    "--output", "xfertoames.dat"));
+            Scanner s = new Scanner(new File(dir, "xfertoames.dat"));
+            assertEquals("scuc day" + day + ".dat", s.nextLine());
+            s.close();
+        }
+        assertEquals(1, w.getStarts());
+        assertTrue(w.ping());
+
+        // a failed solve is an exit code, the worker keeps running
+        assertEquals(2, w.run(dir, "fail"));
+        assertEquals(1, w.getStarts());
+    }
+
+    @Test
+    public void testRestartAfterCrash() throws IOException {
+        PSSTWorker w = startWorker(0);
+        File marker = new File(tmp.getRoot(), "crashed");
+        assertEquals(0, w.run(null, "crash-once", marker.getPath()));
+        assertTrue(marker.exists());
+        assertEquals(2, w.getStarts());
+
+        try {
+            w.run(null, "crash");
+            fail("worker died twice");
+        } catch(IOException e) {
+            // expected
+        }
+        assertFalse(w.ping());
+
+        // the health check starts a new worker for the next request
+        assertEquals(2, w.run(null, "fail"));
+        assertTrue(w.ping());
+    }
+
+    @Test
+    public void testTimeout() throws IOException {
+        PSSTWorker w = startWorker(500);
+        try {
+            w.run(null, "sleep", "10000");
+            fail("request should time out");
+        } catch(IOException e) {
+            // expected
+        }
+        assertEquals(1, w.getStarts());
+        assertEquals(0, w.run(null, "sleep", "1"));
+        assertEquals(2, w.getStarts());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testFieldsCanNotHoldTabs() throws IOException {
+        startWorker(0).run(null, "scuc", "--data", "a\tb");
+    }
+}
@@ -0,0 +1,40 @@
+/*
+ * FIXME: LICENSE
+ */
+
+package amesmarket;
+
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * Stand-in for an external solver program.
+ *
+ * Arguments:
+ * <pre>
+ *   chatty lines    writes lines to stderr and then to stdout
+ *   exit code       exits with code
+ *   hang            never exits
+ *   hang-once file  never exits unless file exists
+ * </pre>
+ */
+public class ProcessRunnerStub {
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        String cmd = args[0];
+        if("chatty".equals(cmd)) {
+            int lines = Integer.parseInt(args[1]);
+            for(int i = 0; i < lines; i++) {
+                System.err.println("err " + i + " padding padding padding padding padding");
+            }
+            for(int i = 0; i < lines; i++) {
+                System.out.println("out " + i);
+            }
+        } else if("exit".equals(cmd)) {
+            System.exit(Integer.parseInt(args[1]));
+        } else if("hang".equals(cmd)
+                || ("hang-once".equals(cmd) && new File(args[1]).createNewFile())) {
+            Thread.sleep(Long.MAX_VALUE);
+        }
+    }
+}
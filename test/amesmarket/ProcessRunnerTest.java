@@ -0,0 +1,96 @@
+/*
+ * FIXME: LICENSE
+ */
+
+package amesmarket;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import amesmarket.extern.ProcessRunner;
+
+/**
+ * {@link ProcessRunner} against the {@link ProcessRunnerStub} stand-in.
+ */
+public class ProcessRunnerTest {
+
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+
+    private static ProcessBuilder stub(String... args) {
+        List<String> cmd = new ArrayList<String>();
+        cmd.add(new File(new File(System.getProperty("java.home"), "bin"), "java").getPath());
+        cmd.add("-cp");
+        cmd.add(System.getProperty("java.class.path"));
+        cmd.add(ProcessRunnerStub.class.getName());
+        cmd.addAll(Arrays.asList(args));
+        return new ProcessBuilder(cmd);
+    }
+
+    @Test
+    public void testChattyStderrDoesNotBlock() throws Exception {
+        // far more than a pipe buffer on stderr before anything on stdout
+        ProcessRunner runner = new ProcessRunner("stub", 30000, 0, 10);
+        ProcessRunner.Result res = runner.run(stub("chatty", "20000"));
+
+        assertEquals(0, res.exitCode);
+        assertEquals(1, res.attempts);
+        assertEquals(10, res.stdout.size());
+        assertEquals("out 19990", res.stdout.get(0));
+        assertEquals("out 19999", res.stdout.get(9));
+        assertTrue(res.stderr.get(9).startsWith("err 19999 "));
+    }
+
+    @Test
+    public void testExitCode() throws Exception {
+        ProcessRunner runner = new ProcessRunner("stub", 0, 1, 10);
+        ProcessRunner.Result res = runner.run(stub("exit", "3"));
+        assertEquals(3, res.exitCode);
+        // failures are not retried
+        assertEquals(1, res.attempts);
+        assertTrue(res.stdout.isEmpty());
+
+        runner.run(stub("exit", "0"));
+        assertEquals(2, runner.getCalls());
+        assertTrue(runner.getMaxMillis() >= runner.getLastMillis());
+        assertTrue(runner.getTotalMillis() >= runner.getMaxMillis());
+    }
+
+    @Test
+    public void testRetryAfterTimeout() throws Exception {
+        ProcessRunner runner = new ProcessRunner("stub", 2000, 1, 10);
+        File marker = new File(tmp.getRoot(), "hung");
+        ProcessRunner.Result res = runner.run(stub("hang-once", marker.getPath()));
+        assertEquals(0, res.exitCode);
+        assertEquals(2, res.attempts);
+        assertTrue(res.millis >= 2000);
+    }
+
+    @Test
+    public void testTimeout() throws Exception {
+        ProcessRunner runner = new ProcessRunner("stub", 1000, 1, 10);
+        try {
+            runner.run(stub("hang"));
+            fail("stub should time out");
+        } catch(ProcessRunner.TimeoutException e) {
+            assertTrue(e.getMessage().contains("2 times"));
+        }
+        assertEquals(1, runner.getCalls());
+        assertTrue(runner.getLastMillis() >= 2000);
+    }
+
+    @Test(expected = IOException.class)
+    public void testMissingProgram() throws Exception {
+        new ProcessRunner("missing", 0, 0, 10).run(
+                new ProcessBuilder(new File(tmp.getRoot(), "missing").getPath()));
+    }
+}
@@ -0,0 +1,201 @@
+/*
+ * FIXME: LICENSE
+ */
+
+package amesmarket;
+
+import static org.junit.Assert.*;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+import cern.colt.matrix.DoubleMatrix1D;
+import cern.colt.matrix.DoubleMatrix2D;
+import cern.colt.matrix.impl.DenseDoubleMatrix1D;
+import cern.colt.matrix.impl.DenseDoubleMatrix2D;
+
+/**
+ * Small economic dispatch problems for QuadProgJ.
+ *
+ * Three units with cost a_i*x_i + x_i^2 serve a load of 10:
+ * <pre>
+ *   min  10*x1 + 12*x2 + 30*x3 + x1^2 + x2^2 + x3^2
+ *   s.t. x1 + x2 + x3 = 10
+ *        0 &lt;= x1 &lt;= 3, 0 &lt;= x2 &lt;= 10, 0 &lt;= x3 &lt;= 10
+ * </pre>
+ * The optimum is x = (3, 7, 0) with x1 at its upper limit and x3 at its
+ * lower limit.
+ */
+public class QuadProgJTest {
+
+    private static final double EPS = 1e-9;
+
+    /** Column of C for x3 &gt;= 0. */
+    private static final int X3_LOWER = 3;
+    /** Column of C for x1 &lt;= 3. */
+    private static final int X1_UPPER = 4;
+    /** Column of C for x2 &gt;= 0. */
+    private static final int X2_LOWER = 2;
+
+    private static final double[] OPTIMUM = {3, 7, 0};
+
+    @Test
+    public void testColdStart() {
+        QuadProgJ qp = solve(null);
+        assertTrue(qp.getIsFeasibleAndOptimal());
+        assertFalse(qp.getIsWarmStarted());
+        assertArrayEquals(OPTIMUM, qp.getMinX(), EPS);
+        assertEquals(2, qp.getNumBC());
+    }
+
+    @Test
+    public void testWarmStartFromOptimalActiveSet() {
+        QuadProgJ cold = solve(null);
+        QuadProgJ warm = solve(cold.getActiveSet());
+
+        assertTrue(warm.getIsFeasibleAndOptimal());
+        assertTrue(warm.getIsWarmStarted());
+        assertArrayEquals(cold.getMinX(), warm.getMinX(), EPS);
+        assertArrayEquals(cold.getEqMultipliers(), warm.getEqMultipliers(), EPS);
+        assertEquals(cold.getMinF(), warm.getMinF(), EPS);
+        assertEquals(0, warm.getNumIterations());
+        assertTrue(warm.getNumIterations() < cold.getNumIterations());
+    }
+
+    @Test
+    public void testWarmStartFromPartialActiveSet() {
+        QuadProgJ warm = solve(new int[]{X1_UPPER});
+
+        assertTrue(warm.getIsFeasibleAndOptimal());
+        assertTrue(warm.getIsWarmStarted());
+        assertArrayEquals(OPTIMUM, warm.getMinX(), EPS);
+        assertEquals(1, warm.getNumIterations());
+    }
+
+    @Test
+    public void testDualInfeasibleHintFallsBackToColdStart() {
+        //holding x2 at zero needs a negative multiplier.
+        QuadProgJ qp = solve(new int[]{X2_LOWER, X3_LOWER});
+
+        assertTrue(qp.getIsFeasibleAndOptimal());
+        assertFalse(qp.getIsWarmStarted());
+        assertArrayEquals(OPTIMUM, qp.getMinX(), EPS);
+    }
+
+    @Test
+    public void testHintWithoutInequalitiesIsIgnored() {
+        //equality constraints and unknown indices are not part of the hint.
+        QuadProgJ qp = solve(new int[]{0, 42, -1});
+
+        assertFalse(qp.getIsWarmStarted());
+        assertArrayEquals(OPTIMUM, qp.getMinX(), EPS);
+    }
+
+    /**
+     * Random problems large enough to add and drop many constraints. The
+     * solution has to satisfy the KKT conditions, cold or warm started.
+     */
+    @Test
+    public void testRandomProblemsSatisfyKKTConditions() {
+        Random rnd = new Random(7);
+        int numDropped = 0;
+        for(int trial = 0; trial < 25; trial++) {
+            int n = 5 + rnd.nextInt(30);
+            int meq = rnd.nextInt(n / 3);
+            int miq = 2 * n + rnd.nextInt(n);
+
+            DoubleMatrix2D M = randomMatrix(rnd, n, n);
+            DoubleMatrix2D G = M.zMult(M.viewDice(), null);
+            for(int i = 0; i < n; i++) {
+                G.setQuick(i, i, G.getQuick(i, i) + 1);
+            }
+            DoubleMatrix1D a = new DenseDoubleMatrix1D(n);
+            for(int i = 0; i < n; i++) {
+                a.setQuick(i, 10 * rnd.nextGaussian());
+            }
+            DoubleMatrix2D Ceq = randomMatrix(rnd, n, meq);
+            DoubleMatrix1D beq = new DenseDoubleMatrix1D(meq);
+            for(int j = 0; j < meq; j++) {
+                beq.setQuick(j, rnd.nextGaussian());
+            }
+            DoubleMatrix2D Ciq = randomMatrix(rnd, n, miq);
+            DoubleMatrix1D biq = new DenseDoubleMatrix1D(miq);
+            for(int j = 0; j < miq; j++) {
+                biq.setQuick(j, -1 - 3 * rnd.nextDouble());
+            }
+
+            QuadProgJ cold = new QuadProgJ(G, a, Ceq, beq, Ciq, biq);
+            assertKKT(cold, G, a, Ceq, beq, Ciq, biq);
+            numDropped += cold.getNumConstraintsDropped();
+
+            QuadProgJ warm = new QuadProgJ(G, a, Ceq, beq, Ciq, biq, cold.getActiveSet());
+            assertKKT(warm, G, a, Ceq, beq, Ciq, biq);
+            assertArrayEquals(cold.getMinX(), warm.getMinX(), 1e-8);
+        }
+        assertTrue("no constraint was ever dropped", numDropped > 0);
+    }
+
+    private static void assertKKT(QuadProgJ qp, DoubleMatrix2D G, DoubleMatrix1D a,
+            DoubleMatrix2D Ceq, DoubleMatrix1D beq, DoubleMatrix2D Ciq, DoubleMatrix1D biq) {
+        final double tol = 1e-7;
+        assertTrue(qp.getIsFeasibleAndOptimal());
+        DoubleMatrix1D x = new DenseDoubleMatrix1D(qp.getMinX());
+
+        // primal feasibility
+        DoubleMatrix1D seq = Ceq.viewDice().zMult(x, null);
+        for(int j = 0; j < seq.size(); j++) {
+            assertEquals(beq.getQuick(j), seq.getQuick(j), tol);
+        }
+        DoubleMatrix1D siq = Ciq.viewDice().zMult(x, null);
+        double[] lambda = qp.getIneqMultipiers();
+        for(int j = 0; j < siq.size(); j++) {
+            double slack = siq.getQuick(j) - biq.getQuick(j);
+            assertTrue(slack > -tol);
+            // dual feasibility and complementary slackness
+            assertTrue(lambda[j] > -tol);
+            assertEquals(0, lambda[j] * slack, tol);
+        }
+
+        // stationarity: G*x + a = Ceq*mu + Ciq*lambda
+        DoubleMatrix1D grad = G.zMult(x, null);
+        grad.assign(a, cern.jet.math.Functions.plus);
+        if(Ceq.columns() > 0) {
+            grad.assign(Ceq.zMult(new DenseDoubleMatrix1D(qp.getEqMultipliers()), null),
+                    cern.jet.math.Functions.minus);
+        }
+        grad.assign(Ciq.zMult(new DenseDoubleMatrix1D(lambda), null),
+                cern.jet.math.Functions.minus);
+        for(int i = 0; i < grad.size(); i++) {
+            assertEquals(0, grad.getQuick(i), 1e-6 * (1 + Math.abs(a.getQuick(i))));
+        }
+    }
+
+    private static DoubleMatrix2D randomMatrix(Random rnd, int rows, int cols) {
+        DoubleMatrix2D m = new DenseDoubleMatrix2D(rows, cols);
+        for(int i = 0; i < rows; i++) {
+            for(int j = 0; j < cols; j++) {
+                m.setQuick(i, j, rnd.nextGaussian());
+            }
+        }
+        return m;
+    }
+
+    private static QuadProgJ solve(int[] activeSetHint) {
+        DoubleMatrix2D G = new DenseDoubleMatrix2D(new double[][]{
+                {2, 0, 0},
+                {0, 2, 0},
+                {0, 0, 2}});
+        DoubleMatrix1D a = new DenseDoubleMatrix1D(new double[]{10, 12, 30});
+        DoubleMatrix2D Ceq = new DenseDoubleMatrix2D(new double[][]{{1}, {1}, {1}});
+        DoubleMatrix1D beq = new DenseDoubleMatrix1D(new double[]{10});
+        // lower limits x_i >= 0, then upper limits -x_i >= -capU_i
+        DoubleMatrix2D Ciq = new DenseDoubleMatrix2D(new double[][]{
+                {1, 0, 0, -1,  0,  0},
+                {0, 1, 0,  0, -1,  0},
+                {0, 0, 1,  0,  0, -1}});
+        DoubleMatrix1D biq = new DenseDoubleMatrix1D(new double[]{0, 0, 0, -3, -10, -10});
+
+        return new QuadProgJ(G, a, Ceq, beq, Ciq, biq, activeSetHint);
+    }
+}
@@ -0,0 +1,196 @@
+/*
+ * FIXME: LICENSE
+ */
+
+package amesmarket;
+
+import static org.junit.Assert.*;
+
+import java.io.BufferedReader;
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.zip.GZIPInputStream;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import amesmarket.results.BinaryResultSink;
+import amesmarket.results.CsvResultSink;
+import amesmarket.results.IntResultList;
+import amesmarket.results.ResultList;
+import amesmarket.results.ResultStore;
+import amesmarket.results.ResultTable;
+
+/**
+ * Daily results kept in a {@link ResultStore}.
+ */
+public class ResultStoreTest {
+
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+
+    @Test
+    public void testHeap() throws Exception {
+        checkStore(new ResultStore(ResultStore.Mode.HEAP, tmp.getRoot()));
+    }
+
+    @Test
+    public void testDirect() throws Exception {
+        checkStore(new ResultStore(ResultStore.Mode.DIRECT, tmp.getRoot()));
+    }
+
+    @Test
+    public void testMapped() throws Exception {
+        checkStore(new ResultStore(ResultStore.Mode.MAPPED, tmp.newFolder("results")));
+    }
+
+    @Test
+    public void testShorterColumns() {
+        ResultTable t = new ResultStore(ResultStore.Mode.HEAP, tmp.getRoot()).newTable("psd");
+        t.append(new double[][]{{1, 2, 3}, {4, 5}}, 2);
+        assertEquals(2, t.getCols(0));
+        assertArrayEquals(new double[]{4, 5}, t.getDay(0)[1], 0);
+
+        try {
+            t.append(new double[][]{{1, 2, 3}, {4, 5}});
+            fail("second row is too short");
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+        assertEquals(1, t.size());
+    }
+
+    @Test
+    public void testIntList() {
+        IntResultList l = new IntResultList(
+                new ResultStore(ResultStore.Mode.DIRECT, tmp.getRoot()).newTable("hasSolution"));
+        l.add(new int[]{1, 0, 1});
+        l.add(new int[]{0, 0});
+        assertEquals(2, l.size());
+        assertArrayEquals(new int[]{1, 0, 1}, l.get(0));
+        assertArrayEquals(new int[]{0, 0}, l.get(1));
+        assertEquals(1, l.get(0, 2));
+    }
+
+    @Test
+    public void testRetention() throws Exception {
+        ResultStore store = new ResultStore(ResultStore.Mode.MAPPED, tmp.newFolder("retain"), 3);
+        ResultList l = new ResultList(store.newTable("flows"));
+        for (int d = 0; d < 5000; d++) {
+            l.add(new double[][]{{d, d}, {-d, -d}});
+        }
+        assertEquals(3, l.size());
+        assertEquals(4997, l.getEvicted());
+        assertEquals(4997, l.get(0, 0, 1), 0);
+        assertEquals(-4999, l.get(2, 1, 0), 0);
+        assertArrayEquals(new double[]{4998, 4998}, l.get(1)[0], 0);
+    }
+
+    @Test
+    public void testSinks() throws Exception {
+        File dir = tmp.newFolder("sinks");
+        ResultStore store = new ResultStore(ResultStore.Mode.HEAP, tmp.getRoot(), 1);
+        CsvResultSink csv = new CsvResultSink(dir, false);
+        BinaryResultSink bin = new BinaryResultSink(dir, true);
+        store.addSink(csv);
+        store.addSink(bin);
+
+        ResultTable t = store.newTable("lmp");
+        t.append(new double[][]{{1.5, 2}, {3, 4}});
+        store.endDay(1);
+        t.append(new double[][]{{5, 6, 7}}, 1);
+        store.endDay(2);
+        t.append(new double[][]{{0.1}});
+        store.close();
+        assertEquals(1, t.size());
+
+        BufferedReader r = new BufferedReader(new InputStreamReader(
+                new FileInputStream(csv.getFile("lmp")), "US-ASCII"));
+        assertEquals("day,index,row,values", r.readLine());
+        assertEquals("1,0,0,1.5,2.0", r.readLine());
+        assertEquals("1,0,1,3.0,4.0", r.readLine());
+        assertEquals("2,1,0,5.0", r.readLine());
+        assertEquals("3,2,0,0.1", r.readLine());
+        assertNull(r.readLine());
+        r.close();
+
+        //a gzip member per day, read back as one stream.
+        File f = bin.getFile("lmp");
+        assertTrue(f.getName().endsWith(".bin.gz"));
+        InputStream in = new GZIPInputStream(new FileInputStream(f));
+        byte[] bytes = new byte[12 + 16 + 32 + 16 + 8 + 16 + 8];
+        new DataInputStream(in).readFully(bytes);
+        assertEquals(-1, in.read());
+        in.close();
+        ByteBuffer buf = ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN);
+        buf.position(8);
+        assertEquals(BinaryResultSink.VERSION, buf.getInt());
+        assertEquals(1, buf.getInt());
+        assertEquals(0, buf.getInt());
+        assertEquals(2, buf.getInt());
+        assertEquals(2, buf.getInt());
+        assertEquals(1.5, buf.getDouble(), 0);
+        buf.position(buf.position() + 24);
+        assertEquals(2, buf.getInt());
+        assertEquals(1, buf.getInt());
+        assertEquals(1, buf.getInt());
+        assertEquals(1, buf.getInt());
+        assertEquals(5, buf.getDouble(), 0);
+        assertEquals(3, buf.getInt());
+    }
+
+    private static void checkStore(ResultStore store) {
+        ResultList l = new ResultList(store.newTable("lmp"));
+        assertTrue(l.isEmpty());
+
+        //enough days to need several buffers.
+        int days = 2000;
+        for (int d = 0; d < days; d++) {
+            double[][] v = new double[24][1 + d % 5];
+            for (int h = 0; h < v.length; h++) {
+                for (int i = 0; i < v[h].length; i++) {
+                    v[h][i] = d * 1000 + h * 10 + i;
+                }
+            }
+            l.add(v);
+            v[0][0] = -1; //days are copied in
+        }
+
+        assertEquals(days, l.size());
+        for (int d = 0; d < days; d += 37) {
+            double[][] v = l.get(d);
+            assertEquals(24, v.length);
+            assertEquals(1 + d % 5, v[0].length);
+            assertEquals(1 + d % 5, l.getCols(d));
+            assertEquals(24, l.getRows(d));
+            assertEquals(d * 1000, v[0][0], 0);
+            assertEquals(d * 1000 + 230 + d % 5, v[23][d % 5], 0);
+            assertEquals(d * 1000 + 120, l.get(d, 12, 0), 0);
+        }
+
+        int n = 0;
+        for (double[][] v : l) {
+            assertEquals(n * 1000 + 10, v[1][0], 0);
+            n++;
+        }
+        assertEquals(days, n);
+
+        try {
+            l.get(days);
+            fail("past the last day");
+        } catch (IndexOutOfBoundsException e) {
+            // expected
+        }
+
+        l.clear();
+        assertEquals(0, l.size());
+        l.add(new double[][]{{7}});
+        assertEquals(7, l.get(0, 0, 0), 0);
+    }
+}
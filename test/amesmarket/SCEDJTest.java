@@ -0,0 +1,211 @@
+/*
+ * FIXME: LICENSE
+ */
+
+package amesmarket;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Test;
+
+import amesmarket.SimulationStatusListener.StatusEvent;
+import amesmarket.extern.common.CommitmentDecision;
+
+/**
+ * Real time costs of {@link SCEDJ}, and its dispatch in a market run of
+ * the 8 bus case.
+ *
+ * Before the real time market of day 2 runs, one GenCo is taken out of
+ * the real time schedule for a few hours and every GenCo for one hour.
+ */
+public class SCEDJTest {
+
+    private static final int H = 6;
+
+    private static final File CASE = new File("DATA/8BusTestCase_8gen.dat");
+    private static final int DAY = 2;
+    private static final int GENCO = 3;
+    private static final int[] OFF_HOURS = {5, 6, 7};
+    private static final int DARK_HOUR = 12;
+
+    @Test
+    public void testProductionCost() {
+        double[][] dispatch = new double[H][2];
+        for (int h=0; h<H; h++) {
+            dispatch[h][1] = 10*h;
+        }
+        double[][] production = new double[H][2];
+        double[][] startup = new double[H][2];
+        double[][] shutdown = new double[H][2];
+
+        SCEDJ.computeCosts(1, unit(1, 3), new int[]{1, 1, 0, 0, 1, 1}, dispatch,
+                production, startup, shutdown);
+
+        assertArrayEquals(new double[]{100, 170, 0, 0, 980, 1450}, column(production, 1), 1e-9);
+        assertArrayEquals(new double[H], column(production, 0), 0);
+        //on before the day, off for 2 hours: more than the minimum down time
+        assertArrayEquals(new double[]{0, 0, 0, 0, 50, 0}, column(startup, 1), 0);
+        assertArrayEquals(new double[]{0, 0, 7, 0, 0, 0}, column(shutdown, 1), 0);
+    }
+
+    @Test
+    public void testHotStart() {
+        double[][] dispatch = new double[H][1];
+        double[][] production = new double[H][1];
+        double[][] startup = new double[H][1];
+        double[][] shutdown = new double[H][1];
+
+        //off for 2 hours before the day, 3 in all: not more than 3
+        SCEDJ.computeCosts(0, unit(3, -2), new int[]{0, 1, 1, 0, 0, 0}, dispatch,
+                production, startup, shutdown);
+        assertArrayEquals(new double[]{0, 10, 0, 0, 0, 0}, column(startup, 0), 0);
+        assertArrayEquals(new double[]{0, 0, 0, 7, 0, 0}, column(shutdown, 0), 0);
+
+        //off for 3 hours before the day, 4 in all: cold
+        startup = new double[H][1];
+        SCEDJ.computeCosts(0, unit(3, -3), new int[]{0, 1, 1, 0, 0, 0}, dispatch,
+                production, startup, shutdown);
+        assertArrayEquals(new double[]{0, 50, 0, 0, 0, 0}, column(startup, 0), 0);
+    }
+
+    @After
+    public void tearDown() {
+        System.clearProperty(BUC.OPF_THREADS_PROPERTY);
+    }
+
+    @Test
+    public void testDispatchSerial() throws Exception {
+        checkRealTime(runDay(1));
+    }
+
+    @Test
+    public void testDispatchParallel() throws Exception {
+        checkRealTime(runDay(4));
+    }
+
+    @Test
+    public void testSerialAndParallelAgree() throws Exception {
+        Snapshot serial = runDay(1);
+        Snapshot parallel = runDay(4);
+        assertArrayEquals(serial.hasSolution, parallel.hasSolution);
+        for (int h = 0; h < serial.dispatch.length; h++) {
+            assertArrayEquals(serial.dispatch[h], parallel.dispatch[h], 1e-6);
+        }
+    }
+
+    private static void checkRealTime(Snapshot s) {
+        for (int h = 0; h < s.dispatch.length; h++) {
+            if (h == DARK_HOUR) {
+                //nothing committed, more load than capacity.
+                assertEquals(0, s.hasSolution[h]);
+                assertArrayEquals(new double[s.dispatch[h].length], s.dispatch[h], 0);
+                assertArrayEquals(new double[s.lmp[h].length], s.lmp[h], 0);
+                assertArrayEquals(new double[s.branchFlow[h].length], s.branchFlow[h], 0);
+                continue;
+            }
+
+            assertEquals("hour " + h, 1, s.hasSolution[h]);
+            double supply = 0, load = 0;
+            for (double p : s.dispatch[h]) {
+                supply += p;
+            }
+            for (double l : s.load[h]) {
+                load += l;
+            }
+            assertTrue("no load in hour " + h, load > 0);
+            assertEquals("hour " + h, load, supply, 1e-3 * load);
+        }
+
+        for (int h : OFF_HOURS) {
+            assertEquals("hour " + h, 0, s.dispatch[h][GENCO], 0);
+        }
+        assertTrue(s.dispatch[0][GENCO] > 0);
+    }
+
+    /**
+     * Run the case to the end of day 2 with the in-JVM SCUC and SCED.
+     */
+    private static Snapshot runDay(int opfThreads) throws Exception {
+        System.setProperty(BUC.OPF_THREADS_PROPERTY, Integer.toString(opfThreads));
+
+        HeadlessRunner runner = new HeadlessRunner(CASE);
+        runner.setMaxDay(DAY);
+        runner.setSCUC("scucj");
+        runner.setSCED("dcopfj");
+        final AMESMarket market = runner.createMarket(runner.loadCase(), 1);
+        final Snapshot snapshot = new Snapshot();
+        market.addStatusListener(new SimulationStatusListener() {
+            @Override
+            public void receiveStatusEvent(StatusEvent evt) {
+                int hour = (Integer) evt.value;
+                if (market.getDay() != DAY) {
+                    return;
+                }
+                if (hour == 0) {
+                    changeSchedule(market.getISO().getGenScheduleRT());
+                } else if (hour == 1) {
+                    snapshot.take(market);
+                }
+            }
+        }, StatusEvent.UPDATE_HOUR);
+
+        market.runHeadless();
+        assertFalse(market.hasStopCodeError());
+        assertNotNull("no real time results", snapshot.dispatch);
+        assertFalse("working directory left behind", market.getWorkDir().getDir().exists());
+        return snapshot;
+    }
+
+    private static void changeSchedule(List<CommitmentDecision> schedule) {
+        for (CommitmentDecision cd : schedule) {
+            if (cd.generatorIdx == GENCO) {
+                for (int h : OFF_HOURS) {
+                    cd.commitmentDecisions[h] = 0;
+                }
+            }
+            cd.commitmentDecisions[DARK_HOUR] = 0;
+        }
+    }
+
+    private static class Snapshot {
+        int[] hasSolution;
+        double[][] dispatch, lmp, branchFlow, load;
+
+        void take(AMESMarket market) {
+            RTMarket rtm = market.getISO().getRTMarket();
+            hasSolution = rtm.hasSolution();
+            dispatch = rtm.getRtDispatches();
+            lmp = rtm.getRtLMPs();
+            branchFlow = rtm.getRtBranchFlow();
+            load = new double[dispatch.length][market.getNumLSEAgents()];
+            try {
+                for (int h = 0; h < load.length; h++) {
+                    market.getISO().getActualLoadProfile(h, DAY, load[h]);
+                }
+            } catch (AMESMarketException e) {
+                throw new AssertionError(e);
+            }
+        }
+    }
+
+    /**
+     * GenCo with cost 100 + 2p + 0.5p^2, hot start 10, cold start 50 and
+     * shutdown 7.
+     */
+    private static SCUCJ.Unit unit(int minDownTime, int initialState) {
+        return new SCUCJ.Unit(2, 0.5, 100, 0, 100, 1, minDownTime, 0, 0, 0, 0,
+                10, 50, 7, initialState, 0);
+    }
+
+    private static double[] column(double[][] a, int c) {
+        double[] col = new double[a.length];
+        for (int r=0; r<a.length; r++) {
+            col[r] = a[r][c];
+        }
+        return col;
+    }
+}
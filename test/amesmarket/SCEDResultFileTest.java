@@ -0,0 +1,132 @@
+/*
+ * FIXME: LICENSE
+ */
+
+package amesmarket;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import amesmarket.extern.psst.SCEDResultFile;
+import amesmarket.filereaders.BadDataFileFormatException;
+
+/**
+ * Binary SCED results, as written by 'psst sced --format binary'.
+ */
+public class SCEDResultFileTest {
+
+    private static final int T = 3;
+    private static final int K = 2;
+
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+
+    @Test
+    public void testReadSections() throws Exception {
+        File f = writeResults(tmp.newFile("RTSCED.dat"), Integer.MAX_VALUE);
+        assertTrue(SCEDResultFile.isBinary(f));
+
+        SCEDResultFile res = new SCEDResultFile(f);
+        assertEquals(T, res.getNumPeriods());
+        assertEquals(K, res.getNumBuses());
+        assertArrayEquals(new String[]{"GenCo2", "GenCo1"}, res.getGenCoNames());
+
+        double[][] lmp = new double[T][K];
+        res.readLMP(lmp);
+        assertEquals(10, lmp[0][0], 0);
+        assertEquals(31, lmp[2][1], 0);
+
+        double[][] angles = new double[T][K + 1];
+        res.readVoltageAngles(angles, 1);
+        assertEquals(0, angles[1][0], 0);
+        assertEquals(-0.5, angles[1][1], 0);
+        assertEquals(-1.5, angles[1][2], 0);
+
+        double[][] power = new double[T][2];
+        double[][] production = new double[T][2];
+        double[][] startup = new double[T][2];
+        double[][] shutdown = new double[T][2];
+        res.readGenCo(0, 1, power, production, startup, shutdown);
+        res.readGenCo(1, 0, power, production, startup, shutdown);
+        assertEquals(1.0, power[0][1], 0);
+        assertEquals(2.2, production[2][1], 1e-9);
+        assertEquals(104.0, shutdown[0][0], 0);
+        assertEquals(1.2, power[2][0] - 100, 1e-9);
+
+        int[] hasSolution = new int[T];
+        res.readHasSolution(hasSolution);
+        assertArrayEquals(new int[]{1, 0, 1}, hasSolution);
+
+        try {
+            res.readLMP(new double[T][K - 1]);
+            fail("LMPs do not fit");
+        } catch (BadDataFileFormatException e) {
+            // expected
+        }
+    }
+
+    @Test
+    public void testTextIsNotBinary() throws IOException {
+        File f = tmp.newFile("RTSCED.dat");
+        PrintWriter w = new PrintWriter(f);
+        w.println("LMP");
+        w.println("END_LMP");
+        w.close();
+        assertFalse(SCEDResultFile.isBinary(f));
+        assertFalse(SCEDResultFile.isBinary(tmp.newFile("empty.dat")));
+    }
+
+    @Test(expected = BadDataFileFormatException.class)
+    public void testTruncated() throws Exception {
+        new SCEDResultFile(writeResults(tmp.newFile("RTSCED.dat"), 100));
+    }
+
+    /**
+     * Write a file with two GenCos, stored in reverse order, and keep
+     * at most maxLen bytes of it.
+     */
+    private static File writeResults(File f, int maxLen) throws IOException {
+        ByteBuffer b = ByteBuffer.allocate(4096).order(ByteOrder.LITTLE_ENDIAN);
+        b.put("PSSTSCED".getBytes("US-ASCII"));
+        b.putInt(SCEDResultFile.VERSION).putInt(T).putInt(K).putInt(2).putInt(T);
+        for(String name : new String[]{"GenCo2", "GenCo1"}) {
+            b.putInt(name.length()).put(name.getBytes("US-ASCII"));
+        }
+        while(b.position() % 8 != 0) {
+            b.put((byte) 0);
+        }
+        for(int t = 0; t < T; t++) {
+            for(int k = 0; k < K; k++) {
+                b.putDouble(10 * (t + 1) + k);
+            }
+        }
+        for(int t = 0; t < T; t++) {
+            for(int k = 0; k < K; k++) {
+                b.putDouble(-t * (k + 0.5));
+            }
+        }
+        for(int g = 0; g < 2; g++) {
+            for(int v = 0; v < 4; v++) {
+                for(int t = 0; t < T; t++) {
+                    b.putDouble(100 * g + v + 1 + t / 10.0);
+                }
+            }
+        }
+        b.putInt(1).putInt(0).putInt(1);
+
+        FileOutputStream out = new FileOutputStream(f);
+        out.write(b.array(), 0, Math.min(b.position(), maxLen));
+        out.close();
+        return f;
+    }
+}
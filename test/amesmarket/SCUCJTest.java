@@ -0,0 +1,148 @@
+/*
+ * FIXME: LICENSE
+ */
+
+package amesmarket;
+
+import static org.junit.Assert.*;
+
+import java.util.Arrays;
+
+import org.junit.Test;
+
+/**
+ * Unit commitment of a cheap base load unit and an expensive peaker.
+ */
+public class SCUCJTest {
+
+    private static final double EPS = 1e-6;
+    private static final int H = 24;
+
+    /** 300MW base load unit, on for 10 hours at 200MW. */
+    private static SCUCJ.Unit baseUnit(double rampUp) {
+        return new SCUCJ.Unit(10, 0.01, 100, 50, 300, 1, 1, rampUp, rampUp, 0, 0,
+                0, 0, 0, 10, 200);
+    }
+
+    /** 100MW peaker, off for 10 hours. */
+    private static SCUCJ.Unit peaker(int minUpTime, double startupCost) {
+        return new SCUCJ.Unit(40, 0.01, 50, 10, 100, minUpTime, 1, 0, 0, 0, 0,
+                startupCost, startupCost, 0, -10, 0);
+    }
+
+    private static double[] flat(double value) {
+        double[] profile = new double[H];
+        Arrays.fill(profile, value);
+        return profile;
+    }
+
+    private static double[] peakProfile() {
+        double[] demand = flat(200);
+        for(int t = 10; t <= 13; t++) {
+            demand[t] = 350;
+        }
+        return demand;
+    }
+
+    @Test
+    public void testPeakerOnlyCoversThePeak() {
+        double[] demand = peakProfile();
+        SCUCJ.Solution s = SCUCJ.solve(new SCUCJ.Unit[]{baseUnit(0), peaker(1, 0)},
+                demand, flat(0), 100);
+
+        assertTrue(s.feasible);
+        for(int t = 0; t < H; t++) {
+            assertEquals(1, s.commitment[0][t]);
+            assertEquals("hour " + t, t >= 10 && t <= 13 ? 1 : 0, s.commitment[1][t]);
+        }
+        assertBalanced(s, demand);
+        assertTrue(s.totalCost >= s.lowerBound - EPS);
+    }
+
+    @Test
+    public void testMinimumUpTime() {
+        double[] demand = peakProfile();
+        SCUCJ.Solution s = SCUCJ.solve(new SCUCJ.Unit[]{baseUnit(0), peaker(6, 0)},
+                demand, flat(0), 100);
+
+        assertTrue(s.feasible);
+        int first = -1, last = -1;
+        for(int t = 0; t < H; t++) {
+            if(s.commitment[1][t] == 1) {
+                if(first < 0) first = t;
+                last = t;
+            }
+        }
+        assertTrue(first <= 10 && last >= 13);
+        assertTrue(last - first + 1 >= 6);
+        for(int t = first; t <= last; t++) {
+            assertEquals(1, s.commitment[1][t]);
+        }
+        assertBalanced(s, demand);
+    }
+
+    @Test
+    public void testStartupCostKeepsUnitOn() {
+        // two peaks two hours apart, cheaper to keep the peaker on in between
+        double[] demand = peakProfile();
+        demand[16] = demand[17] = 350;
+        SCUCJ.Solution s = SCUCJ.solve(new SCUCJ.Unit[]{baseUnit(0), peaker(1, 5000)},
+                demand, flat(0), 100);
+
+        assertTrue(s.feasible);
+        for(int t = 10; t <= 17; t++) {
+            assertEquals("hour " + t, 1, s.commitment[1][t]);
+        }
+        assertBalanced(s, demand);
+    }
+
+    @Test
+    public void testReserveRequirement() {
+        double[] demand = flat(200);
+        SCUCJ.Solution s = SCUCJ.solve(new SCUCJ.Unit[]{baseUnit(0), peaker(1, 0)},
+                demand, flat(150), 100);
+
+        assertTrue(s.feasible);
+        for(int t = 0; t < H; t++) {
+            assertEquals(1, s.commitment[1][t]);
+            // only the reserve needs the peaker, it runs at its minimum
+            assertEquals(10, s.dispatch[1][t], 1e-4);
+        }
+        assertBalanced(s, demand);
+    }
+
+    @Test
+    public void testRampLimit() {
+        // the base unit can not get from 200MW to 300MW in one hour
+        double[] demand = flat(200);
+        demand[5] = 300;
+        SCUCJ.Solution s = SCUCJ.solve(new SCUCJ.Unit[]{baseUnit(40), peaker(1, 0)},
+                demand, flat(0), 100);
+
+        assertTrue(s.feasible);
+        assertEquals(1, s.commitment[1][5]);
+        double previous = 200;
+        for(int t = 0; t < H; t++) {
+            assertTrue(Math.abs(s.dispatch[0][t] - previous) <= 40 + 1e-6);
+            previous = s.dispatch[0][t];
+        }
+        assertBalanced(s, demand);
+
+        SCUCJ.Solution unlimited = SCUCJ.solve(new SCUCJ.Unit[]{baseUnit(0), peaker(1, 0)},
+                demand, flat(0), 100);
+        assertEquals(0, unlimited.commitment[1][5]);
+    }
+
+    private static void assertBalanced(SCUCJ.Solution s, double[] demand) {
+        for(int t = 0; t < demand.length; t++) {
+            double supplied = 0;
+            for(int i = 0; i < s.dispatch.length; i++) {
+                supplied += s.dispatch[i][t];
+                if(s.commitment[i][t] == 0) {
+                    assertEquals(0, s.dispatch[i][t], 0);
+                }
+            }
+            assertEquals("hour " + t, demand[t], supplied, 1e-4);
+        }
+    }
+}
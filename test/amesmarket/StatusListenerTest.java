@@ -0,0 +1,88 @@
+/*
+ * FIXME: LICENSE
+ */
+
+package amesmarket;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+import org.junit.Test;
+
+import amesmarket.SimulationStatusListener.StatusEvent;
+import amesmarket.results.ResultStore;
+
+/**
+ * Subscribing to the {@link StatusEvent}s of a market.
+ */
+public class StatusListenerTest {
+
+    private static class Recorder implements SimulationStatusListener {
+        final List<Integer> types = new ArrayList<Integer>();
+
+        @Override
+        public void receiveStatusEvent(StatusEvent evt) {
+            types.add(evt.eventType);
+        }
+    }
+
+    private static AMESMarket newMarket() {
+        return new AMESMarket(true, new ResultStore(ResultStore.Mode.HEAP, null));
+    }
+
+    @Test
+    public void testSubscribeByType() {
+        AMESMarket m = newMarket();
+        assertFalse(m.hasStatusListeners());
+        assertFalse(m.hasStatusListeners(StatusEvent.UPDATE_LMPS));
+
+        Recorder all = new Recorder();
+        Recorder time = new Recorder();
+        m.addStatusListener(all);
+        m.addStatusListener(time, StatusEvent.UPDATE_DAY, StatusEvent.UPDATE_HOUR);
+        assertTrue(m.hasStatusListeners(StatusEvent.UPDATE_LMPS));
+
+        m.announceStatusEvent(new StatusEvent(StatusEvent.UPDATE_DAY, 1, this));
+        m.announceStatusEvent(new StatusEvent(StatusEvent.UPDATE_LMPS, new double[1], this));
+        m.announceStatusEvent(new StatusEvent(99, null, this));
+        assertEquals(3, all.types.size());
+        assertEquals(1, time.types.size());
+        assertEquals(StatusEvent.UPDATE_DAY, (int) time.types.get(0));
+
+        m.removeStatusListener(all);
+        assertFalse(m.hasStatusListeners(StatusEvent.UPDATE_LMPS));
+        assertTrue(m.hasStatusListeners(StatusEvent.UPDATE_HOUR));
+        m.removeStatusListener(time);
+        assertFalse(m.hasStatusListeners());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testUnknownType() {
+        newMarket().addStatusListener(new Recorder(), 0);
+    }
+
+    @Test
+    public void testAsync() {
+        final List<Runnable> queued = new ArrayList<Runnable>();
+        Recorder r = new Recorder();
+        AMESMarket m = newMarket();
+        m.addStatusListener(new AsyncStatusListener(r, new Executor() {
+            @Override
+            public void execute(Runnable task) {
+                queued.add(task);
+            }
+        }));
+
+        m.announceStatusEvent(new StatusEvent(StatusEvent.UPDATE_HOUR, 3, this));
+        m.announceStatusEvent(new StatusEvent(StatusEvent.UPDATE_COSTS, null, this));
+        assertTrue(r.types.isEmpty());
+        for (Runnable task : queued) {
+            task.run();
+        }
+        assertEquals(StatusEvent.UPDATE_HOUR, (int) r.types.get(0));
+        assertEquals(StatusEvent.UPDATE_COSTS, (int) r.types.get(1));
+    }
+}
@@ -0,0 +1,99 @@
+/*
+ * FIXME: LICENSE
+ */
+
+package amesmarket;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.IOException;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import amesmarket.extern.WorkDir;
+import amesmarket.extern.psst.DataFileWriter;
+import amesmarket.extern.psst.PSSTConfig;
+
+/**
+ * Per-simulation working directories for the external solver files.
+ */
+public class WorkDirTest {
+
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+
+    @Test
+    public void testEachSimulationGetsItsOwnDirectory() throws Exception {
+        WorkDir a = WorkDir.create(tmp.getRoot(), false);
+        WorkDir b = WorkDir.create(tmp.getRoot(), false);
+
+        assertTrue(a.getDir().isDirectory());
+        assertFalse(a.getDir().equals(b.getDir()));
+        assertEquals(tmp.getRoot().getAbsoluteFile(), a.getDir().getParentFile());
+        assertEquals(new File(a.getDir(), "xfertoames.dat"), a.file("xfertoames.dat"));
+
+        new DataFileWriter(a.getScenarioDir()).writeScenarioStructures(2, new double[]{0.5, 0.5});
+        new DataFileWriter(b.getScenarioDir()).writeScenarioStructures(1, new double[]{1});
+        assertTrue(new File(a.getScenarioDir(), "ScenarioStructure.dat").isFile());
+        assertTrue(new File(b.getScenarioDir(), "ScenarioStructure.dat").isFile());
+
+        a.delete();
+        assertFalse(a.getDir().exists());
+        assertTrue(b.getDir().isDirectory());
+    }
+
+    @Test
+    public void testCloseDeletes() throws Exception {
+        WorkDir wd = WorkDir.create(tmp.getRoot(), true);
+        new DataFileWriter(wd.getScenarioDir()).writeScenarioStructures(1, new double[]{1});
+        assertFalse(wd.isKept());
+        wd.close();
+        assertFalse(wd.getDir().exists());
+        wd.close();
+    }
+
+    @Test
+    public void testKeep() throws Exception {
+        File root = tmp.newFolder("kept");
+        System.setProperty(WorkDir.WORK_DIR_PROPERTY, root.getPath());
+        System.setProperty(WorkDir.KEEP_PROPERTY, "true");
+        try {
+            WorkDir wd = WorkDir.create();
+            assertTrue(wd.isKept());
+            assertEquals(root.getAbsoluteFile(), wd.getDir().getParentFile());
+            wd.close();
+            assertTrue(wd.getDir().isDirectory());
+
+            System.clearProperty(WorkDir.KEEP_PROPERTY);
+            wd = WorkDir.create();
+            assertFalse(wd.isKept());
+            wd.close();
+            assertFalse(wd.getDir().exists());
+        } finally {
+            System.clearProperty(WorkDir.WORK_DIR_PROPERTY);
+            System.clearProperty(WorkDir.KEEP_PROPERTY);
+        }
+    }
+
+    @Test
+    public void testSolverRunsInWorkDir() throws IOException {
+        WorkDir wd = WorkDir.create(tmp.getRoot(), false);
+        PSSTConfig cfg = PSSTConfig.createDeterministicPSST(new File("ReferenceModel.py"),
+                new File(wd.getScenarioDir(), "ReferenceModel.dat"), wd.getDir());
+        assertEquals(wd.getDir(), cfg.getWorkDir());
+        assertEquals(wd.getDir(), cfg.createProcessBuilder().directory());
+    }
+
+    @Test
+    public void testMarketsHaveSeparateDirectories() {
+        AMESMarket a = new AMESMarket(true);
+        AMESMarket b = new AMESMarket(true);
+        assertSame(a.getWorkDir(), a.getWorkDir());
+        assertFalse(a.getWorkDir().getDir().equals(b.getWorkDir().getDir()));
+        a.getWorkDir().delete();
+        b.getWorkDir().delete();
+    }
+}
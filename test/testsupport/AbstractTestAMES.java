@@ -29,7 +29,6 @@ import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.PrintStream;
-import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Scanner;
@@ -219,7 +218,7 @@ public abstract class AbstractTestAMES {
     public void assertEqualSCED(AMESMarket expected, AMESMarket actual, double tol){
         //general places to store the elements we need to check between
         //the two versions.
-        ArrayList<int[]> expIA, actIA;
+        List<int[]> expIA, actIA;
         int numDays = expected.DAY_MAX;
 
         //check the hasSolutions
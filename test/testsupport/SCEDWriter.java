@@ -8,7 +8,6 @@ import java.io.BufferedWriter;
 import java.io.File;
 import java.io.FileWriter;
 import java.io.IOException;
-import java.util.ArrayList;
 import java.util.List;
 
 import amesmarket.AMESMarket;
@@ -77,7 +76,7 @@ public class SCEDWriter {
      * @param valList [in]
      * @param sb [out]
      */
-    void toString(ArrayList<double[][]> valList, StringBuilder sb) {
+    void toString(List<double[][]> valList, StringBuilder sb) {
         if(valList == null){
             sb.append("null");
             return;